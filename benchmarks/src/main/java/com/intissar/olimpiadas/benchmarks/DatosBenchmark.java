@@ -0,0 +1,113 @@
+package com.intissar.olimpiadas.benchmarks;
+
+import com.intissar.olimpiadas.dao.GeneradorSintetico;
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.EsquemaEmbebido;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datos de los benchmarks: los de GeneradorSintetico con una semilla fija, así que siempre son los mismos para un
+ * tamaño dado. La base de datos es la de configuration.properties del directorio donde se lanzan los benchmarks
+ * (olimpiadas_bench, o la embebida con motor=h2), que se vacía y se vuelve a rellenar si no tiene el tamaño pedido.
+ */
+public final class DatosBenchmark {
+    private static final String[] NOMBRES = {"Maria", "Jose", "Ana", "Juan", "Laura", "David", "Elena", "Carlos",
+            "Lucia", "Javier", "Marta", "Pablo", "Sara", "Daniel", "Paula", "Miguel", "Irene", "Alvaro", "Nerea",
+            "Iker", "Ainhoa", "Mikel", "Amaia", "Jon", "Leire", "Ander", "Olatz", "Unai", "Zoe", "Hugo"};
+    private static final String[] APELLIDOS = {"Garcia", "Fernandez", "Gonzalez", "Rodriguez", "Lopez", "Martinez",
+            "Sanchez", "Perez", "Gomez", "Martin", "Jimenez", "Ruiz", "Hernandez", "Diaz", "Moreno", "Alvarez",
+            "Romero", "Navarro", "Torres", "Dominguez", "Etxeberria", "Agirre", "Goikoetxea", "Urrutia", "Zubizarreta"};
+    private static final long SEMILLA = 42;
+
+    private DatosBenchmark() {
+    }
+
+    /**
+     * Deja en la base de datos el conjunto sintético con el número de participaciones pedido.
+     * Si ya lo tiene (de un benchmark anterior) no hace nada.
+     *
+     * @param participaciones número de participaciones
+     * @throws SQLException si falla la creación o la carga
+     */
+    public static void preparar(int participaciones) throws SQLException {
+        crearTablas();
+        if (contar("Participacion") == participaciones && contar("Deportista") == deportistas(participaciones)) {
+            return;
+        }
+        vaciar(); // los ids vuelven a empezar en 1
+        GeneradorSintetico.aBaseDeDatos(participaciones, SEMILLA, false);
+    }
+
+    /**
+     * Nombres de deportistas sintéticos, para los benchmarks que no usan la base de datos
+     *
+     * @param cantidad número de nombres
+     * @return nombres, siempre los mismos para una cantidad dada
+     */
+    public static List<String> nombres(int cantidad) {
+        return nombres(cantidad, new Random(SEMILLA));
+    }
+
+    /**
+     * @param participaciones número de participaciones del conjunto
+     * @return número de deportistas del conjunto
+     */
+    public static int deportistas(int participaciones) {
+        return GeneradorSintetico.Escala.de(participaciones).deportistas();
+    }
+
+    private static List<String> nombres(int cantidad, Random random) {
+        List<String> nombres = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            nombres.add(NOMBRES[random.nextInt(NOMBRES.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)]
+                    + " " + APELLIDOS[random.nextInt(APELLIDOS.length)]);
+        }
+        return nombres;
+    }
+
+    private static int contar(String tabla) throws SQLException {
+        try (DBConnect db = new DBConnect();
+             Statement stmt = db.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM " + tabla)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void vaciar() throws SQLException {
+        try (DBConnect db = new DBConnect();
+             Statement stmt = db.getConnection().createStatement()) {
+            if (DBConnect.esEmbebida()) {
+                stmt.execute("SET REFERENTIAL_INTEGRITY FALSE");
+                for (String tabla : new String[]{"Participacion", "Evento", "Deportista", "Equipo", "Olimpiada", "Deporte"}) {
+                    stmt.execute("TRUNCATE TABLE " + tabla + " RESTART IDENTITY");
+                }
+                stmt.execute("SET REFERENTIAL_INTEGRITY TRUE");
+                return;
+            }
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            for (String tabla : new String[]{"Participacion", "Evento", "Deportista", "Equipo", "Olimpiada", "Deporte"}) {
+                stmt.execute("TRUNCATE TABLE " + tabla);
+            }
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+        }
+    }
+
+    /**
+     * Crea las tablas de olimpiadas.sql (con sus índices) si la base de datos está vacía.
+     * En la base de datos embebida ya las crea el pool al abrirla.
+     */
+    private static void crearTablas() throws SQLException {
+        if (DBConnect.esEmbebida()) {
+            return;
+        }
+        try (DBConnect db = new DBConnect()) {
+            EsquemaEmbebido.crearTablas(db.getConnection());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.intissar.olimpiadas.benchmarks;
+
+import com.intissar.olimpiadas.dao.DaoDeportista;
+import com.intissar.olimpiadas.db.ConnectionPool;
+import com.intissar.olimpiadas.model.Deportista;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectura de un deportista por id (con su foto), como al abrir la ventana de edición.
+ * Los ids son aleatorios para no medir solo la caché de la base de datos sobre una fila.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeportistaBenchmark {
+    @Param({"10000", "100000"})
+    public int participaciones;
+
+    private int deportistas;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        DatosBenchmark.preparar(participaciones);
+        deportistas = DatosBenchmark.deportistas(participaciones);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        ConnectionPool.shutdownInstance();
+    }
+
+    @Benchmark
+    public Deportista getDeportista() {
+        return DaoDeportista.getDeportista(1 + random.nextInt(deportistas));
+    }
+}
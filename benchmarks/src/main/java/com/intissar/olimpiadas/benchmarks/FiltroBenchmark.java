@@ -0,0 +1,101 @@
+package com.intissar.olimpiadas.benchmarks;
+
+import com.intissar.olimpiadas.busqueda.FiltroParticipacion;
+import com.intissar.olimpiadas.busqueda.IndiceNombres;
+import com.intissar.olimpiadas.model.Deporte;
+import com.intissar.olimpiadas.model.Deportista;
+import com.intissar.olimpiadas.model.Equipo;
+import com.intissar.olimpiadas.model.Evento;
+import com.intissar.olimpiadas.model.Olimpiada;
+import com.intissar.olimpiadas.model.Participacion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Filtrado en memoria de la ventana principal, sin base de datos: el índice de trigramas de los nombres
+ * (escribiendo letra a letra y con consultas que no se apoyan en la anterior) y el filtro de participaciones.
+ * Se mide el predicado aplicado a toda la lista, que es lo que hace FilteredList en cada pulsación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FiltroBenchmark {
+    private static final String[] ESCRITURA = {"m", "ma", "mar", "mart", "marti", "martin"};
+    private static final String[] SUELTAS = {"garcia", "nerea", "urru", "lopez m", "iker"};
+
+    @Param({"10000", "100000", "1000000"})
+    public int filas;
+
+    private List<Deportista> deportistas;
+    private IndiceNombres<Deportista> indice;
+    private List<Participacion> participaciones;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        List<String> nombres = DatosBenchmark.nombres(filas);
+        deportistas = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            deportistas.add(new Deportista(i + 1, nombres.get(i), i % 2 == 0 ? 'M' : 'F', 70, 175));
+        }
+        indice = new IndiceNombres<>(deportistas, Deportista::getNombre);
+
+        Olimpiada olimpiada = new Olimpiada(1, "2016 Summer", 2016, "Summer", "Rio de Janeiro");
+        List<Evento> eventos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            eventos.add(new Evento(i + 1, "Evento " + (i + 1), olimpiada, new Deporte(i % 10 + 1, "Deporte " + (i % 10 + 1))));
+        }
+        Equipo equipo = new Equipo(1, "Spain", "ESP");
+        participaciones = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            participaciones.add(new Participacion(deportistas.get(i), eventos.get(i % eventos.size()), equipo, 25, i % 7 == 0 ? "Gold" : "NA"));
+        }
+    }
+
+    @Benchmark
+    public void escritura(Blackhole bh) {
+        for (String consulta : ESCRITURA) {
+            filtrar(indice.predicado(consulta), deportistas, bh);
+        }
+    }
+
+    @Benchmark
+    public void consultasSueltas(Blackhole bh) {
+        String consulta = SUELTAS[siguiente++ % SUELTAS.length];
+        filtrar(indice.predicado(consulta), deportistas, bh);
+    }
+
+    @Benchmark
+    public void participaciones(Blackhole bh) {
+        filtrar(new FiltroParticipacion("mar", "", "", "gold").predicado(), participaciones, bh);
+    }
+
+    private static <T> void filtrar(Predicate<T> predicado, List<T> lista, Blackhole bh) {
+        int coincidencias = 0;
+        for (T elemento : lista) {
+            if (predicado.test(elemento)) {
+                coincidencias++;
+            }
+        }
+        bh.consume(coincidencias);
+    }
+}
@@ -0,0 +1,80 @@
+package com.intissar.olimpiadas.benchmarks;
+
+import com.intissar.olimpiadas.dao.DaoDeportista;
+import com.intissar.olimpiadas.db.ConnectionPool;
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.model.Deportista;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserción de deportistas de uno en uno frente a insertarTodos en lotes, en tiempo por fila, según el tamaño de la
+ * tabla (los índices de Deportista crecen con ella).
+ * Las filas añadidas se borran al terminar para no cambiar el conjunto de los demás benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsercionBenchmark {
+    private static final int LOTE = 100;
+
+    @Param({"1000", "10000", "100000"})
+    public int participaciones;
+
+    private int ultimoId; // último deportista del conjunto sintético
+    private List<Deportista> lote;
+    private int contador;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        DatosBenchmark.preparar(participaciones);
+        ultimoId = DatosBenchmark.deportistas(participaciones);
+        lote = new ArrayList<>(LOTE);
+        List<String> nombres = DatosBenchmark.nombres(LOTE);
+        for (String nombre : nombres) {
+            lote.add(new Deportista(0, nombre, 'F', 60, 170));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void borrar() throws SQLException {
+        try (DBConnect db = new DBConnect();
+             PreparedStatement pstmt = db.getConnection().prepareStatement("DELETE FROM Deportista WHERE id_deportista > ?")) {
+            pstmt.setInt(1, ultimoId);
+            pstmt.executeUpdate();
+        }
+        ConnectionPool.shutdownInstance();
+    }
+
+    @Benchmark
+    public int insertar() {
+        return DaoDeportista.insertar(new Deportista(0, "Deportista " + contador++, 'M', 70, 180));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public int[] insertarTodos() {
+        return DaoDeportista.insertarTodos(lote);
+    }
+}
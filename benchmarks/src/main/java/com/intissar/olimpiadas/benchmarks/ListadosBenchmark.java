@@ -0,0 +1,59 @@
+package com.intissar.olimpiadas.benchmarks;
+
+import com.intissar.olimpiadas.dao.DaoEvento;
+import com.intissar.olimpiadas.dao.DaoParticipacion;
+import com.intissar.olimpiadas.db.ConnectionPool;
+import com.intissar.olimpiadas.model.Evento;
+import com.intissar.olimpiadas.model.Participacion;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga completa de las tablas que más crecen (participaciones con sus JOIN y eventos), que es lo que hace la
+ * ventana principal al cambiar de tabla cuando no se pagina.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListadosBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int participaciones;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        DatosBenchmark.preparar(participaciones);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        ConnectionPool.shutdownInstance();
+    }
+
+    @Benchmark
+    public ObservableList<Participacion> participaciones() {
+        return DaoParticipacion.cargarListado();
+    }
+
+    @Benchmark
+    public ObservableList<Evento> eventos() {
+        return DaoEvento.cargarListado();
+    }
+}
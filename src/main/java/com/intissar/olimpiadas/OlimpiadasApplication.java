@@ -1,7 +1,10 @@
 package com.intissar.olimpiadas;
 
-import com.intissar.olimpiadas.db.DBConnect; // Asegúrate de importar la clase DBConnect
+import com.intissar.olimpiadas.db.ConnectionPool;
+import com.intissar.olimpiadas.db.MetricasJdbc;
 import com.intissar.olimpiadas.language.LanguageManager;
+import com.intissar.olimpiadas.servicios.ServicioCarga;
+import com.intissar.olimpiadas.servicios.VigilanteFx;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -9,7 +12,6 @@ import javafx.scene.image.Image;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Locale;
 import java.util.Objects;
@@ -52,19 +54,30 @@ public class OlimpiadasApplication extends Application {
         stage.setMinWidth(550);
         stage.setMinHeight(300);
         stage.show(); // Mostrar la ventana
+        VigilanteFx.iniciar(); // Medir los bloqueos del hilo de JavaFX, si se ha activado con vigilante.umbral
 
         // Conectar a la base de datos
         try {
-            DBConnect dbConnect = new DBConnect(); // Crear una nueva instancia de conexión a la base de datos
-            Connection connection = dbConnect.getConnection(); // Obtener la conexión
+            ConnectionPool.getInstance(); // Crear el pool y abrir sus conexiones mínimas, sin pedir ninguna
             System.out.println("Conexión a la base de datos establecida con éxito.");
-
-            // dbConnect.closeConnection();
         } catch (SQLException e) {
             System.err.println("Error al conectar a la base de datos: " + e.getMessage()); // Manejo de errores de conexión
         }
     }
 
+    /**
+     * Método que se llama al cerrar la aplicación.
+     * Detiene las cargas en segundo plano, guarda las métricas de SQL y el informe de bloqueos del hilo de JavaFX
+     * (si se han configurado metricas.fichero y vigilante.fichero) y cierra las conexiones del pool de la base de datos.
+     */
+    @Override
+    public void stop() {
+        ServicioCarga.shutdown();
+        VigilanteFx.detener();
+        MetricasJdbc.volcarAlSalir();
+        ConnectionPool.shutdownInstance();
+    }
+
     /**
      * Método principal que lanza la aplicación.
      *
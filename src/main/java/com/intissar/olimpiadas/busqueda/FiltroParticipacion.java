@@ -0,0 +1,78 @@
+package com.intissar.olimpiadas.busqueda;
+
+import com.intissar.olimpiadas.model.Participacion;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Filtro de participaciones por deportista, evento, equipo y medalla.
+ * Cada campo filtra por el comienzo del texto sin distinguir mayúsculas ni acentos, igual que
+ * LIKE 'texto%' en MySQL, de forma que en la base de datos se pueden usar los índices de los nombres.
+ * Los campos vacíos no filtran.
+ *
+ * @param deportista comienzo del nombre del deportista
+ * @param evento     comienzo del nombre del evento
+ * @param equipo     comienzo del nombre del equipo
+ * @param medalla    comienzo de la medalla
+ */
+public record FiltroParticipacion(String deportista, String evento, String equipo, String medalla) {
+    /**
+     * Filtro que no descarta ninguna participación
+     */
+    public static final FiltroParticipacion VACIO = new FiltroParticipacion("", "", "", "");
+
+    /**
+     * Constructor que normaliza los campos (null pasa a vacío y se quitan los espacios de los extremos)
+     */
+    public FiltroParticipacion {
+        deportista = limpiar(deportista);
+        evento = limpiar(evento);
+        equipo = limpiar(equipo);
+        medalla = limpiar(medalla);
+    }
+
+    /**
+     * @return true si ningún campo filtra
+     */
+    public boolean isVacio() {
+        return deportista.isEmpty() && evento.isEmpty() && equipo.isEmpty() && medalla.isEmpty();
+    }
+
+    /**
+     * Devuelve un predicado para filtrar en memoria, o null si el filtro está vacío.
+     * Cada deportista, evento o equipo se normaliza una sola vez, ya que las participaciones comparten sus instancias.
+     *
+     * @return predicado para FilteredList
+     */
+    public Predicate<Participacion> predicado() {
+        if (isVacio()) {
+            return null;
+        }
+        String pDeportista = IndiceNombres.normalizar(deportista);
+        String pEvento = IndiceNombres.normalizar(evento);
+        String pEquipo = IndiceNombres.normalizar(equipo);
+        String pMedalla = IndiceNombres.normalizar(medalla);
+        Map<Object, String> normalizados = new IdentityHashMap<>();
+        return participacion ->
+                empieza(normalizados, participacion.getDeportista(), participacion.getDeportista().getNombre(), pDeportista)
+                        && empieza(normalizados, participacion.getEvento(), participacion.getEvento().getNombre(), pEvento)
+                        && empieza(normalizados, participacion.getEquipo(), participacion.getEquipo().getNombre(), pEquipo)
+                        && (pMedalla.isEmpty() || IndiceNombres.normalizar(participacion.getMedalla()).startsWith(pMedalla));
+    }
+
+    /**
+     * Comprueba si el nombre normalizado de un objeto empieza por el prefijo
+     */
+    private static boolean empieza(Map<Object, String> normalizados, Object objeto, String nombre, String prefijo) {
+        if (prefijo.isEmpty()) {
+            return true;
+        }
+        return normalizados.computeIfAbsent(objeto, o -> IndiceNombres.normalizar(nombre)).startsWith(prefijo);
+    }
+
+    private static String limpiar(String texto) {
+        return texto == null ? "" : texto.strip();
+    }
+}
@@ -0,0 +1,265 @@
+package com.intissar.olimpiadas.busqueda;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de búsqueda por nombre sobre una lista de objetos.
+ * Los nombres se normalizan una sola vez (minúsculas y sin acentos) y se indexan por trigramas,
+ * de forma que cada búsqueda solo compara los nombres que contienen todos los trigramas de la consulta.
+ * Si la nueva consulta contiene a la anterior (el usuario sigue escribiendo) solo se revisan
+ * los resultados anteriores.
+ *
+ * Se pueden añadir, reemplazar y quitar objetos sin reconstruirlo (cuando se edita una fila de la tabla).
+ *
+ * El índice no es seguro entre hilos: se construye en cualquier hilo y después se usa solo desde uno.
+ *
+ * @param <T> tipo de los objetos indexados
+ */
+public class IndiceNombres<T> {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final int[] VACIO = new int[0];
+
+    private final Function<T, String> nombre;
+    private String[] nombres; // nombres normalizados, en el orden de la lista original y después los añadidos
+    private int cantidad; // posiciones usadas de nombres
+    private final Map<T, Integer> posiciones = new IdentityHashMap<>();
+    private final Map<Long, int[]> trigramas = new HashMap<>();
+
+    private String ultimaConsulta; // última consulta normalizada
+    private int[] ultimoResultado; // posiciones que coincidían con ultimaConsulta
+
+    /**
+     * Construye el índice
+     *
+     * @param elementos objetos a indexar
+     * @param nombre    función que devuelve el nombre de cada objeto
+     */
+    public IndiceNombres(List<? extends T> elementos, Function<T, String> nombre) {
+        this.nombre = nombre;
+        nombres = new String[elementos.size()];
+        cantidad = nombres.length;
+        Map<Long, int[]> listas = new HashMap<>(); // posiciones por trigrama, con la longitud usada en [0]
+        for (int i = 0; i < nombres.length; i++) {
+            T elemento = elementos.get(i);
+            posiciones.put(elemento, i);
+            String normalizado = normalizar(nombre.apply(elemento));
+            nombres[i] = normalizado;
+            for (int j = 0; j + 3 <= normalizado.length(); j++) {
+                long clave = trigrama(normalizado, j);
+                int[] lista = listas.get(clave);
+                if (lista == null) {
+                    lista = new int[5];
+                    listas.put(clave, lista);
+                }
+                int usados = lista[0];
+                if (usados > 0 && lista[usados] == i) {
+                    continue; // trigrama repetido en el mismo nombre
+                }
+                if (usados + 1 == lista.length) {
+                    lista = Arrays.copyOf(lista, lista.length * 2);
+                    listas.put(clave, lista);
+                }
+                lista[usados + 1] = i;
+                lista[0] = usados + 1;
+            }
+        }
+        for (Map.Entry<Long, int[]> entrada : listas.entrySet()) {
+            int[] lista = entrada.getValue();
+            trigramas.put(entrada.getKey(), Arrays.copyOfRange(lista, 1, lista[0] + 1));
+        }
+    }
+
+    /**
+     * Añade un objeto al final del índice
+     *
+     * @param elemento objeto nuevo
+     */
+    public void agregar(T elemento) {
+        if (cantidad == nombres.length) {
+            nombres = Arrays.copyOf(nombres, Math.max(16, cantidad * 2));
+        }
+        int posicion = cantidad++;
+        posiciones.put(elemento, posicion);
+        String normalizado = normalizar(nombre.apply(elemento));
+        nombres[posicion] = normalizado;
+        for (int j = 0; j + 3 <= normalizado.length(); j++) {
+            long clave = trigrama(normalizado, j);
+            int[] lista = trigramas.get(clave);
+            if (lista == null) {
+                trigramas.put(clave, new int[]{posicion});
+            } else if (lista[lista.length - 1] != posicion) { // trigrama repetido en el mismo nombre
+                int[] ampliada = Arrays.copyOf(lista, lista.length + 1);
+                ampliada[lista.length] = posicion; // la posición es la mayor, la lista sigue ordenada
+                trigramas.put(clave, ampliada);
+            }
+        }
+        olvidarUltimaConsulta();
+    }
+
+    /**
+     * Quita un objeto del índice. Su posición queda vacía: las listas de trigramas pueden seguir
+     * apuntando a ella, pero un nombre vacío no contiene ninguna consulta.
+     *
+     * @param elemento objeto indexado
+     */
+    public void quitar(T elemento) {
+        Integer posicion = posiciones.remove(elemento);
+        if (posicion != null) {
+            nombres[posicion] = "";
+            olvidarUltimaConsulta();
+        }
+    }
+
+    /**
+     * Cambia un objeto por su nueva versión, que se indexa con su nombre nuevo
+     *
+     * @param anterior objeto indexado
+     * @param nuevo    objeto que lo sustituye
+     */
+    public void reemplazar(T anterior, T nuevo) {
+        quitar(anterior);
+        agregar(nuevo);
+    }
+
+    /**
+     * Los resultados de la última consulta ya no sirven para acotar la siguiente
+     */
+    private void olvidarUltimaConsulta() {
+        ultimaConsulta = null;
+        ultimoResultado = null;
+    }
+
+    /**
+     * Normaliza un texto para buscar: minúsculas y sin acentos ni diacríticos
+     *
+     * @param texto texto original
+     * @return texto normalizado ("" si es null)
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Devuelve un predicado para FilteredList con los objetos cuyo nombre contiene la consulta
+     *
+     * @param consulta texto escrito por el usuario
+     * @return predicado, o null si la consulta está vacía (sin filtro)
+     */
+    public Predicate<T> predicado(String consulta) {
+        String normalizada = normalizar(consulta);
+        if (normalizada.isEmpty()) {
+            ultimaConsulta = null;
+            ultimoResultado = null;
+            return null;
+        }
+        BitSet coincidencias = new BitSet(cantidad);
+        for (int posicion : buscar(normalizada)) {
+            coincidencias.set(posicion);
+        }
+        return elemento -> {
+            Integer posicion = posiciones.get(elemento);
+            return posicion != null && coincidencias.get(posicion);
+        };
+    }
+
+    /**
+     * Busca las posiciones cuyo nombre contiene la consulta ya normalizada
+     *
+     * @param consulta consulta normalizada y no vacía
+     * @return posiciones en orden ascendente
+     */
+    int[] buscar(String consulta) {
+        int[] candidatos;
+        if (ultimaConsulta != null && consulta.contains(ultimaConsulta)) {
+            candidatos = ultimoResultado; // la consulta se ha ampliado: solo pueden coincidir los anteriores
+        } else if (consulta.length() >= 3) {
+            candidatos = candidatosPorTrigramas(consulta);
+        } else {
+            candidatos = null; // consulta demasiado corta para el índice, se revisan todos
+        }
+
+        int[] resultado = new int[candidatos == null ? cantidad : candidatos.length];
+        int n = 0;
+        if (candidatos == null) {
+            for (int i = 0; i < cantidad; i++) {
+                if (nombres[i].contains(consulta)) {
+                    resultado[n++] = i;
+                }
+            }
+        } else {
+            for (int i : candidatos) {
+                if (nombres[i].contains(consulta)) {
+                    resultado[n++] = i;
+                }
+            }
+        }
+        resultado = Arrays.copyOf(resultado, n);
+        ultimaConsulta = consulta;
+        ultimoResultado = resultado;
+        return resultado;
+    }
+
+    /**
+     * Intersección de las listas de los trigramas de la consulta
+     *
+     * @param consulta consulta normalizada de al menos 3 caracteres
+     * @return posiciones que contienen todos los trigramas
+     */
+    private int[] candidatosPorTrigramas(String consulta) {
+        int[][] listas = new int[consulta.length() - 2][];
+        for (int j = 0; j < listas.length; j++) {
+            int[] lista = trigramas.get(trigrama(consulta, j));
+            if (lista == null) {
+                return VACIO; // ningún nombre tiene este trigrama
+            }
+            listas[j] = lista;
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.length, b.length)); // empezar por la más corta
+        int[] actual = listas[0];
+        for (int j = 1; j < listas.length && actual.length > 0; j++) {
+            actual = interseccion(actual, listas[j]);
+        }
+        return actual;
+    }
+
+    /**
+     * Intersección de dos listas ordenadas
+     */
+    private static int[] interseccion(int[] a, int[] b) {
+        int[] resultado = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                resultado[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(resultado, n);
+    }
+
+    /**
+     * Codifica los tres caracteres que empiezan en la posición indicada
+     */
+    private static long trigrama(String texto, int desde) {
+        return ((long) texto.charAt(desde) << 32) | ((long) texto.charAt(desde + 1) << 16) | texto.charAt(desde + 2);
+    }
+}
@@ -2,8 +2,8 @@ package com.intissar.olimpiadas.controladores;
 
 import com.intissar.olimpiadas.dao.DaoDeporte;
 import com.intissar.olimpiadas.model.Deporte;
+import com.intissar.olimpiadas.servicios.ServicioCarga;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -13,6 +13,8 @@ import javafx.stage.Stage;
 import java.net.URL;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
 
 /**
  * Controlador para la gestión de deportes en la aplicación de olimpiadas.
@@ -21,6 +23,8 @@ import java.util.ResourceBundle;
 public class DeportesController implements Initializable {
     private Deporte deporte; // Deporte seleccionado actualmente
     private Deporte crear; // Objeto para crear un nuevo deporte
+    private Predicate<Deporte> eliminables; // Deportes que se pueden eliminar, null mientras se calcula
+    private boolean escribiendo; // true mientras se escribe en segundo plano, para no escribir dos veces
 
     @FXML // Elemento de la interfaz para eliminar un deporte
     private Button btnEliminar;
@@ -55,13 +59,36 @@ public class DeportesController implements Initializable {
 
     /**
      * Carga la lista de deportes en el ComboBox.
+     * La opción de crear está disponible al momento; los deportes se añaden cuando termina la carga en segundo plano.
      */
     public void cargarDeportes() {
         cbDeporte.getItems().clear(); // Limpia los elementos actuales del ComboBox
         cbDeporte.getItems().add(crear); // Agrega la opción para crear un nuevo deporte
-        ObservableList<Deporte> deportes = DaoDeporte.cargarListado(); // Carga la lista de deportes desde la base de datos
-        cbDeporte.getItems().addAll(deportes); // Agrega los deportes al ComboBox
         cbDeporte.getSelectionModel().select(0); // Selecciona el primer elemento por defecto
+        ServicioCarga.ejecutar(DaoDeporte::cargarListado, deportes -> { // Carga la lista de deportes desde la base de datos
+            cbDeporte.getItems().remove(1, cbDeporte.getItems().size()); // Descarta lo que haya dejado una carga anterior
+            cbDeporte.getItems().addAll(deportes); // Agrega los deportes al ComboBox
+        });
+        eliminables = null; // Pueden haber cambiado
+        ServicioCarga.ejecutar(DaoDeporte::eliminables, eliminables -> { // Calcula qué deportes se pueden eliminar en una sola consulta
+            this.eliminables = eliminables;
+            actualizarEliminar(); // Por si ya hay un deporte seleccionado
+        });
+    }
+
+    /**
+     * Habilita el botón de eliminar si el deporte seleccionado se puede eliminar.
+     * Mientras no se sabe qué deportes se pueden eliminar, el botón sigue deshabilitado.
+     */
+    private void actualizarEliminar() {
+        if (deporte == null || eliminables == null) {
+            btnEliminar.setDisable(true); // Sin selección o sin datos no se puede eliminar
+            lblDelete.setVisible(false);
+            return;
+        }
+        boolean eliminable = eliminables.test(deporte); // No consulta la base de datos
+        btnEliminar.setDisable(!eliminable);
+        lblDelete.setVisible(!eliminable);
     }
 
     /**
@@ -78,12 +105,7 @@ public class DeportesController implements Initializable {
             } else {
                 deporte = newValue; // Actualiza el deporte seleccionado
                 txtNombre.setText(deporte.getNombre()); // Muestra el nombre del deporte en el campo de texto
-                // Verifica si el deporte es eliminable
-                if (DaoDeporte.esEliminable(deporte)) {
-                    btnEliminar.setDisable(false); // Habilita el botón de eliminar si es eliminable
-                } else {
-                    lblDelete.setVisible(true); // Muestra la etiqueta de error si no es eliminable
-                }
+                actualizarEliminar(); // Verifica si el deporte es eliminable
             }
         }
     }
@@ -109,12 +131,8 @@ public class DeportesController implements Initializable {
         alert.setContentText(resources.getString("delete.sports.prompt")); // Mensaje de confirmación
         Optional<ButtonType> result = alert .showAndWait(); // Muestra el diálogo y espera la respuesta del usuario
         if (result.get() == ButtonType.OK) { // Si el usuario confirma la eliminación
-            if (DaoDeporte.eliminar(deporte)) { // Intenta eliminar el deporte
-                confirmacion(resources.getString("delete.sports.success")); // Muestra mensaje de éxito
-                cargarDeportes(); // Recarga la lista de deportes
-            } else {
-                alerta(resources.getString("delete.sports.fail")); // Muestra mensaje de error
-            }
+            Deporte seleccionado = deporte; // El de ahora, aunque la selección cambie mientras se escribe
+            escribir(() -> DaoDeporte.eliminar(seleccionado), resources.getString("delete.sports.success"), resources.getString("delete.sports.fail")); // Intenta eliminar en segundo plano
         }
     }
 
@@ -129,24 +147,42 @@ public class DeportesController implements Initializable {
             Deporte nuevo = new Deporte(); // Crea un nuevo objeto Deporte
             nuevo.setNombre(txtNombre.getText()); // Establece el nombre del deporte
             if (this.deporte == null) { // Si no hay deporte seleccionado, se crea uno nuevo
-                int id = DaoDeporte.insertar(nuevo); // Intenta insertar el nuevo deporte
-                if (id == -1) {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error
-                } else {
-                    confirmacion(resources.getString("save.sports")); // Muestra mensaje de éxito
-                    cargarDeportes(); // Recarga la lista de deportes
-                }
+                escribir(() -> DaoDeporte.insertar(nuevo) != -1, resources.getString("save.sports"), resources.getString("save.fail")); // Intenta insertar en segundo plano
             } else { // Si hay un deporte seleccionado, se actualiza
-                if (DaoDeporte.modificar(this.deporte, nuevo)) {
-                    confirmacion(resources.getString("update.sports")); // Muestra mensaje de éxito
-                    cargarDeportes(); // Recarga la lista de deportes
-                } else {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error
-                }
+                Deporte seleccionado = deporte; // El de ahora, aunque la selección cambie mientras se escribe
+                escribir(() -> DaoDeporte.modificar(seleccionado, nuevo), resources.getString("update.sports"), resources.getString("save.fail")); // Intenta modificar en segundo plano
             }
         }
     }
 
+    /**
+     * Escribe en la base de datos en segundo plano y, al terminar, avisa del resultado y recarga los deportes.
+     * Mientras tanto no se lanza otra escritura.
+     *
+     * @param escritura Llamada al DAO, que devuelve si se ha hecho
+     * @param exito Mensaje si se ha hecho
+     * @param fallo Mensaje si no se ha hecho
+     */
+    private void escribir(Callable<Boolean> escritura, String exito, String fallo) {
+        if (escribiendo) {
+            return; // Ya hay una escritura en curso
+        }
+        escribiendo = true;
+        ServicioCarga.ejecutar(escritura, hecho -> {
+            escribiendo = false;
+            if (hecho) {
+                confirmacion(exito); // Muestra mensaje de éxito
+                cargarDeportes(); // Recarga la lista de deportes
+            } else {
+                alerta(fallo); // Muestra mensaje de error
+            }
+        }, error -> {
+            escribiendo = false;
+            System.err.println(error.getMessage());
+            alerta(fallo);
+        });
+    }
+
     /**
      * Muestra un mensaje de alerta con el texto proporcionado.
      */
@@ -1,7 +1,10 @@
 package com.intissar.olimpiadas.controladores;
 
+import com.intissar.olimpiadas.dao.AlmacenFotos;
 import com.intissar.olimpiadas.dao.DaoDeportista;
 import com.intissar.olimpiadas.model.Deportista;
+import com.intissar.olimpiadas.servicios.ServicioCarga;
+import com.intissar.olimpiadas.servicios.ServicioFotos;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -12,12 +15,8 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
 import java.sql.Blob;
-import java.sql.SQLException;
 import java.util.ResourceBundle;
 
 /**
@@ -27,6 +26,10 @@ import java.util.ResourceBundle;
 public class DeportistaController implements Initializable {
     private Deportista deportista; // Deportista que se está editando o creando
     private Blob imagen; // Imagen del deportista
+    private boolean imagenModificada; // true si el usuario ha seleccionado o borrado la foto
+    private boolean imagenCargada; // true cuando la foto del deportista ya se ha leído de la base de datos
+    private Deportista guardado; // Deportista tal como ha quedado en la base de datos, null hasta que se guarda
+    private boolean guardando; // true mientras se guarda en segundo plano, para no guardar dos veces
 
     @FXML
     private ImageView foto; // Vista de la imagen del deportista
@@ -91,16 +94,46 @@ public class DeportistaController implements Initializable {
             }
             txtPeso.setText(String.valueOf(deportista.getPeso()));
             txtAltura.setText(String.valueOf(deportista.getAltura()));
-            if (deportista.getFoto() != null) {
-                this.imagen = deportista.getFoto(); // Carga la foto del deportista
-                try {
-                    InputStream imagenStream = deportista.getFoto().getBinaryStream();
-                    foto.setImage(new Image(imagenStream)); // Muestra la imagen en la vista
-                } catch (SQLException e) {
-                    throw new RuntimeException(e); // Manejo de excepciones
-                }
-                btnFotoBorrar.setDisable(false); // Habilita el botón de borrar foto
+            // Muestra la miniatura de la última vez mientras se comprueba en segundo plano si la foto ha cambiado
+            Image anterior = ServicioFotos.enMemoria(deportista.getId_deportista());
+            if (anterior != null) {
+                foto.setImage(anterior);
+                btnFotoBorrar.setDisable(false);
             }
+            // Pide la foto solo al abrir el deportista, y la decodifica en segundo plano
+            ServicioFotos.cargar(deportista, this::mostrarFotoCargada);
+        }
+    }
+
+    /**
+     * Muestra la foto del deportista cuando termina de cargarse. El diálogo guarda la foto en imagen; el deportista de
+     * la tabla no se modifica. Si no se ha podido leer, no se llama e imagenCargada sigue a false.
+     * Si solo llega la miniatura guardada, la foto no se ha leído: imagenCargada también sigue a false y al guardar se
+     * conserva la de la base de datos. Si el usuario ya ha cambiado o borrado la foto mientras tanto, se ignora.
+     *
+     * @param fotoDeportista foto cargada, con su miniatura
+     */
+    private void mostrarFotoCargada(ServicioFotos.Foto fotoDeportista) {
+        if (imagenModificada) {
+            return;
+        }
+        if (fotoDeportista.blob() == null && fotoDeportista.miniatura() != null) {
+            foto.setImage(fotoDeportista.miniatura()); // Muestra la miniatura guardada de la foto
+            btnFotoBorrar.setDisable(false);
+            return;
+        }
+        this.imagenCargada = true;
+        if (fotoDeportista.blob() != null) {
+            this.imagen = fotoDeportista.blob(); // Carga la foto del deportista
+            if (fotoDeportista.miniatura() != null) {
+                foto.setImage(fotoDeportista.miniatura()); // Muestra la miniatura en la vista
+            }
+            btnFotoBorrar.setDisable(false); // Habilita el botón de borrar foto
+        } else if (ServicioFotos.enMemoria(deportista.getId_deportista()) != null) {
+            // La foto que se mostraba de la última vez ya no existe
+            ServicioFotos.olvidar(deportista.getId_deportista());
+            foto.setImage(new Image(getClass().getResourceAsStream("/images/deportista.png")));
+            btnFotoBorrar.setDisable(true);
         }
     }
 
@@ -110,6 +143,7 @@ public class DeportistaController implements Initializable {
     @FXML
     void borrarFoto(ActionEvent event) {
         imagen = null; // Establece la imagen como nula
+        imagenModificada = true;
         foto.setImage(new Image(getClass().getResourceAsStream("/images/deportista.png"))); // Muestra imagen por defecto
         btnFotoBorrar.setDisable(true); // Desactiva el botón de borrar foto
     }
@@ -125,9 +159,13 @@ public class DeportistaController implements Initializable {
 
     /**
      * Guarda un nuevo deportista o actualiza uno existente.
+     * La escritura se hace en segundo plano y la ventana se cierra cuando termina.
      */
     @FXML
     void guardar(ActionEvent event) {
+        if (guardando) {
+            return; // Ya se está guardando
+        }
         String error = validar(); // Valida los datos ingresados
         if (!error.isEmpty()) {
             alerta(error); // Muestra mensaje de error si hay problemas de validación
@@ -140,29 +178,73 @@ public class DeportistaController implements Initializable {
 
             nuevo.setPeso(Integer.parseInt(txtPeso.getText())); // Establece el peso del deportista
             nuevo.setAltura(Integer.parseInt(txtAltura.getText())); // Establece la altura del deportista
-            nuevo.setFoto(this.imagen); // Establece la foto del deportista
+            if (this.deportista == null || this.imagenCargada || this.imagenModificada) {
+                nuevo.setFoto(this.imagen); // Establece la foto del deportista
+            } // Si no se pudo cargar la foto y no se ha cambiado, se conserva la de la base de datos
 
+            guardando = true;
             if (this.deportista == null) { // Si no hay deportista seleccionado, se crea uno nuevo
-                int id = DaoDeportista.insertar(nuevo); // Intenta insertar el nuevo deportista
-                if (id == -1) {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error
-                } else {
-                    confirmacion(resources.getString("save.athlete")); // Muestra mensaje de éxito
-                    Stage stage = (Stage) txtNombre.getScene().getWindow(); // Cierra la ventana
-                    stage.close();
-                }
+                ServicioCarga.ejecutar(() -> DaoDeportista.insertar(nuevo), id -> { // Intenta insertar el nuevo deportista
+                    guardando = false;
+                    if (id == -1) {
+                        alerta(resources.getString("save.fail")); // Muestra mensaje de error
+                    } else {
+                        this.guardado = filaTabla(id, nuevo); // La tabla añade solo esta fila
+                        confirmacion(resources.getString("save.athlete")); // Muestra mensaje de éxito
+                        Stage stage = (Stage) txtNombre.getScene().getWindow(); // Cierra la ventana
+                        stage.close();
+                    }
+                }, this::falloGuardar);
             } else { // Si hay un deportista seleccionado, se actualiza
-                if (DaoDeportista.modificar(this.deportista, nuevo)) {
-                    confirmacion(resources.getString("update.athlete")); // Muestra mensaje de éxito
-                    Stage stage = (Stage) txtNombre.getScene().getWindow(); // Cierra la ventana
-                    stage.close();
-                } else {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error
-                }
+                ServicioCarga.ejecutar(() -> DaoDeportista.modificar(this.deportista, nuevo), modificado -> {
+                    guardando = false;
+                    if (modificado) {
+                        if (this.imagenModificada) {
+                            ServicioFotos.olvidar(this.deportista.getId_deportista()); // La miniatura en memoria es de la foto anterior
+                        }
+                        this.guardado = filaTabla(this.deportista.getId_deportista(), nuevo); // La tabla reemplaza solo esta fila
+                        confirmacion(resources.getString("update.athlete")); // Muestra mensaje de éxito
+                        Stage stage = (Stage) txtNombre.getScene().getWindow(); // Cierra la ventana
+                        stage.close();
+                    } else {
+                        alerta(resources.getString("save.fail")); // Muestra mensaje de error
+                    }
+                }, this::falloGuardar);
             }
         }
     }
 
+    /**
+     * Crea el deportista que se muestra en la tabla, sin foto como los de los listados.
+     *
+     * @param id    ID del deportista en la base de datos.
+     * @param datos Datos guardados.
+     * @return Deportista sin foto.
+     */
+    private static Deportista filaTabla(int id, Deportista datos) {
+        return new Deportista(id, datos.getNombre(), datos.getSexo(), datos.getPeso(), datos.getAltura());
+    }
+
+    /**
+     * Devuelve el deportista guardado al cerrar la ventana.
+     *
+     * @return Deportista creado o modificado (sin foto), o null si se ha cancelado.
+     */
+    public Deportista getGuardado() {
+        return guardado;
+    }
+
+    /**
+     * Muestra el error de un guardado en segundo plano que no ha llegado a terminar.
+     *
+     * @param error Excepción del guardado.
+     */
+    private void falloGuardar(Throwable error) {
+        guardando = false;
+        System.err.println(error.getMessage());
+        alerta(resources.getString("save.fail")); // Muestra mensaje de error
+    }
+
     /**
      * Valida los datos ingresados por el usuario.
      *
@@ -205,19 +287,17 @@ public class DeportistaController implements Initializable {
         fileChooser.setInitialDirectory(new File(".")); // Establece el directorio inicial
         File file = fileChooser.showOpenDialog(null); // Muestra el selector y espera la selección
         if (file != null) {
-            try {
-                double kbs = (double) file.length() / 1024; // Calcula el tamaño del archivo en KB
-                if (kbs > 64) {
-                    alerta(resources.getString("athlete.photo.chooser.size")); // Mensaje de error si el archivo es demasiado grande
-                } else {
-                    InputStream imagenStream = new FileInputStream(file); // Crea un flujo de entrada para la imagen
-                    Blob blob = DaoDeportista.convertFileToBlob(file); // Convierte el archivo a un Blob
+            double kbs = (double) file.length() / 1024; // Calcula el tamaño del archivo en KB
+            if (kbs > 64 && !AlmacenFotos.activo()) { // La columna foto es un BLOB de 64 KB; el almacén en disco no tiene límite
+                alerta(resources.getString("athlete.photo.chooser.size")); // Mensaje de error si el archivo es demasiado grande
+            } else {
+                // Convierte el archivo a un Blob en segundo plano: sin el almacén pide una conexión y copia el archivo
+                ServicioCarga.ejecutar(() -> DaoDeportista.convertFileToBlob(file), blob -> {
                     this.imagen = blob; // Asigna el Blob a la variable de imagen
-                    foto.setImage(new Image(imagenStream)); // Muestra la imagen seleccionada en la vista
+                    this.imagenModificada = true;
+                    foto.setImage(ServicioFotos.desdeFichero(file.toPath())); // Muestra la imagen seleccionada, decodificada en segundo plano
                     btnFotoBorrar.setDisable(false); // Habilita el botón para borrar la foto
-                }
-            } catch (IOException | SQLException e) {
-                alerta(resources.getString("athlete.photo.chooser.fail")); // Muestra mensaje de error si hay problemas al cargar la imagen
+                }, e -> alerta(resources.getString("athlete.photo.chooser.fail"))); // Muestra mensaje de error si hay problemas al cargar la imagen
             }
         } else {
             System.out.println("Imagen no seleccionada"); // Mensaje en consola si no se selecciona ninguna imagen
@@ -2,8 +2,8 @@ package com.intissar.olimpiadas.controladores;
 
 import com.intissar.olimpiadas.dao.DaoEquipo;
 import com.intissar.olimpiadas.model.Equipo;
+import com.intissar.olimpiadas.servicios.ServicioCarga;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -13,6 +13,8 @@ import javafx.stage.Stage;
 import java.net.URL;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
 
 /**
  * Clase que controla los eventos de la ventana de gestión de equipos.
@@ -21,6 +23,8 @@ import java.util.ResourceBundle;
 public class EquiposController implements Initializable {
     private Equipo equipo; // Equipo seleccionado actualmente
     private Equipo crear; // Objeto para crear un nuevo equipo
+    private Predicate<Equipo> eliminables; // Equipos que se pueden eliminar, null mientras se calcula
+    private boolean escribiendo; // true mientras se escribe en segundo plano, para no escribir dos veces
 
     @FXML // fx:id="btnEliminar"
     private Button btnEliminar; // Botón para eliminar un equipo
@@ -65,9 +69,31 @@ public class EquiposController implements Initializable {
     public void cargarEquipos() {
         cbEquipo.getItems().clear(); // Limpia los elementos actuales del ComboBox
         cbEquipo.getItems().add(crear); // Agrega la opción para crear un nuevo equipo
-        ObservableList<Equipo> equipos = DaoEquipo.cargarListado(); // Carga la lista de equipos desde la base de datos
-        cbEquipo.getItems().addAll(equipos); // Agrega los equipos al ComboBox
         cbEquipo.getSelectionModel().select(0); // Selecciona el primer elemento por defecto
+        ServicioCarga.ejecutar(DaoEquipo::cargarListado, equipos -> { // Carga la lista de equipos desde la base de datos en segundo plano
+            cbEquipo.getItems().remove(1, cbEquipo.getItems().size()); // Descarta lo que haya dejado una carga anterior
+            cbEquipo.getItems().addAll(equipos); // Agrega los equipos al ComboBox
+        });
+        eliminables = null; // Pueden haber cambiado
+        ServicioCarga.ejecutar(DaoEquipo::eliminables, eliminables -> { // Calcula qué equipos se pueden eliminar en una sola consulta
+            this.eliminables = eliminables;
+            actualizarEliminar(); // Por si ya hay un equipo seleccionado
+        });
+    }
+
+    /**
+     * Habilita el botón de eliminar si el equipo seleccionado se puede eliminar.
+     * Mientras no se sabe qué equipos se pueden eliminar, el botón sigue deshabilitado.
+     */
+    private void actualizarEliminar() {
+        if (equipo == null || eliminables == null) {
+            btnEliminar.setDisable(true); // Sin selección o sin datos no se puede eliminar
+            lblDelete.setVisible(false);
+            return;
+        }
+        boolean eliminable = eliminables.test(equipo); // No consulta la base de datos
+        btnEliminar.setDisable(!eliminable);
+        lblDelete.setVisible(!eliminable);
     }
 
     /**
@@ -90,11 +116,7 @@ public class EquiposController implements Initializable {
                 equipo = newValue; // Actualiza el equipo seleccionado
                 txtNombre.setText(equipo.getNombre()); // Muestra el nombre del equipo en el campo de texto
                 txtIniciales.setText(equipo.getIniciales()); // Muestra las iniciales del equipo en el campo de texto
-                if (DaoEquipo.esEliminable(equipo)) {
-                    btnEliminar.setDisable(false); // Habilita el botón de eliminar si es eliminable
-                } else {
-                    lblDelete.setVisible(true); // Muestra la etiqueta de error si no es eliminable
-                }
+                actualizarEliminar(); // Verifica si el equipo es eliminable
             }
         }
     }
@@ -126,12 +148,8 @@ public class EquiposController implements Initializable {
         alert.setContentText(resources.getString("delete.teams.prompt")); // Mensaje de confirmación
         Optional<ButtonType> result = alert.showAndWait(); // Muestra el diálogo y espera la respuesta
         if (result.isPresent() && result.get() == ButtonType.OK) { // Si el usuario confirma
-            if (DaoEquipo.eliminar(equipo)) { // Intenta eliminar el equipo
-                confirmacion(resources.getString("delete.teams.success")); // Muestra mensaje de éxito
-                cargarEquipos(); // Recarga la lista de equipos
-            } else {
-                alerta(resources.getString("delete.teams.fail")); // Muestra mensaje de error
-            }
+            Equipo seleccionado = equipo; // El de ahora, aunque la selección cambie mientras se escribe
+            escribir(() -> DaoEquipo.eliminar(seleccionado), resources.getString("delete.teams.success"), resources.getString("delete.teams.fail")); // Intenta eliminar en segundo plano
         }
     }
 
@@ -159,24 +177,42 @@ public class EquiposController implements Initializable {
             nuevo.setNombre(txtNombre.getText()); // Establece el nombre del equipo
             nuevo.setIniciales(txtIniciales.getText()); // Establece las iniciales del equipo
             if (this.equipo == null) { // Si no hay equipo seleccionado, se crea uno nuevo
-                int id = DaoEquipo.insertar(nuevo); // Intenta insertar el nuevo equipo
-                if (id == -1) {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error
-                } else {
-                    confirmacion(resources.getString("save.teams")); // Muestra mensaje de éxito
-                    cargarEquipos(); // Recarga la lista de equipos
-                }
+                escribir(() -> DaoEquipo.insertar(nuevo) != -1, resources.getString("save.teams"), resources.getString("save.fail")); // Intenta insertar en segundo plano
             } else { // Si hay un equipo seleccionado, se actualiza
-                if (DaoEquipo.modificar(equipo, nuevo)) {
-                    confirmacion(resources.getString("update.teams")); // Muestra mensaje de éxito
-                    cargarEquipos(); // Recarga la lista de equipos
-                } else {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error
-                }
+                Equipo seleccionado = equipo; // El de ahora, aunque la selección cambie mientras se escribe
+                escribir(() -> DaoEquipo.modificar(seleccionado, nuevo), resources.getString("update.teams"), resources.getString("save.fail")); // Intenta modificar en segundo plano
             }
         }
     }
 
+    /**
+     * Escribe en la base de datos en segundo plano y, al terminar, avisa del resultado y recarga los equipos.
+     * Mientras tanto no se lanza otra escritura.
+     *
+     * @param escritura Llamada al DAO, que devuelve si se ha hecho
+     * @param exito Mensaje si se ha hecho
+     * @param fallo Mensaje si no se ha hecho
+     */
+    private void escribir(Callable<Boolean> escritura, String exito, String fallo) {
+        if (escribiendo) {
+            return; // Ya hay una escritura en curso
+        }
+        escribiendo = true;
+        ServicioCarga.ejecutar(escritura, hecho -> {
+            escribiendo = false;
+            if (hecho) {
+                confirmacion(exito); // Muestra mensaje de éxito
+                cargarEquipos(); // Recarga la lista de equipos
+            } else {
+                alerta(fallo); // Muestra mensaje de error
+            }
+        }, error -> {
+            escribiendo = false;
+            System.err.println(error.getMessage());
+            alerta(fallo);
+        });
+    }
+
     /**
      * Función que muestra un mensaje de alerta al usuario.
      *
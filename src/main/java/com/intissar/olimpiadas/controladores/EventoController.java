@@ -6,7 +6,7 @@ import com.intissar.olimpiadas.dao.DaoOlimpiada;
 import com.intissar.olimpiadas.model.Deporte;
 import com.intissar.olimpiadas.model.Evento;
 import com.intissar.olimpiadas.model.Olimpiada;
-import javafx.collections.ObservableList;
+import com.intissar.olimpiadas.servicios.ServicioCarga;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -24,6 +24,8 @@ import java.util.ResourceBundle;
  */
 public class EventoController implements Initializable {
     private Evento evento; // Evento que se está editando o creando
+    private Evento guardado; // Evento tal como ha quedado en la base de datos, null hasta que se guarda
+    private boolean guardando; // true mientras se guarda en segundo plano, para no guardar dos veces
 
     @FXML // fx:id="lstDeporte"
     private ListView<Deporte> lstDeporte; // Lista de deportes disponibles
@@ -63,23 +65,21 @@ public class EventoController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         this.resources = resourceBundle;
-        cargarListas(); // Carga las listas de olimpiadas y deportes
+        cargarListas(); // Carga las listas de olimpiadas y deportes (la selección se hace al terminar)
         if (this.evento != null) {
-            // Carga los datos del evento en los campos de texto y listas
+            // Carga los datos del evento en los campos de texto
             txtNombre.setText(evento.getNombre());
-            lstOlimpiada.getSelectionModel().select(evento.getOlimpiada());
-            lstDeporte.getSelectionModel().select(evento.getDeporte());
         }
     }
 
     /**
-     * Función que carga las listas de olimpiadas y deportes.
+     * Función que carga las listas de olimpiadas y deportes en segundo plano.
+     * Si se está editando un evento, su olimpiada y su deporte se seleccionan cuando termina cada carga.
      */
     public void cargarListas() {
-        ObservableList<Olimpiada> olimpiadas = DaoOlimpiada.cargarListado(); // Carga la lista de olimpiadas desde la base de datos
-        lstOlimpiada.getItems().addAll(olimpiadas); // Agrega las olimpiadas a la lista
-        ObservableList<Deporte> deportes = DaoDeporte.cargarListado(); // Carga la lista de deportes desde la base de datos
-        lstDeporte.getItems().addAll(deportes); // Agrega los deportes a la lista
+        boolean editando = evento != null;
+        ServicioCarga.cargarLista(lstOlimpiada, DaoOlimpiada::cargarListado, editando ? evento.getOlimpiada() : null); // Carga la lista de olimpiadas
+        ServicioCarga.cargarLista(lstDeporte, DaoDeporte::cargarListado, editando ? evento.getDeporte() : null); // Carga la lista de deportes
     }
 
     /**
@@ -95,11 +95,15 @@ public class EventoController implements Initializable {
 
     /**
      * Guarda un nuevo evento o actualiza uno existente.
+     * La escritura se hace en segundo plano y la ventana se cierra cuando termina.
      *
      * @param event Evento de acción
      */
     @FXML
     void guardar(ActionEvent event) {
+        if (guardando) {
+            return; // Ya se está guardando
+        }
         String error = ""; // Inicializa la variable de error
         // Valida los datos ingresados
         if (txtNombre.getText().isEmpty()) {
@@ -118,27 +122,57 @@ public class EventoController implements Initializable {
             nuevo.setNombre(txtNombre.getText()); // Establece el nombre del evento
             nuevo.setOlimpiada(lstOlimpiada.getSelectionModel().getSelectedItem()); // Establece la olimpiada seleccionada
             nuevo.setDeporte(lstDeporte.getSelectionModel().getSelectedItem()); // Establece el deporte seleccionado
+            guardando = true;
             if (this.evento == null) { // Si no hay evento seleccionado, se crea uno nuevo
-                int id = DaoEvento.insertar(nuevo); // Intenta insertar el nuevo evento
-                if (id == -1) {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error si la inserción falla
-                } else {
-                    confirmacion(resources.getString("save.events")); // Muestra mensaje de éxito
-                    Stage stage = (Stage) txtNombre.getScene().getWindow(); // Obtiene la ventana actual
-                    stage.close(); // Cierra la ventana
-                }
+                ServicioCarga.ejecutar(() -> DaoEvento.insertar(nuevo), id -> { // Intenta insertar el nuevo evento
+                    guardando = false;
+                    if (id == -1) {
+                        alerta(resources.getString("save.fail")); // Muestra mensaje de error si la inserción falla
+                    } else {
+                        nuevo.setId_evento(id);
+                        this.guardado = nuevo; // La tabla añade solo esta fila
+                        confirmacion(resources.getString("save.events")); // Muestra mensaje de éxito
+                        Stage stage = (Stage) txtNombre.getScene().getWindow(); // Obtiene la ventana actual
+                        stage.close(); // Cierra la ventana
+                    }
+                }, this::falloGuardar);
             } else { // Si hay un evento seleccionado, se actualiza
-                if (DaoEvento.modificar(evento, nuevo)) {
-                    confirmacion(resources.getString("update.events")); // Muestra mensaje de éxito
-                    Stage stage = (Stage) txtNombre.getScene().getWindow(); // Obtiene la ventana actual
-                    stage.close(); // Cierra la ventana
-                } else {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error si la actualización falla
-                }
+                ServicioCarga.ejecutar(() -> DaoEvento.modificar(evento, nuevo), modificado -> {
+                    guardando = false;
+                    if (modificado) {
+                        nuevo.setId_evento(evento.getId_evento());
+                        this.guardado = nuevo; // La tabla reemplaza solo esta fila
+                        confirmacion(resources.getString("update.events")); // Muestra mensaje de éxito
+                        Stage stage = (Stage) txtNombre.getScene().getWindow(); // Obtiene la ventana actual
+                        stage.close(); // Cierra la ventana
+                    } else {
+                        alerta(resources.getString("save.fail")); // Muestra mensaje de error si la actualización falla
+                    }
+                }, this::falloGuardar);
             }
         }
     }
 
+    /**
+     * Función que muestra el error de un guardado en segundo plano que no ha llegado a terminar
+     *
+     * @param error Excepción del guardado
+     */
+    private void falloGuardar(Throwable error) {
+        guardando = false;
+        System.err.println(error.getMessage());
+        alerta(resources.getString("save.fail")); // Muestra mensaje de error
+    }
+
+    /**
+     * Función que devuelve el evento guardado al cerrar la ventana
+     *
+     * @return evento creado o modificado, o null si se ha cancelado
+     */
+    public Evento getGuardado() {
+        return guardado;
+    }
+
     /**
      * Función que muestra un mensaje de alerta al usuario.
      *
@@ -1,16 +1,29 @@
 package com.intissar.olimpiadas.controladores;
 
+import com.intissar.olimpiadas.busqueda.FiltroParticipacion;
+import com.intissar.olimpiadas.busqueda.IndiceNombres;
 import com.intissar.olimpiadas.dao.DaoDeportista;
 import com.intissar.olimpiadas.dao.DaoEvento;
 import com.intissar.olimpiadas.dao.DaoParticipacion;
+import com.intissar.olimpiadas.dao.FuentePaginada;
+import com.intissar.olimpiadas.dao.ImportadorHistorico;
 import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.MetricasJdbc;
+import com.intissar.olimpiadas.eventos.EventoCarga;
+import com.intissar.olimpiadas.eventos.EventoVentana;
 import com.intissar.olimpiadas.language.LanguageSwitcher;
 import com.intissar.olimpiadas.model.Deportista;
 import com.intissar.olimpiadas.model.Evento;
 import com.intissar.olimpiadas.model.Participacion;
+import com.intissar.olimpiadas.servicios.ListaPaginada;
+import com.intissar.olimpiadas.servicios.ServicioCarga;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -20,17 +33,26 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
 import javafx.scene.input.MouseButton;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.Window;
+import javafx.util.Duration;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 /**
  * Clase que controla los eventos de la ventana principal
@@ -42,12 +64,27 @@ public class MainController implements Initializable {
     @FXML // fx:id="btnEliminar"
     private MenuItem btnEliminar; // Value injected by FXMLLoader
 
+    @FXML // fx:id="btnImportar"
+    private MenuItem btnImportar; // Value injected by FXMLLoader
+
     @FXML // fx:id="cbTabla"
     private ComboBox<String> cbTabla; // Value injected by FXMLLoader
 
     @FXML // fx:id="filtroNombre"
     private TextField filtroNombre; // Value injected by FXMLLoader
 
+    @FXML // fx:id="filtrosParticipacion"
+    private HBox filtrosParticipacion; // Value injected by FXMLLoader
+
+    @FXML // fx:id="filtroEvento"
+    private TextField filtroEvento; // Value injected by FXMLLoader
+
+    @FXML // fx:id="filtroEquipo"
+    private TextField filtroEquipo; // Value injected by FXMLLoader
+
+    @FXML // fx:id="filtroMedalla"
+    private TextField filtroMedalla; // Value injected by FXMLLoader
+
     @FXML // fx:id="langEN"
     private RadioMenuItem langEN; // Value injected by FXMLLoader
 
@@ -67,7 +104,14 @@ public class MainController implements Initializable {
     private ResourceBundle resources; // ResourceBundle injected automatically by FXML loader
 
     private ObservableList masterData = FXCollections.observableArrayList();
-    private ObservableList filteredData = FXCollections.observableArrayList();
+    private FilteredList filteredData = new FilteredList<>(masterData); // Vista filtrada de masterData, sin copiar la lista
+    private SortedList sortedData = new SortedList<>(filteredData); // Mantiene la ordenación de las columnas
+    private IndiceNombres<Object> indiceNombres; // Índice de nombres de la tabla actual, null si no se puede filtrar
+    private ListaPaginada<Object, ?> paginada; // Lista por páginas que muestra la tabla, null si los datos están en masterData
+    private Object filtroPaginado; // Filtro con el que se ha creado la lista paginada
+    private final PauseTransition pausaFiltro = new PauseTransition(Duration.millis(150)); // Espera a que se deje de escribir
+    private Task<?> cargaActual; // Carga en segundo plano de la tabla que se está mostrando
+    private int generacionCarga; // Se incrementa en cada carga para descartar resultados de cargas anteriores
 
     /**
      * Función que se ejecuta cuando se inicia la ventana.
@@ -102,7 +146,7 @@ public class MainController implements Initializable {
      */
     private boolean iniciarBaseDeDatos() {
         try {
-            new DBConnect();
+            new DBConnect().closeConnection(); // Comprueba la conexión y la devuelve al pool
             return true;
         } catch (SQLException e) {
             alerta(resources.getString("db.error"));
@@ -134,6 +178,7 @@ public class MainController implements Initializable {
      */
     private void configurarTabla() {
         // Event Listener para celdas de la tabla
+        tabla.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE); // Varias filas se eliminan de una vez
         tabla.getSelectionModel().selectedItemProperty().addListener((observableValue, oldValue, newValue) -> {
             deshabilitarMenus(newValue == null);
         });
@@ -149,15 +194,25 @@ public class MainController implements Initializable {
             TableRow<Object> row = new TableRow<>();
             row.setOnContextMenuRequested(event -> {
                 if (!row.isEmpty()) {
-                    tabla.getSelectionModel().select(row.getItem());
+                    if (!row.isSelected()) {
+                        tabla.getSelectionModel().clearAndSelect(row.getIndex()); // Se mantiene la selección múltiple si la fila ya es parte de ella
+                    }
                     contextMenu.show(row, event.getScreenX(), event.getScreenY());
                 }
             });
             return row;
         });
 
-        // Event Listener para el filtro
-        filtroNombre.setOnKeyTyped(keyEvent -> filtrar());
+        // La tabla muestra siempre la misma lista; el filtro y las cargas solo cambian su contenido
+        sortedData.comparatorProperty().bind(tabla.comparatorProperty());
+        tabla.setItems(sortedData);
+
+        // Event Listener para el filtro: se filtra cuando se deja de escribir
+        pausaFiltro.setOnFinished(event -> filtrar());
+        filtroNombre.textProperty().addListener((observableValue, oldValue, newValue) -> pausaFiltro.playFromStart());
+        filtroEvento.textProperty().addListener((observableValue, oldValue, newValue) -> pausaFiltro.playFromStart());
+        filtroEquipo.textProperty().addListener((observableValue, oldValue, newValue) -> pausaFiltro.playFromStart());
+        filtroMedalla.textProperty().addListener((observableValue, oldValue, newValue) -> pausaFiltro.playFromStart());
 
         // Doble-click para editar
         tabla.setOnMouseClicked(event -> {
@@ -168,49 +223,56 @@ public class MainController implements Initializable {
     }
 
     /**
-     * Función que filtra la tabla por nombre
+     * Función que filtra la tabla por nombre usando el índice de la tabla actual
      */
     public void filtrar() {
-        String valor = filtroNombre.getText();
-        if (valor != null) {
-            valor = valor.toLowerCase();
-            String item = cbTabla.getSelectionModel().getSelectedItem();
-            if (item.equals(resources.getString("cb.athletes"))) {
-                // Deportistas
-                if (valor.isEmpty()) {
-                    tabla.setItems(masterData);
-                } else {
-                    filteredData.clear();
-                    for (Object obj : masterData) {
-                        Deportista deportista = (Deportista) obj;
-                        String nombre = deportista.getNombre();
-                        nombre = nombre.toLowerCase();
-                        if (nombre.contains(valor)) {
-                            filteredData.add(deportista);
-                        }
-                    }
-                    tabla.setItems(filteredData);
-                }
-            } else {
-                // Eventos
-                if (valor.isEmpty()) {
-                    tabla.setItems(masterData);
+        pausaFiltro.stop();
+        if (paginada != null) {
+            filtrarPaginada(); // Las tablas grandes se filtran en la base de datos
+            return;
+        }
+        if (filtrosParticipacion.isVisible()) {
+            filteredData.setPredicate(filtroParticipacion().predicado());
+            return;
+        }
+        if (indiceNombres == null) {
+            filteredData.setPredicate(null); // Sin índice no se filtra
+            return;
+        }
+        filteredData.setPredicate(indiceNombres.predicado(filtroNombre.getText()));
+    }
+
+    /**
+     * Función que vuelve a crear la lista paginada con el filtro actual, si ha cambiado
+     */
+    private void filtrarPaginada() {
+        String item = cbTabla.getSelectionModel().getSelectedItem();
+        if (item.equals(resources.getString("cb.participations"))) {
+            FiltroParticipacion filtro = filtroParticipacion();
+            if (!filtro.equals(filtroPaginado)) {
+                cargarPaginada(DaoParticipacion.paginas(filtro), filtro);
+            }
+        } else {
+            String texto = filtroNombre.getText() == null ? "" : filtroNombre.getText().strip();
+            if (!texto.equals(filtroPaginado)) {
+                if (item.equals(resources.getString("cb.athletes"))) {
+                    cargarPaginada(DaoDeportista.paginas(texto), texto);
                 } else {
-                    filteredData.clear();
-                    for (Object obj : masterData) {
-                        Evento evento = (Evento) obj;
-                        String nombre = evento.getNombre();
-                        nombre = nombre.toLowerCase();
-                        if (nombre.contains(valor)) {
-                            filteredData.add(evento);
-                        }
-                    }
-                    tabla.setItems(filteredData);
+                    cargarPaginada(DaoEvento.paginas(texto), texto);
                 }
             }
         }
     }
 
+    /**
+     * Función que devuelve el filtro de participaciones escrito por el usuario
+     *
+     * @return filtro por deportista, evento, equipo y medalla
+     */
+    private FiltroParticipacion filtroParticipacion() {
+        return new FiltroParticipacion(filtroNombre.getText(), filtroEvento.getText(), filtroEquipo.getText(), filtroMedalla.getText());
+    }
+
     /**
      * Método que se ejecuta al presionar el botón "Añadir".
      * Abre una ventana para agregar un nuevo objeto en la tabla seleccionada.
@@ -262,7 +324,7 @@ public class MainController implements Initializable {
     private void abrirVentana(String fxmlPath, String title, Object controller, Window parentWindow) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(fxmlPath), resources);
         fxmlLoader.setController(controller);
-        Scene scene = new Scene(fxmlLoader.load());
+        Scene scene = new Scene(cargarFxml(fxmlLoader));
         Stage stage = new Stage();
         stage.setScene(scene);
         stage.setResizable(false);
@@ -272,13 +334,13 @@ public class MainController implements Initializable {
         stage.initModality(Modality.APPLICATION_MODAL);
         stage.showAndWait();
 
-        // Recargar los datos según el tipo de objeto añadido
-        if (controller instanceof DeportistaController) {
-            cargarDeportistas();
-        } else if (controller instanceof ParticipacionController) {
-            cargarParticipaciones();
-        } else {
-            cargarEventos();
+        // Añadir a la tabla solo el objeto guardado
+        if (controller instanceof DeportistaController deportistaController) {
+            actualizarFila(null, deportistaController.getGuardado());
+        } else if (controller instanceof ParticipacionController participacionController) {
+            actualizarFila(null, participacionController.getGuardada());
+        } else if (controller instanceof EventoController eventoController) {
+            actualizarFila(null, eventoController.getGuardado());
         }
     }
 
@@ -309,7 +371,7 @@ public class MainController implements Initializable {
      */
     private void abrirVentana(String fxmlPath, String title, Window parentWindow) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(fxmlPath), resources);
-        Scene scene = new Scene(fxmlLoader.load());
+        Scene scene = new Scene(cargarFxml(fxmlLoader));
         Stage stage = new Stage();
         stage.setScene(scene);
         stage.setResizable(false);
@@ -360,11 +422,11 @@ public class MainController implements Initializable {
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/fxml/Deportista.fxml"), resources);
         DeportistaController controller = new DeportistaController(deportista);
         fxmlLoader.setController(controller);
-        Scene scene = new Scene(fxmlLoader.load());
+        Scene scene = new Scene(cargarFxml(fxmlLoader));
         Stage stage = crearStage(scene, resources.getString("window.edit") + " " + resources.getString("window.athlete"));
         stage.initOwner(parentWindow);
         stage.showAndWait();
-        cargarDeportistas(); // Recargar la lista de deportistas
+        actualizarFila(deportista, controller.getGuardado()); // Reemplazar solo la fila editada
     }
 
     /**
@@ -378,11 +440,11 @@ public class MainController implements Initializable {
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/fxml/Participacion.fxml"), resources);
         ParticipacionController controller = new ParticipacionController(participacion);
         fxmlLoader.setController(controller);
-        Scene scene = new Scene(fxmlLoader.load());
+        Scene scene = new Scene(cargarFxml(fxmlLoader));
         Stage stage = crearStage(scene, resources.getString("window.edit") + " " + resources.getString("window.participation"));
         stage.initOwner(parentWindow);
         stage.showAndWait();
-        cargarParticipaciones(); // Recargar la lista de participaciones
+        actualizarFila(participacion, controller.getGuardada()); // Reemplazar solo la fila editada
     }
 
     /**
@@ -396,11 +458,79 @@ public class MainController implements Initializable {
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/fxml/Evento.fxml"), resources);
         EventoController controller = new EventoController(evento);
         fxmlLoader.setController(controller);
-        Scene scene = new Scene(fxmlLoader.load());
+        Scene scene = new Scene(cargarFxml(fxmlLoader));
         Stage stage = crearStage(scene, resources.getString("window.edit") + " " + resources.getString("window.event"));
         stage.initOwner(parentWindow);
         stage.showAndWait();
-        cargarEventos(); // Recargar la lista de eventos
+        actualizarFila(evento, controller.getGuardado()); // Reemplazar solo la fila editada
+    }
+
+    /**
+     * Método auxiliar que cambia en la tabla solo la fila guardada en una ventana de edición, sin recargarla.
+     * Se mantienen el desplazamiento y la selección. En las tablas por páginas el número de filas es fijo,
+     * así que al añadir se vuelve a crear la lista paginada.
+     *
+     * @param anterior Objeto editado, o null si se ha añadido uno nuevo
+     * @param guardado Objeto guardado, o null si se ha cancelado la ventana
+     */
+    private void actualizarFila(Object anterior, Object guardado) {
+        if (guardado == null) {
+            return; // No se ha guardado nada
+        }
+        if (paginada != null) {
+            if (anterior == null) {
+                recargarPaginada();
+                return;
+            }
+            paginada.reemplazar(anterior, guardado);
+        } else {
+            int posicion = anterior == null ? -1 : masterData.indexOf(anterior);
+            if (posicion >= 0) {
+                masterData.set(posicion, guardado);
+            } else {
+                masterData.add(guardado);
+            }
+            if (indiceNombres != null) {
+                if (posicion >= 0) {
+                    indiceNombres.reemplazar(anterior, guardado);
+                } else {
+                    indiceNombres.agregar(guardado);
+                }
+                if (filteredData.getPredicate() != null) {
+                    filtrar(); // El predicado del índice no conoce el objeto nuevo
+                }
+            }
+        }
+        tabla.getSelectionModel().clearSelection();
+        tabla.getSelectionModel().select(guardado);
+    }
+
+    /**
+     * Método auxiliar que quita de la tabla las filas eliminadas, sin recargarla.
+     * En las tablas por páginas el número de filas es fijo, así que se vuelve a crear la lista paginada.
+     *
+     * @param eliminados Objetos eliminados de la base de datos
+     */
+    private void quitarFilas(List<?> eliminados) {
+        if (paginada != null) {
+            recargarPaginada();
+            return;
+        }
+        tabla.getSelectionModel().clearSelection();
+        masterData.removeAll(new HashSet<>(eliminados));
+        if (indiceNombres != null) {
+            for (Object eliminado : eliminados) {
+                indiceNombres.quitar(eliminado);
+            }
+        }
+    }
+
+    /**
+     * Método auxiliar que vuelve a crear la lista paginada con el filtro actual.
+     */
+    private void recargarPaginada() {
+        filtroPaginado = null; // Fuerza a filtrarPaginada a crearla aunque el filtro no haya cambiado
+        filtrarPaginada();
     }
 
     /**
@@ -427,6 +557,13 @@ public class MainController implements Initializable {
      */
     @FXML
     void eliminar(ActionEvent event) {
+        List<Object> seleccionados = tabla.getSelectionModel().getSelectedItems().stream()
+                .filter(Objects::nonNull) // En las tablas paginadas las filas aún no cargadas son null
+                .toList();
+        if (seleccionados.size() > 1) {
+            eliminarVarios(seleccionados);
+            return;
+        }
         Object selectedItem = tabla.getSelectionModel().getSelectedItem(); // Obtener el objeto seleccionado
         if (selectedItem != null) {
             String selectedTable = cbTabla.getSelectionModel().getSelectedItem(); // Obtener el tipo de objeto de la tabla
@@ -442,24 +579,99 @@ public class MainController implements Initializable {
         }
     }
 
+    /**
+     * Método auxiliar para eliminar varias filas seleccionadas con una sola transacción.
+     * Si alguna no se puede eliminar no se elimina ninguna.
+     *
+     * @param seleccionados Objetos seleccionados en la tabla
+     */
+    private void eliminarVarios(List<Object> seleccionados) {
+        String selectedTable = cbTabla.getSelectionModel().getSelectedItem();
+        String prompt = MessageFormat.format(resources.getString("delete.many.prompt"), seleccionados.size());
+        String error = resources.getString("delete.many.error");
+        if (selectedTable.equals(resources.getString("cb.athletes"))) {
+            List<Deportista> deportistas = seleccionados.stream().map(Deportista.class::cast).toList();
+            comprobarEliminables(() -> deportistas.stream().allMatch(DaoDeportista.eliminables()), error,
+                    () -> eliminarVarios(seleccionados, prompt, () -> DaoDeportista.eliminarTodos(deportistas)));
+        } else if (selectedTable.equals(resources.getString("cb.participations"))) {
+            List<Participacion> participaciones = seleccionados.stream().map(Participacion.class::cast).toList();
+            eliminarVarios(seleccionados, prompt, () -> DaoParticipacion.eliminarTodos(participaciones));
+        } else {
+            List<Evento> eventos = seleccionados.stream().map(Evento.class::cast).toList();
+            comprobarEliminables(() -> eventos.stream().allMatch(DaoEvento.eliminables()), error,
+                    () -> eliminarVarios(seleccionados, prompt, () -> DaoEvento.eliminarTodos(eventos)));
+        }
+    }
+
+    /**
+     * Método auxiliar que pide confirmación y elimina varias filas ya comprobadas.
+     *
+     * @param seleccionados Objetos seleccionados en la tabla
+     * @param prompt Mensaje de confirmación
+     * @param eliminar Eliminación en la base de datos, que devuelve si se ha hecho
+     */
+    private void eliminarVarios(List<Object> seleccionados, String prompt, Callable<Boolean> eliminar) {
+        if (confirmarEliminacion(prompt)) {
+            ejecutarEliminacion(eliminar, seleccionados,
+                    MessageFormat.format(resources.getString("delete.many.success"), seleccionados.size()),
+                    resources.getString("delete.many.fail"));
+        }
+    }
+
+    /**
+     * Método auxiliar que elimina en segundo plano y, al terminar, quita las filas eliminadas de la tabla y avisa
+     * del resultado en el hilo de JavaFX.
+     *
+     * @param eliminar Eliminación en la base de datos, que devuelve si se ha hecho
+     * @param filas Filas que se quitan de la tabla si se ha hecho
+     * @param exito Mensaje si se ha hecho
+     * @param fallo Mensaje si no se ha hecho
+     */
+    private void ejecutarEliminacion(Callable<Boolean> eliminar, List<?> filas, String exito, String fallo) {
+        ServicioCarga.ejecutar(eliminar, eliminado -> {
+            if (eliminado) {
+                quitarFilas(filas); // Quitar solo las filas eliminadas
+                confirmacion(exito);
+            } else {
+                alerta(fallo);
+            }
+        }, error -> {
+            System.err.println(error.getMessage());
+            alerta(fallo);
+        });
+    }
+
+    /**
+     * Método auxiliar que comprueba en segundo plano si se pueden eliminar las filas elegidas y, si se puede,
+     * sigue en el hilo de JavaFX con la confirmación, que lanza la eliminación de nuevo en segundo plano. Con los no eliminables sin calcular la comprobación consulta
+     * la base de datos, así que no se hace en el hilo de JavaFX.
+     *
+     * @param comprobacion Consulta al DAO que devuelve si se pueden eliminar
+     * @param error Mensaje a mostrar si no se pueden eliminar
+     * @param eliminar Confirmación, en el hilo de JavaFX, y eliminación
+     */
+    private void comprobarEliminables(Callable<Boolean> comprobacion, String error, Runnable eliminar) {
+        ServicioCarga.ejecutar(comprobacion, eliminable -> {
+            if (eliminable) {
+                eliminar.run();
+            } else {
+                alerta(error);
+            }
+        });
+    }
+
     /**
      * Método auxiliar para eliminar un deportista.
      *
      * @param deportista Objeto deportista a eliminar
      */
     private void eliminarDeportista(Deportista deportista) {
-        if (DaoDeportista.esEliminable(deportista)) {
+        comprobarEliminables(() -> DaoDeportista.esEliminable(deportista), resources.getString("delete.athlete.error"), () -> {
             if (confirmarEliminacion(resources.getString("delete.athlete.prompt"))) {
-                if (DaoDeportista.eliminar(deportista)) {
-                    cargarDeportistas(); // Recargar la lista de deportistas
-                    confirmacion(resources.getString("delete.athlete.success"));
-                } else {
-                    alerta(resources.getString("delete.athlete.fail"));
-                }
+                ejecutarEliminacion(() -> DaoDeportista.eliminar(deportista), List.of(deportista),
+                        resources.getString("delete.athlete.success"), resources.getString("delete.athlete.fail"));
             }
-        } else {
-            alerta(resources.getString("delete.athlete.error"));
-        }
+        });
     }
 
     /**
@@ -469,12 +681,8 @@ public class MainController implements Initializable {
      */
     private void eliminarParticipacion(Participacion participacion) {
         if (confirmarEliminacion(resources.getString("delete.participation.prompt"))) {
-            if (DaoParticipacion.eliminar(participacion)) {
-                cargarParticipaciones(); // Recargar la lista de participaciones
-                confirmacion(resources.getString("delete.participation.success"));
-            } else {
-                alerta(resources.getString("delete.participation.fail"));
-            }
+            ejecutarEliminacion(() -> DaoParticipacion.eliminar(participacion), List.of(participacion),
+                    resources.getString("delete.participation.success"), resources.getString("delete.participation.fail"));
         }
     }
 
@@ -484,18 +692,12 @@ public class MainController implements Initializable {
      * @param evento Objeto evento a eliminar
      */
     private void eliminarEvento(Evento evento) {
-        if (DaoEvento.esEliminable(evento)) {
+        comprobarEliminables(() -> DaoEvento.esEliminable(evento), resources.getString("delete.event.error"), () -> {
             if (confirmarEliminacion(resources.getString("delete.event.prompt"))) {
-                if (DaoEvento.eliminar(evento)) {
-                    cargarEventos(); // Recargar la lista de eventos
-                    confirmacion(resources.getString("delete.event.success"));
-                } else {
-                    alerta(resources.getString("delete.event.fail"));
-                }
+                ejecutarEliminacion(() -> DaoEvento.eliminar(evento), List.of(evento),
+                        resources.getString("delete.event.success"), resources.getString("delete.event.fail"));
             }
-        } else {
-            alerta(resources.getString("delete.event.error"));
-        }
+        });
     }
 
     /**
@@ -536,6 +738,51 @@ public class MainController implements Initializable {
         abrirVentana("/fxml/Olimpiadas.fxml", resources.getString("window.olympics"));
     }
 
+    /**
+     * Método que se ejecuta al seleccionar el menú "Importar histórico...".
+     * Importa athlete_events.csv en segundo plano y muestra cuántas filas por segundo se han importado.
+     *
+     * @param event Evento de acción
+     */
+    @FXML
+    void importar(ActionEvent event) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(resources.getString("import.chooser"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        File file = fileChooser.showOpenDialog(tabla.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        btnImportar.setDisable(true); // Una sola importación a la vez
+        ServicioCarga.ejecutar(() -> ImportadorHistorico.importar(file.toPath()), resultado -> {
+            btnImportar.setDisable(false);
+            recargarTabla();
+            confirmacion(MessageFormat.format(resources.getString("import.done"),
+                    String.valueOf(resultado.filas()),
+                    String.format(Locale.ROOT, "%.1f", resultado.milisegundos() / 1000.0),
+                    String.format(Locale.ROOT, "%.0f", resultado.filasPorSegundo())));
+        }, error -> {
+            btnImportar.setDisable(false);
+            System.err.println(error.getMessage());
+            recargarTabla(); // Las transacciones confirmadas antes del error se quedan
+            alerta(resources.getString("import.error") + "\n" + error.getMessage());
+        });
+    }
+
+    /**
+     * Vuelve a cargar la tabla seleccionada en el ComboBox.
+     */
+    private void recargarTabla() {
+        String selectedItem = cbTabla.getSelectionModel().getSelectedItem();
+        if (selectedItem.equals(resources.getString("cb.athletes"))) {
+            cargarDeportistas();
+        } else if (selectedItem.equals(resources.getString("cb.participations"))) {
+            cargarParticipaciones();
+        } else {
+            cargarEventos();
+        }
+    }
+
     /**
      * Método auxiliar para abrir una nueva ventana.
      *
@@ -546,7 +793,7 @@ public class MainController implements Initializable {
         try {
             Window parentWindow = tabla.getScene().getWindow(); // Obtener la ventana padre
             FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource(fxmlPath), resources);
-            Scene scene = new Scene(fxmlLoader.load());
+            Scene scene = new Scene(cargarFxml(fxmlLoader));
             Stage stage = new Stage();
             stage.setScene(scene);
             stage.setResizable(false);
@@ -564,34 +811,201 @@ public class MainController implements Initializable {
      * Método que carga en la tabla las columnas y los datos de los deportistas.
      */
     private void cargarDeportistas() {
+        EventoCarga columnas = EventoCarga.iniciar(tablaSeleccionada(), "columnas");
         // Limpiar la selección y los filtros
         limpiarTabla();
         filtroNombre.setDisable(false);
+        mostrarFiltrosParticipacion(false);
 
         // Definir y agregar columnas a la tabla
         agregarColumnasDeportistas();
+        columnas.terminar(0);
 
-        // Cargar los datos de los deportistas desde la base de datos
-        ObservableList<Deportista> deportistas = DaoDeportista.cargarListado();
-        masterData.setAll(deportistas); // Actualizar la lista maestra
-        tabla.setItems(deportistas); // Establecer los elementos de la tabla
+        // Cargar los datos de los deportistas desde la base de datos en segundo plano
+        cargarTabla(DaoDeportista.paginas(""), "", DaoDeportista::cargarListado, deportista -> ((Deportista) deportista).getNombre());
     }
 
     /**
      * Método que carga en la tabla las columnas y los datos de las participaciones.
      */
     private void cargarParticipaciones() {
+        EventoCarga columnas = EventoCarga.iniciar(tablaSeleccionada(), "columnas");
         // Limpiar la selección y los filtros
         limpiarTabla();
-        filtroNombre.setDisable(true);
+        filtroNombre.setDisable(false); // Filtra por el nombre del deportista
+        mostrarFiltrosParticipacion(true);
 
         // Definir y agregar columnas a la tabla
         agregarColumnasParticipaciones();
+        columnas.terminar(0);
+
+        // Cargar los datos de las participaciones desde la base de datos en segundo plano
+        cargarTabla(DaoParticipacion.paginas(FiltroParticipacion.VACIO), FiltroParticipacion.VACIO, DaoParticipacion::cargarListado, null);
+    }
+
+    /**
+     * Muestra u oculta los filtros de evento, equipo y medalla, que solo se usan en la tabla de participaciones.
+     *
+     * @param mostrar true para mostrarlos
+     */
+    private void mostrarFiltrosParticipacion(boolean mostrar) {
+        filtrosParticipacion.setVisible(mostrar);
+        filtrosParticipacion.setManaged(mostrar);
+    }
+
+    /**
+     * Método auxiliar que carga los datos de la tabla en segundo plano.
+     * Si la tabla tiene hasta tabla.paginacion.umbral filas se carga entera y se filtra en memoria;
+     * si tiene más se muestra por páginas, que se leen a medida que se desplaza la tabla, y se filtra en la base de datos.
+     * En memoria deportistas y eventos se filtran por cualquier parte del nombre; por páginas, por el comienzo,
+     * para que la consulta y el recuento de cada filtro usen el índice del nombre. Las participaciones se filtran
+     * por el comienzo de cada campo en las dos formas.
+     * El índice de nombres para el filtro en memoria también se construye en segundo plano.
+     *
+     * @param fuente Origen de datos por páginas de la tabla, sin filtro
+     * @param sinFiltro Filtro vacío de la tabla
+     * @param listado Consulta al DAO que devuelve la tabla completa
+     * @param nombre Nombre por el que se filtra cada objeto en memoria, o null si la tabla no se filtra por nombre
+     * @param <T> Tipo de los objetos de la tabla
+     */
+    private <T> void cargarTabla(FuentePaginada<T, ?> fuente, Object sinFiltro, Callable<ObservableList<T>> listado, Function<Object, String> nombre) {
+        int umbral = DBConnect.getConfigurationInt("tabla.paginacion.umbral", 50000);
+        cargarEnTabla(() -> {
+            int total = fuente.contar();
+            if (total > umbral) {
+                return new DatosTabla(null, null, crearPaginada(fuente, total), sinFiltro);
+            }
+            ObservableList<T> datos = listado.call();
+            return new DatosTabla(datos, nombre == null ? null : new IndiceNombres<>(datos, nombre), null, null);
+        });
+    }
 
-        // Cargar los datos de las participaciones desde la base de datos
-        ObservableList<Participacion> participaciones = DaoParticipacion.cargarListado();
-        masterData.addAll(participaciones); // Actualizar la lista maestra
-        tabla.setItems(participaciones); // Establecer los elementos de la tabla
+    /**
+     * Método auxiliar que vuelve a cargar por páginas la tabla con otro filtro.
+     *
+     * @param fuente Origen de datos por páginas con el filtro aplicado
+     * @param filtro Filtro aplicado
+     */
+    private void cargarPaginada(FuentePaginada<?, ?> fuente, Object filtro) {
+        cargarEnTabla(() -> new DatosTabla(null, null, crearPaginada(fuente, fuente.contar()), filtro));
+    }
+
+    /**
+     * Método auxiliar que crea la lista paginada con la configuración de tabla.paginacion (en segundo plano).
+     */
+    private static ListaPaginada<Object, ?> crearPaginada(FuentePaginada<?, ?> fuente, int total) {
+        return ListaPaginada.crear(fuente, total,
+                DBConnect.getConfigurationInt("tabla.paginacion.tamanio", 200),
+                DBConnect.getConfigurationInt("tabla.paginacion.paginas", 10));
+    }
+
+    /**
+     * Método auxiliar que carga los datos de la tabla en segundo plano.
+     *
+     * @param carga Consulta al DAO que devuelve los datos con su índice o su filtro
+     */
+    private void cargarEnTabla(Callable<DatosTabla> carga) {
+        if (cargaActual != null) {
+            cargaActual.cancel(); // El resultado de la tabla anterior ya no interesa
+        }
+        int generacion = ++generacionCarga;
+        String nombreTabla = tablaSeleccionada();
+        String ambito = "Tabla " + nombreTabla; // Sentencias que lanza cada carga de la tabla
+        tabla.setPlaceholder(new Label(resources.getString("table.loading"), new ProgressIndicator()));
+        cargaActual = ServicioCarga.ejecutar(() -> {
+            EventoCarga consulta = EventoCarga.iniciar(nombreTabla, "consulta");
+            MetricasJdbc.Ambito medida = MetricasJdbc.ambito(ambito);
+            try {
+                DatosTabla datos = carga.call();
+                consulta.terminar(datos.filas());
+                return datos;
+            } finally {
+                medida.close();
+            }
+        }, resultado -> {
+            if (generacion != generacionCarga) {
+                return; // Se ha cambiado de tabla o de filtro mientras se cargaba
+            }
+            EventoCarga mostrar = EventoCarga.iniciar(nombreTabla, "mostrar");
+            indiceNombres = resultado.indice();
+            filtroPaginado = resultado.filtroPaginado();
+            if (resultado.paginada() != null) {
+                // La tabla muestra directamente la lista paginada, que no se puede ordenar en memoria
+                cerrarPaginada();
+                paginada = resultado.paginada();
+                masterData.clear();
+                tabla.setItems(paginada);
+                for (Object columna : tabla.getColumns()) {
+                    ((TableColumn<?, ?>) columna).setSortable(false);
+                }
+            } else {
+                cerrarPaginada();
+                masterData.setAll(resultado.datos()); // Actualizar la lista maestra, la tabla la muestra a través del filtro
+                tabla.setItems(sortedData);
+            }
+            filtrar(); // Aplicar lo que se haya escrito mientras se cargaba
+            tabla.setPlaceholder(null); // Volver al mensaje por defecto de tabla vacía
+            mostrar.terminar(resultado.filas());
+        }, error -> {
+            if (generacion != generacionCarga) {
+                return;
+            }
+            System.err.println(error.getMessage());
+            tabla.setPlaceholder(new Label(resources.getString("table.load.error")));
+        });
+    }
+
+    /**
+     * Método auxiliar con el nombre de la tabla elegida, para los eventos de JFR y las métricas.
+     */
+    private String tablaSeleccionada() {
+        return String.valueOf(cbTabla.getSelectionModel().getSelectedItem());
+    }
+
+    /**
+     * Método auxiliar que carga el FXML de una ventana emitiendo un evento de JFR con su duración.
+     *
+     * @param fxmlLoader Cargador con la ubicación del FXML
+     * @param <T> Tipo del nodo raíz
+     * @return Nodo raíz de la ventana
+     * @throws IOException si no se puede cargar el FXML
+     */
+    private static <T> T cargarFxml(FXMLLoader fxmlLoader) throws IOException {
+        EventoVentana evento = new EventoVentana();
+        evento.begin();
+        try {
+            return fxmlLoader.load();
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.fxml = String.valueOf(fxmlLoader.getLocation());
+                evento.commit();
+            }
+        }
+    }
+
+    /**
+     * Datos cargados en segundo plano: la tabla completa con su índice de nombres, o la lista paginada con su filtro
+     *
+     * @param datos Objetos de la tabla completa, o null si se muestra por páginas
+     * @param indice Índice de nombres, o null si la tabla no se filtra por nombre o se muestra por páginas
+     * @param paginada Lista por páginas, o null si los datos son la tabla completa
+     * @param filtroPaginado Filtro de la lista paginada, o null si los datos son la tabla completa
+     */
+    private record DatosTabla(List<?> datos, IndiceNombres<Object> indice, ListaPaginada<Object, ?> paginada, Object filtroPaginado) {
+        int filas() {
+            return paginada != null ? paginada.size() : datos.size();
+        }
+    }
+
+    /**
+     * Método auxiliar que deja de usar la lista paginada actual, cancelando las páginas que todavía se estén cargando.
+     */
+    private void cerrarPaginada() {
+        if (paginada != null) {
+            paginada.cerrar();
+            paginada = null;
+        }
     }
 
     /**
@@ -600,9 +1014,16 @@ public class MainController implements Initializable {
     private void limpiarTabla() {
         tabla.getSelectionModel().clearSelection(); // Limpiar la selección actual
         filtroNombre.setText(null); // Reiniciar el filtro de nombre
-        masterData.clear(); // Limpiar la lista maestra
-        filteredData.clear(); // Limpiar la lista filtrada
-        tabla.getItems().clear(); // Limpiar los elementos de la tabla
+        filtroEvento.setText(null);
+        filtroEquipo.setText(null);
+        filtroMedalla.setText(null);
+        indiceNombres = null; // El índice era de la tabla anterior
+        cerrarPaginada(); // La lista paginada era de la tabla anterior
+        filtroPaginado = null;
+        tabla.setItems(sortedData);
+        filteredData.setPredicate(null); // Quitar el filtro
+        masterData.clear(); // Limpiar la lista maestra (y con ella la tabla)
+        tabla.getSortOrder().clear(); // La ordenación era de las columnas anteriores
         tabla.getColumns().clear(); // Limpiar las columnas de la tabla
     }
 
@@ -633,13 +1054,13 @@ public class MainController implements Initializable {
      */
     private void agregarColumnasParticipaciones() {
         TableColumn<Participacion, String> colDeportista = new TableColumn<>(resources.getString("table.participation.athlete"));
-        colDeportista.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue().getDeportista().getNombre()));
+        colDeportista.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue() == null ? null : cellData.getValue().getDeportista().getNombre()));
 
         TableColumn<Participacion, String> colEvento = new TableColumn<>(resources.getString("table.participation.event"));
-        colEvento.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue().getEvento().getNombre()));
+        colEvento.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue() == null ? null : cellData.getValue().getEvento().getNombre()));
 
         TableColumn<Participacion, String> colEquipo = new TableColumn<>(resources.getString("table.participation.team"));
-        colEquipo.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue().getEquipo().getNombre()));
+        colEquipo.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue() == null ? null : cellData.getValue().getEquipo().getNombre()));
 
         TableColumn<Participacion, Integer> colEdad = new TableColumn<>(resources.getString("table.participation.age"));
         colEdad.setCellValueFactory(new PropertyValueFactory<>("edad"));
@@ -654,17 +1075,18 @@ public class MainController implements Initializable {
      * Método que carga en la tabla las columnas y los datos de los eventos.
      */
     private void cargarEventos() {
+        EventoCarga columnas = EventoCarga.iniciar(tablaSeleccionada(), "columnas");
         // Limpiar la selección y los filtros
         limpiarTabla();
         filtroNombre.setDisable(false); // Habilitar el filtro de nombre
+        mostrarFiltrosParticipacion(false);
 
         // Definir y agregar columnas a la tabla
         agregarColumnasEventos();
+        columnas.terminar(0);
 
-        // Cargar los datos de los eventos desde la base de datos
-        ObservableList<Evento> eventos = DaoEvento.cargarListado();
-        masterData.setAll(eventos); // Actualizar la lista maestra
-        tabla.setItems(eventos); // Establecer los elementos de la tabla
+        // Cargar los datos de los eventos desde la base de datos en segundo plano
+        cargarTabla(DaoEvento.paginas(""), "", DaoEvento::cargarListado, evento -> ((Evento) evento).getNombre());
     }
 
     /**
@@ -678,10 +1100,10 @@ public class MainController implements Initializable {
         colNombre.setCellValueFactory(new PropertyValueFactory<>("nombre"));
 
         TableColumn<Evento, String> colOlimpiada = new TableColumn<>(resources.getString("table.event.olympic"));
-        colOlimpiada.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue().getOlimpiada().getNombre()));
+        colOlimpiada.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue() == null ? null : cellData.getValue().getOlimpiada().getNombre()));
 
         TableColumn<Evento, String> colDeporte = new TableColumn<>(resources.getString("table.event.sport"));
-        colDeporte.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue().getDeporte().getNombre()));
+        colDeporte.setCellValueFactory(cellData -> javafx.beans.binding.Bindings.createObjectBinding(() -> cellData.getValue() == null ? null : cellData.getValue().getDeporte().getNombre()));
 
         tabla.getColumns().addAll(colId, colNombre, colOlimpiada, colDeporte); // Agregar columnas a la tabla
     }
@@ -2,8 +2,8 @@ package com.intissar.olimpiadas.controladores;
 
 import com.intissar.olimpiadas.dao.DaoOlimpiada;
 import com.intissar.olimpiadas.model.Olimpiada;
+import com.intissar.olimpiadas.servicios.ServicioCarga;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -13,6 +13,8 @@ import javafx.stage.Stage;
 import java.net.URL;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
 
 /**
  * Controlador para la gestión de olimpiadas en la aplicación.
@@ -21,6 +23,8 @@ import java.util.ResourceBundle;
 public class OlimpiadasController implements Initializable {
     private Olimpiada olimpiada; // Referencia a la olimpiada seleccionada
     private Olimpiada crear; // Referencia para crear una nueva olimpiada
+    private Predicate<Olimpiada> eliminables; // Olimpiadas que se pueden eliminar, null mientras se calcula
+    private boolean escribiendo; // true mientras se escribe en segundo plano, para no escribir dos veces
 
     @FXML // fx:id="btnEliminar"
     private Button btnEliminar; // Botón para eliminar una olimpiada
@@ -77,9 +81,31 @@ public class OlimpiadasController implements Initializable {
     public void cargarOlimpiadas() {
         cbOlimpiada.getItems().clear(); // Limpia los elementos actuales del ComboBox
         cbOlimpiada.getItems().add(crear); // Agrega la opción para crear una nueva olimpiada
-        ObservableList<Olimpiada> olimpiadas = DaoOlimpiada.cargarListado(); // Carga la lista de olimpiadas desde la base de datos
-        cbOlimpiada.getItems().addAll(olimpiadas); // Agrega las olimpiadas al ComboBox
         cbOlimpiada.getSelectionModel().select(0); // Selecciona el primer elemento por defecto
+        ServicioCarga.ejecutar(DaoOlimpiada::cargarListado, olimpiadas -> { // Carga la lista de olimpiadas desde la base de datos en segundo plano
+            cbOlimpiada.getItems().remove(1, cbOlimpiada.getItems().size()); // Descarta lo que haya dejado una carga anterior
+            cbOlimpiada.getItems().addAll(olimpiadas); // Agrega las olimpiadas al ComboBox
+        });
+        eliminables = null; // Pueden haber cambiado
+        ServicioCarga.ejecutar(DaoOlimpiada::eliminables, eliminables -> { // Calcula qué olimpiadas se pueden eliminar en una sola consulta
+            this.eliminables = eliminables;
+            actualizarEliminar(); // Por si ya hay una olimpiada seleccionada
+        });
+    }
+
+    /**
+     * Habilita el botón de eliminar si la olimpiada seleccionada se puede eliminar.
+     * Mientras no se sabe qué olimpiadas se pueden eliminar, el botón sigue deshabilitado.
+     */
+    private void actualizarEliminar() {
+        if (olimpiada == null || eliminables == null) {
+            btnEliminar.setDisable(true); // Sin selección o sin datos no se puede eliminar
+            lblDelete.setVisible(false);
+            return;
+        }
+        boolean eliminable = eliminables.test(olimpiada); // No consulta la base de datos
+        btnEliminar.setDisable(!eliminable);
+        lblDelete.setVisible(!eliminable);
     }
 
     /**
@@ -115,8 +141,7 @@ public class OlimpiadasController implements Initializable {
                     rbInvierno.setSelected(false);
                 }
                 txtCiudad.setText(olimpiada.getCiudad());
-                btnEliminar.setDisable(!DaoOlimpiada.esEliminable(olimpiada)); // Habilita o deshabilita el botón de eliminar
-                lblDelete.setVisible(!DaoOlimpiada.esEliminable(olimpiada)); // Muestra u oculta la etiqueta de error
+                actualizarEliminar(); // Habilita o deshabilita el botón de eliminar y muestra u oculta la etiqueta de error
             }
         }
     }
@@ -146,12 +171,8 @@ public class OlimpiadasController implements Initializable {
         alert.setContentText(resources.getString("delete.olympics.prompt"));
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            if (DaoOlimpiada.eliminar(olimpiada)) {
-                confirmacion(resources.getString("delete.olympics.success"));
-                cargarOlimpiadas(); // Recarga las olimpiadas después de eliminar
-            } else {
-                alerta(resources.getString("delete.olympics.fail")); // Muestra mensaje de error si la eliminación falla
-            }
+            Olimpiada seleccionada = olimpiada; // La de ahora, aunque la selección cambie mientras se escribe
+            escribir(() -> DaoOlimpiada.eliminar(seleccionada), resources.getString("delete.olympics.success"), resources.getString("delete.olympics.fail")); // Intenta eliminar en segundo plano
         }
     }
 
@@ -172,20 +193,10 @@ public class OlimpiadasController implements Initializable {
             nuevo.setTemporada(Olimpiada.SeasonCategory.valueOf(rbInvierno.isSelected() ? "Winter" : "Summer"));
             nuevo.setCiudad(txtCiudad.getText());
             if (this.olimpiada == null) { // Si no hay olimpiada seleccionada, se crea una nueva
-                int id = DaoOlimpiada.insertar(nuevo);
-                if (id == -1) {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error si la inserción falla
-                } else {
-                    confirmacion(resources.getString("save.olympics")); // Muestra mensaje de éxito
-                    cargarOlimpiadas(); // Recarga las olimpiadas
-                }
+                escribir(() -> DaoOlimpiada.insertar(nuevo) != -1, resources.getString("save.olympics"), resources.getString("save.fail")); // Intenta insertar en segundo plano
             } else { // Si hay una olimpiada seleccionada, se actualiza
-                if (DaoOlimpiada.modificar(this.olimpiada, nuevo)) {
-                    confirmacion(resources.getString("update.olympics")); // Muestra mensaje de éxito
-                    cargarOlimpiadas(); // Recarga las olimpiadas
-                } else {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error si la actualización falla
-                }
+                Olimpiada seleccionada = olimpiada; // La de ahora, aunque la selección cambie mientras se escribe
+                escribir(() -> DaoOlimpiada.modificar(seleccionada, nuevo), resources.getString("update.olympics"), resources.getString("save.fail")); // Intenta modificar en segundo plano
             }
         }
     }
@@ -215,6 +226,34 @@ public class OlimpiadasController implements Initializable {
         return error.toString(); // Devuelve los mensajes de error
     }
 
+    /**
+     * Escribe en la base de datos en segundo plano y, al terminar, avisa del resultado y recarga los olimpiadas.
+     * Mientras tanto no se lanza otra escritura.
+     *
+     * @param escritura Llamada al DAO, que devuelve si se ha hecho
+     * @param exito Mensaje si se ha hecho
+     * @param fallo Mensaje si no se ha hecho
+     */
+    private void escribir(Callable<Boolean> escritura, String exito, String fallo) {
+        if (escribiendo) {
+            return; // Ya hay una escritura en curso
+        }
+        escribiendo = true;
+        ServicioCarga.ejecutar(escritura, hecho -> {
+            escribiendo = false;
+            if (hecho) {
+                confirmacion(exito); // Muestra mensaje de éxito
+                cargarOlimpiadas(); // Recarga la lista de olimpiadas
+            } else {
+                alerta(fallo); // Muestra mensaje de error
+            }
+        }, error -> {
+            escribiendo = false;
+            System.err.println(error.getMessage());
+            alerta(fallo);
+        });
+    }
+
     /**
      * Muestra un mensaje de alerta al usuario.
      *
@@ -4,11 +4,16 @@ import com.intissar.olimpiadas.dao.DaoDeportista;
 import com.intissar.olimpiadas.dao.DaoEquipo;
 import com.intissar.olimpiadas.dao.DaoEvento;
 import com.intissar.olimpiadas.dao.DaoParticipacion;
+import com.intissar.olimpiadas.dao.FuentePaginada;
 import com.intissar.olimpiadas.model.Deportista;
 import com.intissar.olimpiadas.model.Equipo;
 import com.intissar.olimpiadas.model.Evento;
 import com.intissar.olimpiadas.model.Participacion;
+import com.intissar.olimpiadas.servicios.ServicioCarga;
+import javafx.animation.PauseTransition;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -16,16 +21,33 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.net.URL;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.function.Function;
 
 /**
  * Controlador para la gestión de participaciones en eventos deportivos.
  * Permite crear y modificar participaciones, así como gestionar su visualización en la interfaz gráfica.
  */
 public class ParticipacionController implements Initializable {
+    private static final int MAX_RESULTADOS = 100; // Deportistas o eventos que muestra cada búsqueda
+
     private Participacion participacion; // Participación que se está editando o creando
+    private Participacion guardada; // Participación tal como ha quedado en la base de datos, null hasta que se guarda
+    private boolean guardando; // true mientras se guarda en segundo plano, para no guardar dos veces
+    private final PauseTransition pausaDeportista = new PauseTransition(Duration.millis(150)); // Espera a que se deje de escribir
+    private final PauseTransition pausaEvento = new PauseTransition(Duration.millis(150));
+    private Task<?> busquedaDeportista; // Búsqueda en curso de cada lista, se cancela al escribir otra
+    private Task<?> busquedaEvento;
+
+    @FXML // fx:id="txtBuscarDeportista"
+    private TextField txtBuscarDeportista; // Comienzo del nombre de los deportistas a mostrar
+
+    @FXML // fx:id="txtBuscarEvento"
+    private TextField txtBuscarEvento; // Comienzo del nombre de los eventos a mostrar
 
     @FXML // fx:id="lstDeportista"
     private ListView<Deportista> lstDeportista; // Lista de deportistas disponibles
@@ -71,29 +93,78 @@ public class ParticipacionController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         this.resources = resourceBundle;
-        cargarListas(); // Carga las listas de deportistas, equipos y eventos
+        cargarListas(); // Carga las listas de deportistas, equipos y eventos (la selección se hace al terminar)
         if (this.participacion != null) {
             // Carga los datos de la participación en los campos de texto y listas
-            lstDeportista.getSelectionModel().select(participacion.getDeportista());
             lstDeportista.setDisable(true); // Desactiva la selección de deportista si se está editando
-            lstEvento.getSelectionModel().select(participacion.getEvento());
             lstEvento.setDisable(true); // Desactiva la selección de evento si se está editando
-            lstEquipo.getSelectionModel().select(participacion.getEquipo());
             txtEdad.setText(String.valueOf(participacion.getEdad())); // Muestra la edad
             txtMedalla.setText(participacion.getMedalla()); // Muestra la medalla
         }
     }
 
     /**
-     * Carga las listas de deportistas, equipos y eventos desde la base de datos.
+     * Carga las listas de deportistas, equipos y eventos desde la base de datos en segundo plano.
+     * Los deportistas y los eventos no se cargan enteros: se buscan por el comienzo del nombre mientras se escribe
+     * y solo se muestran los primeros MAX_RESULTADOS. Al editar no se pueden cambiar, así que solo se muestran los
+     * de la participación. Los equipos son pocos y se cargan todos.
+     * Si se está editando una participación, sus valores se seleccionan cuando termina cada carga.
      */
     public void cargarListas() {
-        ObservableList<Deportista> deportistas = DaoDeportista.cargarListado(); // Carga la lista de deportistas
-        lstDeportista.getItems().addAll(deportistas); // Agrega los deportistas a la lista
-        ObservableList<Evento> eventos = DaoEvento.cargarListado(); // Carga la lista de eventos
-        lstEvento.getItems().addAll(eventos); // Agrega los eventos a la lista
-        ObservableList<Equipo> equipos = DaoEquipo.cargarListado(); // Carga la lista de equipos
-        lstEquipo.getItems().addAll(equipos); // Agrega los equipos a la lista
+        boolean editando = participacion != null;
+        if (editando) {
+            mostrarFijo(lstDeportista, txtBuscarDeportista, participacion.getDeportista());
+            mostrarFijo(lstEvento, txtBuscarEvento, participacion.getEvento());
+        } else {
+            pausaDeportista.setOnFinished(event -> busquedaDeportista = buscar(lstDeportista, DaoDeportista::paginas, txtBuscarDeportista.getText(), busquedaDeportista));
+            pausaEvento.setOnFinished(event -> busquedaEvento = buscar(lstEvento, DaoEvento::paginas, txtBuscarEvento.getText(), busquedaEvento));
+            txtBuscarDeportista.textProperty().addListener((observableValue, oldValue, newValue) -> pausaDeportista.playFromStart());
+            txtBuscarEvento.textProperty().addListener((observableValue, oldValue, newValue) -> pausaEvento.playFromStart());
+            busquedaDeportista = buscar(lstDeportista, DaoDeportista::paginas, "", null); // Primeros deportistas
+            busquedaEvento = buscar(lstEvento, DaoEvento::paginas, "", null); // Primeros eventos
+        }
+        ServicioCarga.cargarLista(lstEquipo, DaoEquipo::cargarListado, editando ? participacion.getEquipo() : null); // Carga la lista de equipos
+    }
+
+    /**
+     * Muestra en una lista solo el valor de la participación que se edita, seleccionado, y desactiva su búsqueda.
+     *
+     * @param lista    Lista de deportistas o eventos
+     * @param busqueda Campo de búsqueda de la lista
+     * @param valor    Valor de la participación
+     * @param <T>      Tipo de los elementos
+     */
+    private static <T> void mostrarFijo(ListView<T> lista, TextField busqueda, T valor) {
+        lista.getItems().setAll(List.of(valor));
+        lista.getSelectionModel().select(valor);
+        busqueda.setDisable(true);
+    }
+
+    /**
+     * Busca en segundo plano los elementos cuyo nombre empieza por un texto y los muestra en una lista.
+     * Se cancela la búsqueda anterior para que un resultado que llegue tarde no sustituya al de lo último escrito.
+     * El elemento seleccionado se mantiene en la lista aunque no coincida.
+     *
+     * @param lista    Lista a rellenar
+     * @param paginas  Origen de datos paginado del DAO con el filtro de nombre
+     * @param texto    Comienzo del nombre, vacío o null para mostrar los primeros
+     * @param anterior Búsqueda anterior de la lista, o null
+     * @param <T>      Tipo de los elementos
+     * @return Búsqueda en curso
+     */
+    private static <T> Task<ObservableList<T>> buscar(ListView<T> lista, Function<String, FuentePaginada<T, ?>> paginas, String texto, Task<?> anterior) {
+        if (anterior != null) {
+            anterior.cancel(); // El resultado anterior ya no interesa
+        }
+        T seleccionado = lista.getSelectionModel().getSelectedItem();
+        String filtro = texto == null ? "" : texto;
+        return ServicioCarga.cargarLista(lista, () -> {
+            ObservableList<T> encontrados = FXCollections.observableArrayList(paginas.apply(filtro).cargarPagina(null, MAX_RESULTADOS));
+            if (seleccionado != null && !encontrados.contains(seleccionado)) {
+                encontrados.add(0, seleccionado); // Para no perder la selección al seguir buscando
+            }
+            return encontrados;
+        }, seleccionado);
     }
 
     /**
@@ -109,11 +180,15 @@ public class ParticipacionController implements Initializable {
 
     /**
      * Guarda una nueva participación o actualiza una existente.
+     * La escritura se hace en segundo plano y la ventana se cierra cuando termina.
      *
      * @param event Evento de acción
      */
     @FXML
     void guardar(ActionEvent event) {
+        if (guardando) {
+            return; // Ya se está guardando
+        }
         String error = validar(); // Valida los datos ingresados
         if (!error.isEmpty()) {
             alerta(error); // Muestra mensaje de error si hay problemas de validación
@@ -124,26 +199,55 @@ public class ParticipacionController implements Initializable {
             nuevo.setEquipo(lstEquipo.getSelectionModel().getSelectedItem());
             nuevo.setEdad(Integer.parseInt(txtEdad.getText()));
             nuevo.setMedalla(txtMedalla.getText());
+            guardando = true;
             if (this.participacion == null) { // Si no hay participación seleccionada, se crea una nueva
-                if (DaoParticipacion.insertar(nuevo)) {
-                    confirmacion(resources.getString("save.participation")); // Muestra mensaje de éxito
-                    Stage stage = (Stage) txtEdad.getScene().getWindow();
-                    stage.close(); // Cierra la ventana
-                } else {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error si la inserción falla
-                }
+                ServicioCarga.ejecutar(() -> DaoParticipacion.insertar(nuevo), insertada -> {
+                    guardando = false;
+                    if (insertada) {
+                        this.guardada = nuevo; // La tabla añade solo esta fila
+                        confirmacion(resources.getString("save.participation")); // Muestra mensaje de éxito
+                        Stage stage = (Stage) txtEdad.getScene().getWindow();
+                        stage.close(); // Cierra la ventana
+                    } else {
+                        alerta(resources.getString("save.fail")); // Muestra mensaje de error si la inserción falla
+                    }
+                }, this::falloGuardar);
             } else { // Si hay una participación seleccionada, se actualiza
-                if (DaoParticipacion.modificar(participacion, nuevo)) {
-                    confirmacion(resources.getString("update.participation")); // Muestra mensaje de éxito
-                    Stage stage = (Stage) txtEdad.getScene().getWindow();
-                    stage.close(); // Cierra la ventana
-                } else {
-                    alerta(resources.getString("save.fail")); // Muestra mensaje de error si la actualización falla
-                }
+                ServicioCarga.ejecutar(() -> DaoParticipacion.modificar(participacion, nuevo), modificada -> {
+                    guardando = false;
+                    if (modificada) {
+                        this.guardada = nuevo; // La tabla reemplaza solo esta fila
+                        confirmacion(resources.getString("update.participation")); // Muestra mensaje de éxito
+                        Stage stage = (Stage) txtEdad.getScene().getWindow();
+                        stage.close(); // Cierra la ventana
+                    } else {
+                        alerta(resources.getString("save.fail")); // Muestra mensaje de error si la actualización falla
+                    }
+                }, this::falloGuardar);
             }
         }
     }
 
+    /**
+     * Muestra el error de un guardado en segundo plano que no ha llegado a terminar.
+     *
+     * @param error Excepción del guardado
+     */
+    private void falloGuardar(Throwable error) {
+        guardando = false;
+        System.err.println(error.getMessage());
+        alerta(resources.getString("save.fail")); // Muestra mensaje de error
+    }
+
+    /**
+     * Devuelve la participación guardada al cerrar la ventana.
+     *
+     * @return Participación creada o modificada, o null si se ha cancelado
+     */
+    public Participacion getGuardada() {
+        return guardada;
+    }
+
     /**
      * Valida los datos ingresados en los campos de texto y listas.
      *
@@ -0,0 +1,450 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.ConnectionPool;
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.Transaccion;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de fotos en disco direccionado por contenido, para fotos.almacen=disco.
+ * Cada foto se guarda una sola vez en fotos.almacen.ruta con el SHA-256 de sus bytes como nombre (repartidas en
+ * subdirectorios por los dos primeros caracteres), y la tabla Deportista solo guarda ese hash en foto_hash:
+ * las fotos repetidas ocupan un fichero, y las filas de Deportista no llevan los bytes de la foto.
+ * Las fotos se leen proyectando el fichero en memoria, sin copiarlo.
+ *
+ * Con fotos.almacen=blob (por defecto) no se usa y las fotos siguen en la columna foto.
+ * El main mueve las fotos de una columna a la otra y borra las que ya no usa ningún deportista.
+ */
+public final class AlmacenFotos {
+    private static final boolean ACTIVO = "disco".equalsIgnoreCase(
+            DBConnect.getConfiguration().getProperty("fotos.almacen", "blob").trim());
+    private static final Path RAIZ = Path.of(DBConnect.getConfiguration().getProperty("fotos.almacen.ruta", "fotos").trim());
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOTE = 100; // fotos movidas por transacción en la migración
+    private static final long GRACIA = Math.max(0, DBConnect.getConfigurationInt("fotos.almacen.gracia", 60)) * 60_000L; // ms
+
+    private AlmacenFotos() {
+    }
+
+    /**
+     * @return true si las fotos se guardan en disco (fotos.almacen=disco) y la tabla solo tiene su hash
+     */
+    public static boolean activo() {
+        return ACTIVO;
+    }
+
+    /**
+     * Guarda una foto en el almacén si no estaba ya
+     *
+     * @param foto foto a guardar, o null
+     * @return hash de la foto, o null si foto es null
+     * @throws SQLException si no se puede leer la foto o escribir el fichero
+     */
+    static String guardar(Blob foto) throws SQLException {
+        if (foto == null) {
+            return null;
+        }
+        if (foto instanceof FotoMapeada mapeada && mapeada.hash != null) {
+            return mapeada.hash; // ya está en el almacén
+        }
+        return guardar(foto.getBytes(1, (int) foto.length()));
+    }
+
+    private static String guardar(byte[] bytes) throws SQLException {
+        String hash = sha256(bytes);
+        Path fichero = ruta(hash);
+        if (Files.isRegularFile(fichero)) {
+            try {
+                Files.setLastModifiedTime(fichero, FileTime.fromMillis(System.currentTimeMillis())); // limpiar no la borra mientras se guarda la fila
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+            return hash; // foto repetida
+        }
+        try {
+            Files.createDirectories(fichero.getParent());
+            Path temporal = Files.createTempFile(fichero.getParent(), hash, ".tmp");
+            try {
+                try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    while (buffer.hasRemaining()) {
+                        canal.write(buffer);
+                    }
+                    canal.force(true); // la fila que apunte a la foto no puede llegar a la base de datos antes que el fichero
+                }
+                Files.move(temporal, fichero, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Otro hilo ha guardado la misma foto a la vez
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+            return hash;
+        } catch (IOException e) {
+            throw new SQLException("No se puede guardar la foto " + hash + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lee una foto del almacén
+     *
+     * @param hash hash de la foto, o null
+     * @return foto proyectada en memoria, o null si el hash es null o el fichero no existe
+     */
+    static Blob leer(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        if (!HASH.matcher(hash).matches()) { // el nombre del fichero sale de la tabla, nunca se sale del almacén
+            System.err.println("Hash de foto no válido: " + hash);
+            return null;
+        }
+        try {
+            return new FotoMapeada(proyectar(ruta(hash)), hash);
+        } catch (IOException e) {
+            System.err.println("No se puede leer la foto " + hash + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Foto de un fichero elegido por el usuario, sin copiarla hasta que se guarde el deportista
+     *
+     * @param file fichero de imagen
+     * @return foto proyectada en memoria
+     * @throws IOException si no se puede leer el fichero
+     */
+    static Blob desdeFichero(File file) throws IOException {
+        return new FotoMapeada(proyectar(file.toPath()), null);
+    }
+
+    private static MappedByteBuffer proyectar(Path fichero) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()); // sigue siendo válida al cerrar el canal
+        }
+    }
+
+    private static Path ruta(String hash) {
+        return RAIZ.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * @param bytes contenido de una foto
+     * @return SHA-256 de los bytes en hexadecimal, el nombre de la foto en el almacén
+     */
+    public static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Todas las JVM tienen SHA-256
+        }
+    }
+
+    /**
+     * Mueve las fotos de la columna foto al almacén, dejando solo su hash en foto_hash.
+     * Crea la columna foto_hash si la tabla no la tiene. Se puede interrumpir y volver a lanzar.
+     *
+     * @return fotos movidas
+     * @throws SQLException si falla la base de datos o el almacén
+     */
+    public static int migrar() throws SQLException {
+        crearColumnaHash();
+        int movidas = 0;
+        while (true) {
+            List<Integer> ids = new ArrayList<>();
+            List<byte[]> fotos = new ArrayList<>();
+            try (DBConnect db = new DBConnect();
+                 PreparedStatement pstmt = db.getConnection().prepareStatement(
+                         "SELECT id_deportista, foto FROM Deportista WHERE foto IS NOT NULL ORDER BY id_deportista LIMIT ?")) {
+                pstmt.setInt(1, LOTE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                        fotos.add(rs.getBytes(2));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return movidas;
+            }
+            List<String> hashes = new ArrayList<>();
+            for (byte[] foto : fotos) {
+                hashes.add(guardar(foto)); // los ficheros se escriben antes de que la tabla apunte a ellos
+            }
+            try (Transaccion transaccion = Transaccion.iniciar();
+                 DBConnect db = new DBConnect();
+                 PreparedStatement pstmt = db.getConnection().prepareStatement(
+                         "UPDATE Deportista SET foto_hash = ?, foto = NULL WHERE id_deportista = ?")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    pstmt.setString(1, hashes.get(i));
+                    pstmt.setInt(2, ids.get(i));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                transaccion.confirmar();
+            }
+            movidas += ids.size();
+            System.out.println("Fotos movidas al almacén: " + movidas);
+        }
+    }
+
+    /**
+     * Devuelve las fotos del almacén a la columna foto, para volver a fotos.almacen=blob
+     *
+     * @return fotos devueltas
+     * @throws SQLException si falla la base de datos o falta alguna foto en el almacén
+     */
+    public static int devolver() throws SQLException {
+        int devueltas = 0;
+        while (true) {
+            List<Integer> ids = new ArrayList<>();
+            List<String> hashes = new ArrayList<>();
+            try (DBConnect db = new DBConnect();
+                 PreparedStatement pstmt = db.getConnection().prepareStatement(
+                         "SELECT id_deportista, foto_hash FROM Deportista WHERE foto_hash IS NOT NULL ORDER BY id_deportista LIMIT ?")) {
+                pstmt.setInt(1, LOTE);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                        hashes.add(rs.getString(2));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return devueltas;
+            }
+            try (Transaccion transaccion = Transaccion.iniciar();
+                 DBConnect db = new DBConnect();
+                 PreparedStatement pstmt = db.getConnection().prepareStatement(
+                         "UPDATE Deportista SET foto = ?, foto_hash = NULL WHERE id_deportista = ?")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    Blob foto = leer(hashes.get(i));
+                    if (foto == null) {
+                        throw new SQLException("Falta en el almacén la foto del deportista " + ids.get(i));
+                    }
+                    pstmt.setBytes(1, foto.getBytes(1, (int) foto.length()));
+                    pstmt.setInt(2, ids.get(i));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                transaccion.confirmar();
+            }
+            devueltas += ids.size();
+            System.out.println("Fotos devueltas a la tabla: " + devueltas);
+        }
+    }
+
+    /**
+     * Borra del almacén las fotos que ya no tiene ningún deportista (borrados o con la foto cambiada).
+     * Una foto se escribe en el almacén antes de que se confirme la fila que la usa, así que no se borran las
+     * fotos guardadas hace menos de fotos.almacen.gracia minutos: mientras la aplicación está abierta se puede
+     * limpiar siempre que ninguna transacción dure más que eso. Con la aplicación cerrada es seguro del todo.
+     *
+     * @return ficheros borrados
+     * @throws SQLException si falla la base de datos o no se puede recorrer el almacén
+     */
+    public static int limpiar() throws SQLException {
+        if (!Files.isDirectory(RAIZ)) {
+            return 0;
+        }
+        long limite = System.currentTimeMillis() - GRACIA; // antes de leer las fotos usadas
+        Set<String> usadas = new HashSet<>();
+        try (DBConnect db = new DBConnect();
+             Statement stmt = db.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT DISTINCT foto_hash FROM Deportista WHERE foto_hash IS NOT NULL")) {
+            while (rs.next()) {
+                usadas.add(rs.getString(1));
+            }
+        }
+        int borradas = 0;
+        try (Stream<Path> ficheros = Files.walk(RAIZ, 2)) {
+            for (Path fichero : (Iterable<Path>) ficheros::iterator) {
+                String nombre = fichero.getFileName().toString();
+                if (Files.isRegularFile(fichero) && nombre.length() == 64 && !usadas.contains(nombre)
+                        && Files.getLastModifiedTime(fichero).toMillis() < limite) {
+                    Files.delete(fichero);
+                    borradas++;
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException("No se puede limpiar el almacén de fotos: " + e.getMessage(), e);
+        }
+        return borradas;
+    }
+
+    private static void crearColumnaHash() throws SQLException {
+        try (DBConnect db = new DBConnect()) {
+            DatabaseMetaData metaData = db.getConnection().getMetaData();
+            try (ResultSet rs = metaData.getColumns(db.getConnection().getCatalog(), null, "%", "foto_hash")) {
+                while (rs.next()) {
+                    if ("Deportista".equalsIgnoreCase(rs.getString("TABLE_NAME"))
+                            && "foto_hash".equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        return;
+                    }
+                }
+            }
+            try (Statement stmt = db.getConnection().createStatement()) {
+                stmt.execute("ALTER TABLE Deportista ADD COLUMN foto_hash char(64) DEFAULT NULL");
+            }
+        }
+    }
+
+    /**
+     * Mueve las fotos entre la tabla y el almacén de fotos.almacen.ruta
+     *
+     * @param args migrar (por defecto), devolver o limpiar
+     */
+    public static void main(String[] args) {
+        String orden = args.length == 0 ? "migrar" : args[0];
+        try {
+            switch (orden) {
+                case "migrar" -> System.out.println("Fotos movidas de la tabla al almacén: " + migrar()
+                        + ". Ya se puede usar fotos.almacen=disco");
+                case "devolver" -> System.out.println("Fotos devueltas del almacén a la tabla: " + devolver()
+                        + ". Ya se puede usar fotos.almacen=blob");
+                case "limpiar" -> System.out.println("Fotos sin deportista borradas del almacén: " + limpiar());
+                default -> {
+                    System.err.println("Uso: AlmacenFotos [migrar|devolver|limpiar]");
+                    System.exit(2);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } finally {
+            ConnectionPool.shutdownInstance();
+        }
+    }
+
+    /**
+     * Foto de solo lectura sobre un fichero proyectado en memoria
+     */
+    private static final class FotoMapeada implements Blob {
+        private ByteBuffer bytes;
+        private final String hash; // null si todavía no está en el almacén
+
+        FotoMapeada(ByteBuffer bytes, String hash) {
+            this.bytes = bytes;
+            this.hash = hash;
+        }
+
+        private ByteBuffer bytes() throws SQLException {
+            if (bytes == null) {
+                throw new SQLException("La foto ya se ha liberado");
+            }
+            return bytes.duplicate(); // cada lectura con su propia posición
+        }
+
+        @Override
+        public long length() throws SQLException {
+            return bytes().remaining();
+        }
+
+        @Override
+        public byte[] getBytes(long pos, int length) throws SQLException {
+            ByteBuffer b = bytes();
+            int inicio = (int) pos - 1;
+            if (inicio < 0 || inicio > b.limit()) {
+                throw new SQLException("Posición fuera de la foto: " + pos);
+            }
+            byte[] copia = new byte[Math.min(length, b.limit() - inicio)];
+            b.get(inicio, copia);
+            return copia;
+        }
+
+        @Override
+        public InputStream getBinaryStream() throws SQLException {
+            return getBinaryStream(1, length());
+        }
+
+        @Override
+        public InputStream getBinaryStream(long pos, long length) throws SQLException {
+            ByteBuffer b = bytes().position((int) pos - 1);
+            b.limit((int) Math.min(b.limit(), b.position() + length));
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return b.hasRemaining() ? b.get() & 0xff : -1;
+                }
+
+                @Override
+                public int read(byte[] destino, int desde, int cuantos) {
+                    if (!b.hasRemaining()) {
+                        return -1;
+                    }
+                    int leidos = Math.min(cuantos, b.remaining());
+                    b.get(destino, desde, leidos);
+                    return leidos;
+                }
+
+                @Override
+                public int available() {
+                    return b.remaining();
+                }
+            };
+        }
+
+        @Override
+        public long position(byte[] pattern, long start) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public long position(Blob pattern, long start) throws SQLException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public int setBytes(long pos, byte[] bytes) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Las fotos del almacén no se modifican");
+        }
+
+        @Override
+        public int setBytes(long pos, byte[] bytes, int offset, int len) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Las fotos del almacén no se modifican");
+        }
+
+        @Override
+        public OutputStream setBinaryStream(long pos) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Las fotos del almacén no se modifican");
+        }
+
+        @Override
+        public void truncate(long len) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Las fotos del almacén no se modifican");
+        }
+
+        @Override
+        public void free() {
+            bytes = null; // la proyección se libera con el recolector
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.intissar.olimpiadas.dao;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caché en memoria de una tabla de referencia pequeña (Deporte, Olimpiada, Equipo).
+ * La tabla se lee entera la primera vez que se pide y después se sirve desde memoria,
+ * hasta que el DAO la invalida tras un insertar, modificar o eliminar correcto.
+ * La concurrencia y las transacciones se tratan como en CacheVersionada.
+ *
+ * @param <T> tipo de las filas
+ */
+final class CacheReferencia<T> {
+    /**
+     * Filas de la tabla en el orden de la consulta y por id
+     */
+    private record Tabla<T>(List<T> listado, Map<Integer, T> porId) {}
+
+    private final CacheVersionada<Tabla<T>> tabla;
+
+    /**
+     * @param carga consulta que lee la tabla entera
+     * @param id    id de cada fila
+     */
+    CacheReferencia(CacheVersionada.Carga<List<T>> carga, ToIntFunction<T> id) {
+        this.tabla = new CacheVersionada<>(() -> {
+            List<T> filas = List.copyOf(carga.cargar());
+            Map<Integer, T> porId = new HashMap<>();
+            for (T fila : filas) {
+                porId.put(id.applyAsInt(fila), fila);
+            }
+            return new Tabla<>(filas, porId);
+        });
+    }
+
+    /**
+     * @return todas las filas, en el orden de la consulta (lista inmutable)
+     * @throws SQLException si hay que leer la tabla y falla la consulta
+     */
+    List<T> listado() throws SQLException {
+        return tabla.obtener().listado();
+    }
+
+    /**
+     * @param clave id de la fila
+     * @return fila con ese id o null si no está en la tabla
+     * @throws SQLException si hay que leer la tabla y falla la consulta
+     */
+    T get(int clave) throws SQLException {
+        return tabla.obtener().porId().get(clave);
+    }
+
+    /**
+     * Descarta los datos en memoria; la siguiente consulta vuelve a leer la tabla
+     */
+    void invalidar() {
+        tabla.invalidar();
+    }
+}
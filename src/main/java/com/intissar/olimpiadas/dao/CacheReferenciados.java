@@ -0,0 +1,63 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.DBConnect;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+/**
+ * Caché de los ids de una tabla que están referenciados desde otra y, por tanto, no se pueden eliminar.
+ * Se calcula para toda la tabla con una sola consulta agrupada (por ejemplo
+ * SELECT id_deporte FROM Evento GROUP BY id_deporte) y se guarda como BitSet, hasta que el DAO de la tabla
+ * que tiene las referencias la invalida tras insertar, modificar o eliminar.
+ * La concurrencia y las transacciones se tratan como en CacheVersionada.
+ */
+final class CacheReferenciados {
+    private final String consulta;
+    private final CacheVersionada<BitSet> referenciados = new CacheVersionada<>(this::consultar);
+
+    /**
+     * @param consulta consulta que devuelve en la primera columna los ids referenciados, una fila por id
+     */
+    CacheReferenciados(String consulta) {
+        this.consulta = consulta;
+    }
+
+    /**
+     * @return copia de los ids referenciados
+     * @throws SQLException si hay que consultar y falla la consulta
+     */
+    BitSet ids() throws SQLException {
+        return (BitSet) referenciados.obtener().clone();
+    }
+
+    /**
+     * @param id id de la fila
+     * @return true si la fila está referenciada
+     * @throws SQLException si hay que consultar y falla la consulta
+     */
+    boolean contiene(int id) throws SQLException {
+        return referenciados.obtener().get(id);
+    }
+
+    /**
+     * Descarta los ids en memoria; la siguiente consulta los vuelve a calcular
+     */
+    void invalidar() {
+        referenciados.invalidar();
+    }
+
+    private BitSet consultar() throws SQLException {
+        BitSet ids = new BitSet();
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ids.set(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+}
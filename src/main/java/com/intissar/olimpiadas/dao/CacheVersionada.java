@@ -0,0 +1,72 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.Transaccion;
+
+import java.sql.SQLException;
+
+/**
+ * Valor calculado con una consulta que se guarda en memoria hasta que el DAO lo invalida. Es la base de
+ * CacheReferencia y CacheReferenciados.
+ *
+ * Es segura entre hilos sin esperar a la base de datos con el bloqueo: la consulta se lanza fuera de él y cada
+ * invalidación incrementa una versión, de forma que una carga que empezó antes de una invalidación no se guarda.
+ * Dentro de una Transaccion se consulta sin pasar por la caché, porque la transacción puede ver filas que todavía
+ * no ha confirmado y que los demás hilos no deben recibir; por eso también se vuelve a invalidar al terminarla.
+ *
+ * @param <V> tipo del valor
+ */
+final class CacheVersionada<V> {
+    /**
+     * Consulta que calcula el valor
+     */
+    @FunctionalInterface
+    interface Carga<V> {
+        V cargar() throws SQLException;
+    }
+
+    private final Carga<V> carga;
+
+    private V valor; // null si hay que volver a consultar
+    private long version; // se incrementa en cada invalidación
+
+    CacheVersionada(Carga<V> carga) {
+        this.carga = carga;
+    }
+
+    /**
+     * @return el valor en memoria, o el de una consulta nueva si se ha invalidado o hay una Transaccion activa
+     * @throws SQLException si hay que consultar y falla la consulta
+     */
+    V obtener() throws SQLException {
+        if (Transaccion.activa()) {
+            return carga.cargar();
+        }
+        long leida;
+        synchronized (this) {
+            if (valor != null) {
+                return valor;
+            }
+            leida = version;
+        }
+        V nuevo = carga.cargar(); // fuera del bloqueo, para no esperar a la BD con él
+        synchronized (this) {
+            if (leida == version) { // nadie ha modificado la tabla mientras se leía
+                valor = nuevo;
+            }
+        }
+        return nuevo;
+    }
+
+    /**
+     * Descarta el valor en memoria; la siguiente consulta lo vuelve a calcular
+     */
+    void invalidar() {
+        descartar();
+        Transaccion.alTerminar(this::descartar); // Otro hilo podría volver a consultar antes de que se confirme
+    }
+
+    private synchronized void descartar() {
+        version++;
+        valor = null;
+    }
+}
@@ -1,6 +1,7 @@
 package com.intissar.olimpiadas.dao;
 
 import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.MetricasJdbc;
 import com.intissar.olimpiadas.model.Deporte;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -8,6 +9,12 @@ import javafx.collections.ObservableList;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Clase que maneja las operaciones de acceso a datos relacionadas con la tabla "Deporte".
@@ -16,86 +23,152 @@ import java.sql.SQLException;
 public class DaoDeporte {
 
     /**
-     * Busca un deporte en la base de datos por su ID.
+     * Caché de la tabla Deporte, que se invalida al insertar, modificar o eliminar un deporte.
+     */
+    private static final CacheReferencia<Deporte> CACHE = new CacheReferencia<>(DaoDeporte::leerTabla, Deporte::getId_deporte);
+
+    /**
+     * Instancia canónica de cada deporte, compartida por la caché y por los eventos y participaciones que lo referencian.
+     */
+    private static final MapaIdentidad<Deporte> IDENTIDAD = new MapaIdentidad<>("identidad.deportes", 1000,
+            (guardado, leido) -> Objects.equals(guardado.getNombre(), leido.getNombre()));
+
+    /**
+     * Mapeador de las filas de la tabla Deporte.
+     */
+    private static final Mapeador<Deporte> FILAS = mapeador("nombre");
+
+    /**
+     * Busca un deporte por su ID en la caché de deportes.
      *
      * @param id ID del deporte a buscar.
      * @return El objeto Deporte correspondiente o null si no se encuentra.
      */
     public static Deporte getDeporte(int id) {
-        DBConnect connection; // Conexión a la base de datos
-        Deporte deporte = null; // Inicializa la variable de deporte
         try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT id_deporte, nombre FROM Deporte WHERE id_deporte = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setInt(1, id); // Establece el ID del deporte en la consulta
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
-            if (rs.next()) { // Si hay resultados
-                int id_deporte = rs.getInt("id_deporte");
-                String nombre = rs.getString("nombre");
-                deporte = new Deporte(id_deporte, nombre); // Crea un nuevo objeto Deporte
-            }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
+            return CACHE.get(id); // Lee la tabla solo si no está en memoria
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
+            return null; // Devuelve null si no se ha podido leer la tabla
         }
-        return deporte; // Devuelve el deporte encontrado o null
     }
 
     /**
-     * Carga todos los deportes de la base de datos y los devuelve en una lista observable.
+     * Carga todos los deportes y los devuelve en una lista observable.
+     * Los deportes se leen de la caché; la lista devuelta es nueva y se puede modificar.
      *
      * @return Lista observable de deportes.
      */
     public static ObservableList<Deporte> cargarListado() {
-        DBConnect connection; // Conexión a la base de datos
         ObservableList<Deporte> deportes = FXCollections.observableArrayList(); // Lista observable para almacenar deportes
+        MetricasJdbc.Ambito ambito = MetricasJdbc.ambito("DaoDeporte.cargarListado"); // Cuenta las sentencias de la carga
         try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT id_deporte, nombre FROM Deporte";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
-            while (rs.next()) { // Itera a través de los resultados
-                int id_deporte = rs.getInt("id_deporte");
-                String nombre = rs.getString("nombre");
-                Deporte deporte = new Deporte(id_deporte, nombre); // Crea un nuevo objeto Deporte
-                deportes.add(deporte); // Agrega el deporte a la lista
-            }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
+            deportes.addAll(CACHE.listado()); // Lee la tabla solo si no está en memoria
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
+        } finally {
+            ambito.close(); // Registra las sentencias de la carga
         }
         return deportes; // Devuelve la lista de deportes
     }
 
+    /**
+     * Devuelve todos los deportes como un Stream, leídos de la caché.
+     * La tabla es pequeña y ya está en memoria, así que no hace falta recorrerla en streaming.
+     *
+     * @return Flujo de deportes (vacío si no se ha podido leer la tabla).
+     */
+    public static Stream<Deporte> cargarFlujo() {
+        try {
+            return CACHE.listado().stream(); // Lee la tabla solo si no está en memoria
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return Stream.empty(); // Flujo vacío si no se ha podido leer la tabla
+        }
+    }
+
+    /**
+     * Lee todos los deportes de la base de datos para la caché.
+     *
+     * @return Lista de deportes.
+     * @throws SQLException Si ocurre un error en la base de datos.
+     */
+    private static List<Deporte> leerTabla() throws SQLException {
+        List<Deporte> deportes = new ArrayList<>(); // Lista para almacenar deportes
+        String consulta = "SELECT id_deporte, nombre FROM Deporte";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
+             ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
+            while (rs.next()) { // Itera a través de los resultados
+                deportes.add(FILAS.leer(rs)); // Crea el deporte y lo agrega a la lista
+            }
+        }
+        return deportes; // Devuelve la lista de deportes
+    }
+
+    /**
+     * Crea un mapeador de deportes que devuelve la instancia canónica de cada uno.
+     * Lo usan también DaoEvento y DaoParticipacion para las filas de sus JOIN.
+     *
+     * @param columnaNombre Columna con el nombre del deporte (la del id es id_deporte).
+     * @return Mapeador para las consultas con esas columnas.
+     */
+    static Mapeador<Deporte> mapeador(String columnaNombre) {
+        return new Mapeador<>((rs, c) -> {
+            int id_deporte = rs.getInt(c[0]);
+            return IDENTIDAD.canonica(id_deporte, new Deporte(id_deporte, rs.getString(c[1]))); // Reutiliza el deporte si no ha cambiado
+        }, "id_deporte", columnaNombre);
+    }
+
+    /**
+     * Descarta la caché de deportes. Lo llama ImportadorHistorico tras escribir en la tabla sin pasar por este DAO.
+     */
+    static void invalidarCache() {
+        CACHE.invalidar(); // Se volverá a leer la tabla en la siguiente consulta
+    }
+
+    /**
+     * Ids de los deportes que tienen eventos y no se pueden eliminar, calculados para toda la tabla en una consulta.
+     */
+    private static final CacheReferenciados REFERENCIADOS = new CacheReferenciados("SELECT id_deporte FROM Evento GROUP BY id_deporte");
+
     /**
      * Verifica si un deporte se puede eliminar de la base de datos.
+     * Solo consulta la base de datos si los deportes no eliminables no están ya en memoria.
      *
      * @param deporte El objeto Deporte a verificar.
      * @return true si se puede eliminar, false en caso contrario.
      */
     public static boolean esEliminable(Deporte deporte) {
-        DBConnect connection; // Conexión a la base de datos
         try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT count(*) as cont FROM Evento WHERE id_deporte = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setInt(1, deporte.getId_deporte()); // Establece el ID del deporte en la consulta
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
-            if (rs.next()) { // Si hay resultados
-                int cont = rs.getInt("cont"); // Obtiene el conteo de eventos asociados
-                rs.close(); // Cierra el ResultSet
-                connection.closeConnection(); // Cierra la conexión
-                return (cont == 0); // Devuelve true si no hay eventos asociados
-            }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
+            return !REFERENCIADOS.contiene(deporte.getId_deporte()); // Se puede eliminar si no tiene eventos
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return false; // Devuelve false si no se puede determinar si es eliminable
+        }
+    }
+
+    /**
+     * Calcula qué deportes se pueden eliminar, con una sola consulta agrupada para toda la tabla.
+     * El predicado devuelto no consulta la base de datos, así que se puede usar desde el hilo de JavaFX.
+     *
+     * @return Predicado que indica si un deporte se puede eliminar.
+     */
+    public static Predicate<Deporte> eliminables() {
+        try {
+            BitSet referenciados = REFERENCIADOS.ids(); // Ids con eventos
+            return deporte -> !referenciados.get(deporte.getId_deporte());
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
+            return deporte -> false; // Si no se puede determinar, no se permite eliminar
         }
-        return false; // Devuelve false si no se puede determinar si es eliminable
+    }
+
+    /**
+     * Invalida los deportes no eliminables. Lo llama DaoEvento cuando cambian sus filas.
+     */
+    static void invalidarEliminables() {
+        REFERENCIADOS.invalidar(); // Se volverán a calcular en la siguiente consulta
     }
 
     /**
@@ -106,18 +179,16 @@ public class DaoDeporte {
      * @return true si la modificación fue exitosa, false en caso contrario.
      */
     public static boolean modificar(Deporte deporte, Deporte deporteNuevo) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "UPDATE Deporte SET nombre = ? WHERE id_deporte = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "UPDATE Deporte SET nombre = ? WHERE id_deporte = ?";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setString(1, deporteNuevo.getNombre()); // Establece el nuevo nombre del deporte
             pstmt.setInt(2, deporte.getId_deporte()); // Establece el ID del deporte a modificar
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la actualización
+            if (filasAfectadas > 0) {
+                CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            }
             System.out.println("Actualizado deporte"); // Mensaje de éxito
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
             return filasAfectadas > 0; // Devuelve true si se afectaron filas
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
@@ -132,26 +203,22 @@ public class DaoDeporte {
      * @return ID del nuevo deporte o -1 si la inserción falla.
      */
     public static int insertar(Deporte deporte) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "INSERT INTO Deporte (nombre) VALUES (?)";
-            pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
+        String consulta = "INSERT INTO Deporte (nombre) VALUES (?)";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, deporte.getNombre()); // Establece el nombre del nuevo deporte
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la inserción
+            if (filasAfectadas > 0) {
+                CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            }
             System.out.println("Nueva entrada en deporte"); // Mensaje de éxito
             if (filasAfectadas > 0) { // Si se afectaron filas
-                ResultSet rs = pstmt.getGeneratedKeys(); // Obtiene las claves generadas
-                if (rs.next()) { // Si hay claves generadas
-                    int id = rs.getInt(1); // Obtiene el ID del nuevo deporte
-                    pstmt.close(); // Cierra la declaración
-                    connection.closeConnection(); // Cierra la conexión
-                    return id; // Devuelve el ID del nuevo deporte
+                try (ResultSet rs = pstmt.getGeneratedKeys()) { // Obtiene las claves generadas
+                    if (rs.next()) { // Si hay claves generadas
+                        return rs.getInt(1); // Devuelve el ID del nuevo deporte
+                    }
                 }
             }
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
             return -1; // Devuelve -1 si no se pudo obtener el ID
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
@@ -166,16 +233,15 @@ public class DaoDeporte {
      * @return true si la eliminación fue exitosa, false en caso contrario.
      */
     public static boolean eliminar(Deporte deporte) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "DELETE FROM Deporte WHERE id_deporte = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "DELETE FROM Deporte WHERE id_deporte = ?";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, deporte.getId_deporte()); // Establece el ID del deporte a eliminar
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la eliminación
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
+            if (filasAfectadas > 0) {
+                IDENTIDAD.quitar(deporte.getId_deporte()); // Olvida la instancia canónica
+                CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            }
             System.out.println("Eliminado con éxito"); // Mensaje de éxito
             return filasAfectadas > 0; // Devuelve true si se afectaron filas
         } catch (SQLException e) {
@@ -183,4 +249,77 @@ public class DaoDeporte {
             return false; // Devuelve false si hubo un error
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Inserta varios deportes en una sola transacción, enviándolos en lotes.
+     *
+     * @param deportes Deportes a insertar.
+     * @return IDs de los nuevos deportes en el mismo orden, o -1 en todas las posiciones si la inserción falla.
+     */
+    public static int[] insertarTodos(List<Deporte> deportes) {
+        String consulta = "INSERT INTO Deporte (nombre) VALUES (?)";
+        try {
+            int[] ids = Lotes.enTransaccion(connection -> Lotes.insertar(connection, consulta, deportes,
+                    (pstmt, deporte) -> pstmt.setString(1, deporte.getNombre()))); // Establece el nombre de cada deporte
+            CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            System.out.println("Nuevas entradas en deporte: " + ids.length); // Mensaje de éxito
+            return ids; // Devuelve los IDs de los nuevos deportes
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return Lotes.fallo(deportes.size()); // No se ha insertado ninguno
+        }
+    }
+
+    /**
+     * Modifica varios deportes en una sola transacción, enviándolos en lotes.
+     *
+     * @param deportes      Deportes con datos actuales.
+     * @param deportesNuevos Nuevos datos de cada deporte, en el mismo orden.
+     * @return true si se han modificado todos, false si no se ha modificado ninguno.
+     */
+    public static boolean modificarTodos(List<Deporte> deportes, List<Deporte> deportesNuevos) {
+        Lotes.comprobarPares(deportes, deportesNuevos); // Las dos listas deben corresponderse
+        String consulta = "UPDATE Deporte SET nombre = ? WHERE id_deporte = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.modificar(connection, consulta, deportes, deportesNuevos, (pstmt, deporte, deporteNuevo) -> {
+                    pstmt.setString(1, deporteNuevo.getNombre()); // Establece el nuevo nombre del deporte
+                    pstmt.setInt(2, deporte.getId_deporte()); // Establece el ID del deporte a modificar
+                });
+                return null;
+            });
+            CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            System.out.println("Actualizados deportes: " + deportes.size()); // Mensaje de éxito
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return false; // La transacción se ha deshecho
+        }
+    }
+
+    /**
+     * Elimina varios deportes en una sola transacción, enviándolos en lotes.
+     *
+     * @param deportes Deportes a eliminar.
+     * @return true si se han eliminado todos, false si no se ha eliminado ninguno.
+     */
+    public static boolean eliminarTodos(List<Deporte> deportes) {
+        String consulta = "DELETE FROM Deporte WHERE id_deporte = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.ejecutar(connection, consulta, deportes,
+                        (pstmt, deporte) -> pstmt.setInt(1, deporte.getId_deporte())); // Establece el ID de cada deporte
+                return null;
+            });
+            for (Deporte deporte : deportes) {
+                IDENTIDAD.quitar(deporte.getId_deporte()); // Olvida las instancias canónicas
+            }
+            CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            System.out.println("Eliminados deportes: " + deportes.size()); // Mensaje de éxito
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return false; // La transacción se ha deshecho
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.intissar.olimpiadas.dao;
 
 import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.MetricasJdbc;
 import com.intissar.olimpiadas.model.Deportista;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -9,12 +10,59 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Clase que maneja las operaciones de acceso a datos relacionadas con la tabla "Deportista".
  * Proporciona métodos para crear, leer, actualizar y eliminar deportistas en la base de datos.
  */
 public class DaoDeportista {
+    /**
+     * Instancia canónica de cada deportista cargado sin foto, compartida por los listados, las páginas y las participaciones.
+     * Los deportistas con foto (getDeportista) no se guardan, y getFoto no la guarda en estas instancias,
+     * para no mantener las fotos en memoria.
+     */
+    private static final MapaIdentidad<Deportista> IDENTIDAD = new MapaIdentidad<>("identidad.deportistas", 200000,
+            (guardado, leido) -> Objects.equals(guardado.getNombre(), leido.getNombre())
+                    && guardado.getSexo() == leido.getSexo() && guardado.getPeso() == leido.getPeso()
+                    && guardado.getAltura() == leido.getAltura());
+
+    /**
+     * Mapeador de las filas sin foto (listados, flujos y páginas), con sus columnas id_deportista, nombre, sexo, peso y altura.
+     */
+    private static final Mapeador<Deportista> SIN_FOTO = mapeadorSinFoto("nombre");
+
+    /**
+     * Mapeador de las filas de cargarFlujo, con las columnas de SIN_FOTO. Estos deportistas no se comparten, para que
+     * recorrer la tabla entera no llene el mapa de identidad y expulse de él a los deportistas que se están mostrando.
+     */
+    private static final Mapeador<Deportista> FLUJO = mapeadorSinFoto("nombre", false);
+
+    /**
+     * Mapeador de la fila completa de getDeportista. Estos deportistas no se comparten.
+     */
+    private static final Mapeador<Deportista> CON_FOTO = new Mapeador<>((rs, c) -> new Deportista(rs.getInt(c[0]),
+            rs.getString(c[1]), rs.getString(c[2]).charAt(0), rs.getInt(c[3]), rs.getInt(c[4]), rs.getBlob(c[5])),
+            "id_deportista", "nombre", "sexo", "peso", "altura", "foto");
+
+    /**
+     * Mapeador de la fila completa de getDeportista con las fotos en el AlmacenFotos.
+     * Si la fila todavía tiene la foto en la columna foto (no se ha migrado) se usa esa.
+     */
+    private static final Mapeador<Deportista> CON_HASH = new Mapeador<>((rs, c) -> new Deportista(rs.getInt(c[0]),
+            rs.getString(c[1]), rs.getString(c[2]).charAt(0), rs.getInt(c[3]), rs.getInt(c[4]), foto(rs, c[5], c[6])),
+            "id_deportista", "nombre", "sexo", "peso", "altura", "foto_hash", "foto");
+
+    /**
+     * Columnas de la foto que se escriben al insertar o modificar: el hash del almacén o los bytes de la foto
+     */
+    private static final String COLUMNA_FOTO = AlmacenFotos.activo() ? "foto_hash" : "foto";
+    private static final String ASIGNAR_FOTO = AlmacenFotos.activo() ? "foto_hash = ?, foto = NULL" : "foto = ?";
 
     /**
      * Busca un deportista en la base de datos por su ID.
@@ -23,33 +71,46 @@ public class DaoDeportista {
      * @return El objeto Deportista correspondiente o null si no se encuentra.
      */
     public static Deportista getDeportista(int id) {
-        DBConnect connection; // Conexión a la base de datos
         Deportista deportista = null; // Inicializa la variable de deportista
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT id_deportista, nombre, sexo, peso, altura, foto FROM Deportista WHERE id_deportista = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = AlmacenFotos.activo()
+                ? "SELECT id_deportista, nombre, sexo, peso, altura, foto_hash, foto FROM Deportista WHERE id_deportista = ?"
+                : "SELECT id_deportista, nombre, sexo, peso, altura, foto FROM Deportista WHERE id_deportista = ?";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, id); // Establece el ID del deportista en la consulta
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
-            if (rs.next()) { // Si hay resultados
-                int id_deportista = rs.getInt("id_deportista");
-                String nombre = rs.getString("nombre");
-                char sexo = rs.getString("sexo").charAt(0); // Obtiene el sexo como carácter
-                int peso = rs.getInt("peso");
-                int altura = rs.getInt("altura");
-                Blob foto = rs.getBlob("foto"); // Obtiene la foto como Blob
-                deportista = new Deportista(id_deportista, nombre, sexo, peso, altura, foto); // Crea un nuevo objeto Deportista
+            try (ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
+                if (rs.next()) { // Si hay resultados
+                    deportista = (AlmacenFotos.activo() ? CON_HASH : CON_FOTO).leer(rs); // Crea el deportista con su foto
+                }
             }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
         }
         return deportista; // Devuelve el deportista encontrado o null
     }
 
+    /**
+     * Foto de una fila con las fotos en el AlmacenFotos: la del almacén si tiene hash, o la de la columna foto si no
+     */
+    private static Blob foto(ResultSet rs, int columnaHash, int columnaFoto) throws SQLException {
+        String hash = rs.getString(columnaHash);
+        return hash != null ? AlmacenFotos.leer(hash) : rs.getBlob(columnaFoto);
+    }
+
+    /**
+     * Establece la foto de un INSERT o UPDATE en la columna COLUMNA_FOTO, guardándola antes en el almacén si se usa.
+     */
+    private static void asignarFoto(PreparedStatement pstmt, int indice, Blob foto) throws SQLException {
+        if (AlmacenFotos.activo()) {
+            pstmt.setString(indice, AlmacenFotos.guardar(foto)); // Solo el hash, o null si no tiene foto
+        } else {
+            pstmt.setBlob(indice, foto);
+        }
+    }
+
     /**
      * Convierte un archivo de imagen en un objeto Blob.
+     * Con las fotos en el AlmacenFotos no hace falta la base de datos: el Blob lee el archivo, que se copia al guardar.
      *
      * @param file Archivo de imagen a convertir.
      * @return El Blob correspondiente a la imagen.
@@ -57,13 +118,15 @@ public class DaoDeportista {
      * @throws IOException  Si ocurre un error al leer el archivo.
      */
     public static Blob convertFileToBlob(File file) throws SQLException, IOException {
-        DBConnect connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-        // Abre una conexión a la base de datos
-        try (Connection conn = connection.getConnection();
+        if (AlmacenFotos.activo()) {
+            return AlmacenFotos.desdeFichero(file);
+        }
+        // Pide una conexión al pool y la devuelve al terminar
+        try (DBConnect connection = new DBConnect();
              FileInputStream inputStream = new FileInputStream(file)) {
 
             // Crea un Blob
-            Blob blob = conn.createBlob();
+            Blob blob = connection.getConnection().createBlob();
             // Escribe los bytes del archivo en el Blob
             byte[] buffer = new byte[1024];
             int bytesRead;
@@ -79,61 +142,267 @@ public class DaoDeportista {
 
     /**
      * Carga todos los deportistas de la base de datos y los devuelve en una lista observable.
+     * No se lee la columna foto: los listados no la muestran y se carga bajo demanda con getFoto.
      *
      * @return Lista observable de deportistas.
      */
     public static ObservableList<Deportista> cargarListado() {
-        DBConnect connection; // Conexión a la base de datos
         ObservableList<Deportista> deportistas = FXCollections.observableArrayList(); // Lista observable para almacenar deportistas
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT id_deportista, nombre, sexo, peso, altura, foto FROM Deportista";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
+        String consulta = "SELECT id_deportista, nombre, sexo, peso, altura FROM Deportista";
+        MetricasJdbc.Ambito ambito = MetricasJdbc.ambito("DaoDeportista.cargarListado"); // Cuenta las sentencias de la carga
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
+             ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
             while (rs.next()) { // Itera a través de los resultados
-                int id_deportista = rs.getInt("id_deportista");
-                String nombre = rs.getString("nombre");
-                char sexo = rs.getString("sexo").charAt( 0); // Obtiene el sexo como carácter
-                int peso = rs.getInt("peso");
-                int altura = rs.getInt("altura");
-                Blob foto = rs.getBlob("foto"); // Obtiene la foto como Blob
-                Deportista deportista = new Deportista(id_deportista, nombre, sexo, peso, altura, foto); // Crea un nuevo objeto Deportista
-                deportistas.add(deportista); // Agrega el deportista a la lista
+                deportistas.add(SIN_FOTO.leer(rs)); // Agrega el deportista sin foto a la lista
             }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
+        } finally {
+            ambito.close(); // Registra las sentencias de la carga
         }
         return deportistas; // Devuelve la lista de deportistas
     }
 
+    /**
+     * Recorre todos los deportistas sin cargarlos en memoria, con un ResultSet en streaming.
+     * Como en cargarListado, no se lee la columna foto. Hay que cerrar el flujo para devolver la conexión.
+     *
+     * @return Flujo de deportistas (vacío si falla la consulta o se pide dentro de una Transaccion).
+     */
+    public static Stream<Deportista> cargarFlujo() {
+        String consulta = "SELECT id_deportista, nombre, sexo, peso, altura FROM Deportista";
+        try {
+            return Flujos.consultar(consulta, FLUJO); // Crea cada deportista sin foto
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return Stream.empty(); // Flujo vacío si falla la consulta
+        }
+    }
+
+    /**
+     * Crea un mapeador de deportistas sin foto que devuelve la instancia canónica de cada uno.
+     * Lo usa también DaoParticipacion para las filas de su JOIN.
+     *
+     * @param columnaNombre Columna con el nombre del deportista (las demás son id_deportista, sexo, peso y altura).
+     * @return Mapeador para las consultas con esas columnas.
+     */
+    static Mapeador<Deportista> mapeadorSinFoto(String columnaNombre) {
+        return mapeadorSinFoto(columnaNombre, true);
+    }
+
+    /**
+     * Crea un mapeador de deportistas sin foto.
+     * Los flujos no usan las instancias canónicas, porque recorren la tabla entera.
+     *
+     * @param columnaNombre Columna con el nombre del deportista (las demás son id_deportista, sexo, peso y altura).
+     * @param canonicos     Si se devuelve la instancia canónica de cada deportista o uno nuevo en cada fila.
+     * @return Mapeador para las consultas con esas columnas.
+     */
+    static Mapeador<Deportista> mapeadorSinFoto(String columnaNombre, boolean canonicos) {
+        return new Mapeador<>((rs, c) -> {
+            int id_deportista = rs.getInt(c[0]);
+            Deportista deportista = new Deportista(id_deportista, rs.getString(c[1]),
+                    rs.getString(c[2]).charAt(0), rs.getInt(c[3]), rs.getInt(c[4])); // Obtiene el sexo como carácter
+            return canonicos ? IDENTIDAD.canonica(id_deportista, deportista) : deportista; // Reutiliza el deportista si no ha cambiado
+        }, "id_deportista", columnaNombre, "sexo", "peso", "altura");
+    }
+
+    /**
+     * Devuelve un origen de datos para cargar los deportistas por páginas, ordenados por id.
+     * Como en cargarListado, no se lee la columna foto.
+     *
+     * @param texto Texto por el que tiene que empezar el nombre de los deportistas a cargar, o vacío para cargarlos todos.
+     * @return Origen de datos paginado.
+     */
+    public static FuentePaginada<Deportista, Integer> paginas(String texto) {
+        return new Paginas(texto == null ? "" : texto.strip()); // Crea el origen de datos con el filtro
+    }
+
+    /**
+     * Origen de datos paginado de deportistas, con clave id_deportista.
+     */
+    private static class Paginas implements FuentePaginada<Deportista, Integer> {
+        private final String texto; // Comienzo buscado del nombre, vacío si no se filtra
+        private final String condicion; // Condición de nombre para añadir a las consultas
+
+        Paginas(String texto) {
+            this.texto = texto;
+            this.condicion = texto.isEmpty() ? "" : " AND nombre LIKE ?"; // Solo filtra si hay texto
+        }
+
+        @Override
+        public int contar() {
+            String consulta = "SELECT count(*) AS cont FROM Deportista WHERE 1 = 1" + condicion;
+            try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                ponerFiltro(pstmt, 1); // Establece el filtro de nombre si lo hay
+                try (ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
+                    if (rs.next()) { // Si hay resultados
+                        return rs.getInt(1); // Devuelve el número de deportistas
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage()); // Manejo de errores
+            }
+            return 0; // Sin datos si no se puede contar
+        }
+
+        @Override
+        public List<Deportista> cargarPagina(Integer despuesDe, int limite) {
+            List<Deportista> deportistas = new ArrayList<>(limite); // Lista para almacenar la página
+            String consulta = "SELECT id_deportista, nombre, sexo, peso, altura FROM Deportista WHERE id_deportista > ?" +
+                    condicion + " ORDER BY id_deportista LIMIT ?";
+            try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                pstmt.setInt(1, despuesDe == null ? 0 : despuesDe); // Los ids empiezan en 1
+                int indice = ponerFiltro(pstmt, 2); // Establece el filtro de nombre si lo hay
+                pstmt.setInt(indice, limite); // Establece el tamaño de la página
+                try (ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
+                    while (rs.next()) { // Itera a través de los resultados
+                        deportistas.add(SIN_FOTO.leer(rs)); // Crea el deportista sin foto
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage()); // Manejo de errores
+            }
+            return deportistas; // Devuelve la página
+        }
+
+        @Override
+        public Integer clave(Deportista fila) {
+            return fila.getId_deportista();
+        }
+
+        @Override
+        public Integer claveTras(Integer despuesDe, int filas) {
+            String consulta = "SELECT id_deportista FROM Deportista WHERE id_deportista > ?" + condicion +
+                    " ORDER BY id_deportista LIMIT 1 OFFSET ?";
+            try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                pstmt.setInt(1, despuesDe == null ? 0 : despuesDe); // Los ids empiezan en 1
+                int indice = ponerFiltro(pstmt, 2); // Establece el filtro de nombre si lo hay
+                pstmt.setInt(indice, filas - 1); // Salta las filas anteriores a la buscada
+                try (ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
+                    if (rs.next()) { // Si hay resultados
+                        return rs.getInt(1); // Devuelve la clave
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage()); // Manejo de errores
+            }
+            return null; // No hay tantas filas
+        }
+
+        /**
+         * Establece el parámetro del filtro de nombre si lo hay.
+         *
+         * @param pstmt  Consulta preparada.
+         * @param indice Índice del parámetro del filtro.
+         * @return Índice del siguiente parámetro.
+         * @throws SQLException Si ocurre un error en la base de datos.
+         */
+        private int ponerFiltro(PreparedStatement pstmt, int indice) throws SQLException {
+            if (texto.isEmpty()) {
+                return indice; // Sin filtro no hay parámetro
+            }
+            pstmt.setString(indice, FuentePaginada.patronPrefijo(texto)); // Busca por el comienzo del nombre, que usa su índice
+            return indice + 1;
+        }
+    }
+
+    /**
+     * Devuelve la foto de un deportista. Si se cargó desde un listado sin foto, la lee de la base de datos cada vez
+     * que se pide y no la guarda en el deportista: es la instancia compartida de la tabla, así que la foto se quedaría
+     * en memoria y no se verían los cambios que hagan otros usuarios.
+     *
+     * @param deportista El objeto Deportista del que se quiere la foto.
+     * @return La foto como Blob o null si no tiene.
+     * @throws SQLException Si no se ha podido leer la foto.
+     */
+    public static Blob getFoto(Deportista deportista) throws SQLException {
+        if (deportista.isFotoCargada()) {
+            return deportista.getFoto(); // Se cargó con getDeportista o es un deportista nuevo
+        }
+        String consulta = AlmacenFotos.activo()
+                ? "SELECT foto_hash, foto FROM Deportista WHERE id_deportista = ?"
+                : "SELECT foto FROM Deportista WHERE id_deportista = ?";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+            pstmt.setInt(1, deportista.getId_deportista()); // Establece el ID del deportista en la consulta
+            try (ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
+                if (rs.next()) { // Si hay resultados
+                    return AlmacenFotos.activo() ? foto(rs, 1, 2) : rs.getBlob(1); // La guarda quien la ha pedido
+                }
+            }
+        }
+        return null; // El deportista ya no existe
+    }
+
+    /**
+     * Devuelve el hash de la foto de un deportista con fotos.almacen=disco sin leer la foto, para buscar su miniatura
+     * antes de pedirla con getFoto.
+     *
+     * @param deportista El objeto Deportista del que se quiere el hash de la foto.
+     * @return El hash de la foto, o null si no tiene, si su foto sigue en la columna foto o si no se usa el almacén.
+     * @throws SQLException Si no se ha podido leer el hash.
+     */
+    public static String getFotoHash(Deportista deportista) throws SQLException {
+        if (!AlmacenFotos.activo() || deportista.isFotoCargada()) {
+            return null; // Sin almacén el hash no está en la tabla, y la foto cargada ya está en memoria
+        }
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(
+                     "SELECT foto_hash FROM Deportista WHERE id_deportista = ?")) {
+            pstmt.setInt(1, deportista.getId_deportista()); // Establece el ID del deportista en la consulta
+            try (ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Ids de los deportistas que tienen participaciones y no se pueden eliminar, calculados para toda la tabla en una consulta.
+     */
+    private static final CacheReferenciados REFERENCIADOS = new CacheReferenciados("SELECT id_deportista FROM Participacion GROUP BY id_deportista");
+
     /**
      * Verifica si un deportista se puede eliminar de la base de datos.
+     * Solo consulta la base de datos si los deportistas no eliminables no están ya en memoria.
      *
      * @param deportista El objeto Deportista a verificar.
      * @return true si se puede eliminar, false en caso contrario.
      */
     public static boolean esEliminable(Deportista deportista) {
-        DBConnect connection; // Conexión a la base de datos
         try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT count(*) as cont FROM Participacion WHERE id_deportista = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setInt(1, deportista.getId_deportista()); // Establece el ID del deportista en la consulta
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
-            if (rs.next()) { // Si hay resultados
-                int cont = rs.getInt("cont"); // Obtiene el conteo de participaciones
-                rs.close(); // Cierra el ResultSet
-                connection.closeConnection(); // Cierra la conexión
-                return (cont == 0); // Devuelve true si no hay participaciones asociadas
-            }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
+            return !REFERENCIADOS.contiene(deportista.getId_deportista()); // Se puede eliminar si no tiene participaciones
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
+            return false; // Devuelve false si no se puede determinar si es eliminable
         }
-        return false; // Devuelve false si no se puede determinar si es eliminable
+    }
+
+    /**
+     * Calcula qué deportistas se pueden eliminar, con una sola consulta agrupada para toda la tabla.
+     * El predicado devuelto no consulta la base de datos, así que se puede usar desde el hilo de JavaFX.
+     *
+     * @return Predicado que indica si un deportista se puede eliminar.
+     */
+    public static Predicate<Deportista> eliminables() {
+        try {
+            BitSet referenciados = REFERENCIADOS.ids(); // Ids con participaciones
+            return deportista -> !referenciados.get(deportista.getId_deportista());
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return deportista -> false; // Si no se puede determinar, no se permite eliminar
+        }
+    }
+
+    /**
+     * Invalida los deportistas no eliminables. Lo llama DaoParticipacion cuando cambian sus filas.
+     */
+    static void invalidarEliminables() {
+        REFERENCIADOS.invalidar(); // Se volverán a calcular en la siguiente consulta
     }
 
     /**
@@ -144,22 +413,21 @@ public class DaoDeportista {
      * @return true si la modificación fue exitosa, false en caso contrario.
      */
     public static boolean modificar(Deportista deportista, Deportista deportistaNuevo) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "UPDATE Deportista SET nombre = ?, sexo = ?, peso = ?, altura = ?, foto = ? WHERE id_deportista = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setString(1, deportistaNuevo.getNombre()); // Establece el nuevo nombre del deportista
-            pstmt.setString(2, deportistaNuevo.getSexo() + ""); // Establece el nuevo sexo del deportista
-            pstmt.setInt(3, deportistaNuevo.getPeso()); // Establece el nuevo peso del deportista
-            pstmt.setInt(4, deportistaNuevo.getAltura()); // Establece la nueva altura del deportista
-            pstmt.setBlob(5, deportistaNuevo.getFoto()); // Establece la nueva foto del deportista
-            pstmt.setInt(6, deportista.getId_deportista()); // Establece el ID del deportista a modificar
+        boolean conFoto = deportistaNuevo.isFotoCargada(); // Si la foto no se ha cargado se deja la que hay
+        String consulta = conFoto
+                ? "UPDATE Deportista SET nombre = ?, sexo = ?, peso = ?, altura = ?, " + ASIGNAR_FOTO + " WHERE id_deportista = ?"
+                : "UPDATE Deportista SET nombre = ?, sexo = ?, peso = ?, altura = ? WHERE id_deportista = ?";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+            asignarDatos(pstmt, deportistaNuevo); // Establece los nuevos datos del deportista
+            if (conFoto) {
+                asignarFoto(pstmt, 5, deportistaNuevo.getFoto()); // Establece la nueva foto del deportista
+                pstmt.setInt(6, deportista.getId_deportista()); // Establece el ID del deportista a modificar
+            } else {
+                pstmt.setInt(5, deportista.getId_deportista()); // Establece el ID del deportista a modificar
+            }
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la actualización
             System.out.println("Actualizado deportista"); // Mensaje de éxito
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
             return filasAfectadas > 0; // Devuelve true si se afectaron filas
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
@@ -174,30 +442,20 @@ public class DaoDeportista {
      * @return ID del nuevo deportista o -1 si la inserción falla.
      */
     public static int insertar(Deportista deportista) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "INSERT INTO Deportista (nombre, sexo, peso, altura, foto) VALUES (?, ?, ?, ?, ?)";
-            pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
-            pstmt.setString(1, deportista.getNombre()); // Establece el nombre del nuevo deportista
-            pstmt.setString(2, deportista.getSexo() + ""); // Establece el sexo del nuevo deportista
-            pstmt.setInt(3, deportista.getPeso()); // Establece el peso del nuevo deportista
-            pstmt.setInt(4, deportista.getAltura()); // Establece la altura del nuevo deportista
-            pstmt.setBlob(5, deportista.getFoto()); // Establece la foto del nuevo deportista
+        String consulta = "INSERT INTO Deportista (nombre, sexo, peso, altura, " + COLUMNA_FOTO + ") VALUES (?, ?, ?, ?, ?)";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS)) {
+            asignarDatos(pstmt, deportista); // Establece los datos del nuevo deportista
+            asignarFoto(pstmt, 5, deportista.getFoto()); // Establece la foto del nuevo deportista
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la inserción
             System.out.println("Nueva entrada en deportista"); // Mensaje de éxito
             if (filasAfectadas > 0) { // Si se afectaron filas
-                ResultSet rs = pstmt.getGeneratedKeys(); // Obtiene las claves generadas
-                if (rs.next()) { // Si hay claves generadas
-                    int id = rs.getInt(1); // Obtiene el ID del nuevo deportista
-                    pstmt.close(); // Cierra la declaración
-                    connection.closeConnection(); // Cierra la conexión
-                    return id; // Devuelve el ID del nuevo deportista
+                try (ResultSet rs = pstmt.getGeneratedKeys()) { // Obtiene las claves generadas
+                    if (rs.next()) { // Si hay claves generadas
+                        return rs.getInt(1); // Devuelve el ID del nuevo deportista
+                    }
                 }
             }
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
             return -1; // Devuelve -1 si no se pudo obtener el ID
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
@@ -212,16 +470,14 @@ public class DaoDeportista {
      * @return true si la eliminación fue exitosa, false en caso contrario.
      */
     public static boolean eliminar(Deportista deportista) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "DELETE FROM Deportista WHERE id_deportista = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "DELETE FROM Deportista WHERE id_deportista = ?";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, deportista.getId_deportista()); // Establece el ID del deportista a eliminar
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la eliminación
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
+            if (filasAfectadas > 0) {
+                IDENTIDAD.quitar(deportista.getId_deportista()); // Olvida la instancia canónica
+            }
             System.out.println("Eliminado con éxito"); // Mensaje de éxito
             return filasAfectadas > 0; // Devuelve true si se afectaron filas
         } catch (SQLException e) {
@@ -229,4 +485,101 @@ public class DaoDeportista {
             return false; // Devuelve false si hubo un error
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Inserta varios deportistas en una sola transacción, enviándolos en lotes.
+     *
+     * @param deportistas Deportistas a insertar.
+     * @return IDs de los nuevos deportistas en el mismo orden, o -1 en todas las posiciones si la inserción falla.
+     */
+    public static int[] insertarTodos(List<Deportista> deportistas) {
+        String consulta = "INSERT INTO Deportista (nombre, sexo, peso, altura, " + COLUMNA_FOTO + ") VALUES (?, ?, ?, ?, ?)";
+        try {
+            int[] ids = Lotes.enTransaccion(connection -> Lotes.insertar(connection, consulta, deportistas, (pstmt, deportista) -> {
+                asignarDatos(pstmt, deportista); // Establece los datos del nuevo deportista
+                asignarFoto(pstmt, 5, deportista.getFoto()); // Establece la foto del nuevo deportista
+            }));
+            System.out.println("Nuevas entradas en deportista: " + ids.length); // Mensaje de éxito
+            return ids; // Devuelve los IDs de los nuevos deportistas
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return Lotes.fallo(deportistas.size()); // No se ha insertado ninguno
+        }
+    }
+
+    /**
+     * Modifica varios deportistas en una sola transacción, enviándolos en lotes.
+     * Los que traen foto cargada y los que no van en lotes distintos, ya que la sentencia no es la misma.
+     *
+     * @param deportistas       Deportistas con datos actuales.
+     * @param deportistasNuevos Nuevos datos de cada deportista, en el mismo orden.
+     * @return true si se han modificado todos, false si no se ha modificado ninguno.
+     */
+    public static boolean modificarTodos(List<Deportista> deportistas, List<Deportista> deportistasNuevos) {
+        Lotes.comprobarPares(deportistas, deportistasNuevos); // Las dos listas deben corresponderse
+        List<Deportista> conFoto = new ArrayList<>(), conFotoNuevos = new ArrayList<>();
+        List<Deportista> sinFoto = new ArrayList<>(), sinFotoNuevos = new ArrayList<>();
+        for (int i = 0; i < deportistas.size(); i++) {
+            boolean foto = deportistasNuevos.get(i).isFotoCargada(); // Si la foto no se ha cargado se deja la que hay
+            (foto ? conFoto : sinFoto).add(deportistas.get(i));
+            (foto ? conFotoNuevos : sinFotoNuevos).add(deportistasNuevos.get(i));
+        }
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.modificar(connection, "UPDATE Deportista SET nombre = ?, sexo = ?, peso = ?, altura = ?, " + ASIGNAR_FOTO + " WHERE id_deportista = ?",
+                        conFoto, conFotoNuevos, (pstmt, deportista, deportistaNuevo) -> {
+                            asignarDatos(pstmt, deportistaNuevo); // Establece los nuevos datos del deportista
+                            asignarFoto(pstmt, 5, deportistaNuevo.getFoto()); // Establece la nueva foto del deportista
+                            pstmt.setInt(6, deportista.getId_deportista()); // Establece el ID del deportista a modificar
+                        });
+                Lotes.modificar(connection, "UPDATE Deportista SET nombre = ?, sexo = ?, peso = ?, altura = ? WHERE id_deportista = ?",
+                        sinFoto, sinFotoNuevos, (pstmt, deportista, deportistaNuevo) -> {
+                            asignarDatos(pstmt, deportistaNuevo); // Establece los nuevos datos del deportista
+                            pstmt.setInt(5, deportista.getId_deportista()); // Establece el ID del deportista a modificar
+                        });
+                return null;
+            });
+            System.out.println("Actualizados deportistas: " + deportistas.size()); // Mensaje de éxito
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return false; // La transacción se ha deshecho
+        }
+    }
+
+    /**
+     * Asigna nombre, sexo, peso y altura en las cuatro primeras posiciones de la sentencia.
+     * Lo usan insertar, modificar y sus versiones en lote, que escriben las columnas en ese orden.
+     */
+    private static void asignarDatos(PreparedStatement pstmt, Deportista deportista) throws SQLException {
+        pstmt.setString(1, deportista.getNombre()); // Establece el nombre del deportista
+        pstmt.setString(2, deportista.getSexo() + ""); // Establece el sexo del deportista
+        pstmt.setInt(3, deportista.getPeso()); // Establece el peso del deportista
+        pstmt.setInt(4, deportista.getAltura()); // Establece la altura del deportista
+    }
+
+    /**
+     * Elimina varios deportistas en una sola transacción, enviándolos en lotes.
+     *
+     * @param deportistas Deportistas a eliminar.
+     * @return true si se han eliminado todos, false si no se ha eliminado ninguno.
+     */
+    public static boolean eliminarTodos(List<Deportista> deportistas) {
+        String consulta = "DELETE FROM Deportista WHERE id_deportista = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.ejecutar(connection, consulta, deportistas,
+                        (pstmt, deportista) -> pstmt.setInt(1, deportista.getId_deportista())); // Establece el ID de cada deportista
+                return null;
+            });
+            for (Deportista deportista : deportistas) {
+                IDENTIDAD.quitar(deportista.getId_deportista()); // Olvida las instancias canónicas
+            }
+            System.out.println("Eliminados deportistas: " + deportistas.size()); // Mensaje de éxito
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return false; // La transacción se ha deshecho
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.intissar.olimpiadas.dao;
 
 import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.MetricasJdbc;
 import com.intissar.olimpiadas.model.Equipo;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -8,6 +9,12 @@ import javafx.collections.ObservableList;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Clase que maneja las operaciones de acceso a datos relacionadas con la tabla "Equipo".
@@ -16,88 +23,154 @@ import java.sql.SQLException;
 public class DaoEquipo {
 
     /**
-     * Busca un equipo en la base de datos por su ID.
+     * Caché de la tabla Equipo, que se invalida al insertar, modificar o eliminar un equipo.
+     */
+    private static final CacheReferencia<Equipo> CACHE = new CacheReferencia<>(DaoEquipo::leerTabla, Equipo::getId_equipo);
+
+    /**
+     * Instancia canónica de cada equipo, compartida por la caché y por las participaciones que lo referencian.
+     */
+    private static final MapaIdentidad<Equipo> IDENTIDAD = new MapaIdentidad<>("identidad.equipos", 5000,
+            (guardado, leido) -> Objects.equals(guardado.getNombre(), leido.getNombre())
+                    && Objects.equals(guardado.getIniciales(), leido.getIniciales()));
+
+    /**
+     * Mapeador de las filas de la tabla Equipo.
+     */
+    private static final Mapeador<Equipo> FILAS = mapeador("nombre");
+
+    /**
+     * Busca un equipo por su ID en la caché de equipos.
      *
      * @param id ID del equipo a buscar.
      * @return El objeto Equipo correspondiente o null si no se encuentra.
      */
     public static Equipo getEquipo(int id) {
-        DBConnect connection; // Conexión a la base de datos
-        Equipo equipo = null; // Inicializa la variable de equipo
         try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT id_equipo, nombre, iniciales FROM Equipo WHERE id_equipo = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setInt(1, id); // Establece el ID del equipo en la consulta
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
-            if (rs.next()) { // Si hay resultados
-                int id_equipo = rs.getInt("id_equipo");
-                String nombre = rs.getString("nombre");
-                String iniciales = rs.getString("iniciales");
-                equipo = new Equipo(id_equipo, nombre, iniciales); // Crea un nuevo objeto Equipo
-            }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
+            return CACHE.get(id); // Lee la tabla solo si no está en memoria
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
+            return null; // Devuelve null si no se ha podido leer la tabla
         }
-        return equipo; // Devuelve el equipo encontrado o null
     }
 
     /**
-     * Carga todos los equipos de la base de datos y los devuelve en una lista observable.
+     * Carga todos los equipos y los devuelve en una lista observable.
+     * Los equipos se leen de la caché; la lista devuelta es nueva y se puede modificar.
      *
      * @return Lista observable de equipos.
      */
     public static ObservableList<Equipo> cargarListado() {
-        DBConnect connection; // Conexión a la base de datos
         ObservableList<Equipo> equipos = FXCollections.observableArrayList(); // Lista observable para almacenar equipos
+        MetricasJdbc.Ambito ambito = MetricasJdbc.ambito("DaoEquipo.cargarListado"); // Cuenta las sentencias de la carga
         try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT id_equipo, nombre, iniciales FROM Equipo";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
-            while (rs.next()) { // Itera a través de los resultados
-                int id_equipo = rs.getInt("id_equipo");
-                String nombre = rs.getString("nombre");
-                String iniciales = rs.getString("iniciales");
-                Equipo equipo = new Equipo(id_equipo, nombre, iniciales); // Crea un nuevo objeto Equipo
-                equipos.add(equipo); // Agrega el equipo a la lista
-            }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
+            equipos.addAll(CACHE.listado()); // Lee la tabla solo si no está en memoria
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
+        } finally {
+            ambito.close(); // Registra las sentencias de la carga
         }
         return equipos; // Devuelve la lista de equipos
     }
 
+    /**
+     * Devuelve todos los equipos como un Stream, leídos de la caché.
+     * La tabla es pequeña y ya está en memoria, así que no hace falta recorrerla en streaming.
+     *
+     * @return Flujo de equipos (vacío si no se ha podido leer la tabla).
+     */
+    public static Stream<Equipo> cargarFlujo() {
+        try {
+            return CACHE.listado().stream(); // Lee la tabla solo si no está en memoria
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return Stream.empty(); // Flujo vacío si no se ha podido leer la tabla
+        }
+    }
+
+    /**
+     * Lee todos los equipos de la base de datos para la caché.
+     *
+     * @return Lista de equipos.
+     * @throws SQLException Si ocurre un error en la base de datos.
+     */
+    private static List<Equipo> leerTabla() throws SQLException {
+        List<Equipo> equipos = new ArrayList<>(); // Lista para almacenar equipos
+        String consulta = "SELECT id_equipo, nombre, iniciales FROM Equipo";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
+             ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta
+            while (rs.next()) { // Itera a través de los resultados
+                equipos.add(FILAS.leer(rs)); // Crea el equipo y lo agrega a la lista
+            }
+        }
+        return equipos; // Devuelve la lista de equipos
+    }
+
+    /**
+     * Crea un mapeador de equipos que devuelve la instancia canónica de cada uno.
+     * Lo usa también DaoParticipacion para las filas de su JOIN.
+     *
+     * @param columnaNombre Columna con el nombre del equipo (las demás son id_equipo e iniciales).
+     * @return Mapeador para las consultas con esas columnas.
+     */
+    static Mapeador<Equipo> mapeador(String columnaNombre) {
+        return new Mapeador<>((rs, c) -> {
+            int id_equipo = rs.getInt(c[0]);
+            Equipo equipo = new Equipo(id_equipo, rs.getString(c[1]), rs.getString(c[2]));
+            return IDENTIDAD.canonica(id_equipo, equipo); // Reutiliza el equipo si no ha cambiado
+        }, "id_equipo", columnaNombre, "iniciales");
+    }
+
+    /**
+     * Descarta la caché de equipos. Lo llama ImportadorHistorico tras escribir en la tabla sin pasar por este DAO.
+     */
+    static void invalidarCache() {
+        CACHE.invalidar(); // Se volverá a leer la tabla en la siguiente consulta
+    }
+
+    /**
+     * Ids de los equipos que tienen participaciones y no se pueden eliminar, calculados para toda la tabla en una consulta.
+     */
+    private static final CacheReferenciados REFERENCIADOS = new CacheReferenciados("SELECT id_equipo FROM Participacion GROUP BY id_equipo");
+
     /**
      * Verifica si un equipo se puede eliminar de la base de datos.
+     * Solo consulta la base de datos si los equipos no eliminables no están ya en memoria.
      *
      * @param equipo El objeto Equipo a verificar.
      * @return true si se puede eliminar, false en caso contrario.
      */
     public static boolean esEliminable(Equipo equipo) {
-        DBConnect connection; // Conexión a la base de datos
         try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "SELECT count(*) as cont FROM Participacion WHERE id_equipo = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setInt(1, equipo.getId_equipo()); // Establece el ID del equipo en la consulta
-            ResultSet rs = pstmt.executeQuery(); // Ejecuta la consulta
-            if (rs.next()) { // Si hay resultados
-                int cont = rs.getInt("cont"); // Obtiene el conteo de participaciones
-                rs.close(); // Cierra el ResultSet
-                connection.closeConnection(); // Cierra la conexión
-                return (cont == 0); // Devuelve true si no hay participaciones asociadas
-            }
-            rs.close(); // Cierra el ResultSet
-            connection.closeConnection(); // Cierra la conexión
+            return !REFERENCIADOS.contiene(equipo.getId_equipo()); // Se puede eliminar si no tiene participaciones
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return false; // Devuelve false si no se puede determinar si es eliminable
+        }
+    }
+
+    /**
+     * Calcula qué equipos se pueden eliminar, con una sola consulta agrupada para toda la tabla.
+     * El predicado devuelto no consulta la base de datos, así que se puede usar desde el hilo de JavaFX.
+     *
+     * @return Predicado que indica si un equipo se puede eliminar.
+     */
+    public static Predicate<Equipo> eliminables() {
+        try {
+            BitSet referenciados = REFERENCIADOS.ids(); // Ids con participaciones
+            return equipo -> !referenciados.get(equipo.getId_equipo());
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
+            return equipo -> false; // Si no se puede determinar, no se permite eliminar
         }
-        return false; // Devuelve false si no se puede determinar si es eliminable
+    }
+
+    /**
+     * Invalida los equipos no eliminables. Lo llama DaoParticipacion cuando cambian sus filas.
+     */
+    static void invalidarEliminables() {
+        REFERENCIADOS.invalidar(); // Se volverán a calcular en la siguiente consulta
     }
 
     /**
@@ -108,19 +181,17 @@ public class DaoEquipo {
      * @return true si la modificación fue exitosa, false en caso contrario.
      */
     public static boolean modificar(Equipo equipo, Equipo equipoNuevo) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "UPDATE Equipo SET nombre = ?, iniciales = ? WHERE id_equipo = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "UPDATE Equipo SET nombre = ?, iniciales = ? WHERE id_equipo = ?";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setString(1, equipoNuevo.getNombre()); // Establece el nuevo nombre del equipo
             pstmt.setString(2, equipoNuevo.getIniciales()); // Establece las nuevas iniciales del equipo
             pstmt.setInt(3, equipo.getId_equipo()); // Establece el ID del equipo a modificar
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la actualización
+            if (filasAfectadas > 0) {
+                CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            }
             System.out.println("Actualizado equipo"); // Mensaje de éxito
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
             return filasAfectadas > 0; // Devuelve true si se afectaron filas
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
@@ -135,27 +206,23 @@ public class DaoEquipo {
      * @return ID del nuevo equipo o -1 si la inserción falla.
      */
     public static int insertar(Equipo equipo) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "INSERT INTO Equipo (nombre, iniciales) VALUES (?, ?)";
-            pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
+        String consulta = "INSERT INTO Equipo (nombre, iniciales) VALUES (?, ?)";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, equipo.getNombre()); // Establece el nombre del nuevo equipo
             pstmt.setString(2, equipo.getIniciales()); // Establece las iniciales del nuevo equipo
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la inserción
+            if (filasAfectadas > 0) {
+                CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            }
             System.out.println("Nueva entrada en equipo"); // Mensaje de éxito
             if (filasAfectadas > 0) { // Si se afectaron filas
-                ResultSet rs = pstmt.getGeneratedKeys(); // Obtiene las claves generadas
-                if (rs.next()) { // Si hay claves generadas
-                    int id = rs.getInt(1); // Obtiene el ID del nuevo equipo
-                    pstmt.close(); // Cierra la declaración
-                    connection.closeConnection(); // Cierra la conexión
-                    return id; // Devuelve el ID del nuevo equipo
+                try (ResultSet rs = pstmt.getGeneratedKeys()) { // Obtiene las claves generadas
+                    if (rs.next()) { // Si hay claves generadas
+                        return rs.getInt(1); // Devuelve el ID del nuevo equipo
+                    }
                 }
             }
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
             return -1; // Devuelve -1 si no se pudo obtener el ID
         } catch (SQLException e) {
             System.err.println(e.getMessage()); // Manejo de errores
@@ -170,16 +237,15 @@ public class DaoEquipo {
      * @return true si la eliminación fue exitosa, false en caso contrario.
      */
     public static boolean eliminar(Equipo equipo) {
-        DBConnect connection; // Conexión a la base de datos
-        PreparedStatement pstmt; // Declaración preparada para la consulta
-        try {
-            connection = new DBConnect(); // Crea una nueva conexión a la base de datos
-            String consulta = "DELETE FROM Equipo WHERE id_equipo = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "DELETE FROM Equipo WHERE id_equipo = ?";
+        try (DBConnect connection = new DBConnect(); // Pide una conexión al pool y la devuelve al terminar
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, equipo.getId_equipo()); // Establece el ID del equipo a eliminar
             int filasAfectadas = pstmt.executeUpdate(); // Ejecuta la eliminación
-            pstmt.close(); // Cierra la declaración
-            connection.closeConnection(); // Cierra la conexión
+            if (filasAfectadas > 0) {
+                IDENTIDAD.quitar(equipo.getId_equipo()); // Olvida la instancia canónica
+                CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            }
             System.out.println("Eliminado con éxito"); // Mensaje de éxito
             return filasAfectadas > 0; // Devuelve true si se afectaron filas
         } catch (SQLException e) {
@@ -187,4 +253,80 @@ public class DaoEquipo {
             return false; // Devuelve false si hubo un error
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Inserta varios equipos en una sola transacción, enviándolos en lotes.
+     *
+     * @param equipos Equipos a insertar.
+     * @return IDs de los nuevos equipos en el mismo orden, o -1 en todas las posiciones si la inserción falla.
+     */
+    public static int[] insertarTodos(List<Equipo> equipos) {
+        String consulta = "INSERT INTO Equipo (nombre, iniciales) VALUES (?, ?)";
+        try {
+            int[] ids = Lotes.enTransaccion(connection -> Lotes.insertar(connection, consulta, equipos, (pstmt, equipo) -> {
+                pstmt.setString(1, equipo.getNombre()); // Establece el nombre del nuevo equipo
+                pstmt.setString(2, equipo.getIniciales()); // Establece las iniciales del nuevo equipo
+            }));
+            CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            System.out.println("Nuevas entradas en equipo: " + ids.length); // Mensaje de éxito
+            return ids; // Devuelve los IDs de los nuevos equipos
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return Lotes.fallo(equipos.size()); // No se ha insertado ninguno
+        }
+    }
+
+    /**
+     * Modifica varios equipos en una sola transacción, enviándolos en lotes.
+     *
+     * @param equipos       Equipos con datos actuales.
+     * @param equiposNuevos Nuevos datos de cada equipo, en el mismo orden.
+     * @return true si se han modificado todos, false si no se ha modificado ninguno.
+     */
+    public static boolean modificarTodos(List<Equipo> equipos, List<Equipo> equiposNuevos) {
+        Lotes.comprobarPares(equipos, equiposNuevos); // Las dos listas deben corresponderse
+        String consulta = "UPDATE Equipo SET nombre = ?, iniciales = ? WHERE id_equipo = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.modificar(connection, consulta, equipos, equiposNuevos, (pstmt, equipo, equipoNuevo) -> {
+                    pstmt.setString(1, equipoNuevo.getNombre()); // Establece el nuevo nombre del equipo
+                    pstmt.setString(2, equipoNuevo.getIniciales()); // Establece las nuevas iniciales del equipo
+                    pstmt.setInt(3, equipo.getId_equipo()); // Establece el ID del equipo a modificar
+                });
+                return null;
+            });
+            CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            System.out.println("Actualizados equipos: " + equipos.size()); // Mensaje de éxito
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return false; // La transacción se ha deshecho
+        }
+    }
+
+    /**
+     * Elimina varios equipos en una sola transacción, enviándolos en lotes.
+     *
+     * @param equipos Equipos a eliminar.
+     * @return true si se han eliminado todos, false si no se ha eliminado ninguno.
+     */
+    public static boolean eliminarTodos(List<Equipo> equipos) {
+        String consulta = "DELETE FROM Equipo WHERE id_equipo = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.ejecutar(connection, consulta, equipos,
+                        (pstmt, equipo) -> pstmt.setInt(1, equipo.getId_equipo())); // Establece el ID de cada equipo
+                return null;
+            });
+            for (Equipo equipo : equipos) {
+                IDENTIDAD.quitar(equipo.getId_equipo()); // Olvida las instancias canónicas
+            }
+            CACHE.invalidar(); // Los datos en memoria ya no son válidos
+            System.out.println("Eliminados equipos: " + equipos.size()); // Mensaje de éxito
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage()); // Manejo de errores
+            return false; // La transacción se ha deshecho
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.intissar.olimpiadas.dao;
 
 import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.MetricasJdbc;
 import com.intissar.olimpiadas.model.Deporte;
 import com.intissar.olimpiadas.model.Evento;
 import com.intissar.olimpiadas.model.Olimpiada;
@@ -10,37 +11,62 @@ import javafx.collections.ObservableList;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Clase donde se ejecuta las consultas para la tabla Evento
  */
 public class DaoEvento {
     /**
-     * Metodo que busca un evento por medio de su id
+     * Instancia canónica de cada evento, compartida por los listados, las páginas y las participaciones
+     */
+    private static final MapaIdentidad<Evento> IDENTIDAD = new MapaIdentidad<>("identidad.eventos", 100000,
+            (guardado, leido) -> Objects.equals(guardado.getNombre(), leido.getNombre())
+                    && guardado.getOlimpiada() == leido.getOlimpiada() && guardado.getDeporte() == leido.getDeporte());
+
+    /**
+     * Mapeador de las filas de CONSULTA_EVENTOS
+     */
+    private static final Mapeador<Evento> FILAS = mapeador("nombre");
+
+    /**
+     * Mapeador de las filas de CONSULTA_EVENTOS en cargarFlujo. Estos eventos no se comparten, para que recorrer la
+     * tabla entera no llene el mapa de identidad y expulse de él a los eventos que se están mostrando.
+     */
+    private static final Mapeador<Evento> FLUJO = mapeador("nombre", false);
+
+    /**
+     * Consulta de eventos con su olimpiada y su deporte en un solo JOIN
+     */
+    private static final String CONSULTA_EVENTOS = "SELECT e.id_evento,e.nombre,e.id_olimpiada,e.id_deporte," +
+            "o.nombre AS olimpiada_nombre,o.anio,o.temporada,o.ciudad," +
+            "d.nombre AS deporte_nombre " +
+            "FROM Evento e " +
+            "JOIN Olimpiada o ON o.id_olimpiada = e.id_olimpiada " +
+            "JOIN Deporte d ON d.id_deporte = e.id_deporte";
+
+    /**
+     * Metodo que busca un evento por medio de su id, junto con su olimpiada y su deporte en una sola consulta
      *
      * @param id id del evento a buscar
      * @return evento o null
      */
     public static Evento getEvento(int id) {
-        DBConnect connection;
         Evento evento = null;
-        try {
-            connection = new DBConnect();
-            String consulta = "SELECT id_evento,nombre,id_olimpiada,id_deporte FROM Evento WHERE id_evento = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = CONSULTA_EVENTOS + " WHERE e.id_evento = ?";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                int id_evento = rs.getInt("id_evento");
-                String nombre = rs.getString("nombre");
-                int id_olimpiada = rs.getInt("id_olimpiada");
-                Olimpiada olimpiada = DaoOlimpiada.getOlimpiada(id_olimpiada);
-                int id_deporte = rs.getInt("id_deporte");
-                Deporte deporte = DaoDeporte.getDeporte(id_deporte);
-                evento = new Evento(id_evento,nombre,olimpiada,deporte);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    evento = FILAS.leer(rs);
+                }
             }
-            rs.close();
-            connection.closeConnection();
         } catch (SQLException e) {
             System.err.println(e.getMessage());
         }
@@ -48,64 +74,218 @@ public class DaoEvento {
     }
 
     /**
-     * Metodo que busca un evento y mira a ver si se puede eliminar
+     * Metodo que crea un mapeador de eventos con su olimpiada y su deporte, con las columnas de CONSULTA_EVENTOS,
+     * que devuelve la instancia canónica de cada uno. Las olimpiadas y los deportes también son las canónicas,
+     * así que se comparten entre los eventos que los referencian.
+     *
+     * @param columnaNombre columna con el nombre del evento
+     * @return mapeador para las consultas con esas columnas
+     */
+    static Mapeador<Evento> mapeador(String columnaNombre) {
+        return mapeador(columnaNombre, true);
+    }
+
+    /**
+     * Metodo que crea un mapeador de eventos con su olimpiada y su deporte, con las columnas de CONSULTA_EVENTOS.
+     * Las olimpiadas y los deportes son siempre las instancias canónicas, porque son tablas pequeñas.
+     *
+     * @param columnaNombre columna con el nombre del evento
+     * @param canonicos     si se devuelve la instancia canónica de cada evento o uno nuevo en cada fila
+     * @return mapeador para las consultas con esas columnas
+     */
+    static Mapeador<Evento> mapeador(String columnaNombre, boolean canonicos) {
+        Mapeador<Olimpiada> olimpiadas = DaoOlimpiada.mapeador("olimpiada_nombre");
+        Mapeador<Deporte> deportes = DaoDeporte.mapeador("deporte_nombre");
+        return new Mapeador<>((rs, c) -> {
+            int id_evento = rs.getInt(c[0]);
+            Evento evento = new Evento(id_evento, rs.getString(c[1]), olimpiadas.leer(rs), deportes.leer(rs));
+            return canonicos ? IDENTIDAD.canonica(id_evento, evento) : evento;
+        }, "id_evento", columnaNombre);
+    }
+
+    /**
+     * Ids de los eventos que tienen participaciones y no se pueden eliminar, calculados para toda la tabla en una consulta
+     */
+    private static final CacheReferenciados REFERENCIADOS = new CacheReferenciados("SELECT id_evento FROM Participacion GROUP BY id_evento");
+
+    /**
+     * Metodo que mira a ver si se puede eliminar un evento.
+     * Solo consulta la BD si los eventos no eliminables no están ya en memoria.
      *
      * @param evento evento a buscar
      * @return true/false
      */
     public static boolean esEliminable(Evento evento) {
-        DBConnect connection;
         try {
-            connection = new DBConnect();
-            String consulta = "SELECT count(*) as cont FROM Participacion WHERE id_evento = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setInt(1, evento.getId_evento());
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                int cont = rs.getInt("cont");
-                rs.close();
-                connection.closeConnection();
-                return (cont==0);
-            }
-            rs.close();
-            connection.closeConnection();
+            return !REFERENCIADOS.contiene(evento.getId_evento());
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
-     * Metodo que carga los datos de la tabla Eventos y los devuelve para usarlos en un listado de eventos
+     * Metodo que calcula qué eventos se pueden eliminar, con una sola consulta agrupada para toda la tabla.
+     * El predicado devuelto no consulta la BD, así que se puede usar desde el hilo de JavaFX.
+     *
+     * @return predicado que indica si se puede eliminar
+     */
+    public static Predicate<Evento> eliminables() {
+        try {
+            BitSet referenciados = REFERENCIADOS.ids();
+            return evento -> !referenciados.get(evento.getId_evento());
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return evento -> false;
+        }
+    }
+
+    /**
+     * Metodo que invalida los eventos no eliminables. Lo llama DaoParticipacion cuando cambian sus filas.
+     */
+    static void invalidarEliminables() {
+        REFERENCIADOS.invalidar();
+    }
+
+    /**
+     * Metodo que carga los datos de la tabla Eventos y los devuelve para usarlos en un listado de eventos.
+     * Las olimpiadas y deportes se cargan en la misma consulta y se comparten entre los eventos que los referencian.
      *
      * @return listado de eventos para cargar en un tableview
      */
     public static ObservableList<Evento> cargarListado() {
-        DBConnect connection;
         ObservableList<Evento> eventos = FXCollections.observableArrayList();
-        try{
-            connection = new DBConnect();
-            String consulta = "SELECT id_evento,nombre,id_olimpiada,id_deporte FROM Evento";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery();
+        MetricasJdbc.Ambito ambito = MetricasJdbc.ambito("DaoEvento.cargarListado");
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(CONSULTA_EVENTOS);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                int id_evento = rs.getInt("id_evento");
-                String nombre = rs.getString("nombre");
-                int id_olimpiada = rs.getInt("id_olimpiada");
-                Olimpiada olimpiada = DaoOlimpiada.getOlimpiada(id_olimpiada);
-                int id_deporte = rs.getInt("id_deporte");
-                Deporte deporte = DaoDeporte.getDeporte(id_deporte);
-                Evento evento = new Evento(id_evento,nombre,olimpiada,deporte);
-                eventos.add(evento);
+                eventos.add(FILAS.leer(rs));
             }
-            rs.close();
-            connection.closeConnection();
         }catch (SQLException e) {
             System.err.println(e.getMessage());
+        } finally {
+            ambito.close();
         }
         return eventos;
     }
 
+    /**
+     * Metodo que recorre todos los eventos sin cargarlos en memoria, con un ResultSet en streaming.
+     * Las olimpiadas y deportes, que son tablas pequeñas, se comparten entre los eventos que los referencian.
+     * Hay que cerrar el flujo (try-with-resources) para devolver la conexión.
+     *
+     * @return flujo de eventos (vacío si falla la consulta o se pide dentro de una Transaccion)
+     */
+    public static Stream<Evento> cargarFlujo() {
+        try {
+            return Flujos.consultar(CONSULTA_EVENTOS, FLUJO);
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Metodo que devuelve un origen de datos para cargar los eventos por páginas, ordenados por id
+     *
+     * @param texto texto por el que tiene que empezar el nombre de los eventos a cargar, o vacío para cargarlos todos
+     * @return origen de datos paginado
+     */
+    public static FuentePaginada<Evento, Integer> paginas(String texto) {
+        return new Paginas(texto == null ? "" : texto.strip());
+    }
+
+    /**
+     * Origen de datos paginado de eventos, con clave id_evento
+     */
+    private static class Paginas implements FuentePaginada<Evento, Integer> {
+        private final String texto;
+        private final String condicion;
+
+        Paginas(String texto) {
+            this.texto = texto;
+            this.condicion = texto.isEmpty() ? "" : " AND e.nombre LIKE ?";
+        }
+
+        @Override
+        public int contar() {
+            String consulta = "SELECT count(*) AS cont FROM Evento e WHERE 1 = 1" + condicion;
+            try (DBConnect connection = new DBConnect();
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                ponerFiltro(pstmt, 1);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            return 0;
+        }
+
+        @Override
+        public List<Evento> cargarPagina(Integer despuesDe, int limite) {
+            List<Evento> eventos = new ArrayList<>(limite);
+            String consulta = CONSULTA_EVENTOS + " WHERE e.id_evento > ?" + condicion + " ORDER BY e.id_evento LIMIT ?";
+            try (DBConnect connection = new DBConnect();
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                pstmt.setInt(1, despuesDe == null ? 0 : despuesDe);
+                int indice = ponerFiltro(pstmt, 2);
+                pstmt.setInt(indice, limite);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        eventos.add(FILAS.leer(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            return eventos;
+        }
+
+        @Override
+        public Integer clave(Evento fila) {
+            return fila.getId_evento();
+        }
+
+        @Override
+        public Integer claveTras(Integer despuesDe, int filas) {
+            String consulta = "SELECT e.id_evento FROM Evento e WHERE e.id_evento > ?" + condicion + " ORDER BY e.id_evento LIMIT 1 OFFSET ?";
+            try (DBConnect connection = new DBConnect();
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                pstmt.setInt(1, despuesDe == null ? 0 : despuesDe);
+                int indice = ponerFiltro(pstmt, 2);
+                pstmt.setInt(indice, filas - 1);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            return null;
+        }
+
+        /**
+         * Establece el parámetro del filtro de nombre si lo hay
+         *
+         * @param pstmt  consulta preparada
+         * @param indice índice del parámetro del filtro
+         * @return índice del siguiente parámetro
+         * @throws SQLException si falla la consulta
+         */
+        private int ponerFiltro(PreparedStatement pstmt, int indice) throws SQLException {
+            if (texto.isEmpty()) {
+                return indice;
+            }
+            pstmt.setString(indice, FuentePaginada.patronPrefijo(texto)); // por el comienzo del nombre, que usa su índice
+            return indice + 1;
+        }
+    }
+
     /**
      * Metodo que modifica los datos de un evento en la BD
      *
@@ -114,20 +294,19 @@ public class DaoEvento {
      * @return			true/false
      */
     public static boolean modificar(Evento evento, Evento eventoNuevo) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "UPDATE Evento SET nombre = ?,id_olimpiada = ?,id_deporte = ? WHERE id_evento = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "UPDATE Evento SET nombre = ?,id_olimpiada = ?,id_deporte = ? WHERE id_evento = ?";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setString(1, eventoNuevo.getNombre());
             pstmt.setInt(2, eventoNuevo.getOlimpiada().getId_olimpiada());
             pstmt.setInt(3, eventoNuevo.getDeporte().getId_deporte());
             pstmt.setInt(4, evento.getId_evento());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                DaoDeporte.invalidarEliminables();
+                DaoOlimpiada.invalidarEliminables();
+            }
             System.out.println("Actualizado evento");
-            pstmt.close();
-            connection.closeConnection();
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
@@ -142,28 +321,25 @@ public class DaoEvento {
      * @return			id/-1
      */
     public  static int insertar(Evento evento) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "INSERT INTO Evento (nombre,id_olimpiada,id_deporte) VALUES (?,?,?) ";
-            pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
+        String consulta = "INSERT INTO Evento (nombre,id_olimpiada,id_deporte) VALUES (?,?,?) ";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, evento.getNombre());
             pstmt.setInt(2, evento.getOlimpiada().getId_olimpiada());
             pstmt.setInt(3, evento.getDeporte().getId_deporte());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                DaoDeporte.invalidarEliminables();
+                DaoOlimpiada.invalidarEliminables();
+            }
             System.out.println("Nueva entrada en evento");
             if (filasAfectadas > 0) {
-                ResultSet rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    int id = rs.getInt(1);
-                    pstmt.close();
-                    connection.closeConnection();
-                    return id;
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
                 }
             }
-            pstmt.close();
-            connection.closeConnection();
             return -1;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
@@ -178,16 +354,16 @@ public class DaoEvento {
      * @return a boolean
      */
     public static boolean eliminar(Evento evento) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "DELETE FROM Evento WHERE id_evento = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "DELETE FROM Evento WHERE id_evento = ?";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, evento.getId_evento());
             int filasAfectadas = pstmt.executeUpdate();
-            pstmt.close();
-            connection.closeConnection();
+            if (filasAfectadas > 0) {
+                IDENTIDAD.quitar(evento.getId_evento());
+                DaoDeporte.invalidarEliminables();
+                DaoOlimpiada.invalidarEliminables();
+            }
             System.out.println("Eliminado con éxito");
             return filasAfectadas > 0;
         } catch (SQLException e) {
@@ -196,5 +372,84 @@ public class DaoEvento {
         }
     }
 
+    /**
+     * Metodo que CREA varios eventos en una sola transacción, enviándolos en lotes
+     *
+     * @param eventos	Eventos a insertar
+     * @return			ids en el mismo orden / -1 en todas las posiciones
+     */
+    public static int[] insertarTodos(List<Evento> eventos) {
+        String consulta = "INSERT INTO Evento (nombre,id_olimpiada,id_deporte) VALUES (?,?,?) ";
+        try {
+            int[] ids = Lotes.enTransaccion(connection -> Lotes.insertar(connection, consulta, eventos, (pstmt, evento) -> {
+                pstmt.setString(1, evento.getNombre());
+                pstmt.setInt(2, evento.getOlimpiada().getId_olimpiada());
+                pstmt.setInt(3, evento.getDeporte().getId_deporte());
+            }));
+            DaoDeporte.invalidarEliminables();
+            DaoOlimpiada.invalidarEliminables();
+            System.out.println("Nuevas entradas en evento: " + ids.length);
+            return ids;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return Lotes.fallo(eventos.size());
+        }
+    }
+
+    /**
+     * Metodo que modifica varios eventos en una sola transacción, enviándolos en lotes
+     *
+     * @param eventos		Eventos con datos
+     * @param eventosNuevos	Nuevos datos de cada evento, en el mismo orden
+     * @return			true/false (todos o ninguno)
+     */
+    public static boolean modificarTodos(List<Evento> eventos, List<Evento> eventosNuevos) {
+        Lotes.comprobarPares(eventos, eventosNuevos);
+        String consulta = "UPDATE Evento SET nombre = ?,id_olimpiada = ?,id_deporte = ? WHERE id_evento = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.modificar(connection, consulta, eventos, eventosNuevos, (pstmt, evento, eventoNuevo) -> {
+                    pstmt.setString(1, eventoNuevo.getNombre());
+                    pstmt.setInt(2, eventoNuevo.getOlimpiada().getId_olimpiada());
+                    pstmt.setInt(3, eventoNuevo.getDeporte().getId_deporte());
+                    pstmt.setInt(4, evento.getId_evento());
+                });
+                return null;
+            });
+            DaoDeporte.invalidarEliminables();
+            DaoOlimpiada.invalidarEliminables();
+            System.out.println("Actualizados eventos: " + eventos.size());
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Elimina varios eventos en una sola transacción, enviándolos en lotes
+     *
+     * @param eventos Eventos a eliminar
+     * @return true/false (todos o ninguno)
+     */
+    public static boolean eliminarTodos(List<Evento> eventos) {
+        String consulta = "DELETE FROM Evento WHERE id_evento = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.ejecutar(connection, consulta, eventos, (pstmt, evento) -> pstmt.setInt(1, evento.getId_evento()));
+                return null;
+            });
+            for (Evento evento : eventos) {
+                IDENTIDAD.quitar(evento.getId_evento());
+            }
+            DaoDeporte.invalidarEliminables();
+            DaoOlimpiada.invalidarEliminables();
+            System.out.println("Eliminados eventos: " + eventos.size());
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
 
 }
@@ -1,6 +1,7 @@
 package com.intissar.olimpiadas.dao;
 
 import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.MetricasJdbc;
 import com.intissar.olimpiadas.model.Olimpiada;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -8,98 +9,167 @@ import javafx.collections.ObservableList;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Clase donde se ejecuta las consultas para la tabla Olimpiada
  */
 public class DaoOlimpiada {
     /**
-     * Metodo que busca una olimpiada por medio de su id
+     * Caché de la tabla Olimpiada, que se invalida al insertar, modificar o eliminar una olimpiada
+     */
+    private static final CacheReferencia<Olimpiada> CACHE = new CacheReferencia<>(DaoOlimpiada::leerTabla, Olimpiada::getId_olimpiada);
+
+    /**
+     * Instancia canónica de cada olimpiada, compartida por la caché y por los eventos y participaciones que la referencian
+     */
+    private static final MapaIdentidad<Olimpiada> IDENTIDAD = new MapaIdentidad<>("identidad.olimpiadas", 1000,
+            (guardada, leida) -> Objects.equals(guardada.getNombre(), leida.getNombre()) && guardada.getAnio() == leida.getAnio()
+                    && Objects.equals(guardada.getTemporada(), leida.getTemporada()) && Objects.equals(guardada.getCiudad(), leida.getCiudad()));
+
+    /**
+     * Mapeador de las filas de la tabla Olimpiada
+     */
+    private static final Mapeador<Olimpiada> FILAS = mapeador("nombre");
+
+    /**
+     * Metodo que busca una olimpiada por medio de su id en la caché de olimpiadas
      *
      * @param id id de la olimpiada a buscar
      * @return olimpiada o null
      */
     public static Olimpiada getOlimpiada(int id) {
-        DBConnect connection;
-        Olimpiada olimpiada = null;
         try {
-            connection = new DBConnect();
-            String consulta = "SELECT id_olimpiada,nombre,anio,temporada,ciudad FROM Olimpiada WHERE id_olimpiada = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                int id_olimpiada = rs.getInt("id_olimpiada");
-                String nombre = rs.getString("nombre");
-                int anio = rs.getInt("anio");
-                String temporada = rs.getString("temporada");
-                String ciudad = rs.getString("ciudad");
-                olimpiada = new Olimpiada(id_olimpiada,nombre,anio,temporada,ciudad);
-            }
-            rs.close();
-            connection.closeConnection();
+            return CACHE.get(id);
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            return null;
         }
-        return olimpiada;
     }
 
     /**
-     * Metodo que carga los datos de la tabla Olimpiadas y los devuelve para usarlos en un listado de olimpiadas
+     * Metodo que carga los datos de la tabla Olimpiadas y los devuelve para usarlos en un listado de olimpiadas.
+     * Las olimpiadas se leen de la caché; la lista devuelta es nueva y se puede modificar.
      *
      * @return listado de olimpiadas para cargar en un tableview
      */
     public static ObservableList<Olimpiada> cargarListado() {
-        DBConnect connection;
         ObservableList<Olimpiada> olimpiadas = FXCollections.observableArrayList();
-        try{
-            connection = new DBConnect();
-            String consulta = "SELECT id_olimpiada,nombre,anio,temporada,ciudad FROM Olimpiada";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery();
+        MetricasJdbc.Ambito ambito = MetricasJdbc.ambito("DaoOlimpiada.cargarListado");
+        try {
+            olimpiadas.addAll(CACHE.listado());
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        } finally {
+            ambito.close();
+        }
+        return olimpiadas;
+    }
+
+    /**
+     * Metodo que devuelve todas las olimpiadas como un Stream, leídas de la caché.
+     * La tabla es pequeña y ya está en memoria, así que no hace falta recorrerla en streaming.
+     *
+     * @return flujo de olimpiadas (vacío si no se ha podido leer la tabla)
+     */
+    public static Stream<Olimpiada> cargarFlujo() {
+        try {
+            return CACHE.listado().stream();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Metodo que lee la tabla Olimpiada de la BD para la caché
+     *
+     * @return listado de olimpiadas
+     * @throws SQLException si falla la consulta
+     */
+    private static List<Olimpiada> leerTabla() throws SQLException {
+        List<Olimpiada> olimpiadas = new ArrayList<>();
+        String consulta = "SELECT id_olimpiada,nombre,anio,temporada,ciudad FROM Olimpiada";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                int id_olimpiada = rs.getInt("id_olimpiada");
-                String nombre = rs.getString("nombre");
-                int anio = rs.getInt("anio");
-                String temporada = rs.getString("temporada");
-                String ciudad = rs.getString("ciudad");
-                Olimpiada olimpiada = new Olimpiada(id_olimpiada,nombre,anio,temporada,ciudad);
-                olimpiadas.add(olimpiada);
+                olimpiadas.add(FILAS.leer(rs));
             }
-            rs.close();
-            connection.closeConnection();
-        }catch (SQLException e) {
-            System.err.println(e.getMessage());
         }
         return olimpiadas;
     }
 
     /**
-     * Metodo que busca una olimpiada y mira a ver si se puede eliminar
+     * Metodo que crea un mapeador de olimpiadas que devuelve la instancia canónica de cada una.
+     * Lo usan también DaoEvento y DaoParticipacion para las filas de sus JOIN.
+     *
+     * @param columnaNombre columna con el nombre de la olimpiada (las demás son id_olimpiada, anio, temporada y ciudad)
+     * @return mapeador para las consultas con esas columnas
+     */
+    static Mapeador<Olimpiada> mapeador(String columnaNombre) {
+        return new Mapeador<>((rs, c) -> {
+            int id_olimpiada = rs.getInt(c[0]);
+            Olimpiada olimpiada = new Olimpiada(id_olimpiada, rs.getString(c[1]), rs.getInt(c[2]),
+                    rs.getString(c[3]), rs.getString(c[4]));
+            return IDENTIDAD.canonica(id_olimpiada, olimpiada);
+        }, "id_olimpiada", columnaNombre, "anio", "temporada", "ciudad");
+    }
+
+    /**
+     * Descarta la caché de olimpiadas. Lo llama ImportadorHistorico tras escribir en la tabla sin pasar por este DAO.
+     */
+    static void invalidarCache() {
+        CACHE.invalidar(); // Se volverá a leer la tabla en la siguiente consulta
+    }
+
+    /**
+     * Ids de los olimpiadas que tienen eventos y no se pueden eliminar, calculados para toda la tabla en una consulta
+     */
+    private static final CacheReferenciados REFERENCIADOS = new CacheReferenciados("SELECT id_olimpiada FROM Evento GROUP BY id_olimpiada");
+
+    /**
+     * Metodo que mira a ver si se puede eliminar una olimpiada.
+     * Solo consulta la BD si los olimpiadas no eliminables no están ya en memoria.
      *
      * @param olimpiada olimpiada a buscar
      * @return true/false
      */
     public static boolean esEliminable(Olimpiada olimpiada) {
-        DBConnect connection;
         try {
-            connection = new DBConnect();
-            String consulta = "SELECT count(*) as cont FROM Evento WHERE id_olimpiada = ?";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            pstmt.setInt(1, olimpiada.getId_olimpiada());
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                int cont = rs.getInt("cont");
-                rs.close();
-                connection.closeConnection();
-                return (cont==0);
-            }
-            rs.close();
-            connection.closeConnection();
+            return !REFERENCIADOS.contiene(olimpiada.getId_olimpiada());
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Metodo que calcula qué olimpiadas se pueden eliminar, con una sola consulta agrupada para toda la tabla.
+     * El predicado devuelto no consulta la BD, así que se puede usar desde el hilo de JavaFX.
+     *
+     * @return predicado que indica si se puede eliminar
+     */
+    public static Predicate<Olimpiada> eliminables() {
+        try {
+            BitSet referenciados = REFERENCIADOS.ids();
+            return olimpiada -> !referenciados.get(olimpiada.getId_olimpiada());
         } catch (SQLException e) {
             System.err.println(e.getMessage());
+            return olimpiada -> false;
         }
-        return false;
+    }
+
+    /**
+     * Metodo que invalida los olimpiadas no eliminables. Lo llama DaoEvento cuando cambian sus filas.
+     */
+    static void invalidarEliminables() {
+        REFERENCIADOS.invalidar();
     }
 
     /**
@@ -110,21 +180,19 @@ public class DaoOlimpiada {
      * @return			true/false
      */
     public static boolean modificar(Olimpiada olimpiada, Olimpiada olimpiadaNuevo) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "UPDATE Olimpiada SET nombre = ?,anio = ?,temporada = ?,ciudad = ? WHERE id_olimpiada = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "UPDATE Olimpiada SET nombre = ?,anio = ?,temporada = ?,ciudad = ? WHERE id_olimpiada = ?";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setString(1, olimpiadaNuevo.getNombre());
             pstmt.setInt(2, olimpiadaNuevo.getAnio());
             pstmt.setString(3, olimpiadaNuevo.getTemporada().toString());
             pstmt.setString(4, olimpiadaNuevo.getCiudad());
             pstmt.setInt(5, olimpiada.getId_olimpiada());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                CACHE.invalidar();
+            }
             System.out.println("Actualizado olimpiada");
-            pstmt.close();
-            connection.closeConnection();
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
@@ -139,29 +207,25 @@ public class DaoOlimpiada {
      * @return			id/-1
      */
     public  static int insertar(Olimpiada olimpiada) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "INSERT INTO Olimpiada (nombre,anio,temporada,ciudad) VALUES (?,?,?,?) ";
-            pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS);
+        String consulta = "INSERT INTO Olimpiada (nombre,anio,temporada,ciudad) VALUES (?,?,?,?) ";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta, PreparedStatement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, olimpiada.getNombre());
             pstmt.setInt(2, olimpiada.getAnio());
             pstmt.setString(3, olimpiada.getTemporada().toString());
             pstmt.setString(4, olimpiada.getCiudad());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                CACHE.invalidar();
+            }
             System.out.println("Nueva entrada en olimpiada");
             if (filasAfectadas > 0) {
-                ResultSet rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    int id = rs.getInt(1);
-                    pstmt.close();
-                    connection.closeConnection();
-                    return id;
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
                 }
             }
-            pstmt.close();
-            connection.closeConnection();
             return -1;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
@@ -176,16 +240,15 @@ public class DaoOlimpiada {
      * @return a boolean
      */
     public static boolean eliminar(Olimpiada olimpiada) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "DELETE FROM Olimpiada WHERE id_olimpiada = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "DELETE FROM Olimpiada WHERE id_olimpiada = ?";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, olimpiada.getId_olimpiada());
             int filasAfectadas = pstmt.executeUpdate();
-            pstmt.close();
-            connection.closeConnection();
+            if (filasAfectadas > 0) {
+                IDENTIDAD.quitar(olimpiada.getId_olimpiada());
+                CACHE.invalidar();
+            }
             System.out.println("Eliminado con éxito");
             return filasAfectadas > 0;
         } catch (SQLException e) {
@@ -194,5 +257,83 @@ public class DaoOlimpiada {
         }
     }
 
+    /**
+     * Metodo que CREA varias olimpiadas en una sola transacción, enviándolas en lotes
+     *
+     * @param olimpiadas	Olimpiadas a insertar
+     * @return			ids en el mismo orden / -1 en todas las posiciones
+     */
+    public static int[] insertarTodos(List<Olimpiada> olimpiadas) {
+        String consulta = "INSERT INTO Olimpiada (nombre,anio,temporada,ciudad) VALUES (?,?,?,?) ";
+        try {
+            int[] ids = Lotes.enTransaccion(connection -> Lotes.insertar(connection, consulta, olimpiadas, (pstmt, olimpiada) -> {
+                pstmt.setString(1, olimpiada.getNombre());
+                pstmt.setInt(2, olimpiada.getAnio());
+                pstmt.setString(3, olimpiada.getTemporada().toString());
+                pstmt.setString(4, olimpiada.getCiudad());
+            }));
+            CACHE.invalidar();
+            System.out.println("Nuevas entradas en olimpiada: " + ids.length);
+            return ids;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return Lotes.fallo(olimpiadas.size());
+        }
+    }
+
+    /**
+     * Metodo que modifica varias olimpiadas en una sola transacción, enviándolas en lotes
+     *
+     * @param olimpiadas		Olimpiadas con datos
+     * @param olimpiadasNuevas	Nuevos datos de cada olimpiada, en el mismo orden
+     * @return			true/false (todas o ninguna)
+     */
+    public static boolean modificarTodos(List<Olimpiada> olimpiadas, List<Olimpiada> olimpiadasNuevas) {
+        Lotes.comprobarPares(olimpiadas, olimpiadasNuevas);
+        String consulta = "UPDATE Olimpiada SET nombre = ?,anio = ?,temporada = ?,ciudad = ? WHERE id_olimpiada = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.modificar(connection, consulta, olimpiadas, olimpiadasNuevas, (pstmt, olimpiada, olimpiadaNuevo) -> {
+                    pstmt.setString(1, olimpiadaNuevo.getNombre());
+                    pstmt.setInt(2, olimpiadaNuevo.getAnio());
+                    pstmt.setString(3, olimpiadaNuevo.getTemporada().toString());
+                    pstmt.setString(4, olimpiadaNuevo.getCiudad());
+                    pstmt.setInt(5, olimpiada.getId_olimpiada());
+                });
+                return null;
+            });
+            CACHE.invalidar();
+            System.out.println("Actualizadas olimpiadas: " + olimpiadas.size());
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Elimina varias olimpiadas en una sola transacción, enviándolas en lotes
+     *
+     * @param olimpiadas Olimpiadas a eliminar
+     * @return true/false (todas o ninguna)
+     */
+    public static boolean eliminarTodos(List<Olimpiada> olimpiadas) {
+        String consulta = "DELETE FROM Olimpiada WHERE id_olimpiada = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.ejecutar(connection, consulta, olimpiadas, (pstmt, olimpiada) -> pstmt.setInt(1, olimpiada.getId_olimpiada()));
+                return null;
+            });
+            for (Olimpiada olimpiada : olimpiadas) {
+                IDENTIDAD.quitar(olimpiada.getId_olimpiada());
+            }
+            CACHE.invalidar();
+            System.out.println("Eliminadas olimpiadas: " + olimpiadas.size());
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
 
 }
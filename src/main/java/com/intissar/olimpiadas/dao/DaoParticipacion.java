@@ -1,6 +1,8 @@
 package com.intissar.olimpiadas.dao;
 
+import com.intissar.olimpiadas.busqueda.FiltroParticipacion;
 import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.MetricasJdbc;
 import com.intissar.olimpiadas.model.Deportista;
 import com.intissar.olimpiadas.model.Equipo;
 import com.intissar.olimpiadas.model.Evento;
@@ -11,44 +13,296 @@ import javafx.collections.ObservableList;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Clase donde se ejecuta las consultas para la tabla Participacion
  */
 public class DaoParticipacion {
     /**
-     * Metodo que carga los datos de la tabla Participacions y los devuelve para usarlos en un listado de participacions
+     * Consulta de participaciones con su deportista, evento, equipo, olimpiada y deporte en un solo JOIN
+     */
+    private static final String CONSULTA_PARTICIPACIONES = "SELECT p.id_deportista,p.id_evento,p.id_equipo,p.edad,p.medalla," +
+            "d.nombre AS deportista_nombre,d.sexo,d.peso,d.altura," +
+            "e.nombre AS evento_nombre,e.id_olimpiada,e.id_deporte," +
+            "o.nombre AS olimpiada_nombre,o.anio,o.temporada,o.ciudad," +
+            "dp.nombre AS deporte_nombre," +
+            "eq.nombre AS equipo_nombre,eq.iniciales " +
+            "FROM Participacion p " +
+            "JOIN Deportista d ON d.id_deportista = p.id_deportista " +
+            "JOIN Evento e ON e.id_evento = p.id_evento " +
+            "JOIN Olimpiada o ON o.id_olimpiada = e.id_olimpiada " +
+            "JOIN Deporte dp ON dp.id_deporte = e.id_deporte " +
+            "JOIN Equipo eq ON eq.id_equipo = p.id_equipo";
+
+    /**
+     * Metodo que carga los datos de la tabla Participacions y los devuelve para usarlos en un listado de participacions.
+     * Se hace una sola consulta con JOIN a Deportista, Evento, Equipo, Olimpiada y Deporte, y cada objeto
+     * relacionado se crea una sola vez y se comparte entre todas las participaciones que lo referencian.
+     * Los deportistas se cargan sin foto, ya que el listado no la muestra.
      *
      * @return listado de participacions para cargar en un tableview
      */
     public static ObservableList<Participacion> cargarListado() {
-        DBConnect connection;
         ObservableList<Participacion> participacions = FXCollections.observableArrayList();
-        try{
-            connection = new DBConnect();
-            String consulta = "SELECT id_deportista,id_evento,id_equipo,edad,medalla FROM Participacion";
-            PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                int id_deportista = rs.getInt("id_deportista");
-                Deportista deportista = DaoDeportista.getDeportista(id_deportista);
-                int id_evento = rs.getInt("id_evento");
-                Evento evento = DaoEvento.getEvento(id_evento);
-                int id_equipo = rs.getInt("id_equipo");
-                Equipo equipo = DaoEquipo.getEquipo(id_equipo);
-                int edad = rs.getInt("edad");
-                String medalla = rs.getString("medalla");
-                Participacion participacion = new Participacion(deportista,evento,equipo,edad,medalla);
-                participacions.add(participacion);
-            }
-            rs.close();
-            connection.closeConnection();
+        MetricasJdbc.Ambito ambito = MetricasJdbc.ambito("DaoParticipacion.cargarListado");
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(CONSULTA_PARTICIPACIONES);
+             ResultSet rs = pstmt.executeQuery()) {
+            leerParticipaciones(rs, participacions);
         }catch (SQLException e) {
             System.err.println(e.getMessage());
+        } finally {
+            ambito.close();
         }
         return participacions;
     }
 
+    /**
+     * Clave de una participación, por la que se ordenan las páginas
+     *
+     * @param id_deportista id del deportista
+     * @param id_evento     id del evento
+     */
+    public record ClaveParticipacion(int id_deportista, int id_evento) {}
+
+    /**
+     * Metodo que devuelve un origen de datos para cargar por páginas las participaciones que cumplen un filtro,
+     * ordenadas por su clave primaria (id_deportista, id_evento).
+     * Cada campo del filtro se compara con LIKE 'texto%' sobre el nombre, de forma que MySQL puede usar los índices
+     * de Deportista.nombre, Evento.nombre, Equipo.nombre y Participacion.medalla.
+     *
+     * @param filtro filtro por deportista, evento, equipo y medalla
+     * @return origen de datos paginado
+     */
+    public static FuentePaginada<Participacion, ClaveParticipacion> paginas(FiltroParticipacion filtro) {
+        return new Paginas(filtro);
+    }
+
+    /**
+     * Origen de datos paginado de participaciones
+     */
+    private static class Paginas implements FuentePaginada<Participacion, ClaveParticipacion> {
+        private static final String TABLAS_FILTRO = " FROM Participacion p " +
+                "JOIN Deportista d ON d.id_deportista = p.id_deportista " +
+                "JOIN Evento e ON e.id_evento = p.id_evento " +
+                "JOIN Equipo eq ON eq.id_equipo = p.id_equipo";
+        private static final String DESPUES_DE = " AND (p.id_deportista > ? OR (p.id_deportista = ? AND p.id_evento > ?))";
+
+        private final String condicion;
+        private final List<String> parametros = new ArrayList<>();
+
+        Paginas(FiltroParticipacion filtro) {
+            StringBuilder condicion = new StringBuilder();
+            if (!filtro.deportista().isEmpty()) {
+                condicion.append(" AND d.nombre LIKE ?");
+                parametros.add(FuentePaginada.patronPrefijo(filtro.deportista()));
+            }
+            if (!filtro.evento().isEmpty()) {
+                condicion.append(" AND e.nombre LIKE ?");
+                parametros.add(FuentePaginada.patronPrefijo(filtro.evento()));
+            }
+            if (!filtro.equipo().isEmpty()) {
+                condicion.append(" AND eq.nombre LIKE ?");
+                parametros.add(FuentePaginada.patronPrefijo(filtro.equipo()));
+            }
+            if (!filtro.medalla().isEmpty()) {
+                condicion.append(" AND p.medalla LIKE ?");
+                parametros.add(FuentePaginada.patronPrefijo(filtro.medalla()));
+            }
+            this.condicion = condicion.toString();
+        }
+
+        @Override
+        public int contar() {
+            // Sin filtro no hace falta unir las demás tablas
+            String consulta = "SELECT count(*) AS cont" + (parametros.isEmpty() ? " FROM Participacion p" : TABLAS_FILTRO) +
+                    " WHERE 1 = 1" + condicion;
+            try (DBConnect connection = new DBConnect();
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                ponerFiltro(pstmt, 1);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            return 0;
+        }
+
+        @Override
+        public List<Participacion> cargarPagina(ClaveParticipacion despuesDe, int limite) {
+            List<Participacion> participacions = new ArrayList<>(limite);
+            String consulta = CONSULTA_PARTICIPACIONES + " WHERE 1 = 1" +
+                    (despuesDe == null ? "" : DESPUES_DE) +
+                    condicion + " ORDER BY p.id_deportista, p.id_evento LIMIT ?";
+            try (DBConnect connection = new DBConnect();
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                int indice = ponerDespuesDe(pstmt, despuesDe);
+                indice = ponerFiltro(pstmt, indice);
+                pstmt.setInt(indice, limite);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    leerParticipaciones(rs, participacions);
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            return participacions;
+        }
+
+        @Override
+        public ClaveParticipacion clave(Participacion fila) {
+            return new ClaveParticipacion(fila.getDeportista().getId_deportista(), fila.getEvento().getId_evento());
+        }
+
+        @Override
+        public ClaveParticipacion claveTras(ClaveParticipacion despuesDe, int filas) {
+            String consulta = "SELECT p.id_deportista, p.id_evento" + (parametros.isEmpty() ? " FROM Participacion p" : TABLAS_FILTRO) +
+                    " WHERE 1 = 1" + (despuesDe == null ? "" : DESPUES_DE) +
+                    condicion + " ORDER BY p.id_deportista, p.id_evento LIMIT 1 OFFSET ?";
+            try (DBConnect connection = new DBConnect();
+                 PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
+                int indice = ponerDespuesDe(pstmt, despuesDe);
+                indice = ponerFiltro(pstmt, indice);
+                pstmt.setInt(indice, filas - 1);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return new ClaveParticipacion(rs.getInt(1), rs.getInt(2));
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            return null;
+        }
+
+        /**
+         * Establece los parámetros de la clave desde la que se lee, si la hay
+         *
+         * @param pstmt     consulta preparada
+         * @param despuesDe clave o null para leer desde el principio
+         * @return índice del siguiente parámetro
+         * @throws SQLException si falla la consulta
+         */
+        private static int ponerDespuesDe(PreparedStatement pstmt, ClaveParticipacion despuesDe) throws SQLException {
+            if (despuesDe == null) {
+                return 1;
+            }
+            pstmt.setInt(1, despuesDe.id_deportista());
+            pstmt.setInt(2, despuesDe.id_deportista());
+            pstmt.setInt(3, despuesDe.id_evento());
+            return 4;
+        }
+
+        /**
+         * Establece los parámetros del filtro
+         *
+         * @param pstmt  consulta preparada
+         * @param indice índice del primer parámetro del filtro
+         * @return índice del siguiente parámetro
+         * @throws SQLException si falla la consulta
+         */
+        private int ponerFiltro(PreparedStatement pstmt, int indice) throws SQLException {
+            for (String parametro : parametros) {
+                pstmt.setString(indice++, parametro);
+            }
+            return indice;
+        }
+    }
+
+    /**
+     * Metodo que crea las participaciones de las filas de CONSULTA_PARTICIPACIONES.
+     * Cada objeto relacionado se crea una sola vez y se comparte entre las participaciones que lo referencian.
+     *
+     * @param rs             resultado de la consulta
+     * @param participacions lista donde se añaden las participaciones
+     * @throws SQLException si falla la lectura
+     */
+    private static void leerParticipaciones(ResultSet rs, List<Participacion> participacions) throws SQLException {
+        LectorParticipaciones lector = new LectorParticipaciones(true);
+        while (rs.next()) {
+            participacions.add(lector.leer(rs));
+        }
+    }
+
+    /**
+     * Metodo que recorre todas las participaciones sin cargarlas en memoria, con un ResultSet en streaming.
+     * Las olimpiadas, deportes y equipos se comparten entre filas porque son tablas pequeñas; los deportistas y
+     * eventos se crean en cada fila, sin pasar por el mapa de identidad, para que la memoria no crezca con el recorrido.
+     * Hay que cerrar el flujo (try-with-resources) para devolver la conexión.
+     *
+     * @return flujo de participaciones (vacío si falla la consulta o se pide dentro de una Transaccion)
+     */
+    public static Stream<Participacion> cargarFlujo() {
+        LectorParticipaciones lector = new LectorParticipaciones(false);
+        try {
+            return Flujos.consultar(CONSULTA_PARTICIPACIONES, lector::leer);
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Crea participaciones a partir de filas de CONSULTA_PARTICIPACIONES, reutilizando los objetos relacionados ya creados
+     */
+    private static final class LectorParticipaciones {
+        // Columnas propias de Participacion: id_deportista, id_evento, id_equipo, edad y medalla
+        private static final Mapeador.Columnas COLUMNAS = new Mapeador.Columnas("id_deportista", "id_evento", "id_equipo", "edad", "medalla");
+        private static final Mapeador<Deportista> DEPORTISTAS = DaoDeportista.mapeadorSinFoto("deportista_nombre");
+        private static final Mapeador<Evento> EVENTOS = DaoEvento.mapeador("evento_nombre");
+        private static final Mapeador<Deportista> DEPORTISTAS_FLUJO = DaoDeportista.mapeadorSinFoto("deportista_nombre", false);
+        private static final Mapeador<Evento> EVENTOS_FLUJO = DaoEvento.mapeador("evento_nombre", false);
+        private static final Mapeador<Equipo> EQUIPOS = DaoEquipo.mapeador("equipo_nombre");
+
+        private final Map<Integer, Deportista> deportistas; // null si no se comparten
+        private final Map<Integer, Evento> eventos; // null si no se comparten
+        private final Map<Integer, Equipo> equipos = new HashMap<>();
+
+        /**
+         * @param compartirTodos si también se comparten los deportistas y eventos, cuyo número crece con la tabla
+         */
+        LectorParticipaciones(boolean compartirTodos) {
+            deportistas = compartirTodos ? new HashMap<>() : null;
+            eventos = compartirTodos ? new HashMap<>() : null;
+        }
+
+        Participacion leer(ResultSet rs) throws SQLException {
+            int[] c = COLUMNAS.en(rs);
+            int id_deportista = rs.getInt(c[0]);
+            Deportista deportista = deportistas == null ? null : deportistas.get(id_deportista);
+            if (deportista == null) {
+                deportista = (deportistas == null ? DEPORTISTAS_FLUJO : DEPORTISTAS).leer(rs);
+                if (deportistas != null) {
+                    deportistas.put(id_deportista, deportista);
+                }
+            }
+            int id_evento = rs.getInt(c[1]);
+            Evento evento = eventos == null ? null : eventos.get(id_evento);
+            if (evento == null) {
+                evento = (eventos == null ? EVENTOS_FLUJO : EVENTOS).leer(rs);
+                if (eventos != null) {
+                    eventos.put(id_evento, evento);
+                }
+            }
+            int id_equipo = rs.getInt(c[2]);
+            Equipo equipo = equipos.get(id_equipo);
+            if (equipo == null) {
+                equipo = EQUIPOS.leer(rs);
+                equipos.put(id_equipo, equipo);
+            }
+            int edad = rs.getInt(c[3]);
+            String medalla = rs.getString(c[4]);
+            return new Participacion(deportista,evento,equipo,edad,medalla);
+        }
+    }
+
     /**
      * Metodo que modifica los datos de un participacion en la BD
      *
@@ -57,12 +311,9 @@ public class DaoParticipacion {
      * @return			true/false
      */
     public static boolean modificar(Participacion participacion, Participacion participacionNuevo) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "UPDATE Participacion SET id_deportista = ?,id_evento = ?,id_equipo = ?,edad = ?,medalla = ? WHERE id_deportista = ? AND id_evento = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "UPDATE Participacion SET id_deportista = ?,id_evento = ?,id_equipo = ?,edad = ?,medalla = ? WHERE id_deportista = ? AND id_evento = ?";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, participacionNuevo.getDeportista().getId_deportista());
             pstmt.setInt(2, participacionNuevo.getEvento().getId_evento());
             pstmt.setInt(3, participacionNuevo.getEquipo().getId_equipo());
@@ -71,9 +322,10 @@ public class DaoParticipacion {
             pstmt.setInt(6, participacion.getDeportista().getId_deportista());
             pstmt.setInt(7, participacion.getEvento().getId_evento());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                invalidarReferenciadas();
+            }
             System.out.println("Actualizado participacion");
-            pstmt.close();
-            connection.closeConnection();
             return filasAfectadas > 0;
         } catch (SQLException e) {
             System.err.println(e.getMessage());
@@ -88,18 +340,18 @@ public class DaoParticipacion {
      * @return			true/false
      */
     public static boolean insertar(Participacion participacion) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "INSERT INTO Participacion (id_deportista,id_evento,id_equipo,edad,medalla) VALUES (?,?,?,?,?) ";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "INSERT INTO Participacion (id_deportista,id_evento,id_equipo,edad,medalla) VALUES (?,?,?,?,?) ";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, participacion.getDeportista().getId_deportista());
             pstmt.setInt(2, participacion.getEvento().getId_evento());
             pstmt.setInt(3, participacion.getEquipo().getId_equipo());
             pstmt.setInt(4, participacion.getEdad());
             pstmt.setString(5, participacion.getMedalla());
             int filasAfectadas = pstmt.executeUpdate();
+            if (filasAfectadas > 0) {
+                invalidarReferenciadas();
+            }
             System.out.println("Nueva entrada en participacion");
             return (filasAfectadas > 0);
         } catch (SQLException e) {
@@ -115,17 +367,15 @@ public class DaoParticipacion {
      * @return a boolean
      */
     public static boolean eliminar(Participacion participacion) {
-        DBConnect connection;
-        PreparedStatement pstmt;
-        try {
-            connection = new DBConnect();
-            String consulta = "DELETE FROM Participacion WHERE id_deportista = ? AND id_evento = ?";
-            pstmt = connection.getConnection().prepareStatement(consulta);
+        String consulta = "DELETE FROM Participacion WHERE id_deportista = ? AND id_evento = ?";
+        try (DBConnect connection = new DBConnect();
+             PreparedStatement pstmt = connection.getConnection().prepareStatement(consulta)) {
             pstmt.setInt(1, participacion.getDeportista().getId_deportista());
             pstmt.setInt(2, participacion.getEvento().getId_evento());
             int filasAfectadas = pstmt.executeUpdate();
-            pstmt.close();
-            connection.closeConnection();
+            if (filasAfectadas > 0) {
+                invalidarReferenciadas();
+            }
             System.out.println("Eliminado con éxito");
             return filasAfectadas > 0;
         } catch (SQLException e) {
@@ -134,5 +384,98 @@ public class DaoParticipacion {
         }
     }
 
+    /**
+     * Metodo que CREA varias participaciones en una sola transacción, enviándolas en lotes
+     *
+     * @param participaciones	Participaciones a insertar
+     * @return			true/false (todas o ninguna)
+     */
+    public static boolean insertarTodos(List<Participacion> participaciones) {
+        String consulta = "INSERT INTO Participacion (id_deportista,id_evento,id_equipo,edad,medalla) VALUES (?,?,?,?,?) ";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.ejecutar(connection, consulta, participaciones, (pstmt, participacion) -> {
+                    pstmt.setInt(1, participacion.getDeportista().getId_deportista());
+                    pstmt.setInt(2, participacion.getEvento().getId_evento());
+                    pstmt.setInt(3, participacion.getEquipo().getId_equipo());
+                    pstmt.setInt(4, participacion.getEdad());
+                    pstmt.setString(5, participacion.getMedalla());
+                });
+                return null;
+            });
+            invalidarReferenciadas();
+            System.out.println("Nuevas entradas en participacion: " + participaciones.size());
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Metodo que modifica varias participaciones en una sola transacción, enviándolas en lotes
+     *
+     * @param participaciones		Participaciones con datos
+     * @param participacionesNuevas	Nuevos datos de cada participacion, en el mismo orden
+     * @return			true/false (todas o ninguna)
+     */
+    public static boolean modificarTodos(List<Participacion> participaciones, List<Participacion> participacionesNuevas) {
+        Lotes.comprobarPares(participaciones, participacionesNuevas);
+        String consulta = "UPDATE Participacion SET id_deportista = ?,id_evento = ?,id_equipo = ?,edad = ?,medalla = ? WHERE id_deportista = ? AND id_evento = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.modificar(connection, consulta, participaciones, participacionesNuevas, (pstmt, participacion, participacionNuevo) -> {
+                    pstmt.setInt(1, participacionNuevo.getDeportista().getId_deportista());
+                    pstmt.setInt(2, participacionNuevo.getEvento().getId_evento());
+                    pstmt.setInt(3, participacionNuevo.getEquipo().getId_equipo());
+                    pstmt.setInt(4, participacionNuevo.getEdad());
+                    pstmt.setString(5, participacionNuevo.getMedalla());
+                    pstmt.setInt(6, participacion.getDeportista().getId_deportista());
+                    pstmt.setInt(7, participacion.getEvento().getId_evento());
+                });
+                return null;
+            });
+            invalidarReferenciadas();
+            System.out.println("Actualizadas participaciones: " + participaciones.size());
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Elimina varias participaciones en una sola transacción, enviándolas en lotes
+     *
+     * @param participaciones Participaciones a eliminar
+     * @return true/false (todas o ninguna)
+     */
+    public static boolean eliminarTodos(List<Participacion> participaciones) {
+        String consulta = "DELETE FROM Participacion WHERE id_deportista = ? AND id_evento = ?";
+        try {
+            Lotes.enTransaccion(connection -> {
+                Lotes.ejecutar(connection, consulta, participaciones, (pstmt, participacion) -> {
+                    pstmt.setInt(1, participacion.getDeportista().getId_deportista());
+                    pstmt.setInt(2, participacion.getEvento().getId_evento());
+                });
+                return null;
+            });
+            invalidarReferenciadas();
+            System.out.println("Eliminadas participaciones: " + participaciones.size());
+            return true;
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Los deportistas, eventos y equipos no eliminables dependen de las participaciones
+     */
+    private static void invalidarReferenciadas() {
+        DaoDeportista.invalidarEliminables();
+        DaoEvento.invalidarEliminables();
+        DaoEquipo.invalidarEliminables();
+    }
 
 }
@@ -0,0 +1,123 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.Transaccion;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Consultas que se recorren como Stream sin cargar el resultado en memoria (cargarFlujo de los DAO).
+ * Se usa el ResultSet en streaming de MySQL Connector/J (TYPE_FORWARD_ONLY, CONCUR_READ_ONLY y fetch size
+ * Integer.MIN_VALUE): el servidor envía las filas a medida que se leen, así que la memoria no depende del tamaño
+ * de la tabla. Mientras el flujo está abierto su conexión no admite otras consultas, por lo que hay que cerrarlo
+ * (try-with-resources); también se cierra solo al llegar a la última fila.
+ * Por eso no se abren flujos dentro de una Transaccion: ocuparían la única conexión de la transacción y las demás
+ * consultas de los DAO fallarían hasta cerrarlo (en MySQL, "streaming result set still active").
+ * H2 no admite un fetch size negativo, así que con la base de datos embebida se usa FILAS_H2 (H2 pasa a disco los
+ * resultados que no caben en memoria).
+ */
+final class Flujos {
+    private static final int FILAS_H2 = 1000;
+
+    /**
+     * Crea un objeto a partir de la fila actual
+     */
+    @FunctionalInterface
+    interface Leer<T> {
+        T leer(ResultSet rs) throws SQLException;
+    }
+
+    private Flujos() {
+    }
+
+    /**
+     * Ejecuta una consulta y devuelve sus filas como un Stream perezoso
+     *
+     * @param consulta consulta sin parámetros
+     * @param leer     crea cada objeto a partir de su fila
+     * @param <T>      tipo de los objetos
+     * @return flujo que hay que cerrar; si falla la lectura lanza IllegalStateException con la SQLException como causa
+     * @throws SQLException si no se puede ejecutar la consulta o el hilo tiene una Transaccion abierta
+     */
+    static <T> Stream<T> consultar(String consulta, Leer<T> leer) throws SQLException {
+        if (Transaccion.activa()) {
+            throw new SQLException("No se puede recorrer una tabla en streaming dentro de una transacción");
+        }
+        Recursos recursos = new Recursos(new DBConnect());
+        try {
+            recursos.pstmt = recursos.db.getConnection().prepareStatement(consulta, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            recursos.pstmt.setFetchSize(DBConnect.esEmbebida() ? FILAS_H2 : Integer.MIN_VALUE); // Sin guardar el resultado entero
+            recursos.rs = recursos.pstmt.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            recursos.cerrar();
+            throw e;
+        }
+        Spliterator<T> filas = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> accion) {
+                if (recursos.cerrado) {
+                    return false;
+                }
+                try {
+                    if (!recursos.rs.next()) {
+                        recursos.cerrar(); // Se devuelve la conexión aunque no se cierre el flujo
+                        return false;
+                    }
+                    accion.accept(leer.leer(recursos.rs));
+                    return true;
+                } catch (SQLException e) {
+                    recursos.cerrar();
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(filas, false).onClose(recursos::cerrar);
+    }
+
+    /**
+     * Conexión, sentencia y resultado de un flujo, que se cierran una sola vez
+     */
+    private static final class Recursos {
+        private final DBConnect db;
+        private PreparedStatement pstmt;
+        private ResultSet rs;
+        private boolean cerrado;
+
+        Recursos(DBConnect db) {
+            this.db = db;
+        }
+
+        void cerrar() {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+            try {
+                db.close(); // la conexión se devuelve aunque falle el cierre de lo anterior
+            } catch (SQLException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.intissar.olimpiadas.dao;
+
+import java.util.List;
+
+/**
+ * Origen de datos que se lee por páginas con paginación por clave (keyset):
+ * cada página se pide con WHERE clave > ? ORDER BY clave LIMIT ?, de forma que el coste de una página
+ * no depende de lo lejos que esté del principio de la tabla.
+ *
+ * @param <T> tipo de las filas
+ * @param <K> tipo de la clave por la que se ordena
+ */
+public interface FuentePaginada<T, K> {
+    /**
+     * @return número total de filas
+     */
+    int contar();
+
+    /**
+     * Carga las filas que siguen a una clave
+     *
+     * @param despuesDe clave de la última fila de la página anterior, o null para empezar por el principio
+     * @param limite    número máximo de filas
+     * @return filas ordenadas por clave
+     */
+    List<T> cargarPagina(K despuesDe, int limite);
+
+    /**
+     * @param fila fila cargada con cargarPagina
+     * @return clave de la fila
+     */
+    K clave(T fila);
+
+    /**
+     * Busca la clave de la fila que está un número de filas por detrás de otra, para saltar a una página sin leer
+     * las anteriores. Solo lee la clave (WHERE clave > ? ... LIMIT 1 OFFSET ?), así que recorre el índice desde
+     * la clave dada y no desde el principio, ni lee las filas.
+     *
+     * @param despuesDe clave desde la que se cuenta, o null para contar desde el principio
+     * @param filas     filas que se avanzan, al menos 1
+     * @return clave de la fila a la que se llega o null si no existe
+     */
+    K claveTras(K despuesDe, int filas);
+
+    /**
+     * Escapa los comodines de LIKE y añade % al final para buscar por el comienzo de un texto
+     *
+     * @param texto comienzo buscado
+     * @return patrón para LIKE (la barra invertida es el carácter de escape por defecto de MySQL)
+     */
+    static String patronPrefijo(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,537 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.ConnectionPool;
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.Transaccion;
+import com.intissar.olimpiadas.model.Deporte;
+import com.intissar.olimpiadas.model.Deportista;
+import com.intissar.olimpiadas.model.Equipo;
+import com.intissar.olimpiadas.model.Evento;
+import com.intissar.olimpiadas.model.Olimpiada;
+import com.intissar.olimpiadas.model.Participacion;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Generador de datos sintéticos para reproducir en local el volumen de producción (de mil a diez millones de
+ * participaciones). Con la misma semilla y el mismo número de participaciones genera siempre las mismas filas,
+ * tanto si se escriben con los DAO como si se vuelcan a ficheros para LOAD DATA.
+ *
+ * Las proporciones son las del histórico de athlete_events.csv: unas dos participaciones por deportista, unas 45 por
+ * evento, equipos con el nombre y las siglas de un país (y sufijos -1, -2... como en el histórico) y las olimpiadas y
+ * deportes reales. Cada fila se calcula a partir de la semilla y de su posición, no de las anteriores, de forma que las
+ * tablas se generan por partes sin guardarlas en memoria. Cada deportista participa en eventos consecutivos, así que
+ * los pares (deportista, evento) no se repiten y se respeta la clave primaria de Participacion.
+ *
+ * Las fotos opcionales son PNG de 180x240 con ruido, de unos 50 KB como las fotos reales (y por debajo de los 64 KB de
+ * la columna blob), y distintas entre deportistas.
+ */
+public final class GeneradorSintetico {
+    private static final String[] DEPORTES_VERANO = {"Athletics", "Swimming", "Gymnastics", "Rowing", "Cycling",
+            "Fencing", "Wrestling", "Shooting", "Boxing", "Sailing", "Canoeing", "Football", "Hockey", "Basketball",
+            "Judo", "Weightlifting", "Handball", "Water Polo", "Volleyball", "Equestrianism", "Diving", "Archery",
+            "Tennis", "Table Tennis", "Badminton", "Taekwondo", "Triathlon", "Modern Pentathlon", "Beach Volleyball",
+            "Synchronized Swimming", "Rhythmic Gymnastics", "Golf", "Rugby Sevens", "Trampolining"};
+    private static final String[] DEPORTES_INVIERNO = {"Cross Country Skiing", "Alpine Skiing", "Speed Skating",
+            "Ice Hockey", "Biathlon", "Bobsleigh", "Figure Skating", "Ski Jumping", "Nordic Combined", "Luge",
+            "Snowboarding", "Freestyle Skiing", "Curling", "Short Track Speed Skating", "Skeleton"};
+    private static final String[] PRUEBAS = {"Individual", "Team", "Singles", "Doubles", "Relay", "Sprint",
+            "Pursuit", "Mass Start", "Lightweight", "Middleweight", "Heavyweight", "100 metres", "200 metres",
+            "400 metres", "1,500 metres", "10 kilometres", "All-Around", "Free Style", "Open", "Qualifying"};
+    private static final String[][] OLIMPIADAS = {
+            {"1896", "Summer", "Athina"}, {"1900", "Summer", "Paris"}, {"1904", "Summer", "St. Louis"},
+            {"1908", "Summer", "London"}, {"1912", "Summer", "Stockholm"}, {"1920", "Summer", "Antwerpen"},
+            {"1924", "Summer", "Paris"}, {"1924", "Winter", "Chamonix"}, {"1928", "Summer", "Amsterdam"},
+            {"1928", "Winter", "Sankt Moritz"}, {"1932", "Summer", "Los Angeles"}, {"1932", "Winter", "Lake Placid"},
+            {"1936", "Summer", "Berlin"}, {"1936", "Winter", "Garmisch-Partenkirchen"}, {"1948", "Summer", "London"},
+            {"1948", "Winter", "Sankt Moritz"}, {"1952", "Summer", "Helsinki"}, {"1952", "Winter", "Oslo"},
+            {"1956", "Summer", "Melbourne"}, {"1956", "Winter", "Cortina d'Ampezzo"}, {"1960", "Summer", "Roma"},
+            {"1960", "Winter", "Squaw Valley"}, {"1964", "Summer", "Tokyo"}, {"1964", "Winter", "Innsbruck"},
+            {"1968", "Summer", "Mexico City"}, {"1968", "Winter", "Grenoble"}, {"1972", "Summer", "Munich"},
+            {"1972", "Winter", "Sapporo"}, {"1976", "Summer", "Montreal"}, {"1976", "Winter", "Innsbruck"},
+            {"1980", "Summer", "Moskva"}, {"1980", "Winter", "Lake Placid"}, {"1984", "Summer", "Los Angeles"},
+            {"1984", "Winter", "Sarajevo"}, {"1988", "Summer", "Seoul"}, {"1988", "Winter", "Calgary"},
+            {"1992", "Summer", "Barcelona"}, {"1992", "Winter", "Albertville"}, {"1994", "Winter", "Lillehammer"},
+            {"1996", "Summer", "Atlanta"}, {"1998", "Winter", "Nagano"}, {"2000", "Summer", "Sydney"},
+            {"2002", "Winter", "Salt Lake City"}, {"2004", "Summer", "Athina"}, {"2006", "Winter", "Torino"},
+            {"2008", "Summer", "Beijing"}, {"2010", "Winter", "Vancouver"}, {"2012", "Summer", "London"},
+            {"2014", "Winter", "Sochi"}, {"2016", "Summer", "Rio de Janeiro"}};
+    private static final String[][] PAISES = {
+            {"United States", "USA"}, {"France", "FRA"}, {"Great Britain", "GBR"}, {"Italy", "ITA"},
+            {"Germany", "GER"}, {"Canada", "CAN"}, {"Japan", "JPN"}, {"Sweden", "SWE"}, {"Australia", "AUS"},
+            {"Hungary", "HUN"}, {"Poland", "POL"}, {"Switzerland", "SUI"}, {"Netherlands", "NED"}, {"Finland", "FIN"},
+            {"China", "CHN"}, {"Spain", "ESP"}, {"Norway", "NOR"}, {"Austria", "AUT"}, {"Russia", "RUS"},
+            {"Czechoslovakia", "TCH"}, {"Romania", "ROU"}, {"South Korea", "KOR"}, {"Brazil", "BRA"},
+            {"Belgium", "BEL"}, {"Denmark", "DEN"}, {"Soviet Union", "URS"}, {"Bulgaria", "BUL"},
+            {"Argentina", "ARG"}, {"Mexico", "MEX"}, {"Greece", "GRE"}, {"New Zealand", "NZL"}, {"Ukraine", "UKR"},
+            {"Cuba", "CUB"}, {"India", "IND"}, {"Kenya", "KEN"}, {"Portugal", "POR"}, {"Ireland", "IRL"},
+            {"Turkey", "TUR"}, {"Egypt", "EGY"}, {"South Africa", "RSA"}, {"Morocco", "MAR"}, {"Colombia", "COL"},
+            {"Jamaica", "JAM"}, {"Ethiopia", "ETH"}, {"Nigeria", "NGR"}, {"Chile", "CHI"}, {"Iran", "IRI"},
+            {"Croatia", "CRO"}, {"Slovenia", "SLO"}, {"Estonia", "EST"}};
+    private static final String[] NOMBRES_HOMBRE = {"John", "Michael", "Jean", "Giovanni", "Hans", "José",
+            "Ivan", "Kenji", "Lars", "Ahmed", "Carlos", "Pierre", "Aleksandr", "Wei", "Juan", "Mikel", "Paul",
+            "Thomas", "Andrea", "Erik", "David", "Luis", "Sergey", "Peter", "Jan", "Daniel", "Marco", "Li", "Jos", "Iker"};
+    private static final String[] NOMBRES_MUJER = {"Mary", "Anna", "Marie", "Giulia", "Ingrid", "María",
+            "Olga", "Yuki", "Karin", "Fatima", "Laura", "Sophie", "Yelena", "Mei", "Elena", "Ainhoa", "Sarah",
+            "Emma", "Francesca", "Lena", "Ana", "Natalia", "Irina", "Jennifer", "Eva", "Julia", "Katarina", "Lin"};
+    private static final String[] APELLIDOS = {"Smith", "Johnson", "Martin", "Rossi", "Müller", "García",
+            "Ivanov", "Sato", "Andersson", "Hassan", "Fernández", "Dubois", "Petrov", "Wang", "López",
+            "Etxeberria", "Brown", "Schmidt", "Bianchi", "Nielsen", "Kowalski", "Nagy", "Silva", "Kim", "Zhang",
+            "Jansen", "Novak", "Horvat", "Popescu", "Papadopoulos", "Murphy", "Virtanen", "Hansen", "O'Brien",
+            "van der Berg", "De Vries", "González", "Ruiz", "Yamamoto", "Tanaka", "Olsen", "Moreau", "Costa"};
+    private static final String[] MEDALLAS = {"Gold", "Silver", "Bronze"};
+    private static final int ANCHO_FOTO = 180;
+    private static final int ALTO_FOTO = 240;
+
+    /**
+     * Número de filas de cada tabla para un número de participaciones
+     *
+     * @param participaciones número de participaciones
+     * @param deportistas     número de deportistas (unas dos participaciones por deportista)
+     * @param eventos         número de eventos (unas 45 participaciones por evento)
+     * @param equipos         número de equipos
+     */
+    public record Escala(long participaciones, int deportistas, int eventos, int equipos) {
+        /**
+         * @param participaciones número de participaciones, al menos 1
+         * @return escala con las proporciones del histórico
+         */
+        public static Escala de(long participaciones) {
+            if (participaciones < 1 || participaciones > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Número de participaciones fuera de rango: " + participaciones);
+            }
+            return new Escala(participaciones,
+                    (int) Math.max(1, participaciones / 2),
+                    (int) Math.max(10, participaciones / 45), // al menos tantos como participaciones por deportista
+                    (int) Math.min(1200, Math.max(20, participaciones / 230)));
+        }
+
+        public int deportes() {
+            return DEPORTES_VERANO.length + DEPORTES_INVIERNO.length;
+        }
+
+        public int olimpiadas() {
+            return OLIMPIADAS.length;
+        }
+    }
+
+    /**
+     * Resumen de una generación
+     *
+     * @param escala       filas de cada tabla
+     * @param fotos        si los deportistas llevan foto
+     * @param milisegundos duración total
+     */
+    public record Resultado(Escala escala, boolean fotos, long milisegundos) {
+        /**
+         * @return participaciones generadas por segundo
+         */
+        public double filasPorSegundo() {
+            return milisegundos == 0 ? escala.participaciones() : escala.participaciones() * 1000.0 / milisegundos;
+        }
+    }
+
+    private final Escala escala;
+    private final long semilla;
+    private final boolean fotos;
+
+    private GeneradorSintetico(Escala escala, long semilla, boolean fotos) {
+        this.escala = escala;
+        this.semilla = semilla;
+        this.fotos = fotos;
+    }
+
+    /**
+     * Genera los datos y los inserta con los DAO, por partes de importacion.transaccion filas (lote.filas si hay
+     * fotos). Los ids los asigna la base de datos, así que puede tener ya otras filas.
+     * Hace consultas, así que se llama fuera del hilo de JavaFX.
+     *
+     * @param participaciones número de participaciones
+     * @param semilla         semilla de la generación
+     * @param fotos           si los deportistas llevan foto
+     * @return resumen de la generación
+     * @throws SQLException si falla alguna inserción; las partes ya insertadas quedan guardadas
+     */
+    public static Resultado aBaseDeDatos(long participaciones, long semilla, boolean fotos) throws SQLException {
+        if (Transaccion.activa()) {
+            throw new SQLException("La generación confirma sus propias transacciones y no puede ir dentro de otra");
+        }
+        GeneradorSintetico generador = new GeneradorSintetico(Escala.de(participaciones), semilla, fotos);
+        long inicio = System.nanoTime();
+        generador.insertar();
+        return new Resultado(generador.escala, fotos, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Genera los datos en ficheros separados por tabuladores (latin1, \N para los nulos y las fotos en hexadecimal),
+     * uno por tabla, y un cargar.sql con las sentencias LOAD DATA LOCAL INFILE en el orden de las claves ajenas.
+     * Los ids empiezan en 1, así que las tablas tienen que estar vacías al cargarlos.
+     *
+     * @param participaciones número de participaciones
+     * @param semilla         semilla de la generación
+     * @param fotos           si los deportistas llevan foto
+     * @param directorio      directorio de los ficheros, que se crea si no existe
+     * @return resumen de la generación
+     * @throws IOException si no se pueden escribir los ficheros
+     */
+    public static Resultado aFicheros(long participaciones, long semilla, boolean fotos, Path directorio) throws IOException {
+        GeneradorSintetico generador = new GeneradorSintetico(Escala.de(participaciones), semilla, fotos);
+        long inicio = System.nanoTime();
+        Files.createDirectories(directorio);
+        generador.escribir(directorio);
+        return new Resultado(generador.escala, fotos, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Genera los datos indicados en los argumentos e informa de las filas por segundo
+     *
+     * @param args participaciones [--semilla n] [--fotos] [--ficheros directorio]
+     */
+    public static void main(String[] args) {
+        long participaciones;
+        long semilla = 42;
+        boolean fotos = false;
+        Path directorio = null;
+        try {
+            participaciones = Long.parseLong(args[0]);
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--semilla" -> semilla = Long.parseLong(args[++i]);
+                    case "--fotos" -> fotos = true;
+                    case "--ficheros" -> directorio = Path.of(args[++i]);
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Uso: GeneradorSintetico participaciones [--semilla n] [--fotos] [--ficheros directorio]");
+            return;
+        }
+        try {
+            Resultado resultado = directorio == null
+                    ? aBaseDeDatos(participaciones, semilla, fotos)
+                    : aFicheros(participaciones, semilla, fotos, directorio);
+            Escala escala = resultado.escala();
+            System.out.printf("%d participaciones en %.1f s (%.0f filas/s): %d deportistas, %d equipos, %d olimpiadas, %d deportes, %d eventos%n",
+                    escala.participaciones(), resultado.milisegundos() / 1000.0, resultado.filasPorSegundo(),
+                    escala.deportistas(), escala.equipos(), escala.olimpiadas(), escala.deportes(), escala.eventos());
+        } catch (IOException | SQLException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        } finally {
+            ConnectionPool.shutdownInstance();
+        }
+    }
+
+    // --- Filas. Los ids son la posición + 1; al insertar con los DAO se cambian por los que asigna la base de datos.
+
+    private Deporte deporte(int i) {
+        String nombre = i < DEPORTES_VERANO.length ? DEPORTES_VERANO[i] : DEPORTES_INVIERNO[i - DEPORTES_VERANO.length];
+        return new Deporte(i + 1, nombre);
+    }
+
+    private Olimpiada olimpiada(int i) {
+        String[] datos = OLIMPIADAS[i];
+        return new Olimpiada(i + 1, datos[0] + " " + datos[1], Integer.parseInt(datos[0]), datos[1], datos[2]);
+    }
+
+    private Equipo equipo(int i) {
+        String[] pais = PAISES[i % PAISES.length];
+        int vuelta = i / PAISES.length;
+        return new Equipo(i + 1, vuelta == 0 ? pais[0] : pais[0] + "-" + vuelta, pais[1]);
+    }
+
+    private Evento evento(int i) {
+        SplittableRandom r = aleatorio(1, i);
+        // Las olimpiadas recientes tienen más eventos
+        int o = Math.max(r.nextInt(OLIMPIADAS.length), r.nextInt(OLIMPIADAS.length));
+        boolean invierno = "Winter".equals(OLIMPIADAS[o][1]);
+        int d = invierno
+                ? DEPORTES_VERANO.length + r.nextInt(DEPORTES_INVIERNO.length)
+                : r.nextInt(DEPORTES_VERANO.length);
+        Deporte deporte = deporte(d);
+        String categoria = switch (r.nextInt(5)) {
+            case 0, 1 -> "Men's";
+            case 2, 3 -> "Women's";
+            default -> "Mixed";
+        };
+        String nombre = deporte.getNombre() + " " + categoria + " " + PRUEBAS[r.nextInt(PRUEBAS.length)];
+        return new Evento(i + 1, nombre, olimpiada(o), deporte);
+    }
+
+    private Deportista deportista(int i) {
+        SplittableRandom r = aleatorio(2, i);
+        boolean hombre = r.nextInt(100) < 73;
+        String nombre = (hombre ? NOMBRES_HOMBRE[r.nextInt(NOMBRES_HOMBRE.length)] : NOMBRES_MUJER[r.nextInt(NOMBRES_MUJER.length)])
+                + " " + APELLIDOS[r.nextInt(APELLIDOS.length)]
+                + (r.nextInt(3) == 0 ? " " + APELLIDOS[r.nextInt(APELLIDOS.length)] : "");
+        int altura = (int) Math.round(normal(r, hombre ? 179 : 168, hombre ? 10 : 9, 130, 225));
+        int peso = (int) Math.round(normal(r, hombre ? 75 : 60, hombre ? 12 : 9, 30, 180));
+        return new Deportista(i + 1, nombre, hombre ? 'M' : 'F', peso, altura);
+    }
+
+    /**
+     * Participación en la posición i: los deportistas se recorren en orden y cada vuelta pasa al evento siguiente,
+     * así que un deportista nunca repite evento mientras haya menos vueltas que eventos
+     */
+    private Participacion participacion(long i) {
+        int d = (int) (i % escala.deportistas());
+        int vuelta = (int) (i / escala.deportistas());
+        SplittableRandom r = aleatorio(5, d); // evento inicial, equipo y edad de cada deportista
+        int primerEvento = r.nextInt(escala.eventos());
+        int equipo = r.nextInt(escala.equipos());
+        int edad = (int) Math.round(normal(r, 25, 5, 12, 60)) + 4 * vuelta;
+        SplittableRandom m = aleatorio(3, i);
+        String medalla = m.nextInt(1000) < 146 ? MEDALLAS[m.nextInt(MEDALLAS.length)] : null;
+
+        Deportista deportista = new Deportista();
+        deportista.setId_deportista(d + 1);
+        Evento evento = new Evento();
+        evento.setId_evento((primerEvento + vuelta) % escala.eventos() + 1);
+        return new Participacion(deportista, evento, new Equipo(equipo + 1, null, null), Math.min(edad, 99), medalla);
+    }
+
+    /**
+     * Foto del deportista en la posición i: fondo degradado, una silueta y ruido para que no se comprima del todo
+     */
+    private byte[] foto(int i) {
+        SplittableRandom r = aleatorio(4, i);
+        int[] fondo = {r.nextInt(256), r.nextInt(256), r.nextInt(256)};
+        int[] silueta = {r.nextInt(128), r.nextInt(128), r.nextInt(128)};
+        int centro = ANCHO_FOTO / 2 + r.nextInt(-15, 16);
+        byte[] filas = new byte[ALTO_FOTO * (1 + 3 * ANCHO_FOTO)];
+        int p = 0;
+        for (int y = 0; y < ALTO_FOTO; y++) {
+            filas[p++] = 0; // sin filtro
+            for (int x = 0; x < ANCHO_FOTO; x++) {
+                int dx = x - centro;
+                int cabeza = (y - 80) * (y - 80) + dx * dx * 2;
+                boolean dentro = cabeza < 1600 || (y > 125 && Math.abs(dx) < (y - 125) * 0.8 + 30);
+                int ruido = r.nextInt(-12, 13);
+                for (int c = 0; c < 3; c++) {
+                    int valor = dentro ? silueta[c] : fondo[c] * (ALTO_FOTO - y / 2) / ALTO_FOTO;
+                    filas[p++] = (byte) Math.max(0, Math.min(255, valor + ruido));
+                }
+            }
+        }
+        return png(filas);
+    }
+
+    private SplittableRandom aleatorio(long tabla, long posicion) {
+        return new SplittableRandom(semilla * 0x9E3779B97F4A7C15L + tabla * 0xBF58476D1CE4E5B9L + posicion);
+    }
+
+    private static double normal(SplittableRandom r, double media, double desviacion, double minimo, double maximo) {
+        return Math.max(minimo, Math.min(maximo, r.nextGaussian(media, desviacion)));
+    }
+
+    private static byte[] png(byte[] filas) {
+        try {
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(filas.length / 2);
+            salida.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+            ByteArrayOutputStream cabecera = new ByteArrayOutputStream(13);
+            entero(cabecera, ANCHO_FOTO);
+            entero(cabecera, ALTO_FOTO);
+            cabecera.write(new byte[]{8, 2, 0, 0, 0}); // 8 bits, RGB, deflate, sin filtro, sin entrelazado
+            trozo(salida, "IHDR", cabecera.toByteArray());
+            ByteArrayOutputStream datos = new ByteArrayOutputStream(filas.length / 2);
+            try (DeflaterOutputStream deflate = new DeflaterOutputStream(datos, new Deflater(Deflater.BEST_SPEED))) {
+                deflate.write(filas);
+            }
+            trozo(salida, "IDAT", datos.toByteArray());
+            trozo(salida, "IEND", new byte[0]);
+            return salida.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // en memoria no puede fallar
+        }
+    }
+
+    private static void trozo(ByteArrayOutputStream salida, String tipo, byte[] datos) throws IOException {
+        byte[] bytesTipo = tipo.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(bytesTipo);
+        crc.update(datos);
+        entero(salida, datos.length);
+        salida.write(bytesTipo);
+        salida.write(datos);
+        entero(salida, (int) crc.getValue());
+    }
+
+    private static void entero(ByteArrayOutputStream salida, int valor) {
+        salida.write(valor >>> 24);
+        salida.write(valor >>> 16);
+        salida.write(valor >>> 8);
+        salida.write(valor);
+    }
+
+    // --- Escritura con los DAO
+
+    private void insertar() throws SQLException {
+        int parte = fotos
+                ? Math.max(1, DBConnect.getConfigurationInt("lote.filas", 1000))
+                : Math.max(1, DBConnect.getConfigurationInt("importacion.transaccion", 50000));
+
+        List<Deporte> deportes = new ArrayList<>();
+        for (int i = 0; i < escala.deportes(); i++) {
+            deportes.add(deporte(i));
+        }
+        int[] idsDeportes = comprobar(DaoDeporte.insertarTodos(deportes));
+
+        List<Olimpiada> olimpiadas = new ArrayList<>();
+        for (int i = 0; i < escala.olimpiadas(); i++) {
+            olimpiadas.add(olimpiada(i));
+        }
+        int[] idsOlimpiadas = comprobar(DaoOlimpiada.insertarTodos(olimpiadas));
+
+        List<Equipo> equipos = new ArrayList<>();
+        for (int i = 0; i < escala.equipos(); i++) {
+            equipos.add(equipo(i));
+        }
+        int[] idsEquipos = comprobar(DaoEquipo.insertarTodos(equipos));
+
+        int[] idsEventos = new int[escala.eventos()];
+        List<Evento> eventos = new ArrayList<>(Math.min(parte, idsEventos.length));
+        for (int i = 0; i < idsEventos.length; i++) {
+            Evento evento = evento(i);
+            evento.getOlimpiada().setId_olimpiada(idsOlimpiadas[evento.getOlimpiada().getId_olimpiada() - 1]);
+            evento.getDeporte().setId_deporte(idsDeportes[evento.getDeporte().getId_deporte() - 1]);
+            eventos.add(evento);
+            if (eventos.size() == parte || i == idsEventos.length - 1) {
+                System.arraycopy(comprobar(DaoEvento.insertarTodos(eventos)), 0, idsEventos, i + 1 - eventos.size(), eventos.size());
+                eventos.clear();
+            }
+        }
+
+        int[] idsDeportistas = new int[escala.deportistas()];
+        List<Deportista> deportistas = new ArrayList<>(Math.min(parte, idsDeportistas.length));
+        try (DBConnect db = fotos ? new DBConnect() : null) {
+            for (int i = 0; i < idsDeportistas.length; i++) {
+                Deportista deportista = deportista(i);
+                if (db != null) {
+                    Blob blob = db.getConnection().createBlob();
+                    blob.setBytes(1, foto(i));
+                    deportista.setFoto(blob);
+                }
+                deportistas.add(deportista);
+                if (deportistas.size() == parte || i == idsDeportistas.length - 1) {
+                    System.arraycopy(comprobar(DaoDeportista.insertarTodos(deportistas)), 0, idsDeportistas, i + 1 - deportistas.size(), deportistas.size());
+                    deportistas.clear();
+                }
+            }
+        }
+
+        List<Participacion> participaciones = new ArrayList<>((int) Math.min(parte, escala.participaciones()));
+        for (long i = 0; i < escala.participaciones(); i++) {
+            Participacion participacion = participacion(i);
+            participacion.getDeportista().setId_deportista(idsDeportistas[participacion.getDeportista().getId_deportista() - 1]);
+            participacion.getEvento().setId_evento(idsEventos[participacion.getEvento().getId_evento() - 1]);
+            participacion.getEquipo().setId_equipo(idsEquipos[participacion.getEquipo().getId_equipo() - 1]);
+            participaciones.add(participacion);
+            if (participaciones.size() == parte || i == escala.participaciones() - 1) {
+                if (!DaoParticipacion.insertarTodos(participaciones)) {
+                    throw new SQLException("No se han podido insertar las participaciones sintéticas");
+                }
+                participaciones.clear();
+            }
+        }
+    }
+
+    private static int[] comprobar(int[] ids) throws SQLException {
+        if (ids.length > 0 && ids[0] == -1) {
+            throw new SQLException("No se han podido insertar los datos sintéticos");
+        }
+        return ids;
+    }
+
+    // --- Escritura a ficheros
+
+    private void escribir(Path directorio) throws IOException {
+        try (Writer w = fichero(directorio, "deporte.tsv")) {
+            for (int i = 0; i < escala.deportes(); i++) {
+                Deporte d = deporte(i);
+                linea(w, d.getId_deporte(), d.getNombre());
+            }
+        }
+        try (Writer w = fichero(directorio, "olimpiada.tsv")) {
+            for (int i = 0; i < escala.olimpiadas(); i++) {
+                Olimpiada o = olimpiada(i);
+                linea(w, o.getId_olimpiada(), o.getNombre(), o.getAnio(), o.getTemporada(), o.getCiudad());
+            }
+        }
+        try (Writer w = fichero(directorio, "equipo.tsv")) {
+            for (int i = 0; i < escala.equipos(); i++) {
+                Equipo e = equipo(i);
+                linea(w, e.getId_equipo(), e.getNombre(), e.getIniciales());
+            }
+        }
+        try (Writer w = fichero(directorio, "evento.tsv")) {
+            for (int i = 0; i < escala.eventos(); i++) {
+                Evento e = evento(i);
+                linea(w, e.getId_evento(), e.getNombre(), e.getOlimpiada().getId_olimpiada(), e.getDeporte().getId_deporte());
+            }
+        }
+        HexFormat hex = HexFormat.of();
+        try (Writer w = fichero(directorio, "deportista.tsv")) {
+            for (int i = 0; i < escala.deportistas(); i++) {
+                Deportista d = deportista(i);
+                linea(w, d.getId_deportista(), d.getNombre(), d.getSexo(), d.getPeso(), d.getAltura(),
+                        fotos ? hex.formatHex(foto(i)) : null);
+            }
+        }
+        try (Writer w = fichero(directorio, "participacion.tsv")) {
+            for (long i = 0; i < escala.participaciones(); i++) {
+                Participacion p = participacion(i);
+                linea(w, p.getDeportista().getId_deportista(), p.getEvento().getId_evento(),
+                        p.getEquipo().getId_equipo(), p.getEdad(), p.getMedalla());
+            }
+        }
+        String ruta = directorio.toAbsolutePath().toString().replace('\\', '/') + "/";
+        try (Writer w = Files.newBufferedWriter(directorio.resolve("cargar.sql"), StandardCharsets.UTF_8)) {
+            w.write("-- Carga de los datos sintéticos en las tablas vacías: mysql --local-infile=1 olimpiadas < cargar.sql\n");
+            w.write("SET FOREIGN_KEY_CHECKS = 0;\nSET UNIQUE_CHECKS = 0;\n");
+            cargar(w, ruta, "deporte.tsv", "Deporte", "(id_deporte, nombre)");
+            cargar(w, ruta, "olimpiada.tsv", "Olimpiada", "(id_olimpiada, nombre, anio, temporada, ciudad)");
+            cargar(w, ruta, "equipo.tsv", "Equipo", "(id_equipo, nombre, iniciales)");
+            cargar(w, ruta, "evento.tsv", "Evento", "(id_evento, nombre, id_olimpiada, id_deporte)");
+            cargar(w, ruta, "deportista.tsv", "Deportista", "(id_deportista, nombre, sexo, peso, altura, @foto) SET foto = UNHEX(@foto)");
+            cargar(w, ruta, "participacion.tsv", "Participacion", "(id_deportista, id_evento, id_equipo, edad, medalla)");
+            w.write("SET UNIQUE_CHECKS = 1;\nSET FOREIGN_KEY_CHECKS = 1;\n");
+        }
+    }
+
+    private static Writer fichero(Path directorio, String nombre) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(directorio.resolve(nombre), StandardCharsets.ISO_8859_1), 1 << 16);
+    }
+
+    private static void cargar(Writer w, String ruta, String fichero, String tabla, String columnas) throws IOException {
+        w.write("LOAD DATA LOCAL INFILE '" + (ruta + fichero).replace("'", "''") + "' INTO TABLE " + tabla +
+                " CHARACTER SET latin1 FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n' " + columnas + ";\n");
+    }
+
+    /**
+     * Escribe una línea con los valores separados por tabuladores; los nombres generados no llevan tabuladores,
+     * saltos de línea ni barras invertidas, así que solo hay que marcar los nulos
+     */
+    private static void linea(Writer w, Object... valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                w.write('\t');
+            }
+            w.write(valores[i] == null ? "\\N" : valores[i].toString());
+        }
+        w.write('\n');
+    }
+}
@@ -0,0 +1,504 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.ConnectionPool;
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.Transaccion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importador del histórico de 120 años de Juegos Olímpicos (athlete_events.csv), del que sale olimpiadas.sql.
+ * Lee el fichero una sola vez, línea a línea, y evita duplicar deportistas, equipos, olimpiadas, deportes y
+ * eventos con mapas de claves en memoria, que al empezar se rellenan con las filas que ya hay en la base de datos.
+ * Las seis tablas se escriben con lotes de JDBC (importacion.lote filas) dentro de transacciones grandes
+ * (importacion.transaccion filas del fichero).
+ *
+ * Los ids se asignan aquí a partir del máximo de cada tabla, así que no debe haber otras inserciones mientras dura
+ * la importación. Dentro del fichero los deportistas se identifican por la columna ID; la primera vez que aparece un ID
+ * se busca un deportista que ya esté en la base de datos con el mismo nombre y sexo, que se usa en lugar de crear otro.
+ * Los homónimos se emparejan por orden de id, de forma que importar dos veces el mismo fichero no duplica deportistas
+ * ni participaciones.
+ * Si la importación falla, se deshace la transacción en curso; las anteriores quedan guardadas.
+ */
+public final class ImportadorHistorico {
+    private static final String NA = "NA"; // valor nulo en el fichero
+
+    /**
+     * Resumen de una importación
+     *
+     * @param filas           filas leídas del fichero
+     * @param deportistas     deportistas nuevos
+     * @param equipos         equipos nuevos
+     * @param olimpiadas      olimpiadas nuevas
+     * @param deportes        deportes nuevos
+     * @param eventos         eventos nuevos
+     * @param participaciones participaciones nuevas
+     * @param milisegundos    duración total
+     */
+    public record Resultado(long filas, int deportistas, int equipos, int olimpiadas, int deportes, int eventos,
+                            long participaciones, long milisegundos) {
+        /**
+         * @return filas del fichero importadas por segundo
+         */
+        public double filasPorSegundo() {
+            return milisegundos == 0 ? filas : filas * 1000.0 / milisegundos;
+        }
+    }
+
+    private ImportadorHistorico() {
+    }
+
+    /**
+     * Importa un fichero con el formato de athlete_events.csv (cabecera con ID, Name, Sex, Age, Height, Weight,
+     * Team, NOC, Games, Year, Season, City, Sport, Event y Medal; NA para los valores nulos).
+     * Hace consultas, así que se llama fuera del hilo de JavaFX.
+     *
+     * @param csv fichero en UTF-8
+     * @return resumen de la importación
+     * @throws IOException  si no se puede leer el fichero o su formato no es el esperado
+     * @throws SQLException si falla la escritura en la base de datos
+     */
+    public static Resultado importar(Path csv) throws IOException, SQLException {
+        if (Transaccion.activa()) {
+            throw new SQLException("La importación confirma sus propias transacciones y no puede ir dentro de otra");
+        }
+        int lote = Math.max(1, DBConnect.getConfigurationInt("importacion.lote", 5000));
+        int porTransaccion = Math.max(lote, DBConnect.getConfigurationInt("importacion.transaccion", 50000));
+        long inicio = System.nanoTime();
+        try (DBConnect db = new DBConnect();
+             BufferedReader lector = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            Connection connection = db.getConnection();
+            Carga carga = new Carga(connection);
+            connection.setAutoCommit(false);
+            Throwable error = null; // el de la importación, para no taparlo con el de la limpieza
+            try {
+                carga.leerExistentes();
+                Columnas columnas = new Columnas(leerRegistro(lector, new ArrayList<>()));
+                List<String> campos = new ArrayList<>(columnas.total);
+                long filas = 0;
+                while (leerRegistro(lector, campos) != null) {
+                    if (campos.size() == 1 && campos.get(0).isEmpty()) {
+                        continue; // línea en blanco
+                    }
+                    if (campos.size() < columnas.total) {
+                        throw new IOException("Línea " + (filas + 2) + ": se esperaban " + columnas.total + " columnas y hay " + campos.size());
+                    }
+                    carga.fila(columnas, campos);
+                    filas++;
+                    if (carga.pendientes >= lote) {
+                        carga.volcar();
+                    }
+                    if (filas % porTransaccion == 0) {
+                        carga.volcar();
+                        connection.commit();
+                    }
+                }
+                carga.volcar();
+                connection.commit();
+                long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+                return new Resultado(filas, carga.nuevosDeportistas, carga.nuevosEquipos, carga.nuevasOlimpiadas,
+                        carga.nuevosDeportes, carga.nuevosEventos, carga.nuevasParticipaciones, milisegundos);
+            } catch (IOException | SQLException | RuntimeException e) {
+                error = e;
+                try {
+                    connection.rollback();
+                } catch (SQLException r) {
+                    e.addSuppressed(r); // que no se pierda el error original
+                }
+                throw e;
+            } finally {
+                SQLException limpieza = null;
+                try {
+                    carga.cerrar();
+                } catch (SQLException e) {
+                    limpieza = e;
+                }
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    if (limpieza == null) {
+                        limpieza = e;
+                    } else {
+                        limpieza.addSuppressed(e);
+                    }
+                }
+                if (limpieza != null) {
+                    if (error == null) {
+                        throw limpieza;
+                    }
+                    error.addSuppressed(limpieza);
+                }
+            }
+        } finally {
+            invalidarCaches();
+        }
+    }
+
+    /**
+     * Importa el fichero indicado como argumento e informa de las filas por segundo
+     *
+     * @param args ruta de athlete_events.csv
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Uso: ImportadorHistorico athlete_events.csv");
+            return;
+        }
+        try {
+            Resultado resultado = importar(Path.of(args[0]));
+            System.out.printf("%d filas en %.1f s (%.0f filas/s): %d deportistas, %d equipos, %d olimpiadas, %d deportes, %d eventos, %d participaciones%n",
+                    resultado.filas(), resultado.milisegundos() / 1000.0, resultado.filasPorSegundo(),
+                    resultado.deportistas(), resultado.equipos(), resultado.olimpiadas(), resultado.deportes(),
+                    resultado.eventos(), resultado.participaciones());
+        } catch (IOException | SQLException e) {
+            System.err.println(e.getMessage());
+        } finally {
+            ConnectionPool.shutdownInstance();
+        }
+    }
+
+    /**
+     * Las tablas han cambiado sin pasar por los DAO, así que se descartan sus datos en memoria
+     */
+    private static void invalidarCaches() {
+        DaoDeporte.invalidarCache();
+        DaoOlimpiada.invalidarCache();
+        DaoEquipo.invalidarCache();
+        DaoDeporte.invalidarEliminables();
+        DaoOlimpiada.invalidarEliminables();
+        DaoEquipo.invalidarEliminables();
+        DaoEvento.invalidarEliminables();
+        DaoDeportista.invalidarEliminables();
+    }
+
+    /**
+     * Posición de cada columna según la cabecera del fichero
+     */
+    private static final class Columnas {
+        final int total;
+        final int id, nombre, sexo, edad, altura, peso, equipo, noc, juegos, anio, temporada, ciudad, deporte, evento, medalla;
+
+        Columnas(List<String> cabecera) throws IOException {
+            if (cabecera == null) {
+                throw new IOException("El fichero está vacío");
+            }
+            if (!cabecera.isEmpty() && cabecera.get(0).startsWith("\uFEFF")) {
+                cabecera.set(0, cabecera.get(0).substring(1)); // marca de orden de bytes de UTF-8
+            }
+            total = cabecera.size();
+            id = posicion(cabecera, "ID");
+            nombre = posicion(cabecera, "Name");
+            sexo = posicion(cabecera, "Sex");
+            edad = posicion(cabecera, "Age");
+            altura = posicion(cabecera, "Height");
+            peso = posicion(cabecera, "Weight");
+            equipo = posicion(cabecera, "Team");
+            noc = posicion(cabecera, "NOC");
+            juegos = posicion(cabecera, "Games");
+            anio = posicion(cabecera, "Year");
+            temporada = posicion(cabecera, "Season");
+            ciudad = posicion(cabecera, "City");
+            deporte = posicion(cabecera, "Sport");
+            evento = posicion(cabecera, "Event");
+            medalla = posicion(cabecera, "Medal");
+        }
+
+        private static int posicion(List<String> cabecera, String columna) throws IOException {
+            int posicion = cabecera.indexOf(columna);
+            if (posicion < 0) {
+                throw new IOException("Falta la columna " + columna + " en la cabecera");
+            }
+            return posicion;
+        }
+    }
+
+    /**
+     * Estado de una importación: sentencias con sus lotes pendientes y mapas de claves a ids
+     */
+    private static final class Carga {
+        private final Connection connection;
+        private final PreparedStatement insDeporte;
+        private final PreparedStatement insOlimpiada;
+        private final PreparedStatement insEquipo;
+        private final PreparedStatement insDeportista;
+        private final PreparedStatement insEvento;
+        private final PreparedStatement insParticipacion;
+
+        private final Map<String, Integer> deportes = new HashMap<>(); // nombre -> id
+        private final Map<String, Integer> olimpiadas = new HashMap<>(); // nombre (Games) -> id
+        private final Map<String, Integer> equipos = new HashMap<>(); // nombre y NOC -> id
+        private final Map<String, Integer> eventos = new HashMap<>(); // nombre e id de olimpiada -> id
+        private final Map<String, Integer> deportistas = new HashMap<>(); // ID del fichero -> id
+        private final Map<String, ArrayDeque<Integer>> sinEmparejar = new HashMap<>(); // nombre y sexo -> ids existentes aún no usados
+        private final Set<Long> participaciones = new HashSet<>(); // id de deportista y de evento
+
+        private int ultimoDeporte, ultimaOlimpiada, ultimoEquipo, ultimoEvento, ultimoDeportista;
+        private int nuevosDeportes, nuevasOlimpiadas, nuevosEquipos, nuevosEventos, nuevosDeportistas;
+        private long nuevasParticipaciones;
+        private int pendientes; // filas añadidas a los lotes y aún no enviadas
+
+        Carga(Connection connection) throws SQLException {
+            this.connection = connection;
+            insDeporte = connection.prepareStatement("INSERT INTO Deporte (id_deporte, nombre) VALUES (?, ?)");
+            insOlimpiada = connection.prepareStatement("INSERT INTO Olimpiada (id_olimpiada, nombre, anio, temporada, ciudad) VALUES (?, ?, ?, ?, ?)");
+            insEquipo = connection.prepareStatement("INSERT INTO Equipo (id_equipo, nombre, iniciales) VALUES (?, ?, ?)");
+            insDeportista = connection.prepareStatement("INSERT INTO Deportista (id_deportista, nombre, sexo, peso, altura) VALUES (?, ?, ?, ?, ?)");
+            insEvento = connection.prepareStatement("INSERT INTO Evento (id_evento, nombre, id_olimpiada, id_deporte) VALUES (?, ?, ?, ?)");
+            insParticipacion = connection.prepareStatement("INSERT INTO Participacion (id_deportista, id_evento, id_equipo, edad, medalla) VALUES (?, ?, ?, ?, ?)");
+        }
+
+        /**
+         * Rellena los mapas con las filas existentes y lee el último id de cada tabla
+         */
+        void leerExistentes() throws SQLException {
+            try (PreparedStatement pstmt = connection.prepareStatement("SELECT id_deporte, nombre FROM Deporte");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    deportes.putIfAbsent(rs.getString(2), rs.getInt(1));
+                }
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement("SELECT id_olimpiada, nombre FROM Olimpiada");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    olimpiadas.putIfAbsent(rs.getString(2), rs.getInt(1));
+                }
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement("SELECT id_equipo, nombre, iniciales FROM Equipo");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    equipos.putIfAbsent(rs.getString(2) + '\u0000' + rs.getString(3), rs.getInt(1));
+                }
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement("SELECT id_evento, nombre, id_olimpiada FROM Evento");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    eventos.putIfAbsent(rs.getString(2) + '\u0000' + rs.getInt(3), rs.getInt(1));
+                }
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement("SELECT id_deportista, nombre, sexo FROM Deportista ORDER BY id_deportista");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sinEmparejar.computeIfAbsent(rs.getString(2) + '\u0000' + rs.getString(3), k -> new ArrayDeque<>()).add(rs.getInt(1));
+                }
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement("SELECT id_deportista, id_evento FROM Participacion");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    participaciones.add(((long) rs.getInt(1) << 32) | rs.getInt(2));
+                }
+            }
+            ultimoDeporte = maximo("SELECT MAX(id_deporte) FROM Deporte");
+            ultimaOlimpiada = maximo("SELECT MAX(id_olimpiada) FROM Olimpiada");
+            ultimoEquipo = maximo("SELECT MAX(id_equipo) FROM Equipo");
+            ultimoEvento = maximo("SELECT MAX(id_evento) FROM Evento");
+            ultimoDeportista = maximo("SELECT MAX(id_deportista) FROM Deportista");
+        }
+
+        private int maximo(String consulta) throws SQLException {
+            try (PreparedStatement pstmt = connection.prepareStatement(consulta);
+                 ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0; // MAX de una tabla vacía es NULL, que getInt lee como 0
+            }
+        }
+
+        /**
+         * Añade a los lotes una fila del fichero y las filas nuevas de las que depende
+         */
+        void fila(Columnas c, List<String> campos) throws SQLException {
+            String nombreDeporte = campos.get(c.deporte);
+            Integer idDeporte = deportes.get(nombreDeporte);
+            if (idDeporte == null) {
+                idDeporte = ++ultimoDeporte;
+                deportes.put(nombreDeporte, idDeporte);
+                insDeporte.setInt(1, idDeporte);
+                insDeporte.setString(2, nombreDeporte);
+                insDeporte.addBatch();
+                nuevosDeportes++;
+                pendientes++;
+            }
+
+            String juegos = campos.get(c.juegos);
+            Integer idOlimpiada = olimpiadas.get(juegos);
+            if (idOlimpiada == null) {
+                idOlimpiada = ++ultimaOlimpiada;
+                olimpiadas.put(juegos, idOlimpiada);
+                insOlimpiada.setInt(1, idOlimpiada);
+                insOlimpiada.setString(2, juegos);
+                insOlimpiada.setInt(3, Integer.parseInt(campos.get(c.anio)));
+                insOlimpiada.setString(4, campos.get(c.temporada));
+                insOlimpiada.setString(5, campos.get(c.ciudad)); // con varias sedes se queda la primera
+                insOlimpiada.addBatch();
+                nuevasOlimpiadas++;
+                pendientes++;
+            }
+
+            String nombreEquipo = campos.get(c.equipo);
+            String noc = campos.get(c.noc);
+            String claveEquipo = nombreEquipo + '\u0000' + noc;
+            Integer idEquipo = equipos.get(claveEquipo);
+            if (idEquipo == null) {
+                idEquipo = ++ultimoEquipo;
+                equipos.put(claveEquipo, idEquipo);
+                insEquipo.setInt(1, idEquipo);
+                insEquipo.setString(2, nombreEquipo);
+                insEquipo.setString(3, noc);
+                insEquipo.addBatch();
+                nuevosEquipos++;
+                pendientes++;
+            }
+
+            String idFichero = campos.get(c.id);
+            Integer idDeportista = deportistas.get(idFichero);
+            if (idDeportista == null) {
+                ArrayDeque<Integer> existentes = sinEmparejar.get(campos.get(c.nombre) + '\u0000' + campos.get(c.sexo));
+                idDeportista = existentes == null ? null : existentes.poll();
+            }
+            if (idDeportista != null) {
+                deportistas.putIfAbsent(idFichero, idDeportista);
+            } else {
+                idDeportista = ++ultimoDeportista;
+                deportistas.put(idFichero, idDeportista);
+                insDeportista.setInt(1, idDeportista);
+                insDeportista.setString(2, campos.get(c.nombre));
+                insDeportista.setString(3, campos.get(c.sexo));
+                entero(insDeportista, 4, campos.get(c.peso));
+                entero(insDeportista, 5, campos.get(c.altura));
+                insDeportista.addBatch();
+                nuevosDeportistas++;
+                pendientes++;
+            }
+
+            String nombreEvento = campos.get(c.evento);
+            String claveEvento = nombreEvento + '\u0000' + idOlimpiada;
+            Integer idEvento = eventos.get(claveEvento);
+            if (idEvento == null) {
+                idEvento = ++ultimoEvento;
+                eventos.put(claveEvento, idEvento);
+                insEvento.setInt(1, idEvento);
+                insEvento.setString(2, nombreEvento);
+                insEvento.setInt(3, idOlimpiada);
+                insEvento.setInt(4, idDeporte);
+                insEvento.addBatch();
+                nuevosEventos++;
+                pendientes++;
+            }
+
+            if (participaciones.add(((long) idDeportista << 32) | idEvento)) { // la clave primaria no admite repetidos
+                insParticipacion.setInt(1, idDeportista);
+                insParticipacion.setInt(2, idEvento);
+                insParticipacion.setInt(3, idEquipo);
+                entero(insParticipacion, 4, campos.get(c.edad));
+                String medalla = campos.get(c.medalla);
+                insParticipacion.setString(5, NA.equals(medalla) || medalla.isEmpty() ? null : medalla);
+                insParticipacion.addBatch();
+                nuevasParticipaciones++;
+                pendientes++;
+            }
+        }
+
+        /**
+         * Envía los lotes pendientes, primero las tablas a las que apuntan las claves ajenas
+         */
+        void volcar() throws SQLException {
+            if (pendientes == 0) {
+                return;
+            }
+            insDeporte.executeBatch();
+            insOlimpiada.executeBatch();
+            insEquipo.executeBatch();
+            insDeportista.executeBatch();
+            insEvento.executeBatch();
+            insParticipacion.executeBatch();
+            pendientes = 0;
+        }
+
+        void cerrar() throws SQLException {
+            insDeporte.close();
+            insOlimpiada.close();
+            insEquipo.close();
+            insDeportista.close();
+            insEvento.close();
+            insParticipacion.close();
+        }
+
+        /**
+         * Asigna un entero que puede ser NA o tener decimales (los pesos vienen como 60.5)
+         */
+        private static void entero(PreparedStatement pstmt, int posicion, String valor) throws SQLException {
+            if (valor.isEmpty() || NA.equals(valor)) {
+                pstmt.setNull(posicion, Types.INTEGER);
+            } else {
+                pstmt.setInt(posicion, (int) Math.round(Double.parseDouble(valor)));
+            }
+        }
+    }
+
+    /**
+     * Lee un registro CSV (RFC 4180): separador coma, comillas dobles opcionales y "" para una comilla dentro de un
+     * campo entrecomillado, que puede ocupar varias líneas.
+     *
+     * @param lector fichero
+     * @param campos lista que se vacía y se rellena con los campos
+     * @return la misma lista, o null al final del fichero
+     */
+    private static List<String> leerRegistro(BufferedReader lector, List<String> campos) throws IOException {
+        String linea = lector.readLine();
+        if (linea == null) {
+            return null;
+        }
+        campos.clear();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        int i = 0;
+        while (true) {
+            if (i == linea.length()) {
+                if (!entreComillas) {
+                    break;
+                }
+                linea = lector.readLine(); // el campo sigue en la línea siguiente
+                if (linea == null) {
+                    throw new IOException("Comillas sin cerrar al final del fichero");
+                }
+                campo.append('\n');
+                i = 0;
+                continue;
+            }
+            char ch = linea.charAt(i++);
+            if (entreComillas) {
+                if (ch != '"') {
+                    campo.append(ch);
+                } else if (i < linea.length() && linea.charAt(i) == '"') {
+                    campo.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (ch == '"') {
+                entreComillas = true;
+            } else if (ch == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(ch);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+}
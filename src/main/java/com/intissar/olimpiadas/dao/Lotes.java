@@ -0,0 +1,182 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.db.Transaccion;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Operaciones en lote de los DAO (insertarTodos, modificarTodos y eliminarTodos).
+ * Las filas se añaden con addBatch y se envían con executeBatch en tandas de lote.filas, todo dentro de una
+ * sola transacción (la del hilo, si hay una Transaccion abierta): o se escriben todas o no se escribe ninguna.
+ */
+final class Lotes {
+    /**
+     * Asigna los parámetros de la sentencia para una fila
+     */
+    @FunctionalInterface
+    interface Asignar<T> {
+        void asignar(PreparedStatement pstmt, T fila) throws SQLException;
+    }
+
+    /**
+     * Asigna los parámetros de la sentencia para cambiar una fila por su nueva versión
+     */
+    @FunctionalInterface
+    interface AsignarCambio<T> {
+        void asignar(PreparedStatement pstmt, T actual, T nuevo) throws SQLException;
+    }
+
+    /**
+     * Trabajo que se hace con la conexión de una transacción
+     */
+    @FunctionalInterface
+    interface Trabajo<R> {
+        R ejecutar(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface AsignarPosicion {
+        void asignar(PreparedStatement pstmt, int posicion) throws SQLException;
+    }
+
+    private Lotes() {
+    }
+
+    /**
+     * Ejecuta un trabajo en una transacción: se confirma si termina y se deshace si lanza una excepción.
+     * Si el hilo ya tiene una Transaccion abierta, el trabajo forma parte de ella.
+     *
+     * @param trabajo operaciones sobre la conexión
+     * @param <R>     tipo del resultado
+     * @return resultado del trabajo
+     * @throws SQLException si falla el trabajo o la confirmación
+     */
+    static <R> R enTransaccion(Trabajo<R> trabajo) throws SQLException {
+        try (Transaccion transaccion = Transaccion.iniciar();
+             DBConnect db = new DBConnect()) {
+            R resultado = trabajo.ejecutar(db.getConnection());
+            transaccion.confirmar();
+            return resultado;
+        }
+    }
+
+    /**
+     * Inserta las filas en lotes y lee las claves generadas
+     *
+     * @return ids generados, en el orden de las filas
+     * @throws SQLException si falla una inserción o no se generan todas las claves
+     */
+    static <T> int[] insertar(Connection connection, String consulta, List<? extends T> filas, Asignar<? super T> asignar) throws SQLException {
+        int[] ids = new int[filas.size()];
+        int tamanio = tamanio();
+        try (PreparedStatement pstmt = connection.prepareStatement(consulta, Statement.RETURN_GENERATED_KEYS)) {
+            int leidos = 0;
+            int enLote = 0;
+            for (T fila : filas) {
+                asignar.asignar(pstmt, fila);
+                pstmt.addBatch();
+                if (++enLote == tamanio) {
+                    leidos = enviarConClaves(pstmt, ids, leidos);
+                    enLote = 0;
+                }
+            }
+            if (enLote > 0) {
+                leidos = enviarConClaves(pstmt, ids, leidos);
+            }
+            if (leidos != ids.length) {
+                throw new SQLException("Se esperaban " + ids.length + " claves generadas y se han leído " + leidos);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Ejecuta la sentencia una vez por fila, en lotes
+     *
+     * @throws SQLException si falla una sentencia o alguna fila no existe
+     */
+    static <T> void ejecutar(Connection connection, String consulta, List<? extends T> filas, Asignar<? super T> asignar) throws SQLException {
+        ejecutar(connection, consulta, filas.size(), (pstmt, i) -> asignar.asignar(pstmt, filas.get(i)));
+    }
+
+    /**
+     * Ejecuta la sentencia una vez por cada par de filas actual y nueva, en lotes
+     *
+     * @throws SQLException si falla una sentencia o alguna fila no existe
+     */
+    static <T> void modificar(Connection connection, String consulta, List<? extends T> actuales, List<? extends T> nuevos,
+                              AsignarCambio<? super T> asignar) throws SQLException {
+        ejecutar(connection, consulta, actuales.size(), (pstmt, i) -> asignar.asignar(pstmt, actuales.get(i), nuevos.get(i)));
+    }
+
+    /**
+     * Comprueba que las dos listas de modificarTodos se corresponden
+     *
+     * @throws IllegalArgumentException si no tienen el mismo tamaño
+     */
+    static void comprobarPares(List<?> actuales, List<?> nuevos) {
+        if (actuales.size() != nuevos.size()) {
+            throw new IllegalArgumentException("Hay " + actuales.size() + " filas actuales y " + nuevos.size() + " nuevas");
+        }
+    }
+
+    /**
+     * @param filas número de filas
+     * @return ids de una inserción fallida: -1 en todas las posiciones
+     */
+    static int[] fallo(int filas) {
+        int[] ids = new int[filas];
+        Arrays.fill(ids, -1);
+        return ids;
+    }
+
+    private static void ejecutar(Connection connection, String consulta, int filas, AsignarPosicion asignar) throws SQLException {
+        int tamanio = tamanio();
+        try (PreparedStatement pstmt = connection.prepareStatement(consulta)) {
+            int enLote = 0;
+            for (int i = 0; i < filas; i++) {
+                asignar.asignar(pstmt, i);
+                pstmt.addBatch();
+                if (++enLote == tamanio) {
+                    comprobar(pstmt.executeBatch());
+                    enLote = 0;
+                }
+            }
+            if (enLote > 0) {
+                comprobar(pstmt.executeBatch());
+            }
+        }
+    }
+
+    private static int enviarConClaves(PreparedStatement pstmt, int[] ids, int leidos) throws SQLException {
+        comprobar(pstmt.executeBatch());
+        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+            while (leidos < ids.length && rs.next()) {
+                ids[leidos++] = rs.getInt(1);
+            }
+        }
+        return leidos;
+    }
+
+    /**
+     * Una sentencia que no ha afectado a ninguna fila hace fallar el lote, para deshacer la transacción entera
+     */
+    private static void comprobar(int[] cuentas) throws SQLException {
+        for (int cuenta : cuentas) {
+            if (cuenta == 0) {
+                throw new SQLException("Una de las filas del lote no existe");
+            }
+        }
+    }
+
+    private static int tamanio() {
+        return Math.max(1, DBConnect.getConfigurationInt("lote.filas", 1000));
+    }
+}
@@ -0,0 +1,69 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.DBConnect;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mapa de identidad de una entidad: guarda la instancia canónica de cada id para que todas las cargas (listados,
+ * páginas, flujos y las tablas que la referencian) compartan el mismo objeto en vez de crear uno por consulta.
+ * Si una fila leída ya no coincide con la instancia guardada (otro usuario la ha modificado), la leída pasa a ser
+ * la canónica. Tiene un tamaño máximo y, al superarlo, descarta las entradas usadas hace más tiempo.
+ * Es segura entre hilos.
+ *
+ * @param <T> tipo de la entidad
+ */
+final class MapaIdentidad<T> {
+    /**
+     * Compara todos los datos de dos instancias con el mismo id
+     */
+    @FunctionalInterface
+    interface MismosDatos<T> {
+        boolean iguales(T guardada, T leida);
+    }
+
+    private final MismosDatos<T> mismosDatos;
+    private final Map<Integer, T> entidades;
+
+    /**
+     * @param clave       clave de configuration.properties con el número máximo de entidades
+     * @param porDefecto  máximo si la clave no está configurada
+     * @param mismosDatos comparación de los datos de dos instancias
+     */
+    MapaIdentidad(String clave, int porDefecto, MismosDatos<T> mismosDatos) {
+        this.mismosDatos = mismosDatos;
+        int capacidad = Math.max(1, DBConnect.getConfigurationInt(clave, porDefecto));
+        this.entidades = new LinkedHashMap<>(16, 0.75f, true) { // en orden de acceso
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                return size() > capacidad;
+            }
+        };
+    }
+
+    /**
+     * Devuelve la instancia canónica de una fila recién leída
+     *
+     * @param id    id de la fila
+     * @param leida instancia creada a partir de la fila
+     * @return la instancia guardada si tiene los mismos datos; si no, la leída, que pasa a ser la canónica
+     */
+    synchronized T canonica(int id, T leida) {
+        T guardada = entidades.get(id);
+        if (guardada != null && mismosDatos.iguales(guardada, leida)) {
+            return guardada;
+        }
+        entidades.put(id, leida);
+        return leida;
+    }
+
+    /**
+     * Olvida la instancia de un id, por ejemplo al eliminar su fila
+     *
+     * @param id id de la fila
+     */
+    synchronized void quitar(int id) {
+        entidades.remove(id);
+    }
+}
@@ -0,0 +1,72 @@
+package com.intissar.olimpiadas.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Crea objetos de una entidad a partir de las filas de una consulta, leyendo las columnas por posición.
+ * Las posiciones se buscan por nombre la primera vez que se lee una fila y se reutilizan en todas las
+ * demás ejecuciones, así que cada mapeador se usa solo con consultas que tienen la misma lista de columnas
+ * en el SELECT (el WHERE, ORDER BY y LIMIT pueden cambiar). Es seguro entre hilos.
+ *
+ * @param <T> tipo de los objetos
+ */
+final class Mapeador<T> implements Flujos.Leer<T> {
+    /**
+     * Crea un objeto a partir de la fila actual
+     */
+    @FunctionalInterface
+    interface Crear<T> {
+        /**
+         * @param rs       resultado posicionado en la fila
+         * @param columnas posiciones de las columnas, en el orden en que se pasaron al mapeador
+         */
+        T crear(ResultSet rs, int[] columnas) throws SQLException;
+    }
+
+    private final Columnas columnas;
+    private final Crear<T> crear;
+
+    /**
+     * @param crear    crea el objeto a partir de las posiciones de sus columnas
+     * @param nombres  etiquetas de las columnas que lee crear
+     */
+    Mapeador(Crear<T> crear, String... nombres) {
+        this.columnas = new Columnas(nombres);
+        this.crear = crear;
+    }
+
+    @Override
+    public T leer(ResultSet rs) throws SQLException {
+        return crear.crear(rs, columnas.en(rs));
+    }
+
+    /**
+     * Posiciones de unas columnas por su etiqueta, buscadas una sola vez
+     */
+    static final class Columnas {
+        private final String[] nombres;
+        private volatile int[] posiciones; // null hasta la primera fila
+
+        Columnas(String... nombres) {
+            this.nombres = nombres.clone();
+        }
+
+        /**
+         * @param rs resultado de una consulta con estas columnas
+         * @return posición de cada columna, en el orden de los nombres
+         * @throws SQLException si alguna columna no está en el resultado
+         */
+        int[] en(ResultSet rs) throws SQLException {
+            int[] resueltas = posiciones;
+            if (resueltas == null) {
+                resueltas = new int[nombres.length];
+                for (int i = 0; i < nombres.length; i++) {
+                    resueltas[i] = rs.findColumn(nombres[i]);
+                }
+                posiciones = resueltas; // Si dos hilos las buscan a la vez, las dos versiones son iguales
+            }
+            return resueltas;
+        }
+    }
+}
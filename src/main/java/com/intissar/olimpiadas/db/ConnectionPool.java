@@ -0,0 +1,355 @@
+package com.intissar.olimpiadas.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de conexiones acotado y seguro entre hilos.
+ * Todas las instancias de DBConnect piden prestada una conexión de este pool y la devuelven al cerrarse,
+ * de forma que la sesión con MySQL se abre una sola vez y se reutiliza entre llamadas a los DAO.
+ *
+ * Se configura desde configuration.properties con las claves pool.min, pool.max, pool.idle_timeout,
+ * pool.borrow_timeout, pool.validation_timeout y pool.sentencias.
+ *
+ * Con motor=h2 las conexiones son a una base de datos H2 embebida (en el fichero h2.ruta, o solo en memoria con
+ * h2.ruta=mem) en modo MySQL, a la que se aplica el esquema de olimpiadas.sql la primera vez.
+ *
+ * Cada conexión guarda sus sentencias preparadas en el servidor (cachePrepStmts de Connector/J): cerrar un
+ * PreparedStatement lo devuelve a la caché de su conexión, y volver a preparar el mismo SQL en esa conexión
+ * no lo analiza de nuevo. Como las conexiones del pool se reutilizan, los DAO preparan cada consulta una vez
+ * por conexión aunque la escriban en cada llamada.
+ */
+public final class ConnectionPool {
+    private static ConnectionPool instance;
+
+    private final String url;
+    private final boolean embebida; // H2 en el mismo proceso en lugar de un servidor MySQL
+    private final Properties connConfig;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeout; // ms que una conexión puede estar ociosa antes de cerrarse
+    private final long borrowTimeout; // ms que se espera a que haya una conexión libre
+    private final int validationTimeout; // segundos para Connection.isValid
+
+    private final Deque<ConexionOciosa> ociosas = new ArrayDeque<>(); // protegido por this
+    private final Semaphore permisos; // limita las conexiones prestadas a maxSize
+    private final ScheduledExecutorService limpiador;
+    private int total; // conexiones físicas abiertas, protegido por this
+    private volatile boolean cerrado;
+
+    /**
+     * Conexión física devuelta al pool junto con el instante en que quedó ociosa
+     */
+    private record ConexionOciosa(Connection connection, long desde) {}
+
+    /**
+     * Constructor del pool a partir de la configuración
+     *
+     * @param configuracion propiedades de configuration.properties
+     */
+    private ConnectionPool(Properties configuracion) {
+        connConfig = new Properties();
+        connConfig.setProperty("user", configuracion.getProperty("user"));
+        connConfig.setProperty("password", configuracion.getProperty("password"));
+        embebida = DBConnect.esEmbebida(configuracion);
+        if (embebida) {
+            String ruta = configuracion.getProperty("h2.ruta", "mem").trim();
+            url = (ruta.equals("mem") ? "jdbc:h2:mem:olimpiadas;DB_CLOSE_DELAY=-1" : "jdbc:h2:file:" + ruta) +
+                    ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE" +
+                    ";IGNORECASE=TRUE"; // como la intercalación latin1_spanish_ci de MySQL, los LIKE no distinguen mayúsculas
+        } else {
+            int sentencias = DBConnect.getConfigurationInt(configuracion, "pool.sentencias", 250);
+            url = "jdbc:mysql://" + configuracion.getProperty("address") + ":" +
+                    configuracion.getProperty("port") + "/" +
+                    configuracion.getProperty("database") +
+                    "?serverTimezone=Europe/Madrid" +
+                    "&rewriteBatchedStatements=true" + // los lotes se envían como INSERT de varias filas
+                    (sentencias > 0
+                            ? "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=" + sentencias +
+                              "&prepStmtCacheSqlLimit=4096" // las consultas con JOIN y filtros superan el límite por defecto
+                            : "");
+        }
+
+        int max = Math.max(1, DBConnect.getConfigurationInt(configuracion, "pool.max", 10));
+        maxSize = max;
+        minSize = Math.min(max, Math.max(0, DBConnect.getConfigurationInt(configuracion, "pool.min", 2)));
+        idleTimeout = DBConnect.getConfigurationInt(configuracion, "pool.idle_timeout", 300000);
+        borrowTimeout = DBConnect.getConfigurationInt(configuracion, "pool.borrow_timeout", 30000);
+        validationTimeout = DBConnect.getConfigurationInt(configuracion, "pool.validation_timeout", 2);
+        permisos = new Semaphore(maxSize, true);
+
+        limpiador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "olimpiadas-pool-limpiador");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000, idleTimeout / 2);
+        limpiador.scheduleWithFixedDelay(this::limpiar, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Devuelve el pool de la aplicación, creándolo y abriendo las conexiones mínimas la primera vez
+     *
+     * @return pool de conexiones
+     * @throws SQLException si no se puede abrir la primera conexión
+     */
+    public static synchronized ConnectionPool getInstance() throws SQLException {
+        if (instance == null || instance.cerrado) {
+            ConnectionPool pool = new ConnectionPool(DBConnect.getConfiguration());
+            try {
+                pool.mostrarDatosConexion();
+                if (pool.embebida) {
+                    pool.crearEsquema();
+                }
+                pool.rellenar();
+            } catch (SQLException e) {
+                pool.shutdown();
+                throw e;
+            }
+            instance = pool;
+        }
+        return instance;
+    }
+
+    /**
+     * Cierra el pool de la aplicación si se ha llegado a crear
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * Pide prestada una conexión válida. Si no hay ninguna libre espera hasta pool.borrow_timeout.
+     *
+     * @return conexión en modo autocommit
+     * @throws SQLException si el pool está cerrado, agotado o no se puede conectar
+     */
+    public Connection borrow() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+        try {
+            if (!permisos.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("No hay conexiones libres en el pool (máximo " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión", e);
+        }
+        try {
+            while (true) {
+                ConexionOciosa ociosa;
+                synchronized (this) {
+                    ociosa = ociosas.pollLast(); // la más reciente, con menos probabilidad de estar caducada
+                    if (ociosa == null) {
+                        total++; // reserva el hueco antes de abrir la conexión
+                    }
+                }
+                if (ociosa == null) {
+                    return abrirReservada();
+                }
+                if (esValida(ociosa.connection())) {
+                    return ociosa.connection();
+                }
+                descartar(ociosa.connection());
+            }
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve una conexión prestada al pool. Si está cerrada o el pool ya no existe, se descarta.
+     *
+     * @param connection conexión obtenida con borrow
+     */
+    public void release(Connection connection) {
+        try {
+            if (cerrado || connection.isClosed()) {
+                descartar(connection);
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback(); // no dejar transacciones a medias para el siguiente
+                connection.setAutoCommit(true);
+            }
+            synchronized (this) {
+                ociosas.addLast(new ConexionOciosa(connection, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            descartar(connection);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Cierra todas las conexiones ociosas y detiene el limpiador.
+     * Las conexiones que sigan prestadas se cierran cuando se devuelvan.
+     */
+    public void shutdown() {
+        cerrado = true;
+        limpiador.shutdownNow();
+        Deque<ConexionOciosa> pendientes;
+        synchronized (this) {
+            pendientes = new ArrayDeque<>(ociosas);
+            ociosas.clear();
+        }
+        for (ConexionOciosa ociosa : pendientes) {
+            descartar(ociosa.connection());
+        }
+    }
+
+    /**
+     * Cierra las conexiones que llevan más de pool.idle_timeout sin usarse, sin bajar de pool.min,
+     * y vuelve a abrir las necesarias para mantener el mínimo.
+     */
+    private void limpiar() {
+        Deque<Connection> caducadas = new ArrayDeque<>();
+        long limite = System.currentTimeMillis() - idleTimeout;
+        synchronized (this) {
+            Iterator<ConexionOciosa> it = ociosas.iterator(); // de la más antigua a la más reciente
+            while (it.hasNext() && total - caducadas.size() > minSize) {
+                ConexionOciosa ociosa = it.next();
+                if (ociosa.desde() > limite) {
+                    break;
+                }
+                it.remove();
+                caducadas.add(ociosa.connection());
+            }
+        }
+        for (Connection connection : caducadas) {
+            descartar(connection);
+        }
+        try {
+            rellenar();
+        } catch (SQLException e) {
+            System.err.println("Error al rellenar el pool de conexiones: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Abre conexiones ociosas hasta llegar a pool.min
+     *
+     * @throws SQLException si no se puede abrir una conexión
+     */
+    private void rellenar() throws SQLException {
+        while (!cerrado) {
+            synchronized (this) {
+                if (total >= minSize) {
+                    return;
+                }
+                total++;
+            }
+            Connection connection = abrirReservada();
+            synchronized (this) {
+                ociosas.addFirst(new ConexionOciosa(connection, System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Abre una conexión física para un hueco ya contado en total
+     *
+     * @return conexión nueva en modo autocommit
+     * @throws SQLException si no se puede conectar
+     */
+    private Connection abrirReservada() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(url, connConfig);
+            connection.setAutoCommit(true);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                total--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Comprueba que una conexión ociosa sigue viva antes de prestarla
+     *
+     * @param connection conexión a validar
+     * @return true/false
+     */
+    private boolean esValida(Connection connection) {
+        try {
+            return connection.isValid(validationTimeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cierra una conexión física y la descuenta del total
+     *
+     * @param connection conexión a cerrar
+     */
+    private void descartar(Connection connection) {
+        synchronized (this) {
+            total--;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Crea las tablas de olimpiadas.sql en la base de datos embebida si todavía no existen
+     *
+     * @throws SQLException si no se puede crear el esquema
+     */
+    private void crearEsquema() throws SQLException {
+        Connection connection = borrow();
+        try {
+            EsquemaEmbebido.aplicar(connection);
+        } finally {
+            release(connection);
+        }
+    }
+
+    /**
+     * Muestra por consola los datos de la base de datos con una conexión temporal
+     *
+     * @throws SQLException si no se puede conectar
+     */
+    private void mostrarDatosConexion() throws SQLException {
+        synchronized (this) {
+            total++;
+        }
+        Connection connection = abrirReservada();
+        try {
+            DatabaseMetaData databaseMetaData = connection.getMetaData();
+            System.out.println("--- Datos de conexión ------------------------------------------");
+            System.out.printf("Base de datos: %s%n", databaseMetaData.getDatabaseProductName());
+            System.out.printf("  Versión: %s%n", databaseMetaData.getDatabaseProductVersion());
+            System.out.printf("Driver: %s%n", databaseMetaData.getDriverName());
+            System.out.printf("  Versión: %s%n", databaseMetaData.getDriverVersion());
+            System.out.printf("Pool: mínimo %d, máximo %d conexiones%n", minSize, maxSize);
+            System.out.println("----------------------------------------------------------------");
+        } catch (SQLException | RuntimeException e) {
+            descartar(connection); // La cierra y la descuenta de total
+            throw e;
+        }
+        synchronized (this) {
+            ociosas.addLast(new ConexionOciosa(connection, System.currentTimeMillis()));
+        }
+    }
+}
@@ -2,56 +2,122 @@ package com.intissar.olimpiadas.db;
 
 import java.io.*;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
-public class DBConnect {
+import com.intissar.olimpiadas.eventos.EventoDao;
+
+/**
+ * Conexión prestada por el ConnectionPool.
+ * Se obtiene con new DBConnect() y se devuelve al pool con closeConnection() o close().
+ * Si el hilo tiene una Transaccion abierta se usa su conexión, que no se devuelve al cerrar sino al terminar la transacción.
+ * getConnection() devuelve la conexión envuelta por MetricasJdbc, que mide las sentencias que se ejecutan con ella.
+ * Mientras se graba con JFR, cada DBConnect emite un EventoDao desde que se crea hasta que se cierra.
+ *
+ * La configuración se lee de configuration.properties en el directorio de trabajo, o del fichero que indique la
+ * propiedad del sistema olimpiadas.configuracion (las pruebas la usan para trabajar con H2 en memoria).
+ */
+public class DBConnect implements AutoCloseable {
+    private static Properties configuracion; // configuration.properties se lee una sola vez
+
+    private final ConnectionPool pool;
     private final Connection connection;
+    private Connection instrumentada; // la misma conexión con métricas, se crea al pedirla
+    private EventoDao evento; // llamada al DAO que ha abierto la conexión, null si no se graba con JFR
+    private boolean devuelta;
 
     public DBConnect() throws SQLException {
-        Properties configuracion = getConfiguration();
-        Properties connConfig = new Properties();
-        connConfig.setProperty("user", configuracion.getProperty("user"));
-        connConfig.setProperty("password", configuracion.getProperty("password"));
-
-        String url = "jdbc:mysql://" + configuracion.getProperty("address") + ":" +
-                configuracion.getProperty("port") + "/" +
-                configuracion.getProperty("database") +
-                "?serverTimezone=Europe/Madrid";
-
-        connection = DriverManager.getConnection(url, connConfig);
-        connection.setAutoCommit(true);
-
-        DatabaseMetaData databaseMetaData = connection.getMetaData();
-        System.out.println("--- Datos de conexión ------------------------------------------");
-        System.out.printf("Base de datos: %s%n", databaseMetaData.getDatabaseProductName());
-        System.out.printf("  Versión: %s%n", databaseMetaData.getDatabaseProductVersion());
-        System.out.printf("Driver: %s%n", databaseMetaData.getDriverName());
-        System.out.printf("  Versión: %s%n", databaseMetaData.getDriverVersion());
-        System.out.println("----------------------------------------------------------------");
-    }
-
-    public static Properties getConfiguration() {
-        File f = new File("configuration.properties");
-        Properties properties = new Properties();
-        try (FileInputStream configFileReader = new FileInputStream(f)) {
-            properties.load(configFileReader);
-        } catch (IOException e) {
-            System.out.println("Error al cargar la configuración: " + e.getMessage());
-            throw new RuntimeException("configuration.properties no encontrado en la ruta: " + f.getPath());
+        Connection deTransaccion = Transaccion.conexionActual();
+        if (deTransaccion != null) {
+            pool = null;
+            connection = deTransaccion;
+            devuelta = true; // la devuelve la transacción
+        } else {
+            pool = ConnectionPool.getInstance();
+            connection = pool.borrow();
+        }
+        evento = EventoDao.iniciar();
+    }
+
+    public static synchronized Properties getConfiguration() {
+        if (configuracion == null) {
+            File f = new File(System.getProperty("olimpiadas.configuracion", "configuration.properties"));
+            Properties properties = new Properties();
+            try (FileInputStream configFileReader = new FileInputStream(f)) {
+                properties.load(configFileReader);
+            } catch (IOException e) {
+                System.out.println("Error al cargar la configuración: " + e.getMessage());
+                throw new RuntimeException("configuration.properties no encontrado en la ruta: " + f.getPath());
+            }
+            configuracion = properties;
+        }
+        return configuracion;
+    }
+
+    /**
+     * @return true si la configuración usa la base de datos embebida (motor=h2) en lugar de MySQL
+     */
+    public static boolean esEmbebida() {
+        return esEmbebida(getConfiguration());
+    }
+
+    static boolean esEmbebida(Properties configuracion) {
+        return "h2".equalsIgnoreCase(configuracion.getProperty("motor", "mysql").trim());
+    }
+
+    /**
+     * Lee una propiedad entera de la configuración
+     *
+     * @param clave clave a leer
+     * @param porDefecto valor si falta o no es numérico
+     * @return valor de la propiedad
+     */
+    public static int getConfigurationInt(String clave, int porDefecto) {
+        return getConfigurationInt(getConfiguration(), clave, porDefecto);
+    }
+
+    /**
+     * Lee una propiedad entera con valor por defecto
+     *
+     * @param configuracion propiedades
+     * @param clave clave a leer
+     * @param porDefecto valor si falta o no es numérico
+     * @return valor de la propiedad
+     */
+    static int getConfigurationInt(Properties configuracion, String clave, int porDefecto) {
+        String valor = configuracion.getProperty(clave);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            return porDefecto;
         }
-        return properties;
     }
 
     public Connection getConnection() {
-        return connection;
+        if (instrumentada == null) {
+            instrumentada = MetricasJdbc.instrumentar(connection, evento);
+        }
+        return instrumentada;
     }
 
     public Connection closeConnection() throws SQLException {
-        connection.close();
+        if (evento != null) {
+            evento.terminar();
+            evento = null;
+        }
+        if (!devuelta) {
+            devuelta = true;
+            pool.release(connection);
+        }
         return connection;
     }
 
-}
\ No newline at end of file
+    @Override
+    public void close() throws SQLException {
+        closeConnection();
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.intissar.olimpiadas.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Crea las tablas de olimpiadas.sql en la base de datos embebida (H2 en modo MySQL) si todavía no existen.
+ * El volcado de MySQL se adapta al arrancar: se quitan las comillas invertidas, las opciones de tabla y las sentencias
+ * propias de mysqldump (SET, LOCK, USE...), los índices se crean aparte y las claves ajenas se añaden al final,
+ * porque el volcado crea algunas tablas antes que las tablas a las que apuntan.
+ * Las tablas traducidas valen también para MySQL: con crearTablas los benchmarks crean su base de datos sin copiar
+ * el esquema.
+ */
+public final class EsquemaEmbebido {
+    private static final String RECURSO = "/sql/olimpiadas.sql";
+    private static final Pattern COMENTARIOS = Pattern.compile("(?s)/\\*.*?\\*/|(?m)^--[^\\n]*");
+    private static final Pattern FIN_SENTENCIA = Pattern.compile(";\\s*(?:\\n|$)");
+    private static final Pattern CREATE_TABLE = Pattern.compile("(?is)CREATE TABLE (\\w+) \\((.*)\\)[^)]*");
+    private static final Pattern INDICE = Pattern.compile("(?i)(?:UNIQUE )?KEY (\\w+) \\((.*)\\)");
+    private static final Pattern CLAVE_AJENA = Pattern.compile("(?i)CONSTRAINT (\\w+) FOREIGN KEY .*");
+    private static final Pattern AUTO_INCREMENT = Pattern.compile("(?i)^(\\w+) .*AUTO_INCREMENT.*");
+
+    /**
+     * Sentencias traducidas del volcado
+     *
+     * @param tablas     CREATE TABLE sin índices ni claves ajenas
+     * @param datos      INSERT con los datos
+     * @param finales    índices y claves ajenas, cuando ya existen todas las tablas
+     * @param contadores {tabla, columna} con AUTO_INCREMENT
+     */
+    private record Volcado(List<String> tablas, List<String> datos, List<String> finales, List<String[]> contadores) {}
+
+    private EsquemaEmbebido() {
+    }
+
+    /**
+     * Aplica el esquema y los datos de olimpiadas.sql si la base de datos no tiene todavía la tabla Deporte
+     *
+     * @param connection conexión a la base de datos embebida
+     * @throws SQLException si falla alguna sentencia (no se aplica nada)
+     */
+    static void aplicar(Connection connection) throws SQLException {
+        if (existe(connection, "Deporte")) {
+            return;
+        }
+        Volcado volcado = leer();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            for (List<String> grupo : List.of(volcado.tablas(), volcado.datos(), volcado.finales())) {
+                for (String sentencia : grupo) {
+                    stmt.execute(sentencia);
+                }
+            }
+            for (String[] contador : volcado.contadores()) { // los INSERT del volcado dan los ids a mano
+                try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + contador[1] + "), 0) + 1 FROM " + contador[0])) {
+                    rs.next();
+                    stmt.execute("ALTER TABLE " + contador[0] + " ALTER COLUMN " + contador[1] + " RESTART WITH " + rs.getLong(1));
+                }
+            }
+            connection.commit();
+            System.out.println("Esquema de olimpiadas.sql creado en la base de datos embebida");
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Crea las tablas de olimpiadas.sql, con sus índices y claves ajenas pero sin sus datos, si la base de datos no
+     * tiene todavía la tabla Deporte. Vale para la base de datos embebida y para MySQL.
+     *
+     * @param connection conexión a la base de datos
+     * @throws SQLException si falla alguna sentencia (en MySQL las ya ejecutadas no se deshacen)
+     */
+    public static void crearTablas(Connection connection) throws SQLException {
+        if (existe(connection, "Deporte")) {
+            return;
+        }
+        Volcado volcado = leer();
+        try (Statement stmt = connection.createStatement()) {
+            for (List<String> grupo : List.of(volcado.tablas(), volcado.finales())) {
+                for (String sentencia : grupo) {
+                    stmt.execute(sentencia);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee olimpiadas.sql y lo separa en las sentencias que hay que ejecutar
+     */
+    private static Volcado leer() throws SQLException {
+        String volcado;
+        try (InputStream in = EsquemaEmbebido.class.getResourceAsStream(RECURSO)) {
+            if (in == null) {
+                throw new SQLException("No se encuentra " + RECURSO);
+            }
+            volcado = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("No se puede leer " + RECURSO, e);
+        }
+
+        List<String> tablas = new ArrayList<>();
+        List<String> datos = new ArrayList<>();
+        List<String> finales = new ArrayList<>(); // índices y claves ajenas, cuando ya existen todas las tablas
+        List<String[]> contadores = new ArrayList<>(); // {tabla, columna} con AUTO_INCREMENT
+        for (String sentencia : FIN_SENTENCIA.split(COMENTARIOS.matcher(volcado).replaceAll(""))) {
+            sentencia = sentencia.strip().replace("`", "");
+            String mayusculas = sentencia.toUpperCase();
+            if (mayusculas.startsWith("CREATE TABLE")) {
+                traducirTabla(sentencia, tablas, finales, contadores);
+            } else if (mayusculas.startsWith("INSERT INTO")) {
+                datos.add(sentencia);
+            } // el resto (CREATE DATABASE, USE, DROP, LOCK, SET) no hace falta en una base de datos nueva
+        }
+        return new Volcado(tablas, datos, finales, contadores);
+    }
+
+    /**
+     * Separa un CREATE TABLE del volcado en la tabla sin índices ni claves ajenas y las sentencias que los crean
+     */
+    private static void traducirTabla(String sentencia, List<String> tablas, List<String> finales, List<String[]> contadores) {
+        Matcher m = CREATE_TABLE.matcher(sentencia);
+        if (!m.matches()) {
+            tablas.add(sentencia);
+            return;
+        }
+        String tabla = m.group(1);
+        List<String> columnas = new ArrayList<>();
+        List<String> restricciones = new ArrayList<>();
+        List<String[]> indices = new ArrayList<>();
+        for (String linea : m.group(2).split(",\\s*\\n")) {
+            linea = linea.strip();
+            Matcher indice = INDICE.matcher(linea);
+            Matcher ajena = CLAVE_AJENA.matcher(linea);
+            Matcher contador = AUTO_INCREMENT.matcher(linea);
+            if (indice.matches()) {
+                indices.add(new String[]{indice.group(1), indice.group(2)});
+            } else if (ajena.matches()) {
+                restricciones.add(ajena.group(1));
+                finales.add("ALTER TABLE " + tabla + " ADD " + linea);
+            } else {
+                if (contador.matches()) {
+                    contadores.add(new String[]{tabla, contador.group(1)});
+                }
+                columnas.add(linea);
+            }
+        }
+        for (String[] indice : indices) {
+            if (!restricciones.contains(indice[0])) { // H2 ya crea un índice para cada clave ajena
+                finales.add("CREATE INDEX " + indice[0] + " ON " + tabla + " (" + indice[1] + ")");
+            }
+        }
+        tablas.add("CREATE TABLE " + tabla + " (\n  " + String.join(",\n  ", columnas) + "\n)");
+    }
+
+    private static boolean existe(Connection connection, String tabla) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, "%", new String[]{"TABLE"})) { // solo en esta base de datos
+            while (rs.next()) {
+                if (tabla.equalsIgnoreCase(rs.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
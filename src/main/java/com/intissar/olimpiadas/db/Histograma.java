@@ -0,0 +1,77 @@
+package com.intissar.olimpiadas.db;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias en microsegundos, seguro entre hilos y sin bloqueos.
+ * Los valores hasta 15 se guardan exactos y el resto en 8 intervalos por cada potencia de dos, así que los percentiles
+ * tienen un error relativo de menos del 12,5 % con un tamaño fijo (488 contadores) para cualquier rango de valores.
+ */
+final class Histograma {
+    private static final int INTERVALOS = 488; // índice del mayor long positivo + 1
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(INTERVALOS);
+
+    /**
+     * Añade un valor
+     *
+     * @param micros valor en microsegundos (los negativos cuentan como 0)
+     */
+    void registrar(long micros) {
+        cuentas.incrementAndGet(indice(Math.max(0, micros)));
+    }
+
+    /**
+     * Devuelve el percentil pedido
+     *
+     * @param percentil entre 0 y 1
+     * @return valor aproximado en microsegundos, o 0 si no hay valores
+     */
+    long percentil(double percentil) {
+        long total = 0;
+        for (int i = 0; i < INTERVALOS; i++) {
+            total += cuentas.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(percentil * total));
+        long acumulado = 0;
+        for (int i = 0; i < INTERVALOS; i++) {
+            acumulado += cuentas.get(i);
+            if (acumulado >= objetivo) {
+                return valor(i);
+            }
+        }
+        return valor(INTERVALOS - 1);
+    }
+
+    void reiniciar() {
+        for (int i = 0; i < INTERVALOS; i++) {
+            cuentas.set(i, 0);
+        }
+    }
+
+    /**
+     * Intervalo de un valor: exacto por debajo de 16 y, a partir de ahí, los 3 bits siguientes al más alto
+     */
+    private static int indice(long valor) {
+        if (valor < 16) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        return (exponente - 2) * 8 + (int) ((valor >>> (exponente - 3)) & 7);
+    }
+
+    /**
+     * Punto medio de un intervalo
+     */
+    private static long valor(int indice) {
+        if (indice < 16) {
+            return indice;
+        }
+        int exponente = indice / 8 + 2;
+        long ancho = 1L << (exponente - 3);
+        return (8 + indice % 8) * ancho + ancho / 2;
+    }
+}
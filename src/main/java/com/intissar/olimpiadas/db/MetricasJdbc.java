@@ -0,0 +1,614 @@
+package com.intissar.olimpiadas.db;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.management.ObjectName;
+
+import com.intissar.olimpiadas.eventos.EventoDao;
+import com.intissar.olimpiadas.eventos.EventoN1;
+import com.intissar.olimpiadas.eventos.EventoSql;
+import jdk.jfr.EventType;
+
+/**
+ * Métricas de las sentencias SQL que se ejecutan con las conexiones de DBConnect.
+ * DBConnect.getConnection() devuelve la conexión envuelta en un proxy que mide cada ejecución (desde que se lanza
+ * hasta que se cierra su ResultSet) y cuenta las filas leídas o modificadas. Las métricas se agrupan por plantilla:
+ * el SQL con los literales y las listas IN cambiados por ?, de forma que las consultas que solo cambian en los
+ * valores se cuentan juntas.
+ *
+ * Los ámbitos (ambito("DaoParticipacion.cargarListado")) agrupan las sentencias que lanza una operación en el hilo
+ * actual. Al cerrar un ámbito, si una misma plantilla se ha ejecutado metricas.n1 veces o más (100 por defecto) se
+ * anota como posible N+1, típicamente una consulta por id dentro de un bucle: se consulta por JMX
+ * (getSospechasN1) y, mientras se graba con JFR, se emite un EventoN1.
+ *
+ * Están desactivadas por defecto, porque el proxy envuelve cada sentencia y ResultSet; se activan con metricas.jdbc=1
+ * en configuration.properties. Las métricas se publican por JMX (MetricasJdbcMXBean) y se escriben en
+ * metricas.fichero al cerrar la aplicación si esa clave está definida.
+ *
+ * Mientras se graba con JDK Flight Recorder, las conexiones se envuelven aunque las métricas estén desactivadas y cada
+ * ejecución emite un EventoSql; las filas y sentencias se suman también al EventoDao de la llamada al DAO.
+ */
+public final class MetricasJdbc implements MetricasJdbcMXBean {
+    private static final MetricasJdbc INSTANCIA = new MetricasJdbc();
+    private static final boolean ACTIVAS = DBConnect.getConfigurationInt("metricas.jdbc", 0) != 0;
+    private static final int UMBRAL_N1 = Math.max(2, DBConnect.getConfigurationInt("metricas.n1", 100));
+    private static final int MAX_PLANTILLAS_GUARDADAS = 5000; // SQL distintos cuya plantilla se recuerda
+
+    private static final Pattern CADENAS = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMEROS = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern LISTAS_IN = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern TABLA = Pattern.compile("(?i)\\b(?:FROM|INTO|UPDATE)\\s+`?(\\w+)");
+    private static final Map<String, String> TABLAS = new ConcurrentHashMap<>(); // plantilla -> tabla ("" si no tiene)
+    private static final EventType TIPO_EVENTO_SQL = EventType.getEventType(EventoSql.class);
+
+    private static final ThreadLocal<Deque<Ambito>> AMBITOS = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final Ambito SIN_AMBITO = new Ambito(null);
+
+    private final Map<String, String> plantillas = new ConcurrentHashMap<>(); // SQL -> plantilla
+    private final Map<String, Estadistica> estadisticas = new ConcurrentHashMap<>(); // plantilla -> métricas
+    private final Map<String, EstadisticaAmbito> ambitos = new ConcurrentHashMap<>(); // nombre -> métricas
+    private final Map<String, SospechaN1> sospechas = new ConcurrentHashMap<>(); // ámbito y plantilla -> sospecha
+    private final LongAdder sentencias = new LongAdder();
+
+    static {
+        if (ACTIVAS) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCIA, new ObjectName("com.intissar.olimpiadas:type=MetricasJdbc"));
+            } catch (Exception e) {
+                System.err.println("No se han podido publicar las métricas por JMX: " + e.getMessage());
+            }
+        }
+    }
+
+    private MetricasJdbc() {
+    }
+
+    /**
+     * Envuelve una conexión para medir sus sentencias, si las métricas están activas o se está grabando con JFR
+     *
+     * @param connection conexión del pool
+     * @param dao        evento de la llamada al DAO que ha pedido la conexión, o null
+     * @return conexión instrumentada, o la misma si no hay nada que medir
+     */
+    static Connection instrumentar(Connection connection, EventoDao dao) {
+        boolean eventosSql = TIPO_EVENTO_SQL.isEnabled();
+        if (!ACTIVAS && !eventosSql && dao == null) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(MetricasJdbc.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConexionInstrumentada(connection, dao, eventosSql));
+    }
+
+    /**
+     * Tabla principal de una plantilla: la primera que sigue a FROM, INTO o UPDATE
+     *
+     * @param plantilla plantilla SQL
+     * @return nombre de la tabla, o null si no se reconoce
+     */
+    static String tabla(String plantilla) {
+        String tabla = TABLAS.get(plantilla);
+        if (tabla == null) {
+            Matcher m = TABLA.matcher(plantilla);
+            tabla = m.find() ? m.group(1) : "";
+            if (TABLAS.size() < MAX_PLANTILLAS_GUARDADAS) {
+                TABLAS.put(plantilla, tabla);
+            }
+        }
+        return tabla.isEmpty() ? null : tabla;
+    }
+
+    /**
+     * Abre un ámbito en el hilo actual: las sentencias que se ejecuten hasta cerrarlo se cuentan juntas.
+     * Los ámbitos se pueden anidar; cada sentencia cuenta en todos los que estén abiertos.
+     *
+     * <pre>
+     * MetricasJdbc.Ambito ambito = MetricasJdbc.ambito("DaoEvento.cargarListado");
+     * try {
+     *     ...
+     * } finally {
+     *     ambito.close();
+     * }
+     * </pre>
+     *
+     * @param nombre nombre de la operación
+     * @return ámbito, que hay que cerrar en el mismo hilo
+     */
+    public static Ambito ambito(String nombre) {
+        if (!ACTIVAS) {
+            return SIN_AMBITO;
+        }
+        Ambito ambito = new Ambito(nombre);
+        AMBITOS.get().push(ambito);
+        return ambito;
+    }
+
+    /**
+     * Escribe el informe en metricas.fichero, si está definido. Se llama al cerrar la aplicación.
+     */
+    public static void volcarAlSalir() {
+        String fichero = DBConnect.getConfiguration().getProperty("metricas.fichero");
+        if (ACTIVAS && fichero != null && !fichero.isBlank()) {
+            System.out.println(INSTANCIA.volcar(fichero.trim()));
+        }
+    }
+
+    /**
+     * Sentencias que se ejecutan dentro de una operación
+     */
+    public static final class Ambito implements AutoCloseable {
+        private final String nombre;
+        private final Map<String, int[]> porPlantilla = new HashMap<>(); // solo lo usa el hilo que lo abre
+        private int sentencias;
+
+        private Ambito(String nombre) {
+            this.nombre = nombre;
+        }
+
+        private void contar(String plantilla) {
+            sentencias++;
+            porPlantilla.computeIfAbsent(plantilla, p -> new int[1])[0]++;
+        }
+
+        @Override
+        public void close() {
+            if (nombre == null) {
+                return;
+            }
+            Deque<Ambito> abiertos = AMBITOS.get();
+            abiertos.remove(this);
+            if (abiertos.isEmpty()) {
+                AMBITOS.remove();
+            }
+            INSTANCIA.ambitos.computeIfAbsent(nombre, n -> new EstadisticaAmbito()).registrar(sentencias);
+            for (Map.Entry<String, int[]> entrada : porPlantilla.entrySet()) {
+                int veces = entrada.getValue()[0];
+                if (veces >= UMBRAL_N1) {
+                    INSTANCIA.sospechas.computeIfAbsent(nombre + '\u0000' + entrada.getKey(),
+                            k -> new SospechaN1(nombre, entrada.getKey())).registrar(veces);
+                    EventoN1 evento = new EventoN1();
+                    if (evento.shouldCommit()) {
+                        evento.ambito = nombre;
+                        evento.plantilla = entrada.getKey();
+                        evento.veces = veces;
+                        evento.commit();
+                    }
+                }
+            }
+        }
+    }
+
+    // --- MXBean
+
+    @Override
+    public long getSentencias() {
+        return sentencias.sum();
+    }
+
+    @Override
+    public String[] getPlantillas() {
+        List<Map.Entry<String, Estadistica>> lista = new ArrayList<>(estadisticas.entrySet());
+        lista.sort(Comparator.comparingLong((Map.Entry<String, Estadistica> e) -> e.getValue().nanos.sum()).reversed());
+        String[] lineas = new String[lista.size()];
+        for (int i = 0; i < lineas.length; i++) {
+            lineas[i] = lista.get(i).getValue().resumen() + "  " + lista.get(i).getKey();
+        }
+        return lineas;
+    }
+
+    @Override
+    public String[] getAmbitos() {
+        List<Map.Entry<String, EstadisticaAmbito>> lista = new ArrayList<>(ambitos.entrySet());
+        lista.sort(Map.Entry.comparingByKey());
+        String[] lineas = new String[lista.size()];
+        for (int i = 0; i < lineas.length; i++) {
+            lineas[i] = lista.get(i).getKey() + ": " + lista.get(i).getValue().resumen();
+        }
+        return lineas;
+    }
+
+    @Override
+    public String[] getSospechasN1() {
+        List<SospechaN1> lista = new ArrayList<>(sospechas.values());
+        lista.sort(Comparator.comparingLong((SospechaN1 s) -> s.maximo.get()).reversed());
+        String[] lineas = new String[lista.size()];
+        for (int i = 0; i < lineas.length; i++) {
+            lineas[i] = lista.get(i).resumen();
+        }
+        return lineas;
+    }
+
+    @Override
+    public void reiniciar() {
+        estadisticas.clear();
+        ambitos.clear();
+        sospechas.clear();
+        sentencias.reset();
+    }
+
+    @Override
+    public String volcar(String ruta) {
+        Path fichero = Path.of(ruta);
+        try (Writer w = Files.newBufferedWriter(fichero, StandardCharsets.UTF_8)) {
+            w.write("Sentencias: " + getSentencias() + "\n\n");
+            w.write("Plantillas (ejecuciones, filas, errores y latencias en ms):\n");
+            for (String linea : getPlantillas()) {
+                w.write(linea + "\n");
+            }
+            w.write("\nÁmbitos (veces y sentencias por vez):\n");
+            for (String linea : getAmbitos()) {
+                w.write(linea + "\n");
+            }
+            w.write("\nPosibles N+1 (" + UMBRAL_N1 + " o más ejecuciones de la misma plantilla en un ámbito):\n");
+            for (String linea : getSospechasN1()) {
+                w.write(linea + "\n");
+            }
+            return "Métricas escritas en " + fichero.toAbsolutePath();
+        } catch (IOException e) {
+            return "No se han podido escribir las métricas: " + e.getMessage();
+        }
+    }
+
+    // --- Registro
+
+    /**
+     * Plantilla de un SQL: literales cambiados por ?, listas IN de cualquier longitud iguales y espacios normalizados
+     */
+    private String plantilla(String sql) {
+        String plantilla = plantillas.get(sql);
+        if (plantilla == null) {
+            plantilla = CADENAS.matcher(sql).replaceAll("?");
+            plantilla = NUMEROS.matcher(plantilla).replaceAll("?");
+            plantilla = LISTAS_IN.matcher(plantilla).replaceAll("IN (?...)");
+            plantilla = ESPACIOS.matcher(plantilla).replaceAll(" ").trim();
+            if (plantillas.size() < MAX_PLANTILLAS_GUARDADAS) {
+                plantillas.put(sql, plantilla);
+            }
+        }
+        return plantilla;
+    }
+
+    /**
+     * Cuenta una ejecución en los ámbitos abiertos del hilo actual
+     */
+    private void contar(String plantilla) {
+        sentencias.increment();
+        Deque<Ambito> abiertos = AMBITOS.get();
+        if (abiertos.isEmpty()) {
+            AMBITOS.remove();
+            return;
+        }
+        for (Ambito ambito : abiertos) {
+            ambito.contar(plantilla);
+        }
+    }
+
+    private void registrar(String plantilla, long inicio, long filas, boolean error) {
+        estadisticas.computeIfAbsent(plantilla, p -> new Estadistica()).registrar(System.nanoTime() - inicio, filas, error);
+    }
+
+    /**
+     * Métricas de una plantilla
+     */
+    private static final class Estadistica {
+        private final LongAdder ejecuciones = new LongAdder();
+        private final LongAdder filas = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+        private final Histograma micros = new Histograma();
+
+        void registrar(long duracion, long filasLeidas, boolean error) {
+            ejecuciones.increment();
+            filas.add(filasLeidas);
+            nanos.add(duracion);
+            maximo.accumulate(duracion);
+            micros.registrar(duracion / 1000);
+            if (error) {
+                errores.increment();
+            }
+        }
+
+        String resumen() {
+            long max = maximo.get() / 1000; // los percentiles son aproximados y no deben pasar del máximo real
+            return String.format("n=%d filas=%d errores=%d total=%.1f p50=%.3f p95=%.3f p99=%.3f max=%.3f",
+                    ejecuciones.sum(), filas.sum(), errores.sum(), nanos.sum() / 1e6,
+                    Math.min(max, micros.percentil(0.50)) / 1e3, Math.min(max, micros.percentil(0.95)) / 1e3,
+                    Math.min(max, micros.percentil(0.99)) / 1e3, maximo.get() / 1e6);
+        }
+    }
+
+    /**
+     * Sentencias por vez de un ámbito
+     */
+    private static final class EstadisticaAmbito {
+        private final LongAdder veces = new LongAdder();
+        private final LongAdder sentencias = new LongAdder();
+        private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+        void registrar(int sentenciasAmbito) {
+            veces.increment();
+            sentencias.add(sentenciasAmbito);
+            maximo.accumulate(sentenciasAmbito);
+        }
+
+        String resumen() {
+            long n = veces.sum();
+            return String.format("veces=%d sentencias=%d media=%.1f max=%d", n, sentencias.sum(),
+                    n == 0 ? 0.0 : (double) sentencias.sum() / n, maximo.get());
+        }
+    }
+
+    /**
+     * Plantilla repetida muchas veces dentro de un ámbito
+     */
+    private static final class SospechaN1 {
+        private final String ambito;
+        private final String plantilla;
+        private final LongAdder veces = new LongAdder();
+        private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+        SospechaN1(String ambito, String plantilla) {
+            this.ambito = ambito;
+            this.plantilla = plantilla;
+        }
+
+        void registrar(int ejecuciones) {
+            veces.increment();
+            maximo.accumulate(ejecuciones);
+        }
+
+        String resumen() {
+            return ambito + ": " + plantilla + " (hasta " + maximo.get() + " ejecuciones, en " + veces.sum() + " cargas)";
+        }
+    }
+
+    // --- Proxies de JDBC
+
+    private static Object invocar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause(); // la SQLException del driver, sin envolver
+        }
+    }
+
+    /**
+     * Conexión que envuelve las sentencias que crea
+     *
+     * @param connection conexión del pool
+     * @param dao        evento de la llamada al DAO que usa la conexión, o null si no se está grabando
+     * @param eventosSql si se emite un EventoSql por cada ejecución
+     */
+    private record ConexionInstrumentada(Connection connection, EventoDao dao, boolean eventosSql) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultado = invocar(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement", "prepareCall" -> sentencia((Statement) resultado, INSTANCIA.plantilla((String) args[0]));
+                case "createStatement" -> sentencia((Statement) resultado, null);
+                default -> resultado;
+            };
+        }
+
+        private Statement sentencia(Statement sentencia, String plantilla) {
+            Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                    : sentencia instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return (Statement) Proxy.newProxyInstance(MetricasJdbc.class.getClassLoader(), new Class<?>[]{tipo},
+                    new SentenciaInstrumentada(this, sentencia, plantilla));
+        }
+
+        /**
+         * Empieza a medir una ejecución
+         */
+        Ejecucion iniciar(String plantilla) {
+            if (ACTIVAS) {
+                INSTANCIA.contar(plantilla);
+            }
+            EventoSql evento = null;
+            if (eventosSql) {
+                evento = new EventoSql();
+                evento.begin();
+            }
+            return new Ejecucion(this, plantilla, System.nanoTime(), evento);
+        }
+    }
+
+    /**
+     * Ejecución en curso de una sentencia
+     */
+    private record Ejecucion(ConexionInstrumentada conexion, String plantilla, long inicio, EventoSql evento) {
+        void terminar(long filas, boolean error) {
+            if (ACTIVAS) {
+                INSTANCIA.registrar(plantilla, inicio, filas, error);
+            }
+            if (conexion.dao() != null) {
+                conexion.dao().sumar(plantilla, tabla(plantilla), filas);
+            }
+            if (evento != null) {
+                evento.end();
+                if (evento.shouldCommit()) {
+                    evento.tabla = tabla(plantilla);
+                    evento.plantilla = plantilla;
+                    evento.filas = filas;
+                    evento.error = error;
+                    evento.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sentencia que mide sus ejecuciones. Las de un PreparedStatement usan la plantilla de su SQL; las de un Statement,
+     * la del SQL que reciben.
+     */
+    private static final class SentenciaInstrumentada implements InvocationHandler {
+        private final ConexionInstrumentada conexion;
+        private final Statement sentencia;
+        private final String plantilla; // null en un Statement
+        private String plantillaLote; // primer SQL de addBatch en un Statement
+        private Ejecucion pendiente; // execute() cuyo ResultSet aún no se ha pedido
+        private ResultadoInstrumentado abierto; // último ResultSet, que se cierra con la sentencia
+
+        SentenciaInstrumentada(ConexionInstrumentada conexion, Statement sentencia, String plantilla) {
+            this.conexion = conexion;
+            this.sentencia = sentencia;
+            this.plantilla = plantilla;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            if (nombre.startsWith("execute")) {
+                return ejecutar(method, args);
+            }
+            switch (nombre) {
+                case "getResultSet" -> {
+                    ResultSet rs = (ResultSet) invocar(sentencia, method, args);
+                    if (rs == null || pendiente == null) {
+                        return rs;
+                    }
+                    ResultSet envuelto = resultado(rs, pendiente);
+                    pendiente = null;
+                    return envuelto;
+                }
+                case "addBatch" -> {
+                    if (plantilla == null && plantillaLote == null && args != null && args[0] instanceof String sql) {
+                        plantillaLote = INSTANCIA.plantilla(sql);
+                    }
+                }
+                case "clearBatch" -> plantillaLote = null;
+                case "close" -> terminarPendientes();
+                default -> {
+                }
+            }
+            return invocar(sentencia, method, args);
+        }
+
+        private Object ejecutar(Method method, Object[] args) throws Throwable {
+            String sql = plantilla;
+            if (sql == null) {
+                sql = args != null && args.length > 0 && args[0] instanceof String texto ? INSTANCIA.plantilla(texto) : plantillaLote;
+            }
+            if (sql == null) {
+                sql = "(lote vacío)";
+            }
+            if (method.getName().endsWith("Batch")) {
+                plantillaLote = null;
+            }
+            terminarPendientes(); // ejecutar otra vez cierra el ResultSet anterior
+            Ejecucion ejecucion = conexion.iniciar(sql);
+            Object resultado;
+            try {
+                resultado = invocar(sentencia, method, args);
+            } catch (Throwable e) {
+                ejecucion.terminar(0, true);
+                throw e;
+            }
+            switch (resultado) {
+                case ResultSet rs -> {
+                    return resultado(rs, ejecucion);
+                }
+                case Boolean hayResultado when hayResultado -> pendiente = ejecucion; // se mide hasta que se cierre el ResultSet de getResultSet()
+                case Integer filas -> ejecucion.terminar(Math.max(0, filas), false);
+                case Long filas -> ejecucion.terminar(Math.max(0, filas), false);
+                case int[] filas -> {
+                    long total = 0;
+                    for (int f : filas) {
+                        total += Math.max(0, f); // SUCCESS_NO_INFO es negativo
+                    }
+                    ejecucion.terminar(total, false);
+                }
+                case long[] filas -> {
+                    long total = 0;
+                    for (long f : filas) {
+                        total += Math.max(0, f);
+                    }
+                    ejecucion.terminar(total, false);
+                }
+                default -> ejecucion.terminar(0, false);
+            }
+            return resultado;
+        }
+
+        private void terminarPendientes() {
+            if (abierto != null) {
+                abierto.terminar();
+                abierto = null;
+            }
+            if (pendiente != null) {
+                pendiente.terminar(0, false); // execute() con resultado que nunca se ha leído
+                pendiente = null;
+            }
+        }
+
+        private ResultSet resultado(ResultSet rs, Ejecucion ejecucion) {
+            abierto = new ResultadoInstrumentado(rs, ejecucion);
+            return (ResultSet) Proxy.newProxyInstance(MetricasJdbc.class.getClassLoader(), new Class<?>[]{ResultSet.class}, abierto);
+        }
+    }
+
+    /**
+     * ResultSet que cuenta las filas leídas y registra la ejecución al cerrarse
+     */
+    private static final class ResultadoInstrumentado implements InvocationHandler {
+        private final ResultSet rs;
+        private final Ejecucion ejecucion;
+        private long filas;
+        private boolean terminado;
+
+        ResultadoInstrumentado(ResultSet rs, Ejecucion ejecucion) {
+            this.rs = rs;
+            this.ejecucion = ejecucion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    Object hay = invocar(rs, method, args);
+                    if ((Boolean) hay) {
+                        filas++;
+                    }
+                    return hay;
+                }
+                case "close" -> terminar();
+                default -> {
+                }
+            }
+            return invocar(rs, method, args);
+        }
+
+        void terminar() {
+            if (!terminado) {
+                terminado = true;
+                ejecucion.terminar(filas, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.intissar.olimpiadas.db;
+
+/**
+ * Métricas de las sentencias SQL publicadas por JMX (com.intissar.olimpiadas:type=MetricasJdbc),
+ * para consultarlas con JConsole o VisualVM mientras la aplicación está abierta.
+ */
+public interface MetricasJdbcMXBean {
+    /**
+     * @return sentencias ejecutadas desde el arranque o el último reinicio
+     */
+    long getSentencias();
+
+    /**
+     * @return una línea por plantilla SQL con ejecuciones, filas y percentiles de latencia, de más a menos tiempo total
+     */
+    String[] getPlantillas();
+
+    /**
+     * @return una línea por ámbito (carga de un DAO o de una tabla) con las sentencias que lanza cada vez
+     */
+    String[] getAmbitos();
+
+    /**
+     * @return plantillas que se han repetido más de metricas.n1 veces dentro de un mismo ámbito (posibles N+1)
+     */
+    String[] getSospechasN1();
+
+    /**
+     * Borra las métricas acumuladas
+     */
+    void reiniciar();
+
+    /**
+     * Escribe el informe completo en un fichero
+     *
+     * @param ruta fichero de destino
+     * @return mensaje con el resultado
+     */
+    String volcar(String ruta);
+}
@@ -0,0 +1,196 @@
+package com.intissar.olimpiadas.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transacción que comparten varias llamadas a los DAO hechas desde el mismo hilo.
+ * Mientras está abierta, new DBConnect() devuelve siempre su conexión, así que todos los DAO escriben en ella
+ * y se confirma una sola vez:
+ *
+ * <pre>
+ * try (Transaccion transaccion = Transaccion.iniciar()) {
+ *     int id = DaoOlimpiada.insertar(olimpiada);
+ *     Transaccion.comprobar(id != -1, "No se ha podido crear la olimpiada");
+ *     ...
+ *     transaccion.confirmar();
+ * } // si no se ha confirmado, se deshace
+ * </pre>
+ *
+ * Los DAO no lanzan excepciones sino que devuelven false o -1, así que hay que comprobar lo que devuelven antes de
+ * confirmar. Si se inicia una transacción dentro de otra, la interior se une a la exterior: confirmarla no escribe
+ * nada y cerrarla sin confirmar hace que la exterior solo se pueda deshacer.
+ */
+public final class Transaccion implements AutoCloseable {
+    private static final ThreadLocal<Transaccion> ACTUAL = new ThreadLocal<>();
+
+    /**
+     * Trabajo que se ejecuta dentro de una transacción
+     */
+    @FunctionalInterface
+    public interface Trabajo<R> {
+        R ejecutar() throws SQLException;
+    }
+
+    private final Transaccion raiz; // la transacción exterior, que es la que tiene la conexión
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final List<Runnable> alTerminar; // solo en la raíz
+    private boolean soloDeshacer; // solo en la raíz: una transacción interior ha fallado
+    private boolean confirmada;
+    private boolean cerrada;
+
+    private Transaccion(ConnectionPool pool, Connection connection) {
+        this.raiz = this;
+        this.pool = pool;
+        this.connection = connection;
+        this.alTerminar = new ArrayList<>();
+    }
+
+    private Transaccion(Transaccion raiz) {
+        this.raiz = raiz;
+        this.pool = null;
+        this.connection = raiz.connection;
+        this.alTerminar = null;
+    }
+
+    /**
+     * Inicia una transacción en el hilo actual, o se une a la que ya haya
+     *
+     * @return transacción, que hay que cerrar (try-with-resources)
+     * @throws SQLException si no se puede obtener una conexión
+     */
+    public static Transaccion iniciar() throws SQLException {
+        Transaccion actual = ACTUAL.get();
+        if (actual != null) {
+            return new Transaccion(actual);
+        }
+        ConnectionPool pool = ConnectionPool.getInstance();
+        Connection connection = pool.borrow();
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            pool.release(connection);
+            throw e;
+        }
+        Transaccion transaccion = new Transaccion(pool, connection);
+        ACTUAL.set(transaccion);
+        return transaccion;
+    }
+
+    /**
+     * Ejecuta un trabajo en una transacción: se confirma si termina y se deshace si lanza una excepción
+     *
+     * @param trabajo llamadas a los DAO
+     * @param <R>     tipo del resultado
+     * @return resultado del trabajo
+     * @throws SQLException si falla el trabajo o la confirmación
+     */
+    public static <R> R ejecutar(Trabajo<R> trabajo) throws SQLException {
+        try (Transaccion transaccion = iniciar()) {
+            R resultado = trabajo.ejecutar();
+            transaccion.confirmar();
+            return resultado;
+        }
+    }
+
+    /**
+     * Lanza una excepción, que deshace la transacción, si una llamada a un DAO no ha ido bien
+     *
+     * @param correcto resultado de la comprobación
+     * @param mensaje  mensaje de la excepción
+     * @throws SQLException si no es correcto
+     */
+    public static void comprobar(boolean correcto, String mensaje) throws SQLException {
+        if (!correcto) {
+            throw new SQLException(mensaje);
+        }
+    }
+
+    /**
+     * @return true si hay una transacción abierta en el hilo actual
+     */
+    public static boolean activa() {
+        return ACTUAL.get() != null;
+    }
+
+    /**
+     * Ejecuta una acción cuando termine la transacción del hilo actual, se confirme o se deshaga.
+     * Sirve para que las cachés se descarten también después de confirmar, y no solo al escribir.
+     * Sin transacción, la acción se ejecuta al momento.
+     *
+     * @param accion acción a ejecutar
+     */
+    public static void alTerminar(Runnable accion) {
+        Transaccion actual = ACTUAL.get();
+        if (actual == null) {
+            accion.run();
+        } else {
+            actual.alTerminar.add(accion);
+        }
+    }
+
+    /**
+     * @return conexión de la transacción del hilo actual, o null si no hay ninguna
+     */
+    static Connection conexionActual() {
+        Transaccion actual = ACTUAL.get();
+        return actual == null ? null : actual.connection;
+    }
+
+    /**
+     * Confirma la transacción. En una transacción interior solo indica que su parte ha ido bien.
+     *
+     * @throws SQLException si falla la confirmación o una transacción interior no se confirmó
+     */
+    public void confirmar() throws SQLException {
+        if (cerrada || confirmada) {
+            throw new SQLException("La transacción ya se ha terminado");
+        }
+        if (raiz != this) {
+            confirmada = true;
+            return;
+        }
+        if (soloDeshacer) {
+            throw new SQLException("Una parte de la transacción ha fallado; se deshace entera");
+        }
+        connection.commit();
+        confirmada = true;
+    }
+
+    /**
+     * Cierra la transacción, deshaciéndola si no se ha confirmado
+     *
+     * @throws SQLException si falla al deshacer
+     */
+    @Override
+    public void close() throws SQLException {
+        if (cerrada) {
+            return;
+        }
+        cerrada = true;
+        if (raiz != this) {
+            if (!confirmada) {
+                raiz.soloDeshacer = true;
+            }
+            return;
+        }
+        try {
+            if (!confirmada) {
+                connection.rollback();
+            }
+        } finally {
+            ACTUAL.remove();
+            pool.release(connection); // vuelve a autocommit
+            for (Runnable accion : alTerminar) {
+                try {
+                    accion.run();
+                } catch (RuntimeException e) {
+                    System.err.println(e.getMessage()); // Las demás acciones se ejecutan igualmente
+                }
+            }
+        }
+    }
+}
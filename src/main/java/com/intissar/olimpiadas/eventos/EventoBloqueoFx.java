@@ -0,0 +1,30 @@
+package com.intissar.olimpiadas.eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Bloqueo del hilo de JavaFX de más de vigilante.umbral ms.
+ * Lo emite VigilanteFx al terminar el bloqueo mientras se graba con JFR.
+ */
+@Name("com.intissar.olimpiadas.BloqueoFx")
+@Label("Bloqueo del hilo de JavaFX")
+@Category({"Olimpiadas", "Interfaz"})
+@Description("Bloqueo del hilo de JavaFX con el método de la aplicación que más aparece en sus muestras de pila")
+@StackTrace(false)
+public final class EventoBloqueoFx extends Event {
+    @Label("Método")
+    public String metodo;
+
+    @Label("Duración del bloqueo")
+    @Timespan(Timespan.NANOSECONDS)
+    public long bloqueo;
+
+    @Label("Muestras")
+    public int muestras;
+}
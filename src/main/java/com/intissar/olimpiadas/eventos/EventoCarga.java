@@ -0,0 +1,56 @@
+package com.intissar.olimpiadas.eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Fase de la carga de una tabla en la ventana principal: "columnas" (montar la TableView), "consulta" (leer los datos,
+ * en segundo plano) o "mostrar" (ponerlos en la tabla, en el hilo de JavaFX)
+ */
+@Name("com.intissar.olimpiadas.Carga")
+@Label("Carga de tabla")
+@Category({"Olimpiadas", "Interfaz"})
+@Description("Fase de la carga de una tabla de la ventana principal")
+@StackTrace(false)
+public final class EventoCarga extends Event {
+    @Label("Tabla")
+    public String tabla;
+
+    @Label("Fase")
+    public String fase;
+
+    @Label("Filas")
+    public long filas;
+
+    /**
+     * Empieza una fase
+     *
+     * @param tabla tabla que se carga
+     * @param fase  fase de la carga
+     * @return evento empezado
+     */
+    public static EventoCarga iniciar(String tabla, String fase) {
+        EventoCarga evento = new EventoCarga();
+        evento.begin();
+        evento.tabla = tabla;
+        evento.fase = fase;
+        return evento;
+    }
+
+    /**
+     * Termina la fase y la emite si se está grabando
+     *
+     * @param filas filas cargadas
+     */
+    public void terminar(long filas) {
+        end();
+        if (shouldCommit()) {
+            this.filas = filas;
+            commit();
+        }
+    }
+}
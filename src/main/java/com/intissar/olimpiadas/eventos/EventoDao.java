@@ -0,0 +1,118 @@
+package com.intissar.olimpiadas.eventos;
+
+import java.util.Iterator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Llamada a un método de un DAO: dura lo que la conexión de DBConnect que abre, y suma las filas y sentencias
+ * que se ejecutan con ella. Las llamadas que se resuelven con una caché sin ir a la base de datos no lo emiten.
+ */
+@Name("com.intissar.olimpiadas.Dao")
+@Label("Llamada a DAO")
+@Category({"Olimpiadas", "Base de datos"})
+@Description("Método de un DAO con las sentencias que ha lanzado y las filas que han devuelto")
+@StackTrace(false)
+public final class EventoDao extends Event {
+    private static final EventType TIPO = EventType.getEventType(EventoDao.class);
+    private static final StackWalker PILA = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final String PAQUETE_DAO = "com.intissar.olimpiadas.dao.";
+
+    @Label("Método")
+    public String metodo;
+
+    @Label("Tabla")
+    public String tabla;
+
+    @Label("Filas")
+    public long filas;
+
+    @Label("Sentencias")
+    public int sentencias;
+
+    @Label("Primera plantilla SQL")
+    public String plantilla;
+
+    /**
+     * Empieza el evento de la llamada que está abriendo una conexión
+     *
+     * @return evento empezado, o null si no se está grabando (no cuesta nada más que esta comprobación)
+     */
+    public static EventoDao iniciar() {
+        if (!TIPO.isEnabled()) {
+            return null;
+        }
+        EventoDao evento = new EventoDao();
+        evento.begin();
+        StackWalker.StackFrame llamador = PILA.walk(pila -> {
+            StackWalker.StackFrame primero = null; // primer método fuera de db, si no lo ha llamado un DAO
+            Iterator<StackWalker.StackFrame> marcos = pila.iterator();
+            while (marcos.hasNext()) {
+                StackWalker.StackFrame marco = marcos.next();
+                String clase = marco.getClassName();
+                if (clase.startsWith(PAQUETE_DAO + "Dao")) {
+                    return marco;
+                }
+                if (primero == null && !clase.startsWith("com.intissar.olimpiadas.db.")
+                        && !clase.startsWith("com.intissar.olimpiadas.eventos.")) {
+                    primero = marco;
+                }
+            }
+            return primero;
+        });
+        if (llamador != null) {
+            String clase = llamador.getDeclaringClass().getSimpleName();
+            int dolar = clase.indexOf('$');
+            String nombre = dolar < 0 ? clase : clase.substring(0, dolar); // fuentes paginadas y otras clases internas
+            evento.metodo = nombre + "." + metodo(llamador.getMethodName());
+            if (llamador.getClassName().startsWith(PAQUETE_DAO + "Dao")) {
+                evento.tabla = nombre.substring(3); // DaoDeportista -> Deportista
+            }
+        }
+        return evento;
+    }
+
+    /**
+     * Suma una sentencia ejecutada con la conexión
+     *
+     * @param plantilla plantilla SQL
+     * @param tabla     tabla de la sentencia, o null si no se reconoce
+     * @param filas     filas leídas o modificadas
+     */
+    public void sumar(String plantilla, String tabla, long filas) {
+        if (sentencias++ == 0) {
+            this.plantilla = plantilla;
+            if (this.tabla == null) {
+                this.tabla = tabla;
+            }
+        }
+        this.filas += filas;
+    }
+
+    /**
+     * Termina el evento al devolver la conexión y lo emite si se está grabando
+     */
+    public void terminar() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+
+    /**
+     * Nombre del método sin el prefijo de las lambdas (lambda$cargarListado$0 -> cargarListado)
+     */
+    private static String metodo(String nombre) {
+        if (nombre.startsWith("lambda$")) {
+            int fin = nombre.indexOf('$', 7);
+            return fin < 0 ? nombre.substring(7) : nombre.substring(7, fin);
+        }
+        return nombre;
+    }
+}
@@ -0,0 +1,28 @@
+package com.intissar.olimpiadas.eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Posible N+1: una misma plantilla SQL repetida muchas veces dentro de un ámbito de MetricasJdbc.
+ * Lo emite MetricasJdbc al cerrar el ámbito mientras se graba con JFR.
+ */
+@Name("com.intissar.olimpiadas.N1")
+@Label("Posible N+1")
+@Category({"Olimpiadas", "Base de datos"})
+@Description("Plantilla SQL que se ha ejecutado al menos metricas.n1 veces dentro de una misma operación")
+@StackTrace(false)
+public final class EventoN1 extends Event {
+    @Label("Ámbito")
+    public String ambito;
+
+    @Label("Plantilla SQL")
+    public String plantilla;
+
+    @Label("Ejecuciones")
+    public int veces;
+}
@@ -0,0 +1,31 @@
+package com.intissar.olimpiadas.eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Ejecución de una sentencia SQL, desde que se lanza hasta que se cierra su ResultSet.
+ * Lo emite MetricasJdbc para cada sentencia de una conexión de DBConnect mientras se graba con JFR.
+ */
+@Name("com.intissar.olimpiadas.Sql")
+@Label("Sentencia SQL")
+@Category({"Olimpiadas", "Base de datos"})
+@Description("Ejecución de una sentencia con la plantilla de su SQL y las filas leídas o modificadas")
+@StackTrace(false)
+public final class EventoSql extends Event {
+    @Label("Tabla")
+    public String tabla;
+
+    @Label("Plantilla SQL")
+    public String plantilla;
+
+    @Label("Filas")
+    public long filas;
+
+    @Label("Error")
+    public boolean error;
+}
@@ -0,0 +1,21 @@
+package com.intissar.olimpiadas.eventos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Carga del FXML de una ventana, desde que se lee el fichero hasta que se crea su controlador
+ */
+@Name("com.intissar.olimpiadas.Ventana")
+@Label("Carga de FXML")
+@Category({"Olimpiadas", "Interfaz"})
+@Description("Carga del FXML de una ventana de la aplicación")
+@StackTrace(false)
+public final class EventoVentana extends Event {
+    @Label("FXML")
+    public String fxml;
+}
@@ -13,6 +13,7 @@ public class Deportista {
     private int peso;
     private int altura;
     private Blob foto;
+    private boolean fotoCargada; // false si se ha cargado desde un listado sin foto
 
     /**
      * Constructor con parámetros deportista
@@ -31,6 +32,22 @@ public class Deportista {
         this.peso = peso;
         this.altura = altura;
         this.foto = foto;
+        this.fotoCargada = true;
+    }
+
+    /**
+     * Constructor de deportista sin foto, para listados.
+     * La foto se carga después con DaoDeportista.getFoto si hace falta.
+     *
+     * @param id_deportista del deportista
+     * @param nombre del deportista
+     * @param sexo sexo del deportista
+     * @param peso del deportista
+     * @param altura del deportista
+     */
+    public Deportista(int id_deportista, String nombre, char sexo, int peso, int altura) {
+        this(id_deportista, nombre, sexo, peso, altura, null);
+        this.fotoCargada = false;
     }
 
     /**
@@ -179,6 +196,16 @@ public class Deportista {
      */
     public void setFoto(Blob foto) {
         this.foto = foto;
+        this.fotoCargada = true;
+    }
+
+    /**
+     * Indica si el deportista tiene su foto: se ha leído con ella o se le ha asignado con setFoto
+     *
+     * @return true si getFoto devuelve la foto real, false si se ha cargado sin foto (se pide con DaoDeportista.getFoto)
+     */
+    public boolean isFotoCargada() {
+        return fotoCargada;
     }
 
     @Override
@@ -0,0 +1,272 @@
+package com.intissar.olimpiadas.servicios;
+
+import com.intissar.olimpiadas.dao.FuentePaginada;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Lista observable de tamaño fijo que carga sus filas por páginas a medida que se piden.
+ * Pensada como items de un TableView: la tabla solo pide las filas visibles, así que solo se leen de la
+ * base de datos las páginas que se ven. Mientras una página no ha llegado sus filas valen null, y cuando
+ * llega se avisa a la tabla con un cambio de reemplazo. Solo se guardan en memoria unas pocas páginas;
+ * al superar el máximo se descartan las más alejadas de la última que se ha pedido.
+ *
+ * Para saltar a una página lejana se busca su clave inicial desde la clave final conocida más cercana por delante,
+ * así que el salto solo recorre el índice entre las dos. Las claves finales que se recuerdan también tienen un
+ * máximo. Las cargas de páginas que se quedan lejos de la última pedida (al arrastrar la barra de desplazamiento)
+ * se cancelan y su resultado se descarta, igual que todas las de una lista que se ha cerrado.
+ *
+ * Salvo crear, todos los métodos se usan desde el hilo de JavaFX.
+ * La fuente puede dar un subtipo de T, para mostrar en una misma tabla filas de distintos tipos.
+ *
+ * @param <T> tipo de las filas
+ * @param <K> tipo de la clave de paginación
+ */
+public class ListaPaginada<T, K> extends ObservableListBase<T> {
+    static final int MAX_CLAVES = 1000; // claves finales de página que se recuerdan para los saltos
+
+    private final FuentePaginada<? extends T, K> fuente;
+    private final Cargador cargador;
+    private final int total;
+    private final int tamanioPagina;
+    private final int maxPaginas;
+
+    private final Map<Integer, List<T>> paginas = new HashMap<>(); // páginas en memoria por número
+    private final TreeMap<Integer, K> clavesFinales = new TreeMap<>(); // clave de la última fila de las páginas leídas
+    private final Map<Integer, Future<?>> pendientes = new HashMap<>(); // páginas que se están cargando
+    private int ultimaPedida;
+    private boolean cerrada;
+
+    private ListaPaginada(FuentePaginada<? extends T, K> fuente, int total, int tamanioPagina, int maxPaginas, Cargador cargador) {
+        this.fuente = fuente;
+        this.cargador = cargador;
+        this.total = total;
+        this.tamanioPagina = tamanioPagina;
+        this.maxPaginas = Math.max(3, maxPaginas);
+    }
+
+    /**
+     * Carga la primera página de una fuente ya contada. Hace consultas, así que se llama fuera del hilo de JavaFX.
+     *
+     * @param fuente        origen de las filas
+     * @param total         número de filas de la fuente
+     * @param tamanioPagina filas por página
+     * @param maxPaginas    páginas que se mantienen en memoria
+     * @param <T>           tipo de las filas
+     * @param <K>           tipo de la clave
+     * @return lista lista para usar en una tabla
+     */
+    public static <T, K> ListaPaginada<T, K> crear(FuentePaginada<? extends T, K> fuente, int total, int tamanioPagina, int maxPaginas) {
+        return crear(fuente, total, tamanioPagina, maxPaginas, ServicioCarga::ejecutar);
+    }
+
+    /**
+     * Como crear, con las páginas cargadas por otro cargador en lugar de ServicioCarga
+     */
+    static <T, K> ListaPaginada<T, K> crear(FuentePaginada<? extends T, K> fuente, int total, int tamanioPagina, int maxPaginas, Cargador cargador) {
+        ListaPaginada<T, K> lista = new ListaPaginada<>(fuente, Math.max(0, total), Math.max(1, tamanioPagina), maxPaginas, cargador);
+        if (lista.total > 0) {
+            lista.guardar(0, leer(fuente, null, lista.tamanioPagina));
+        }
+        return lista;
+    }
+
+    @Override
+    public int size() {
+        return total;
+    }
+
+    /**
+     * Devuelve la fila si su página está en memoria; si no, pide la página y devuelve null
+     */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= total) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int numero = index / tamanioPagina;
+        int posicion = index % tamanioPagina;
+        ultimaPedida = numero;
+        if (posicion >= tamanioPagina * 3 / 4 && (numero + 1) * tamanioPagina < total) {
+            pedir(numero + 1); // Adelantar la siguiente página al acercarse al final de esta
+        }
+        List<T> pagina = paginas.get(numero);
+        if (pagina == null) {
+            pedir(numero);
+            return null;
+        }
+        return posicion < pagina.size() ? pagina.get(posicion) : null;
+    }
+
+    /**
+     * Cambia una fila por su nueva versión después de editarla, si su página está en memoria.
+     * Si no lo está no hace falta: la página se leerá de la base de datos con los datos nuevos.
+     *
+     * @param anterior fila editada
+     * @param nueva    fila que la sustituye
+     */
+    public void reemplazar(T anterior, T nueva) {
+        for (Map.Entry<Integer, List<T>> entrada : paginas.entrySet()) {
+            int posicion = entrada.getValue().indexOf(anterior);
+            if (posicion >= 0) {
+                List<T> pagina = new ArrayList<>(entrada.getValue()); // Las páginas leídas pueden ser inmutables
+                pagina.set(posicion, nueva);
+                entrada.setValue(pagina);
+                int indice = entrada.getKey() * tamanioPagina + posicion;
+                avisarReemplazo(indice, indice + 1, List.of(anterior));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deja de cargar páginas: cancela las que están en camino y descarta lo que llegue después.
+     * Se llama cuando la tabla pasa a mostrar otra lista.
+     */
+    public void cerrar() {
+        cerrada = true;
+        for (Future<?> carga : pendientes.values()) {
+            cancelar(carga);
+        }
+        pendientes.clear();
+    }
+
+    /**
+     * Carga una página en segundo plano si no está ya en memoria o en camino
+     *
+     * @param numero número de página
+     */
+    private void pedir(int numero) {
+        if (cerrada || paginas.containsKey(numero) || pendientes.containsKey(numero)) {
+            return;
+        }
+        cancelarLejanas();
+        // Las claves se leen aquí, en el hilo de JavaFX
+        Map.Entry<Integer, K> conocida = numero == 0 ? null : clavesFinales.floorEntry(numero - 1);
+        K desde = conocida == null ? null : conocida.getValue();
+        int salto = numero * tamanioPagina - (conocida == null ? 0 : (conocida.getKey() + 1) * tamanioPagina); // filas hasta la página
+        pendientes.put(numero, null); // En camino; la carga se anota al crearla, el cargador puede terminar antes
+        Future<?> carga = cargador.ejecutar(() -> {
+            K despuesDe = desde;
+            if (salto > 0) {
+                despuesDe = fuente.claveTras(desde, salto); // Salto a una página no contigua
+                if (despuesDe == null) {
+                    return new Pagina<T, K>(List.of(), null);
+                }
+            }
+            Pagina<T, K> pagina = leer(fuente, despuesDe, tamanioPagina); // Con tipo, para que no se infiera el de la fuente
+            return pagina;
+        }, pagina -> {
+            if (!pendientes.containsKey(numero)) {
+                return; // Cancelada: la página ya no interesa
+            }
+            pendientes.remove(numero);
+            guardar(numero, pagina);
+            int desdeFila = numero * tamanioPagina;
+            int hasta = Math.min(total, desdeFila + tamanioPagina);
+            avisarReemplazo(desdeFila, hasta, Collections.nCopies(hasta - desdeFila, null));
+            descartarLejanas();
+        }, error -> {
+            if (pendientes.containsKey(numero)) {
+                pendientes.remove(numero);
+                System.err.println(error.getMessage());
+            }
+        });
+        pendientes.replace(numero, carga);
+    }
+
+    private static void cancelar(Future<?> carga) {
+        if (carga != null) {
+            carga.cancel(false);
+        }
+    }
+
+    /**
+     * Cancela las cargas de páginas que han quedado más lejos de la última pedida de lo que se guarda en memoria
+     */
+    private void cancelarLejanas() {
+        Iterator<Map.Entry<Integer, Future<?>>> it = pendientes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<?>> entrada = it.next();
+            if (Math.abs(entrada.getKey() - ultimaPedida) >= maxPaginas) {
+                cancelar(entrada.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Lee una página de la fuente con la clave de su última fila, que se saca mientras se conoce el tipo exacto de las filas
+     */
+    private static <T, U extends T, K> Pagina<T, K> leer(FuentePaginada<U, K> fuente, K despuesDe, int limite) {
+        List<U> filas = fuente.cargarPagina(despuesDe, limite);
+        return new Pagina<>(Collections.unmodifiableList(filas), filas.isEmpty() ? null : fuente.clave(filas.get(filas.size() - 1)));
+    }
+
+    /**
+     * Guarda una página y la clave de su última fila
+     */
+    private void guardar(int numero, Pagina<T, K> pagina) {
+        paginas.put(numero, pagina.filas());
+        if (!pagina.filas().isEmpty()) {
+            clavesFinales.put(numero, pagina.ultimaClave());
+            while (clavesFinales.size() > MAX_CLAVES) { // Se olvida la más alejada de la última pedida
+                int primera = clavesFinales.firstKey();
+                int ultima = clavesFinales.lastKey();
+                clavesFinales.remove(ultimaPedida - primera >= ultima - ultimaPedida ? primera : ultima);
+            }
+        }
+    }
+
+    /**
+     * Descarta las páginas más alejadas de la última pedida hasta quedarse con maxPaginas
+     */
+    private void descartarLejanas() {
+        while (paginas.size() > maxPaginas) {
+            int lejana = ultimaPedida;
+            for (int numero : paginas.keySet()) {
+                if (Math.abs(numero - ultimaPedida) > Math.abs(lejana - ultimaPedida)) {
+                    lejana = numero;
+                }
+            }
+            List<T> filas = paginas.remove(lejana);
+            int desde = lejana * tamanioPagina;
+            avisarReemplazo(desde, Math.min(total, desde + tamanioPagina), filas);
+        }
+    }
+
+    /**
+     * Notifica a los listeners que las filas [desde, hasta) han cambiado
+     */
+    private void avisarReemplazo(int desde, int hasta, List<T> anteriores) {
+        if (desde >= hasta) {
+            return;
+        }
+        beginChange();
+        nextReplace(desde, hasta, anteriores.size() == hasta - desde ? anteriores : Collections.nCopies(hasta - desde, null));
+        endChange();
+    }
+
+    /**
+     * Ejecuta la carga de una página fuera del hilo de JavaFX y entrega el resultado o el error en él, como ServicioCarga.
+     * Si se cancela la carga devuelta, no se entrega nada.
+     */
+    interface Cargador {
+        <R> Future<R> ejecutar(Callable<R> carga, Consumer<R> alTerminar, Consumer<Throwable> alFallar);
+    }
+
+    /**
+     * Filas de una página y clave de la última
+     */
+    private record Pagina<T, K>(List<T> filas, K ultimaClave) {}
+}
@@ -0,0 +1,92 @@
+package com.intissar.olimpiadas.servicios;
+
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Servicio que ejecuta las cargas de datos de los DAO fuera del hilo de JavaFX.
+ * La consulta se ejecuta en un hilo de fondo y el resultado se publica en el hilo de JavaFX,
+ * de forma que la interfaz no se bloquea mientras se espera a la base de datos.
+ */
+public final class ServicioCarga {
+    private static final AtomicInteger contador = new AtomicInteger();
+    private static final ExecutorService ejecutor = Executors.newFixedThreadPool(
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), r -> {
+                Thread t = new Thread(r, "olimpiadas-carga-" + contador.incrementAndGet());
+                t.setDaemon(true); // No impide que la aplicación se cierre
+                return t;
+            });
+
+    private ServicioCarga() {}
+
+    /**
+     * Ejecuta una carga en segundo plano. Si falla, el error se muestra por consola.
+     *
+     * @param carga      función que consulta la base de datos (se ejecuta fuera del hilo de JavaFX)
+     * @param alTerminar recibe el resultado en el hilo de JavaFX
+     * @param <T>        tipo del resultado
+     * @return tarea en ejecución, que se puede cancelar si el resultado ya no interesa
+     */
+    public static <T> Task<T> ejecutar(Callable<T> carga, Consumer<T> alTerminar) {
+        return ejecutar(carga, alTerminar, error -> System.err.println(error.getMessage()));
+    }
+
+    /**
+     * Ejecuta una carga en segundo plano
+     *
+     * @param carga      función que consulta la base de datos (se ejecuta fuera del hilo de JavaFX)
+     * @param alTerminar recibe el resultado en el hilo de JavaFX
+     * @param alFallar   recibe el error en el hilo de JavaFX
+     * @param <T>        tipo del resultado
+     * @return tarea en ejecución, que se puede cancelar si el resultado ya no interesa
+     */
+    public static <T> Task<T> ejecutar(Callable<T> carga, Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        Task<T> tarea = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return carga.call();
+            }
+        };
+        // Task lanza estos eventos con Platform.runLater, así que se ejecutan en el hilo de JavaFX
+        tarea.setOnSucceeded(event -> alTerminar.accept(tarea.getValue()));
+        tarea.setOnFailed(event -> alFallar.accept(tarea.getException()));
+        ejecutor.execute(tarea);
+        return tarea;
+    }
+
+    /**
+     * Carga los elementos de una lista en segundo plano, mostrando un indicador de carga mientras tanto
+     *
+     * @param lista        lista a rellenar
+     * @param carga        consulta al DAO
+     * @param seleccionado elemento a seleccionar cuando termine la carga, o null
+     * @param <T>          tipo de los elementos
+     * @return tarea en ejecución
+     */
+    public static <T> Task<ObservableList<T>> cargarLista(ListView<T> lista, Callable<ObservableList<T>> carga, T seleccionado) {
+        lista.setPlaceholder(new ProgressIndicator());
+        return ejecutar(carga, datos -> {
+            lista.getItems().setAll(datos);
+            lista.setPlaceholder(null);
+            if (seleccionado != null) {
+                lista.getSelectionModel().select(seleccionado);
+                lista.scrollTo(seleccionado);
+            }
+        });
+    }
+
+    /**
+     * Detiene los hilos de carga al cerrar la aplicación
+     */
+    public static void shutdown() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,240 @@
+package com.intissar.olimpiadas.servicios;
+
+import com.intissar.olimpiadas.dao.AlmacenFotos;
+import com.intissar.olimpiadas.dao.DaoDeportista;
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.model.Deportista;
+import javafx.concurrent.Task;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Servicio de miniaturas de las fotos de los deportistas.
+ * La foto se lee y se decodifica en los hilos de ServicioCarga, ya reducida a fotos.miniatura píxeles de lado, y la
+ * miniatura se guarda en memoria (las fotos.memoria más recientes) y en disco en fotos.cache, con el id del deportista
+ * y el SHA-256 de la foto en el nombre del fichero. Al volver a abrir un deportista se muestra enseguida la miniatura
+ * en memoria; si la foto ha cambiado en la base de datos, el hash ya no coincide y se vuelve a decodificar.
+ *
+ * Con fotos.almacen=disco la tabla ya tiene el hash de la foto, así que primero se busca la miniatura por ese hash y
+ * la foto solo se lee y se decodifica si no está en memoria ni en el disco.
+ */
+public final class ServicioFotos {
+    private static final int LADO = Math.max(16, DBConnect.getConfigurationInt("fotos.miniatura", 300));
+    private static final int MAX_MEMORIA = Math.max(1, DBConnect.getConfigurationInt("fotos.memoria", 200));
+    private static final Path CACHE = directorioCache();
+    private static final String EXTENSION = ".miniatura";
+
+    /**
+     * Miniaturas por id de deportista, de la menos a la más usada. Protegido por sí mismo.
+     */
+    private static final Map<Integer, Miniatura> memoria = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Miniatura> eldest) {
+            return size() > MAX_MEMORIA;
+        }
+    };
+
+    private record Miniatura(String hash, Image imagen) {}
+
+    /**
+     * Foto de un deportista con su miniatura
+     *
+     * @param blob      foto tal como está en la base de datos, o null si no tiene o si no se ha leído porque su
+     *                  miniatura ya estaba guardada
+     * @param miniatura miniatura decodificada, o null si no tiene foto o no se ha podido decodificar
+     */
+    public record Foto(Blob blob, Image miniatura) {}
+
+    private ServicioFotos() {}
+
+    /**
+     * Miniatura que se mostró la última vez que se abrió el deportista, para enseñarla mientras se comprueba
+     * si la foto ha cambiado
+     *
+     * @param idDeportista id del deportista
+     * @return miniatura en memoria, o null
+     */
+    public static Image enMemoria(int idDeportista) {
+        synchronized (memoria) {
+            Miniatura miniatura = memoria.get(idDeportista);
+            return miniatura == null ? null : miniatura.imagen();
+        }
+    }
+
+    /**
+     * Lee la foto del deportista y su miniatura en segundo plano.
+     * Si no se puede leer la foto, alTerminar no se llama y el error se muestra por consola.
+     *
+     * @param deportista deportista con id
+     * @param alTerminar recibe la foto en el hilo de JavaFX
+     * @return tarea en ejecución
+     */
+    public static Task<Foto> cargar(Deportista deportista, Consumer<Foto> alTerminar) {
+        return ServicioCarga.ejecutar(() -> {
+            int id = deportista.getId_deportista();
+            String hash = DaoDeportista.getFotoHash(deportista);
+            Image guardada = hash == null ? null : guardada(id, hash);
+            if (guardada != null) {
+                return new Foto(null, guardada); // No hace falta leer la foto
+            }
+            Blob blob = DaoDeportista.getFoto(deportista);
+            return new Foto(blob, blob == null ? null : miniatura(id, blob));
+        }, alTerminar);
+    }
+
+    /**
+     * Decodifica una imagen de un fichero en segundo plano, ya reducida al tamaño de las miniaturas
+     *
+     * @param ruta fichero de imagen
+     * @return imagen que se va cargando sin bloquear el hilo de JavaFX
+     */
+    public static Image desdeFichero(Path ruta) {
+        return new Image(ruta.toUri().toString(), LADO, LADO, true, true, true);
+    }
+
+    /**
+     * Olvida la miniatura en memoria de un deportista, tras cambiar o borrar su foto.
+     * La del disco deja de usarse sola porque el hash de la foto nueva es otro.
+     *
+     * @param idDeportista id del deportista
+     */
+    public static void olvidar(int idDeportista) {
+        synchronized (memoria) {
+            memoria.remove(idDeportista);
+        }
+    }
+
+    /**
+     * Miniatura de una foto: la guardada si el hash coincide, y si no, la decodifica y la guarda
+     */
+    private static Image miniatura(int idDeportista, Blob blob) throws SQLException {
+        byte[] bytes = blob.getBytes(1, (int) blob.length());
+        String hash = AlmacenFotos.sha256(bytes);
+        Image imagen = guardada(idDeportista, hash);
+        if (imagen != null) {
+            return imagen;
+        }
+        imagen = new Image(new ByteArrayInputStream(bytes), LADO, LADO, true, true); // ya estamos en un hilo de fondo
+        if (imagen.isError()) {
+            System.err.println("No se puede decodificar la foto del deportista " + idDeportista);
+            return null;
+        }
+        if (CACHE != null) {
+            escribirCache(idDeportista, fichero(idDeportista, hash), imagen);
+        }
+        synchronized (memoria) {
+            memoria.put(idDeportista, new Miniatura(hash, imagen));
+        }
+        return imagen;
+    }
+
+    /**
+     * Miniatura guardada de una foto: la de memoria o la del disco si el hash coincide
+     *
+     * @return miniatura, o null si no hay ninguna de esa foto
+     */
+    private static Image guardada(int idDeportista, String hash) {
+        synchronized (memoria) {
+            Miniatura guardada = memoria.get(idDeportista);
+            if (guardada != null && guardada.hash().equals(hash)) {
+                return guardada.imagen();
+            }
+        }
+        Image imagen = CACHE == null ? null : leerCache(fichero(idDeportista, hash));
+        if (imagen != null) {
+            synchronized (memoria) {
+                memoria.put(idDeportista, new Miniatura(hash, imagen));
+            }
+        }
+        return imagen;
+    }
+
+    private static Path fichero(int idDeportista, String hash) {
+        return CACHE.resolve(idDeportista + "-" + hash + EXTENSION);
+    }
+
+    /**
+     * Lee una miniatura del disco: ancho, alto y los píxeles BGRA comprimidos, que no hace falta decodificar.
+     * Si el fichero está dañado o su tamaño no es el de una miniatura, se borra para volver a decodificar la foto.
+     */
+    private static Image leerCache(Path fichero) {
+        if (!Files.isRegularFile(fichero)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(Files.newInputStream(fichero)))) {
+            int ancho = in.readInt();
+            int alto = in.readInt();
+            if (ancho < 1 || alto < 1 || ancho > LADO || alto > LADO) { // no se reserva memoria según un fichero dañado
+                throw new IOException("Tamaño de miniatura no válido (" + ancho + "x" + alto + ") en " + fichero);
+            }
+            byte[] pixeles = new byte[ancho * alto * 4];
+            in.readFully(pixeles);
+            WritableImage imagen = new WritableImage(ancho, alto);
+            imagen.getPixelWriter().setPixels(0, 0, ancho, alto, PixelFormat.getByteBgraInstance(), pixeles, 0, ancho * 4);
+            return imagen;
+        } catch (IOException | RuntimeException e) {
+            System.err.println(e.getMessage()); // Se vuelve a decodificar la foto
+            try {
+                Files.deleteIfExists(fichero);
+            } catch (IOException ex) {
+                System.err.println(ex.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Escribe una miniatura en el disco y borra las anteriores del mismo deportista
+     */
+    private static void escribirCache(int idDeportista, Path fichero, Image imagen) {
+        int ancho = (int) imagen.getWidth();
+        int alto = (int) imagen.getHeight();
+        byte[] pixeles = new byte[ancho * alto * 4];
+        imagen.getPixelReader().getPixels(0, 0, ancho, alto, PixelFormat.getByteBgraInstance(), pixeles, 0, ancho * 4);
+        try {
+            Files.createDirectories(CACHE);
+            try (DirectoryStream<Path> anteriores = Files.newDirectoryStream(CACHE, idDeportista + "-*" + EXTENSION)) {
+                for (Path anterior : anteriores) {
+                    Files.deleteIfExists(anterior);
+                }
+            }
+            Path temporal = Files.createTempFile(CACHE, idDeportista + "-", ".tmp");
+            Deflater compresor = new Deflater(Deflater.BEST_SPEED); // los píxeles se leen mucho más que se escriben
+            try (OutputStream salida = Files.newOutputStream(temporal);
+                 DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(salida, compresor, 1 << 16))) {
+                out.writeInt(ancho);
+                out.writeInt(alto);
+                out.write(pixeles);
+            } finally {
+                compresor.end();
+            }
+            Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); // nunca se lee a medias
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private static Path directorioCache() {
+        String ruta = DBConnect.getConfiguration().getProperty("fotos.cache", "cache/miniaturas").trim();
+        return ruta.isEmpty() ? null : Path.of(ruta);
+    }
+}
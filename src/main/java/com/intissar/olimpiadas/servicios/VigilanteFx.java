@@ -0,0 +1,242 @@
+package com.intissar.olimpiadas.servicios;
+
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.eventos.EventoBloqueoFx;
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vigilante del hilo de JavaFX: cada pocos ms encola un latido con Platform.runLater y, cuando un latido tarda más
+ * de vigilante.umbral ms en ejecutarse, toma muestras de la pila del hilo mientras sigue bloqueado. Cada bloqueo se
+ * atribuye al método de la aplicación (controlador o DAO) que más aparece en sus muestras, y los bloqueos se agrupan
+ * por ese método en un informe que se escribe en vigilante.fichero; mientras se graba con JFR, cada bloqueo emite
+ * además un EventoBloqueoFx.
+ *
+ * Los latidos no piden pulsos de dibujo a JavaFX, así que la ventana no se redibuja por el vigilante cuando no tiene
+ * nada que mostrar. Está desactivado por defecto y se activa con vigilante.umbral mayor que 0.
+ */
+public final class VigilanteFx {
+    private static final String PAQUETE = "com.intissar.olimpiadas.";
+    private static final int MAX_MUESTRAS = 100; // muestras por bloqueo
+    private static final int MAX_EJEMPLO = 25; // marcos de la pila de ejemplo en el informe
+
+    private static VigilanteFx instancia;
+
+    private final long umbral; // ns
+    private final long intervalo; // ms entre comprobaciones del hilo vigilante
+    private final Thread hiloFx;
+    private final Thread vigilante;
+    private final Map<String, Culpable> culpables = new HashMap<>(); // método de la aplicación -> bloqueos
+    private final List<StackTraceElement[]> muestras = new ArrayList<>(); // muestras del bloqueo en curso
+    private long latidoPendiente; // ns en que se encoló el latido que aún no se ha ejecutado, 0 si no hay ninguno
+    private long numLatidos;
+    private long bloqueos;
+    private long tiempoBloqueado; // ns
+    private long peorBloqueo; // ns
+
+    private VigilanteFx(long umbralMs) {
+        umbral = umbralMs * 1_000_000;
+        intervalo = Math.max(5, umbralMs / 5);
+        hiloFx = Thread.currentThread();
+        vigilante = new Thread(this::vigilar, "olimpiadas-vigilante-fx");
+        vigilante.setDaemon(true); // No impide que la aplicación se cierre
+    }
+
+    /**
+     * Empieza a vigilar el hilo de JavaFX si vigilante.umbral es mayor que 0 (desactivado por defecto).
+     * Se llama desde el hilo de JavaFX.
+     */
+    public static synchronized void iniciar() {
+        int umbralMs = DBConnect.getConfigurationInt("vigilante.umbral", 0);
+        if (instancia != null || umbralMs <= 0) {
+            return;
+        }
+        instancia = new VigilanteFx(umbralMs);
+        instancia.vigilante.start();
+    }
+
+    /**
+     * Deja de vigilar y escribe el informe en vigilante.fichero si esa clave está definida
+     */
+    public static synchronized void detener() {
+        if (instancia == null) {
+            return;
+        }
+        instancia.vigilante.interrupt();
+        String fichero = DBConnect.getConfiguration().getProperty("vigilante.fichero");
+        if (fichero != null && !fichero.isBlank()) {
+            System.out.println(instancia.volcar(Path.of(fichero.trim())));
+        }
+        instancia = null;
+    }
+
+    /**
+     * @return informe de los bloqueos hasta ahora, o un aviso si el vigilante no está en marcha
+     */
+    public static synchronized String informe() {
+        return instancia == null ? "Vigilante del hilo de JavaFX desactivado" : instancia.generarInforme();
+    }
+
+    /**
+     * Se ejecuta el latido en el hilo de JavaFX: si ha esperado más del umbral, registra el bloqueo con las muestras
+     * tomadas
+     */
+    private synchronized void latido() {
+        numLatidos++;
+        long hueco = System.nanoTime() - latidoPendiente;
+        latidoPendiente = 0;
+        if (hueco > umbral) {
+            registrar(hueco);
+        }
+        muestras.clear();
+    }
+
+    /**
+     * Hilo vigilante: encola un latido si no hay ninguno pendiente y, mientras el pendiente lleve más del umbral sin
+     * ejecutarse, toma una muestra de la pila del hilo de JavaFX
+     */
+    private void vigilar() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(intervalo);
+                boolean bloqueado;
+                synchronized (this) {
+                    if (latidoPendiente == 0) {
+                        latidoPendiente = System.nanoTime();
+                        Platform.runLater(this::latido);
+                        continue;
+                    }
+                    bloqueado = System.nanoTime() - latidoPendiente > umbral && muestras.size() < MAX_MUESTRAS;
+                }
+                if (bloqueado) {
+                    StackTraceElement[] pila = hiloFx.getStackTrace(); // fuera del cerrojo: el hilo de JavaFX puede querer el latido
+                    synchronized (this) {
+                        if (latidoPendiente != 0) { // el latido puede haberse ejecutado mientras tanto
+                            muestras.add(pila);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Se ha detenido el vigilante
+        }
+    }
+
+    private void registrar(long hueco) {
+        bloqueos++;
+        tiempoBloqueado += hueco;
+        peorBloqueo = Math.max(peorBloqueo, hueco);
+        Map<String, Integer> veces = new HashMap<>();
+        Map<String, StackTraceElement[]> ejemplos = new HashMap<>();
+        for (StackTraceElement[] pila : muestras) {
+            String marco = culpable(pila);
+            veces.merge(marco, 1, Integer::sum);
+            ejemplos.putIfAbsent(marco, pila);
+        }
+        String marco = veces.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse("(sin muestras, bloqueo más corto que el intervalo de muestreo)");
+        culpables.computeIfAbsent(marco, m -> new Culpable()).registrar(hueco, ejemplos.get(marco));
+        EventoBloqueoFx evento = new EventoBloqueoFx();
+        if (evento.shouldCommit()) {
+            evento.metodo = marco;
+            evento.bloqueo = hueco;
+            evento.muestras = muestras.size();
+            evento.commit();
+        }
+    }
+
+    /**
+     * Método de la aplicación más interno de una pila, con el controlador que lo ha llamado si es otro.
+     * Si la pila no pasa por la aplicación (por ejemplo, un relayout de JavaFX) se usa el marco superior.
+     */
+    private static String culpable(StackTraceElement[] pila) {
+        StackTraceElement interno = null;
+        StackTraceElement controlador = null;
+        for (StackTraceElement marco : pila) {
+            String clase = marco.getClassName();
+            if (!clase.startsWith(PAQUETE) || clase.equals(VigilanteFx.class.getName())) {
+                continue;
+            }
+            if (interno == null) {
+                interno = marco;
+            }
+            if (clase.startsWith(PAQUETE + "controladores.")) {
+                controlador = marco; // el más externo
+            }
+        }
+        if (interno == null) {
+            return pila.length == 0 ? "(pila vacía)" : texto(pila[0]);
+        }
+        if (controlador == null || controlador == interno) {
+            return texto(interno);
+        }
+        return texto(interno) + " <- " + texto(controlador);
+    }
+
+    private static String texto(StackTraceElement marco) {
+        String clase = marco.getClassName();
+        return clase.substring(clase.lastIndexOf('.') + 1) + "." + marco.getMethodName()
+                + (marco.getLineNumber() > 0 ? ":" + marco.getLineNumber() : "");
+    }
+
+    private synchronized String generarInforme() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Latidos: ").append(numLatidos).append(", bloqueos de más de ").append(umbral / 1_000_000).append(" ms: ")
+                .append(bloqueos).append(", tiempo bloqueado: ").append(tiempoBloqueado / 1_000_000).append(" ms, peor: ")
+                .append(peorBloqueo / 1_000_000).append(" ms\n");
+        culpables.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Culpable> e) -> e.getValue().total).reversed())
+                .forEach(e -> {
+                    Culpable c = e.getValue();
+                    sb.append('\n').append(e.getKey()).append(": ").append(c.veces).append(" bloqueos, ")
+                            .append(c.total / 1_000_000).append(" ms en total, peor ").append(c.peor / 1_000_000).append(" ms\n");
+                    if (c.ejemplo != null) {
+                        for (int i = 0; i < Math.min(MAX_EJEMPLO, c.ejemplo.length); i++) {
+                            sb.append("    at ").append(c.ejemplo[i]).append('\n');
+                        }
+                    }
+                });
+        return sb.toString();
+    }
+
+    private String volcar(Path ruta) {
+        try (Writer out = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8)) {
+            out.write(generarInforme());
+            return "Informe del hilo de JavaFX escrito en " + ruta;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return "Error al escribir el informe del hilo de JavaFX: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Bloqueos atribuidos a un mismo método
+     */
+    private static final class Culpable {
+        private int veces;
+        private long total; // ns
+        private long peor; // ns
+        private StackTraceElement[] ejemplo; // pila del peor bloqueo con muestras
+
+        void registrar(long hueco, StackTraceElement[] pila) {
+            veces++;
+            total += hueco;
+            if (hueco >= peor && pila != null) {
+                ejemplo = pila;
+            }
+            peor = Math.max(peor, hueco);
+        }
+    }
+}
@@ -2,6 +2,8 @@ module com.alesandro.olimpiadas {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires java.management;
+    requires jdk.jfr;
 
 
     opens com.intissar.olimpiadas to javafx.fxml;
@@ -9,6 +11,8 @@ module com.alesandro.olimpiadas {
     exports com.intissar.olimpiadas.controladores;
     exports com.intissar.olimpiadas.model;
     exports com.intissar.olimpiadas.dao;
+    exports com.intissar.olimpiadas.db to java.management;
+    exports com.intissar.olimpiadas.eventos to jdk.jfr;
     opens com.intissar.olimpiadas.controladores to javafx.fxml;
     exports com.intissar.olimpiadas.language;
     opens com.intissar.olimpiadas.language to javafx.fxml;
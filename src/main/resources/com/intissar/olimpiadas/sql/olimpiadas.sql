@@ -63,7 +63,9 @@ CREATE TABLE `Deportista` (
   `peso` int(11) DEFAULT NULL,
   `altura` int(11) DEFAULT NULL,
   `foto` blob DEFAULT NULL,
-  PRIMARY KEY (`id_deportista`)
+  `foto_hash` char(64) DEFAULT NULL,
+  PRIMARY KEY (`id_deportista`),
+  KEY `IDX_Deportista_nombre` (`nombre`)
 ) ENGINE=InnoDB AUTO_INCREMENT=10 DEFAULT CHARSET=latin1 COLLATE=latin1_spanish_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -74,8 +76,8 @@ CREATE TABLE `Deportista` (
 LOCK TABLES `Deportista` WRITE;
 /*!40000 ALTER TABLE `Deportista` DISABLE KEYS */;
 INSERT INTO `Deportista` VALUES
-(1,'A Dijiang','M',80,180,NULL),
-(2,'A Lamusi','M',60,170,NULL);
+(1,'A Dijiang','M',80,180,NULL,NULL),
+(2,'A Lamusi','M',60,170,NULL,NULL);
 /*!40000 ALTER TABLE `Deportista` ENABLE KEYS */;
 UNLOCK TABLES;
 
@@ -90,7 +92,8 @@ CREATE TABLE `Equipo` (
   `id_equipo` int(11) NOT NULL AUTO_INCREMENT,
   `nombre` varchar(50) NOT NULL,
   `iniciales` varchar(3) NOT NULL,
-  PRIMARY KEY (`id_equipo`)
+  PRIMARY KEY (`id_equipo`),
+  KEY `IDX_Equipo_nombre` (`nombre`)
 ) ENGINE=InnoDB AUTO_INCREMENT=10 DEFAULT CHARSET=latin1 COLLATE=latin1_spanish_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -121,6 +124,7 @@ CREATE TABLE `Evento` (
   PRIMARY KEY (`id_evento`),
   KEY `FK_Evento_Deporte` (`id_deporte`),
   KEY `FK_Evento_Olimpiada` (`id_olimpiada`),
+  KEY `IDX_Evento_nombre` (`nombre`),
   CONSTRAINT `FK_Evento_Deporte` FOREIGN KEY (`id_deporte`) REFERENCES `Deporte` (`id_deporte`),
   CONSTRAINT `FK_Evento_Olimpiada` FOREIGN KEY (`id_olimpiada`) REFERENCES `Olimpiada` (`id_olimpiada`)
 ) ENGINE=InnoDB AUTO_INCREMENT=10 DEFAULT CHARSET=latin1 COLLATE=latin1_spanish_ci;
@@ -181,6 +185,7 @@ CREATE TABLE `Participacion` (
   PRIMARY KEY (`id_deportista`,`id_evento`),
   KEY `FK_Participacion_Equipo` (`id_equipo`),
   KEY `FK_Participacion_Evento` (`id_evento`),
+  KEY `IDX_Participacion_medalla` (`medalla`),
   CONSTRAINT `FK_Participacion_Deportista` FOREIGN KEY (`id_deportista`) REFERENCES `Deportista` (`id_deportista`),
   CONSTRAINT `FK_Participacion_Equipo` FOREIGN KEY (`id_equipo`) REFERENCES `Equipo` (`id_equipo`),
   CONSTRAINT `FK_Participacion_Evento` FOREIGN KEY (`id_evento`) REFERENCES `Evento` (`id_evento`)
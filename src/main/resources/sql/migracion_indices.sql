@@ -0,0 +1,9 @@
+--
+-- Índices de los filtros por nombre y medalla, para las bases de datos creadas con un olimpiadas.sql anterior.
+-- Se aplica una sola vez: mysql olimpiadas < migracion_indices.sql
+--
+
+CREATE INDEX `IDX_Deportista_nombre` ON `Deportista` (`nombre`);
+CREATE INDEX `IDX_Equipo_nombre` ON `Equipo` (`nombre`);
+CREATE INDEX `IDX_Evento_nombre` ON `Evento` (`nombre`);
+CREATE INDEX `IDX_Participacion_medalla` ON `Participacion` (`medalla`);
@@ -0,0 +1,145 @@
+package com.intissar.olimpiadas.busqueda;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de IndiceNombres con nombres sueltos: cada elemento es un array de un solo nombre,
+ * de forma que dos elementos con el mismo nombre son objetos distintos, como dos filas de la tabla.
+ */
+class IndiceNombresTest {
+    private static final Function<String[], String> NOMBRE = elemento -> elemento[0];
+
+    private static List<String[]> elementos(String... nombres) {
+        List<String[]> lista = new ArrayList<>();
+        for (String nombre : nombres) {
+            lista.add(new String[]{nombre});
+        }
+        return lista;
+    }
+
+    private static List<String> filtrar(IndiceNombres<String[]> indice, List<String[]> elementos, String consulta) {
+        Predicate<String[]> predicado = indice.predicado(consulta);
+        return elementos.stream().filter(predicado == null ? e -> true : predicado).map(NOMBRE).toList();
+    }
+
+    @Test
+    void normalizaMinusculasYAcentos() {
+        assertEquals("angela nunez", IndiceNombres.normalizar("Ángela NÚÑEZ"));
+        assertEquals("francois muller", IndiceNombres.normalizar("François Müller"));
+        assertEquals("", IndiceNombres.normalizar(null));
+    }
+
+    @Test
+    void buscaSinDistinguirAcentosNiMayusculas() {
+        List<String[]> elementos = elementos("Ángela Núñez", "Angel Perez", "María José", "Jose Maria");
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos, NOMBRE);
+        assertEquals(List.of("Ángela Núñez", "Angel Perez"), filtrar(indice, elementos, "ANGEL"));
+        assertEquals(List.of("Ángela Núñez"), filtrar(indice, elementos, "nuñ"));
+        assertEquals(List.of("María José", "Jose Maria"), filtrar(indice, elementos, "josé"));
+    }
+
+    @Test
+    void buscaEnCualquierParteDelNombre() {
+        List<String[]> elementos = elementos("Carl Lewis", "Lewis Hamilton", "Carlos Sainz");
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos, NOMBRE);
+        assertEquals(List.of("Carl Lewis", "Lewis Hamilton"), filtrar(indice, elementos, "lewis"));
+        assertEquals(List.of("Lewis Hamilton"), filtrar(indice, elementos, "hamil"));
+        assertEquals(List.of("Carl Lewis", "Carlos Sainz"), filtrar(indice, elementos, "ar"), "las consultas de menos de 3 letras no usan trigramas");
+        assertEquals(List.of(), filtrar(indice, elementos, "xyz"));
+    }
+
+    @Test
+    void sinConsultaNoFiltra() {
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos("Carl Lewis"), NOMBRE);
+        assertNull(indice.predicado(""));
+        assertNull(indice.predicado(null));
+    }
+
+    @Test
+    void alAmpliarLaConsultaSoloRevisaLosResultadosAnteriores() {
+        List<String[]> elementos = elementos("Garcia", "Gardner", "Marga", "Lopez");
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos, NOMBRE);
+        assertArrayEquals(new int[]{0, 1}, indice.buscar("gar"));
+        assertArrayEquals(new int[]{0}, indice.buscar("garc"));
+        assertArrayEquals(new int[]{0}, indice.buscar("garci"));
+        // Una consulta que no contiene la anterior vuelve a buscar en todo el índice
+        assertArrayEquals(new int[]{0, 1, 2}, indice.buscar("ar"));
+        assertArrayEquals(new int[]{2}, indice.buscar("marga"));
+        assertArrayEquals(new int[]{3}, indice.buscar("lo"));
+    }
+
+    @Test
+    void losTrigramasRepetidosEnUnNombreNoDuplicanResultados() {
+        List<String[]> elementos = elementos("Anananas", "Banana");
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos, NOMBRE);
+        assertArrayEquals(new int[]{0, 1}, indice.buscar("ana"));
+        assertArrayEquals(new int[]{0, 1}, indice.buscar("anan"));
+    }
+
+    @Test
+    void quitarDejaDeEncontrarElElemento() {
+        List<String[]> elementos = elementos("Carl Lewis", "Lewis Hamilton");
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos, NOMBRE);
+        assertEquals(2, filtrar(indice, elementos, "lewi").size());
+        indice.quitar(elementos.get(0));
+        assertEquals(List.of("Lewis Hamilton"), filtrar(indice, elementos, "lewis"), "quitar olvida la consulta anterior");
+        indice.quitar(elementos.get(0)); // Quitar dos veces no hace nada
+        assertEquals(List.of("Lewis Hamilton"), filtrar(indice, elementos, "lewis"));
+    }
+
+    @Test
+    void quitarUnoDeDosElementosIgualesSoloQuitaEse() {
+        List<String[]> elementos = elementos("Carl Lewis", "Carl Lewis");
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos, NOMBRE);
+        indice.quitar(elementos.get(1));
+        Predicate<String[]> predicado = indice.predicado("carl");
+        assertTrue(predicado.test(elementos.get(0)));
+        assertFalse(predicado.test(elementos.get(1)));
+    }
+
+    @Test
+    void reemplazarIndexaElNombreNuevo() {
+        List<String[]> elementos = elementos("Carl Lewis", "Usain Bolt");
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos, NOMBRE);
+        assertEquals(List.of("Carl Lewis"), filtrar(indice, elementos, "carl"));
+        String[] editado = {"Frederick Carlton Lewis"};
+        indice.reemplazar(elementos.get(0), editado);
+        elementos.set(0, editado);
+        assertEquals(List.of(), filtrar(indice, elementos, "carl l"), "el nombre anterior ya no se encuentra");
+        assertEquals(List.of("Frederick Carlton Lewis"), filtrar(indice, elementos, "carlton"));
+        assertEquals(List.of("Frederick Carlton Lewis"), filtrar(indice, elementos, "carl"));
+    }
+
+    @Test
+    void agregarIndexaLosElementosNuevos() {
+        List<String[]> elementos = elementos("Carl Lewis");
+        IndiceNombres<String[]> indice = new IndiceNombres<>(elementos, NOMBRE);
+        assertEquals(List.of(), filtrar(indice, elementos, "bolt"));
+        List<String[]> nuevos = elementos("Usain Bolt", "Bolton", "Éric Bolté");
+        for (String[] nuevo : nuevos) {
+            indice.agregar(nuevo);
+            elementos.add(nuevo);
+        }
+        assertEquals(List.of("Usain Bolt", "Bolton", "Éric Bolté"), filtrar(indice, elementos, "bolt"));
+        assertEquals(List.of("Bolton"), filtrar(indice, elementos, "bolto"));
+        assertEquals(List.of("Éric Bolté"), filtrar(indice, elementos, "eric"));
+    }
+
+    @Test
+    void unIndiceVacioAdmiteElementosNuevos() {
+        IndiceNombres<String[]> indice = new IndiceNombres<>(List.of(), NOMBRE);
+        assertArrayEquals(new int[0], indice.buscar("abc"));
+        String[] nuevo = {"Abcdef"};
+        indice.agregar(nuevo);
+        assertTrue(indice.predicado("bcd").test(nuevo));
+        assertEquals(1, Arrays.stream(indice.buscar("ab")).count());
+    }
+}
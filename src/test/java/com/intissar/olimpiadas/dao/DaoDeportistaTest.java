@@ -0,0 +1,97 @@
+package com.intissar.olimpiadas.dao;
+
+import com.intissar.olimpiadas.db.ConnectionPool;
+import com.intissar.olimpiadas.db.DBConnect;
+import com.intissar.olimpiadas.model.Deportista;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de DaoDeportista contra la base de datos H2 en memoria de src/test/resources/configuration.properties,
+ * que el pool crea con el esquema y los datos de olimpiadas.sql.
+ */
+class DaoDeportistaTest {
+    @BeforeAll
+    static void comprobarConfiguracion() {
+        assertTrue(DBConnect.esEmbebida(), "las pruebas se lanzan con -Dolimpiadas.configuracion=src/test/resources/configuration.properties");
+    }
+
+    @AfterAll
+    static void cerrarPool() {
+        ConnectionPool.shutdownInstance();
+    }
+
+    @Test
+    void insertarLeerModificarYEliminar() throws SQLException {
+        int id = DaoDeportista.insertar(new Deportista(0, "Ana Prueba", 'F', 60, 170));
+        assertTrue(id > 0);
+
+        Deportista leido = DaoDeportista.getDeportista(id);
+        assertNotNull(leido);
+        assertEquals("Ana Prueba", leido.getNombre());
+        assertEquals('F', leido.getSexo());
+        assertEquals(60, leido.getPeso());
+        assertEquals(170, leido.getAltura());
+        assertNull(DaoDeportista.getFoto(leido));
+
+        assertTrue(DaoDeportista.modificar(leido, new Deportista(id, "Ana Modificada", 'F', 62, 171)));
+        assertEquals("Ana Modificada", DaoDeportista.getDeportista(id).getNombre());
+
+        assertTrue(DaoDeportista.eliminar(leido));
+        assertNull(DaoDeportista.getDeportista(id));
+    }
+
+    @Test
+    void elFlujoRecorreLaTablaConH2() {
+        int id = DaoDeportista.insertar(new Deportista(0, "Flujo Prueba", 'M', 80, 185));
+        try {
+            List<Deportista> listado = DaoDeportista.cargarListado();
+            try (Stream<Deportista> flujo = DaoDeportista.cargarFlujo()) {
+                List<Deportista> recorridos = flujo.toList();
+                assertEquals(listado.size(), recorridos.size());
+                Deportista nuevo = recorridos.stream().filter(d -> d.getId_deportista() == id).findFirst().orElseThrow();
+                assertEquals("Flujo Prueba", nuevo.getNombre());
+                Deportista enListado = listado.stream().filter(d -> d.getId_deportista() == id).findFirst().orElseThrow();
+                assertNotSame(enListado, nuevo, "el flujo no usa las instancias canónicas de los listados");
+            }
+        } finally {
+            DaoDeportista.eliminar(new Deportista(id, "Flujo Prueba", 'M', 80, 185));
+        }
+    }
+
+    @Test
+    void getFotoNoGuardaLaFotoEnElDeportistaDeLaTabla(@TempDir Path directorio) throws SQLException, IOException {
+        int id = DaoDeportista.insertar(new Deportista(0, "Foto Prueba", 'F', 55, 165));
+        try {
+            Deportista fila = DaoDeportista.cargarListado().stream()
+                    .filter(d -> d.getId_deportista() == id).findFirst().orElseThrow();
+            assertNull(DaoDeportista.getFoto(fila));
+            assertFalse(fila.isFotoCargada());
+
+            // Otro usuario pone una foto: la misma instancia de la tabla la ve al volver a pedirla
+            File imagen = Files.write(directorio.resolve("foto.png"), new byte[]{1, 2, 3, 4}).toFile();
+            Deportista conFoto = new Deportista(id, "Foto Prueba", 'F', 55, 165, DaoDeportista.convertFileToBlob(imagen));
+            assertTrue(DaoDeportista.modificar(fila, conFoto));
+            Blob foto = DaoDeportista.getFoto(fila);
+            assertNotNull(foto);
+            assertArrayEquals(new byte[]{1, 2, 3, 4}, foto.getBytes(1, (int) foto.length()));
+            assertFalse(fila.isFotoCargada());
+            assertNull(fila.getFoto());
+        } finally {
+            DaoDeportista.eliminar(new Deportista(id, "Foto Prueba", 'F', 55, 165));
+        }
+    }
+}
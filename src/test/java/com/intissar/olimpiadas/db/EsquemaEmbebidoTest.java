@@ -0,0 +1,102 @@
+package com.intissar.olimpiadas.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de EsquemaEmbebido contra una base de datos H2 en memoria nueva en cada prueba,
+ * con la misma URL que usa el ConnectionPool con motor=h2.
+ */
+class EsquemaEmbebidoTest {
+    private static int bases;
+
+    private Connection connection;
+
+    @BeforeEach
+    void abrir() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:esquema" + (++bases) +
+                ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;IGNORECASE=TRUE", "sa", "");
+    }
+
+    @AfterEach
+    void cerrar() throws SQLException {
+        connection.close();
+    }
+
+    private int contar(String tabla) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tabla)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    void creaLasTablasConLosDatosDelVolcado() throws SQLException {
+        EsquemaEmbebido.aplicar(connection);
+        for (String tabla : new String[]{"Deporte", "Deportista", "Equipo", "Olimpiada"}) {
+            assertTrue(contar(tabla) > 0, tabla + " tiene las filas de olimpiadas.sql");
+        }
+        assertEquals(0, contar("Evento"));
+        assertEquals(0, contar("Participacion"));
+        assertTrue(connection.getAutoCommit(), "deja la conexión como estaba");
+    }
+
+    @Test
+    void aplicarSobreUnEsquemaExistenteNoHaceNada() throws SQLException {
+        EsquemaEmbebido.aplicar(connection);
+        int deportes = contar("Deporte");
+        EsquemaEmbebido.aplicar(connection);
+        assertEquals(deportes, contar("Deporte"));
+    }
+
+    @Test
+    void losIdsNuevosSiguenAlUltimoDelVolcado() throws SQLException {
+        EsquemaEmbebido.aplicar(connection);
+        int ultimo;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(id_deporte) FROM Deporte")) {
+            rs.next();
+            ultimo = rs.getInt(1);
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement("INSERT INTO Deporte (nombre) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, "Petanca");
+            pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                assertTrue(rs.next());
+                assertEquals(ultimo + 1, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void creaLosIndicesYLasClavesAjenas() throws SQLException {
+        EsquemaEmbebido.aplicar(connection);
+        Set<String> indices = new HashSet<>();
+        for (String tabla : new String[]{"deportista", "equipo", "evento", "participacion"}) {
+            try (ResultSet rs = connection.getMetaData().getIndexInfo(null, null, tabla, false, false)) {
+                while (rs.next()) {
+                    indices.add(rs.getString("INDEX_NAME").toLowerCase());
+                }
+            }
+        }
+        assertTrue(indices.containsAll(Set.of("idx_deportista_nombre", "idx_equipo_nombre", "idx_evento_nombre",
+                "idx_participacion_medalla")), indices.toString());
+        try (Statement stmt = connection.createStatement()) {
+            assertThrows(SQLException.class, () -> stmt.executeUpdate(
+                    "INSERT INTO Evento (id_evento, nombre, id_olimpiada, id_deporte) VALUES (1, 'Sin olimpiada', -1, -1)"));
+        }
+    }
+}
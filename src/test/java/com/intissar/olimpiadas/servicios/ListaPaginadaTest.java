@@ -0,0 +1,276 @@
+package com.intissar.olimpiadas.servicios;
+
+import com.intissar.olimpiadas.dao.FuentePaginada;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de ListaPaginada con una fuente en memoria de filas 1..TOTAL (cada fila es su propia clave)
+ * y un cargador que deja las páginas pendientes hasta que la prueba las ejecuta.
+ */
+class ListaPaginadaTest {
+    private static final int TOTAL = 100;
+    private static final int TAMANIO = 10;
+
+    private Fuente fuente;
+    private Queue<Runnable> pendientes;
+    private List<String> cambios;
+
+    @BeforeEach
+    void preparar() {
+        fuente = new Fuente();
+        pendientes = new ArrayDeque<>();
+        cambios = new ArrayList<>();
+    }
+
+    private ListaPaginada<Integer, Integer> crear(int maxPaginas) {
+        return crear(TOTAL, TAMANIO, maxPaginas);
+    }
+
+    private ListaPaginada<Integer, Integer> crear(int total, int tamanio, int maxPaginas) {
+        ListaPaginada<Integer, Integer> lista = ListaPaginada.crear(fuente, total, tamanio, maxPaginas, new ListaPaginada.Cargador() {
+            @Override
+            public <R> Future<R> ejecutar(Callable<R> carga, Consumer<R> alTerminar, Consumer<Throwable> alFallar) {
+                FutureTask<R> tarea = new FutureTask<>(carga) {
+                    @Override
+                    protected void done() {
+                        if (isCancelled()) {
+                            return; // Como ServicioCarga, una carga cancelada no entrega nada
+                        }
+                        try {
+                            alTerminar.accept(get());
+                        } catch (ExecutionException e) {
+                            alFallar.accept(e.getCause());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                };
+                pendientes.add(tarea);
+                return tarea;
+            }
+        });
+        lista.addListener((ListChangeListener<Integer>) cambio -> {
+            while (cambio.next()) {
+                cambios.add(cambio.getFrom() + "-" + cambio.getTo() + " " + cambio.getRemoved());
+            }
+        });
+        return lista;
+    }
+
+    private void cargarPendientes() {
+        while (!pendientes.isEmpty()) {
+            pendientes.poll().run();
+        }
+    }
+
+    @Test
+    void laPrimeraPaginaSeCargaAlCrear() {
+        ListaPaginada<Integer, Integer> lista = crear(5);
+        assertEquals(TOTAL, lista.size());
+        assertEquals(1, lista.get(0));
+        assertEquals(10, lista.get(9));
+        assertEquals(List.of("null"), fuente.pedidas);
+    }
+
+    @Test
+    void unaPaginaNoCargadaDevuelveNullHastaQueLlega() {
+        ListaPaginada<Integer, Integer> lista = crear(5);
+        assertEquals(10, lista.get(9)); // Adelanta la página 1
+        assertNull(lista.get(10));
+        assertEquals(1, pendientes.size(), "la página pedida y la adelantada son la misma");
+        cargarPendientes();
+        assertEquals(11, lista.get(10));
+        assertEquals(List.of("null", "10"), fuente.pedidas, "sigue desde la clave final de la página anterior");
+        assertEquals(List.of("10-20 [null, null, null, null, null, null, null, null, null, null]"), cambios);
+    }
+
+    @Test
+    void adelantaLaSiguientePaginaAlAcercarseAlFinal() {
+        ListaPaginada<Integer, Integer> lista = crear(5);
+        lista.get(6);
+        assertTrue(pendientes.isEmpty(), "antes de las tres cuartas partes de la página no se adelanta nada");
+        lista.get(7);
+        assertEquals(1, pendientes.size());
+        cargarPendientes();
+        assertEquals(11, lista.get(10));
+        assertTrue(pendientes.isEmpty());
+    }
+
+    @Test
+    void noAdelantaMasAllaDelFinal() {
+        ListaPaginada<Integer, Integer> lista = crear(20);
+        for (int i = 0; i < TOTAL; i += TAMANIO) {
+            lista.get(i);
+            cargarPendientes();
+        }
+        lista.get(TOTAL - 1);
+        assertTrue(pendientes.isEmpty());
+        assertEquals(TOTAL, lista.get(TOTAL - 1));
+    }
+
+    @Test
+    void saltaAUnaPaginaLejanaDesdeLaUltimaClaveConocida() {
+        ListaPaginada<Integer, Integer> lista = crear(5);
+        assertNull(lista.get(55));
+        cargarPendientes();
+        assertEquals(56, lista.get(55));
+        assertEquals(List.of("10+40"), fuente.saltos, "avanza desde el final de la página 0 hasta el de la página 4");
+        assertEquals(List.of("null", "50"), fuente.pedidas);
+    }
+
+    @Test
+    void saltaDesdeLaClaveConocidaMasCercanaPorDelante() {
+        ListaPaginada<Integer, Integer> lista = crear(5);
+        lista.get(30);
+        cargarPendientes();
+        lista.get(75);
+        cargarPendientes();
+        assertEquals(76, lista.get(75));
+        assertEquals(List.of("10+20", "40+30"), fuente.saltos);
+    }
+
+    @Test
+    void cancelaLasPaginasQueSeQuedanLejos() {
+        ListaPaginada<Integer, Integer> lista = crear(3);
+        assertNull(lista.get(50));
+        assertNull(lista.get(90)); // Se arrastra la barra de desplazamiento antes de que llegue la página 5
+        cargarPendientes();
+        assertEquals(List.of("10+80"), fuente.saltos, "la página 5 no se llega a leer");
+        assertEquals(List.of("null", "90"), fuente.pedidas);
+        assertEquals(List.of("90-100 [null, null, null, null, null, null, null, null, null, null]"), cambios);
+        assertEquals(91, lista.get(90));
+    }
+
+    @Test
+    void unaListaCerradaNoCargaNiAvisa() {
+        ListaPaginada<Integer, Integer> lista = crear(5);
+        assertNull(lista.get(50));
+        lista.cerrar();
+        cargarPendientes();
+        assertEquals(List.of("null"), fuente.pedidas);
+        assertTrue(cambios.isEmpty());
+        assertNull(lista.get(60));
+        assertTrue(pendientes.isEmpty(), "después de cerrar no se piden más páginas");
+    }
+
+    @Test
+    void recuerdaUnNumeroLimitadoDeClavesFinales() {
+        int total = ListaPaginada.MAX_CLAVES + 500;
+        fuente.total = total;
+        ListaPaginada<Integer, Integer> lista = crear(total, 1, 3);
+        for (int i = 0; i < total; i++) {
+            lista.get(i);
+            cargarPendientes();
+        }
+        assertTrue(fuente.saltos.isEmpty(), "al avanzar de página en página no hace falta saltar");
+        assertNull(lista.get(100));
+        cargarPendientes();
+        assertEquals(101, lista.get(100));
+        assertTrue(fuente.saltos.contains("null+100"), "las claves de las primeras páginas se han olvidado");
+    }
+
+    @Test
+    void descartaLasPaginasMasAlejadasDeLaUltimaPedida() {
+        ListaPaginada<Integer, Integer> lista = crear(3);
+        for (int pagina = 1; pagina <= 4; pagina++) {
+            lista.get(pagina * TAMANIO);
+            cargarPendientes();
+        }
+        // Quedan las páginas 2, 3 y 4; la 0 y la 1 se han descartado
+        assertEquals(41, lista.get(40));
+        assertEquals(31, lista.get(30));
+        assertEquals(21, lista.get(20));
+        assertTrue(pendientes.isEmpty());
+        assertNull(lista.get(0));
+        assertEquals(1, pendientes.size(), "la página descartada se vuelve a pedir");
+        cargarPendientes();
+        assertEquals(1, lista.get(0));
+        assertNull(lista.get(40), "al volver a la página 0 la más alejada es la 4");
+    }
+
+    @Test
+    void avisaDeLasFilasDescartadas() {
+        ListaPaginada<Integer, Integer> lista = crear(3);
+        for (int pagina = 1; pagina <= 3; pagina++) {
+            lista.get(pagina * TAMANIO);
+            cargarPendientes();
+        }
+        assertEquals("0-10 " + IntStream.rangeClosed(1, 10).boxed().toList(), cambios.get(cambios.size() - 1));
+    }
+
+    @Test
+    void reemplazaUnaFilaDeUnaPaginaEnMemoria() {
+        ListaPaginada<Integer, Integer> lista = crear(5);
+        lista.reemplazar(4, 400);
+        assertEquals(400, lista.get(3));
+        assertEquals(List.of("3-4 [4]"), cambios);
+    }
+
+    @Test
+    void noHaceNadaAlReemplazarUnaFilaQueNoEstaEnMemoria() {
+        ListaPaginada<Integer, Integer> lista = crear(5);
+        lista.reemplazar(50, 500);
+        assertTrue(cambios.isEmpty());
+        assertTrue(pendientes.isEmpty());
+        assertNull(lista.get(49));
+        cargarPendientes();
+        assertEquals(50, lista.get(49), "la fila se lee de la fuente cuando se pide su página");
+    }
+
+    @Test
+    void unaFuenteVaciaNoCargaNada() {
+        fuente.total = 0;
+        ListaPaginada<Integer, Integer> lista = ListaPaginada.crear(fuente, 0, TAMANIO, 5, null);
+        assertEquals(0, lista.size());
+        assertTrue(fuente.pedidas.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> lista.get(0));
+    }
+
+    /**
+     * Fuente con las filas 1..total que apunta las páginas y saltos que se le piden
+     */
+    private static class Fuente implements FuentePaginada<Integer, Integer> {
+        int total = TOTAL;
+        final List<String> pedidas = new ArrayList<>(); // clave despuesDe de cada página pedida
+        final List<String> saltos = new ArrayList<>(); // "despuesDe+filas" de cada llamada a claveTras
+
+        @Override
+        public int contar() {
+            return total;
+        }
+
+        @Override
+        public List<Integer> cargarPagina(Integer despuesDe, int limite) {
+            pedidas.add(String.valueOf(despuesDe));
+            int desde = despuesDe == null ? 1 : despuesDe + 1;
+            return IntStream.range(desde, Math.min(total + 1, desde + limite)).boxed().toList();
+        }
+
+        @Override
+        public Integer clave(Integer fila) {
+            return fila;
+        }
+
+        @Override
+        public Integer claveTras(Integer despuesDe, int filas) {
+            saltos.add(despuesDe + "+" + filas);
+            int clave = (despuesDe == null ? 0 : despuesDe) + filas;
+            return clave <= total ? clave : null;
+        }
+    }
+}